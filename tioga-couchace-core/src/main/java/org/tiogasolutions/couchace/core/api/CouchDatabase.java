@@ -16,12 +16,16 @@
 
 package org.tiogasolutions.couchace.core.api;
 
+import org.tiogasolutions.couchace.core.api.cache.CouchEntityCache;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
 import org.tiogasolutions.couchace.core.api.request.*;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpClient;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 
+import java.util.function.Function;
+
 /**
  * User: harlan
  * Date: 2/1/14
@@ -51,6 +55,19 @@ public interface CouchDatabase {
 
     DeleteRequestFactory delete();
 
+    BulkRequestFactory bulk();
+
+    /**
+     * Reads the entity, applies the mutator and puts the result, reading and mutating again on a 409 conflict.
+     * @param entityClass -
+     * @param documentId -
+     * @param mutator - given the current entity returns the entity to put, may be called once per attempt
+     * @return UpdateEntityRequest
+     */
+    <T> UpdateEntityRequest<T> update(Class<T> entityClass, String documentId, Function<T, T> mutator);
+
+    ChangesRequestFactory changes();
+
     CouchFeatureSet getFeatureSet();
 
     CouchJsonStrategy getJsonStrategy();
@@ -59,4 +76,14 @@ public interface CouchDatabase {
 
     CouchMetaRepository getMetaRepository();
 
+    /**
+     * @return the entity cache, null when entities are not cached.
+     */
+    CouchEntityCache getEntityCache();
+
+    /**
+     * @return the metrics the http client and json strategy of this database record to, null when not recorded.
+     */
+    CouchMetrics getMetrics();
+
 }
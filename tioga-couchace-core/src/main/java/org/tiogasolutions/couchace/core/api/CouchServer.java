@@ -16,30 +16,67 @@
 
 package org.tiogasolutions.couchace.core.api;
 
+import org.tiogasolutions.couchace.core.api.cache.CouchEntityCache;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
 import org.tiogasolutions.couchace.core.api.request.CouchFeatureSet;
+import org.tiogasolutions.couchace.core.internal.ClusteredCouchHttpClient;
 import org.tiogasolutions.couchace.core.internal.CouchDatabaseImpl;
+import org.tiogasolutions.couchace.core.internal.HedgingCouchHttpInterceptor;
+import org.tiogasolutions.couchace.core.internal.InterceptingCouchHttpClient;
+import org.tiogasolutions.couchace.core.internal.RetryingCouchHttpInterceptor;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpInterceptor;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpClient;
 import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * User: harlan
  * Date: 2/10/14
  * Time: 1:47 PM
  */
-public class CouchServer {
+public class CouchServer implements AutoCloseable {
+    private final CouchHttpClient client;
+    private final HedgingCouchHttpInterceptor hedgingInterceptor;
     private final CouchHttpClient httpClient;
     private final CouchJsonStrategy jsonStrategy;
     private final CouchMetaRepository metaRepository;
+    private final CouchEntityCache entityCache;
+    private final CouchMetrics metrics;
 
     public CouchServer(CouchSetup couchSetup) {
-        this.httpClient = couchSetup.getHttpClient();
+        // Retries go last so they repeat only the call to the client, each hedged call has its own retries.
+        List<CouchHttpInterceptor> interceptors = new ArrayList<>(couchSetup.getInterceptors());
+        this.hedgingInterceptor = (couchSetup.getHedgeSetup() != null)
+                ? new HedgingCouchHttpInterceptor(couchSetup.getHedgeSetup())
+                : null;
+        if (hedgingInterceptor != null) {
+            interceptors.add(hedgingInterceptor);
+        }
+        // A cluster retries within each node, with a circuit breaker per node.
+        if (couchSetup.getRetrySetup() != null && couchSetup.getClusterSetup() == null) {
+            interceptors.add(new RetryingCouchHttpInterceptor(couchSetup.getRetrySetup(), RetryingCouchHttpInterceptor.hostOf(couchSetup.getUrl())));
+        }
+
+        // A cluster spreads the calls over a client per node.
+        this.client = (couchSetup.getClusterSetup() != null)
+                ? new ClusteredCouchHttpClient(couchSetup)
+                : couchSetup.getHttpClient();
+
+        // Without interceptors every call goes straight to the client.
+        this.httpClient = interceptors.isEmpty()
+                ? client
+                : new InterceptingCouchHttpClient(client, interceptors);
         this.jsonStrategy = couchSetup.getJsonStrategy();
         this.metaRepository = couchSetup.getMetaRepository();
+        this.entityCache = couchSetup.getEntityCache();
+        this.metrics = couchSetup.getMetrics();
     }
 
     public void assertConnection() throws CouchHttpException {
@@ -62,11 +99,26 @@ public class CouchServer {
     }
 
     public CouchDatabase database(String databaseName) {
-        return new CouchDatabaseImpl(databaseName, httpClient, jsonStrategy, metaRepository, CouchFeatureSet.empty());
+        return new CouchDatabaseImpl(databaseName, httpClient, jsonStrategy, metaRepository, entityCache, metrics, CouchFeatureSet.empty());
     }
 
     public CouchDatabase database(String databaseName, CouchFeatureSet couchFeatureSet) {
-        return new CouchDatabaseImpl(databaseName, httpClient, jsonStrategy, metaRepository, couchFeatureSet);
+        return new CouchDatabaseImpl(databaseName, httpClient, jsonStrategy, metaRepository, entityCache, metrics, couchFeatureSet);
+    }
+
+    /**
+     * Stops the background work of the server, the hedging threads and a cluster with its node clients. The http
+     * client of CouchSetup may be shared with other servers so it is left open, close it on its own when it is
+     * AutoCloseable.
+     */
+    @Override
+    public void close() {
+        if (hedgingInterceptor != null) {
+            hedgingInterceptor.close();
+        }
+        if (client instanceof ClusteredCouchHttpClient) {
+            ((ClusteredCouchHttpClient) client).close();
+        }
     }
 
 }
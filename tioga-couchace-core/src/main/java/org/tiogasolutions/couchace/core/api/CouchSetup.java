@@ -16,15 +16,27 @@
 
 package org.tiogasolutions.couchace.core.api;
 
+import org.tiogasolutions.couchace.core.api.cache.CouchEntityCache;
+import org.tiogasolutions.couchace.core.api.cache.SimpleCouchEntityCache;
+import org.tiogasolutions.couchace.core.api.cluster.ClusterSetup;
 import org.tiogasolutions.couchace.core.api.injectable.CouchInjectables;
 import org.tiogasolutions.couchace.core.api.injectable.MissingInjectableResponse;
 import org.tiogasolutions.couchace.core.api.injectable.SimpleCouchInjectables;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
+import org.tiogasolutions.couchace.core.api.metrics.SimpleCouchMetrics;
+import org.tiogasolutions.couchace.core.spi.http.ConnectionPoolSetup;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpClient;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpInterceptor;
+import org.tiogasolutions.couchace.core.spi.http.HedgeSetup;
+import org.tiogasolutions.couchace.core.spi.http.RetrySetup;
 import org.tiogasolutions.couchace.core.spi.http.SslSetup;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * User: harlan
@@ -45,6 +57,13 @@ public class CouchSetup {
     private String userName;
     private String password;
     private SslSetup sslSetup;
+    private ConnectionPoolSetup connectionPoolSetup;
+    private CouchEntityCache entityCache;
+    private CouchMetrics metrics;
+    private List<CouchHttpInterceptor> interceptors = new ArrayList<>();
+    private RetrySetup retrySetup;
+    private HedgeSetup hedgeSetup;
+    private ClusterSetup clusterSetup;
 
     public CouchSetup(String url) {
         this.url = url;
@@ -55,11 +74,91 @@ public class CouchSetup {
         return this;
     }
 
+    public CouchSetup pool(int maxTotal, int maxPerRoute) {
+        connectionPoolSetup = new ConnectionPoolSetup()
+                .setMaxTotal(maxTotal)
+                .setMaxPerRoute(maxPerRoute);
+        return this;
+    }
+
+    /**
+     * Caches entities read by document id, see SimpleCouchEntityCache.
+     * @param maxSize - maximum number of entities cached
+     * @param timeToLive - milliseconds an entity stays cached
+     * @return CouchSetup
+     */
+    public CouchSetup cache(int maxSize, long timeToLive) {
+        entityCache = new SimpleCouchEntityCache(maxSize, timeToLive);
+        return this;
+    }
+
+    /**
+     * Records latency, byte and error counts of every call and JSON read and write time in memory, see
+     * SimpleCouchMetrics (available from getMetrics()).
+     * @return CouchSetup
+     */
+    public CouchSetup metrics() {
+        metrics = new SimpleCouchMetrics();
+        return this;
+    }
+
+    /**
+     * Retries transient failures of idempotent calls with backoff and guards the host with a circuit breaker
+     * using the defaults of RetrySetup.
+     * @return CouchSetup
+     */
+    public CouchSetup retry() {
+        retrySetup = new RetrySetup();
+        return this;
+    }
+
+    /**
+     * Sends a read that has not answered after 50 milliseconds a second time and takes the first answer, hedging at
+     * most one read in ten, see HedgeSetup.
+     * @return CouchSetup
+     */
+    public CouchSetup hedge() {
+        hedgeSetup = new HedgeSetup();
+        return this;
+    }
+
+    /**
+     * Calls the nodes of a cluster directly, balancing calls round robin and failing reads over to another node,
+     * see ClusterSetup. The nodes are used instead of the url.
+     * @param urls - the nodes, each taking reads and writes
+     * @return CouchSetup
+     */
+    public CouchSetup cluster(String... urls) {
+        clusterSetup = new ClusterSetup(urls);
+        return this;
+    }
+
+    /**
+     * Adds an interceptor to the chain around every call made through the CouchHttpClient, interceptors run in the
+     * order they are added.
+     * @param interceptor - the interceptor
+     * @return CouchSetup
+     */
+    public CouchSetup addInterceptor(CouchHttpInterceptor interceptor) {
+        if (interceptor == null) {
+            throw CouchException.badRequest("CouchHttpInterceptor cannot be null.");
+        }
+        interceptors.add(interceptor);
+        return this;
+    }
+
     public CouchSetup(CouchSetup couchSetup) {
         this.url = couchSetup.getUrl();
         this.userName = couchSetup.getUserName();
         this.password = couchSetup.getPassword();
         this.sslSetup = couchSetup.getSslSetup();
+        this.connectionPoolSetup = couchSetup.getConnectionPoolSetup();
+        this.entityCache = couchSetup.getEntityCache();
+        this.metrics = couchSetup.getMetrics();
+        this.interceptors = new ArrayList<>(couchSetup.getInterceptors());
+        this.retrySetup = couchSetup.getRetrySetup();
+        this.hedgeSetup = couchSetup.getHedgeSetup();
+        this.clusterSetup = couchSetup.getClusterSetup();
         this.httpClientClass = couchSetup.getHttpClientClass();
         this.jsonStrategyClass = couchSetup.getJsonStrategyClass();
         this.httpClient = couchSetup.getHttpClient();
@@ -69,6 +168,26 @@ public class CouchSetup {
         this.missingInjectableResponse = couchSetup.getMissingInjectableResponse();
     }
 
+    /**
+     * @param url - the url of one node of the cluster
+     * @return a copy of this setup for the node, creating a new http client of the same class without interceptors,
+     * retries or cluster
+     */
+    public CouchSetup nodeSetup(String url) {
+        CouchSetup nodeSetup = new CouchSetup(url);
+        nodeSetup.userName = userName;
+        nodeSetup.password = password;
+        nodeSetup.sslSetup = sslSetup;
+        nodeSetup.connectionPoolSetup = connectionPoolSetup;
+        nodeSetup.httpClientClass = (httpClientClass != null || httpClient == null) ? httpClientClass : httpClient.getClass();
+        nodeSetup.jsonStrategyClass = jsonStrategyClass;
+        nodeSetup.jsonStrategy = jsonStrategy;
+        nodeSetup.metaRepository = metaRepository;
+        nodeSetup.injectables = injectables;
+        nodeSetup.missingInjectableResponse = missingInjectableResponse;
+        return nodeSetup;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -85,6 +204,34 @@ public class CouchSetup {
         return sslSetup;
     }
 
+    public ConnectionPoolSetup getConnectionPoolSetup() {
+        return connectionPoolSetup;
+    }
+
+    public CouchEntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public CouchMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<CouchHttpInterceptor> getInterceptors() {
+        return Collections.unmodifiableList(interceptors);
+    }
+
+    public RetrySetup getRetrySetup() {
+        return retrySetup;
+    }
+
+    public HedgeSetup getHedgeSetup() {
+        return hedgeSetup;
+    }
+
+    public ClusterSetup getClusterSetup() {
+        return clusterSetup;
+    }
+
     public CouchSetup setUserName(String userName) {
         this.userName = userName;
         return this;
@@ -100,6 +247,36 @@ public class CouchSetup {
         return this;
     }
 
+    public CouchSetup setConnectionPoolSetup(ConnectionPoolSetup connectionPoolSetup) {
+        this.connectionPoolSetup = connectionPoolSetup;
+        return this;
+    }
+
+    public CouchSetup setEntityCache(CouchEntityCache entityCache) {
+        this.entityCache = entityCache;
+        return this;
+    }
+
+    public CouchSetup setMetrics(CouchMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public CouchSetup setRetrySetup(RetrySetup retrySetup) {
+        this.retrySetup = retrySetup;
+        return this;
+    }
+
+    public CouchSetup setHedgeSetup(HedgeSetup hedgeSetup) {
+        this.hedgeSetup = hedgeSetup;
+        return this;
+    }
+
+    public CouchSetup setClusterSetup(ClusterSetup clusterSetup) {
+        this.clusterSetup = clusterSetup;
+        return this;
+    }
+
     public CouchSetup setHttpClient(CouchHttpClient httpClient) {
         this.httpClient = httpClient;
         httpClient.init(this);
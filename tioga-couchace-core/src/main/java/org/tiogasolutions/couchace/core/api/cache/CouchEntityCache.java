@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.cache;
+
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+
+/**
+ * Holds entities read by document id so a repeated read can be revalidated with the cached revision
+ * (If-None-Match) instead of transferring and parsing the document again. A revalidated read is handed
+ * a copy of the cached entity (see CouchJsonStrategy.copyEntityDocument), never the cached instance.
+ */
+public interface CouchEntityCache {
+
+    /**
+     * @param databaseName -
+     * @param documentId -
+     * @param entityClass -
+     * @param <T> -
+     * @return the cached document, or null if not cached, expired or of another class
+     */
+    <T> EntityDocument<T> get(String databaseName, String documentId, Class<T> entityClass);
+
+    void put(String databaseName, EntityDocument<?> document);
+
+    void remove(String databaseName, String documentId);
+
+    /**
+     * Removes every document cached for the database.
+     * @param databaseName -
+     */
+    void clear(String databaseName);
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.cache;
+
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used CouchEntityCache bounded by size, entries also expire a fixed time after being cached.
+ */
+public class SimpleCouchEntityCache implements CouchEntityCache {
+    private final int maxSize;
+    private final long timeToLive;
+    private final LinkedHashMap<Key, CacheEntry> entryMap;
+
+    /**
+     * @param maxSize - maximum number of documents held, the least recently used is evicted first
+     * @param timeToLive - milliseconds a document stays cached, zero or less to never expire
+     */
+    public SimpleCouchEntityCache(int maxSize, long timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.entryMap = new LinkedHashMap<Key, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CacheEntry> eldest) {
+                return size() > SimpleCouchEntityCache.this.maxSize;
+            }
+        };
+    }
+
+    @Override
+    public synchronized <T> EntityDocument<T> get(String databaseName, String documentId, Class<T> entityClass) {
+        Key key = new Key(databaseName, documentId);
+        CacheEntry entry = entryMap.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entryMap.remove(key);
+            return null;
+        }
+        if (!entityClass.isInstance(entry.document.getEntity())) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        EntityDocument<T> document = (EntityDocument<T>) entry.document;
+        return document;
+    }
+
+    @Override
+    public synchronized void put(String databaseName, EntityDocument<?> document) {
+        if (document.getDocumentId() == null || document.getDocumentRevision() == null || document.getEntity() == null) {
+            // Only complete documents can be revalidated.
+            return;
+        }
+        long expiresAt = (timeToLive > 0) ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+        entryMap.put(new Key(databaseName, document.getDocumentId()), new CacheEntry(document, expiresAt));
+    }
+
+    @Override
+    public synchronized void remove(String databaseName, String documentId) {
+        entryMap.remove(new Key(databaseName, documentId));
+    }
+
+    @Override
+    public synchronized void clear(String databaseName) {
+        Iterator<Key> iterator = entryMap.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().databaseName.equals(databaseName)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    private static final class Key {
+        private final String databaseName;
+        private final String documentId;
+
+        private Key(String databaseName, String documentId) {
+            this.databaseName = databaseName;
+            this.documentId = documentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return databaseName.equals(key.databaseName) && documentId.equals(key.documentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(databaseName, documentId);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final EntityDocument<?> document;
+        private final long expiresAt;
+
+        private CacheEntry(EntityDocument<?> document, long expiresAt) {
+            this.document = document;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.request.ChangesRequest;
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the _changes feed of a database. A reader thread parses the rows into a bounded queue and a
+ * consumer thread passes them to the handler, when the handler falls behind the queue fills up and the
+ * reader stops reading the response until there is room again. When a longpoll or continuous response
+ * ends the feed reconnects from the last sequence read, waiting out the reconnect delay when the response
+ * brought no changes, a normal feed stops once it has been handled. A transient failure (an IOException or
+ * a 502, 503 or 504) is retried from the last sequence read with a growing delay, any other stops the feed.
+ *
+ * The sequence of each handled change is saved to the checkpoint store (if any) every checkpointInterval
+ * changes and when the feed stops. A change is only checkpointed after the handler returned, so a
+ * restarted feed may see the changes after the last checkpoint again.
+ */
+public class ChangesFeed<D extends CouchDocument<?>> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ChangesFeed.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final RequestExecutor requestExecutor;
+    private final ChangesRequest<D> request;
+    private final CouchChangeHandler<D> handler;
+    private final BlockingQueue<CouchChange<D>> queue;
+    private final Thread readerThread;
+    private final Thread consumerThread;
+    private final CountDownLatch terminated = new CountDownLatch(2);
+    private volatile CouchChangeIterator<D> currentIterator;
+    private volatile boolean closed;
+    private volatile boolean readerDone;
+    private volatile String startSeq;
+    private volatile String lastSeq;
+    private volatile Throwable error;
+
+    public ChangesFeed(RequestExecutor requestExecutor, String name, ChangesRequest<D> request, CouchChangeHandler<D> handler) {
+        this.requestExecutor = requestExecutor;
+        this.request = request;
+        this.handler = handler;
+        this.queue = new ArrayBlockingQueue<>(request.getQueueCapacity());
+        this.readerThread = new Thread(this::read, "couchace-changes-reader-" + name);
+        this.readerThread.setDaemon(true);
+        this.consumerThread = new Thread(this::consume, "couchace-changes-consumer-" + name);
+        this.consumerThread.setDaemon(true);
+    }
+
+    /**
+     * Starts the reader and consumer threads, called once by ChangesRequest.start.
+     */
+    public ChangesFeed<D> start() {
+        startSeq = request.getSince();
+        CouchCheckpointStore checkpointStore = request.getCheckpointStore();
+        if (startSeq == null && checkpointStore != null) {
+            startSeq = checkpointStore.readCheckpoint(request.getCheckpointId());
+        }
+        lastSeq = startSeq;
+        readerThread.start();
+        consumerThread.start();
+        return this;
+    }
+
+    private void read() {
+        String since = startSeq;
+        int failures = 0;
+        try {
+            while (!closed) {
+                long connected = System.currentTimeMillis();
+                boolean changed = false;
+                try (CouchChangeIterator<D> iterator = requestExecutor.executeStream(request, since)) {
+                    currentIterator = iterator;
+                    while (!closed && iterator.hasNext()) {
+                        CouchChange<D> change = iterator.next();
+                        // Blocks while the handler is behind, which in turn stops us reading the response.
+                        queue.put(change);
+                        since = change.getSeq();
+                        changed = true;
+                    }
+                    if (!closed && iterator.getLastSeq() != null) {
+                        since = iterator.getLastSeq();
+                    }
+                } catch (RuntimeException e) {
+                    if (closed || !isTransient(e)) {
+                        throw e;
+                    }
+                    failures = changed ? 1 : failures + 1;
+                    long delay = getRetryDelay(failures);
+                    log.warn("Changes feed " + request.getCheckpointId() + " failed, reconnecting in " + delay + "ms: " + e.getMessage());
+                    Thread.sleep(delay);
+                    continue;
+                } finally {
+                    currentIterator = null;
+                }
+                failures = 0;
+                if (request.getFeedType() == ChangesFeedType.NORMAL) {
+                    break;
+                }
+                long wait = request.getReconnectDelay() - (System.currentTimeMillis() - connected);
+                if (!changed && wait > 0) {
+                    // The response ended at once, as when the database is not there or the server ends idle feeds.
+                    Thread.sleep(wait);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed while waiting on the queue or between connections.
+        } catch (Throwable e) {
+            if (!closed) {
+                fail(e);
+            }
+        } finally {
+            readerDone = true;
+            terminated.countDown();
+        }
+    }
+
+    protected boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            } else if (cause instanceof CouchException) {
+                CouchHttpStatus status = ((CouchException) cause).getHttpStatus();
+                if (status == CouchHttpStatus.BAD_GATEWAY
+                        || status == CouchHttpStatus.SERVICE_UNAVAILABLE
+                        || status == CouchHttpStatus.GATEWAY_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected long getRetryDelay(int failures) {
+        long delay = request.getReconnectDelay();
+        for (int i = 1; i < failures && delay < request.getMaxReconnectDelay(); i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, request.getMaxReconnectDelay());
+    }
+
+    private void consume() {
+        int uncheckpointed = 0;
+        try {
+            while (!closed) {
+                CouchChange<D> change = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (change == null) {
+                    if (readerDone) {
+                        break;
+                    }
+                    continue;
+                }
+                handler.handle(change);
+                lastSeq = change.getSeq();
+                if (++uncheckpointed >= request.getCheckpointInterval()) {
+                    checkpoint();
+                    uncheckpointed = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed while waiting on the queue.
+        } catch (Throwable e) {
+            fail(e);
+        } finally {
+            if (uncheckpointed > 0) {
+                checkpoint();
+            }
+            stop();
+            terminated.countDown();
+        }
+    }
+
+    private void checkpoint() {
+        CouchCheckpointStore checkpointStore = request.getCheckpointStore();
+        if (checkpointStore != null && lastSeq != null) {
+            try {
+                checkpointStore.writeCheckpoint(request.getCheckpointId(), lastSeq);
+            } catch (Exception e) {
+                log.warn("Error writing changes checkpoint " + request.getCheckpointId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (error == null) {
+            error = e;
+        }
+        log.error("Changes feed " + request.getCheckpointId() + " stopped: " + e.getMessage(), e);
+        stop();
+    }
+
+    private void stop() {
+        closed = true;
+        readerThread.interrupt();
+        CouchChangeIterator<D> iterator = currentIterator;
+        if (iterator != null) {
+            try {
+                iterator.close();
+            } catch (Exception e) {
+                log.debug("Error closing changes stream: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops reading, the change being handled is finished but queued changes are dropped. Closing the
+     * response may wait for a read in progress, use awaitTermination to wait for the threads to end.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * @param timeout -
+     * @param unit -
+     * @return true if both threads ended within the timeout.
+     * @throws InterruptedException -
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    public boolean isRunning() {
+        return terminated.getCount() > 0;
+    }
+
+    /**
+     * @return the sequence of the last handled change, or where the feed started.
+     */
+    public String getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * @return the error that stopped the feed, null when it was closed or ended normally.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return number of changes read but not yet handled.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+}
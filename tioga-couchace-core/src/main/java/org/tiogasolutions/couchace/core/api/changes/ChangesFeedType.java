@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+/**
+ * How the _changes feed is delivered, see the CouchDB feed parameter.
+ */
+public enum ChangesFeedType {
+    /** Returns the changes so far and ends. */
+    NORMAL("normal"),
+    /** Waits for at least one change (or the timeout) before returning the changes. */
+    LONGPOLL("longpoll"),
+    /** Keeps the connection open, sending each change as a line of JSON as it happens. */
+    CONTINUOUS("continuous");
+
+    private final String queryValue;
+
+    ChangesFeedType(String queryValue) {
+        this.queryValue = queryValue;
+    }
+
+    public String getQueryValue() {
+        return queryValue;
+    }
+}
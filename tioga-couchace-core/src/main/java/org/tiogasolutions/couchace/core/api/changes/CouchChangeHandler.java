@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+
+/**
+ * Called by a ChangesFeed for each change, one at a time and in sequence order.
+ */
+public interface CouchChangeHandler<D extends CouchDocument<?>> {
+
+    /**
+     * @param change - the change, a thrown exception stops the feed.
+     */
+    void handle(CouchChange<D> change) throws Exception;
+
+}
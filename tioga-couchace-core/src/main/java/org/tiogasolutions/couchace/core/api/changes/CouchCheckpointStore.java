@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+/**
+ * Persists the last handled sequence of a changes feed so a restarted feed resumes where it left off.
+ */
+public interface CouchCheckpointStore {
+
+    /**
+     * @param checkpointId - identifies the feed.
+     * @return the last saved sequence, null when the feed was never checkpointed.
+     */
+    String readCheckpoint(String checkpointId);
+
+    /**
+     * @param checkpointId - identifies the feed.
+     * @param seq - the sequence of the last handled change.
+     */
+    void writeCheckpoint(String checkpointId, String seq);
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.response.GetDocumentResponse;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
+
+import java.util.Map;
+
+/**
+ * Keeps checkpoints in _local/{checkpointId} documents of the database, the same way CouchDB replication
+ * does. Local documents are not replicated and do not show up in the _changes feed.
+ */
+public class LocalDocumentCheckpointStore implements CouchCheckpointStore {
+
+    private final CouchDatabase database;
+
+    public LocalDocumentCheckpointStore(CouchDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public String readCheckpoint(String checkpointId) {
+        TextDocument document = readLocalDocument(checkpointId);
+        if (document == null) {
+            return null;
+        }
+        Map<String, String> values = CouchJsonUtil.parseJson(document.getContent());
+        return values.get("last_seq");
+    }
+
+    @Override
+    public void writeCheckpoint(String checkpointId, String seq) {
+        TextDocument document = readLocalDocument(checkpointId);
+        String revision = (document != null) ? document.getDocumentRevision() : null;
+        String json = "{\"last_seq\":\"" + seq.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+
+        WriteResponse response = database.put().document(localDocumentId(checkpointId), json, revision).execute();
+        if (response.isError()) {
+            throw CouchException.internalServerError("Error writing checkpoint " + checkpointId + ": " + response.getErrorReason());
+        }
+    }
+
+    protected TextDocument readLocalDocument(String checkpointId) {
+        GetDocumentResponse response = database.get().document(localDocumentId(checkpointId)).execute();
+        if (response.isNotFound()) {
+            return null;
+        } else if (response.isError()) {
+            throw CouchException.internalServerError("Error reading checkpoint " + checkpointId + ": " + response.getErrorReason());
+        }
+        return response.getFirstDocument();
+    }
+
+    protected String localDocumentId(String checkpointId) {
+        return "_local/" + checkpointId;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps checkpoints in memory, they are lost when the JVM exits.
+ */
+public class SimpleCouchCheckpointStore implements CouchCheckpointStore {
+
+    private final Map<String, String> checkpointMap = new ConcurrentHashMap<>();
+
+    @Override
+    public String readCheckpoint(String checkpointId) {
+        return checkpointMap.get(checkpointId);
+    }
+
+    @Override
+    public void writeCheckpoint(String checkpointId, String seq) {
+        checkpointMap.put(checkpointId, seq);
+    }
+
+}
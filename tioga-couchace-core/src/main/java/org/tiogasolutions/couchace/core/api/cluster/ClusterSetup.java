@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The nodes of a CouchDB cluster called directly rather than through a single url, all times are in milliseconds.
+ * Each call goes to a node chosen by the balancer (round robin by default) among the nodes that are up and take
+ * that kind of call. A read that fails with an IOException or a 502, 503 or 504 is sent to another node, a write
+ * only when it could not connect. A node that fails is taken down until a health check (GET / every ten seconds by
+ * default) answers OK.
+ */
+public class ClusterSetup {
+
+    private final List<Node> nodes = new ArrayList<>();
+    private CouchNodeBalancer balancer = new RoundRobinNodeBalancer();
+    private long healthCheckInterval = 10000;
+
+    public ClusterSetup() {
+    }
+
+    /**
+     * @param urls - nodes taking reads and writes
+     */
+    public ClusterSetup(String... urls) {
+        for (String url : urls) {
+            addNode(url);
+        }
+    }
+
+    /**
+     * @param url - a node taking reads and writes
+     * @return this ClusterSetup
+     */
+    public ClusterSetup addNode(String url) {
+        return addNode(url, true, true);
+    }
+
+    /**
+     * @param url - a node only taking reads (HEAD and GET)
+     * @return this ClusterSetup
+     */
+    public ClusterSetup addReadNode(String url) {
+        return addNode(url, true, false);
+    }
+
+    /**
+     * @param url - a node only taking writes (PUT, POST and DELETE)
+     * @return this ClusterSetup
+     */
+    public ClusterSetup addWriteNode(String url) {
+        return addNode(url, false, true);
+    }
+
+    protected ClusterSetup addNode(String url, boolean read, boolean write) {
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("url cannot be empty.");
+        }
+        nodes.add(new Node(url, read, write));
+        return this;
+    }
+
+    public List<Node> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public CouchNodeBalancer getBalancer() {
+        return balancer;
+    }
+
+    /**
+     * @param balancer - chooses the node of each call, see RoundRobinNodeBalancer, LeastOutstandingNodeBalancer
+     *                 and LatencyWeightedNodeBalancer.
+     * @return this ClusterSetup
+     */
+    public ClusterSetup setBalancer(CouchNodeBalancer balancer) {
+        if (balancer == null) {
+            throw new IllegalArgumentException("balancer cannot be null.");
+        }
+        this.balancer = balancer;
+        return this;
+    }
+
+    public long getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    /**
+     * @param healthCheckInterval - time between health checks of the nodes, zero or less to not check them and
+     *                            so never take a node down.
+     * @return this ClusterSetup
+     */
+    public ClusterSetup setHealthCheckInterval(long healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+        return this;
+    }
+
+    public static class Node {
+        private final String url;
+        private final boolean read;
+        private final boolean write;
+
+        public Node(String url, boolean read, boolean write) {
+            this.url = url;
+            this.read = read;
+            this.write = write;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public boolean isRead() {
+            return read;
+        }
+
+        public boolean isWrite() {
+            return write;
+        }
+    }
+}
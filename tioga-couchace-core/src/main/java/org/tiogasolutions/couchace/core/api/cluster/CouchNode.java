@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.cluster;
+
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One CouchDB node of a cluster with the client used to call it and what a CouchNodeBalancer chooses by: whether
+ * it is up, the calls in flight and a moving average of its latency.
+ */
+public class CouchNode {
+    // Weight of the newest sample in the latency average.
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final String url;
+    private final boolean read;
+    private final boolean write;
+    private final CouchHttpClient httpClient;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong latency = new AtomicLong(-1);
+    private volatile boolean up = true;
+
+    public CouchNode(String url, boolean read, boolean write, CouchHttpClient httpClient) {
+        this.url = url;
+        this.read = read;
+        this.write = write;
+        this.httpClient = httpClient;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return true if reads (HEAD and GET) may be sent to the node
+     */
+    public boolean isRead() {
+        return read;
+    }
+
+    /**
+     * @return true if writes (PUT, POST and DELETE) may be sent to the node
+     */
+    public boolean isWrite() {
+        return write;
+    }
+
+    public CouchHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public void setUp(boolean up) {
+        this.up = up;
+    }
+
+    /**
+     * @return the number of calls sent to the node that have not completed
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return moving average of the latency in nanoseconds, -1 before the first call completes
+     */
+    public long getLatency() {
+        return latency.get();
+    }
+
+    /**
+     * Called when a call is sent to the node.
+     */
+    public void start() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Called when a call to the node completes, successfully or not.
+     * @param elapsedNanos -
+     */
+    public void complete(long elapsedNanos) {
+        outstanding.decrementAndGet();
+        long current;
+        long next;
+        do {
+            current = latency.get();
+            next = (current < 0) ? elapsedNanos : (long) (current + LATENCY_WEIGHT * (elapsedNanos - current));
+        } while (!latency.compareAndSet(current, next));
+    }
+
+    @Override
+    public String toString() {
+        return "CouchNode{" +
+                "url='" + url + '\'' +
+                ", read=" + read +
+                ", write=" + write +
+                ", up=" + up +
+                ", outstanding=" + outstanding +
+                ", latency=" + latency +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.cluster;
+
+import java.util.List;
+
+/**
+ * Chooses the node of a cluster a call is sent to, see RoundRobinNodeBalancer, LeastOutstandingNodeBalancer
+ * and LatencyWeightedNodeBalancer. Called for every call so it should be quick and thread safe.
+ */
+public interface CouchNodeBalancer {
+
+    /**
+     * @param nodes - the nodes that may take the call, never empty
+     * @return one of the nodes
+     */
+    CouchNode select(List<CouchNode> nodes);
+
+}
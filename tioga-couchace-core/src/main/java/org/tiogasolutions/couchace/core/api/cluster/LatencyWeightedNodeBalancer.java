@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.cluster;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends calls to a random node weighted by the inverse of its average latency, so a node twice as fast gets
+ * twice the calls. A node without a latency yet is weighted as the fastest so it is soon measured.
+ */
+public class LatencyWeightedNodeBalancer implements CouchNodeBalancer {
+
+    @Override
+    public CouchNode select(List<CouchNode> nodes) {
+        int size = nodes.size();
+        if (size == 1) {
+            return nodes.get(0);
+        }
+
+        long fastest = Long.MAX_VALUE;
+        for (CouchNode node : nodes) {
+            long latency = node.getLatency();
+            if (latency >= 0 && latency < fastest) {
+                fastest = latency;
+            }
+        }
+
+        double[] weights = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            long latency = nodes.get(i).getLatency();
+            if (latency < 0) {
+                latency = (fastest == Long.MAX_VALUE) ? 1 : fastest;
+            }
+            weights[i] = 1.0 / Math.max(latency, 1);
+            total += weights[i];
+        }
+
+        double random = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < size; i++) {
+            random -= weights[i];
+            if (random < 0) {
+                return nodes.get(i);
+            }
+        }
+        return nodes.get(size - 1);
+    }
+}
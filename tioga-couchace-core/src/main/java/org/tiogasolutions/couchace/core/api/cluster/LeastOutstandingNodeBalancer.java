@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.cluster;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends calls to the node with the fewest calls in flight, nodes that tie take turns.
+ */
+public class LeastOutstandingNodeBalancer implements CouchNodeBalancer {
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public CouchNode select(List<CouchNode> nodes) {
+        int size = nodes.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        CouchNode selected = null;
+        for (int i = 0; i < size; i++) {
+            CouchNode node = nodes.get((start + i) % size);
+            if (selected == null || node.getOutstanding() < selected.getOutstanding()) {
+                selected = node;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.design;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.IOUtil;
+import org.tiogasolutions.couchace.core.internal.util.UriUtil;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The content of a design document and its name, without the _design/ prefix.
+ */
+public class CouchDesign {
+    private static final String EXTENSION = ".json";
+
+    private final String name;
+    private final String content;
+
+    public CouchDesign(String name, String content) {
+        ArgUtil.assertNotEmpty(name, "name");
+        ArgUtil.assertNotNull(content, "content");
+        this.name = name.startsWith("_design/") ? name.substring("_design/".length()) : name;
+        this.content = content;
+    }
+
+    /**
+     * @param designFile - the design named after the file, less the .json extension
+     * @return CouchDesign
+     */
+    public static CouchDesign fromFile(Path designFile) {
+        ArgUtil.assertNotNull(designFile, "designFile");
+        return new CouchDesign(designName(designFile.getFileName().toString()), IOUtil.readText(designFile));
+    }
+
+    /**
+     * @param designUrl - the design named after the last path element, less the .json extension
+     * @return CouchDesign
+     */
+    public static CouchDesign fromUrl(URL designUrl) {
+        ArgUtil.assertNotNull(designUrl, "designUrl");
+        return new CouchDesign(designName(UriUtil.lastPathElement(designUrl.getPath())), IOUtil.readText(designUrl));
+    }
+
+    /**
+     * @param resourceName - the classpath resource, for example couch/city.json
+     * @return CouchDesign
+     */
+    public static CouchDesign fromResource(String resourceName) {
+        ArgUtil.assertNotEmpty(resourceName, "resourceName");
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = CouchDesign.class.getClassLoader();
+        }
+        URL url = classLoader.getResource(resourceName);
+        if (url == null) {
+            throw CouchException.notFound("Design resource not found: " + resourceName);
+        }
+        return fromUrl(url);
+    }
+
+    /**
+     * @param designDir - a directory holding a .json file per design
+     * @return the designs in file name order
+     */
+    public static List<CouchDesign> fromDirectory(Path designDir) {
+        ArgUtil.assertNotNull(designDir, "designDir");
+        List<Path> designFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(designDir, "*" + EXTENSION)) {
+            for (Path designFile : stream) {
+                designFiles.add(designFile);
+            }
+        } catch (IOException e) {
+            throw CouchException.internalServerError(e);
+        }
+        Collections.sort(designFiles);
+
+        List<CouchDesign> designs = new ArrayList<>();
+        for (Path designFile : designFiles) {
+            designs.add(fromFile(designFile));
+        }
+        return designs;
+    }
+
+    private static String designName(String fileName) {
+        return fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchDesign{" + name + "}";
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.design;
+
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.response.GetContentResponse;
+import org.tiogasolutions.couchace.core.api.response.GetDocumentResponse;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
+import org.tiogasolutions.couchace.core.internal.util.DelayUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings the design documents of a database in line with the given designs without rebuilding views that did
+ * not change. A design whose canonical content has the same digest as the live one is skipped. A changed design
+ * is first put under a staging id and its views are built there; CouchDB keys view indexes by their definition,
+ * so once the staged index is current the live design is replaced and picks the index up with nothing to build.
+ * The staging design is then deleted and, by default, _view_cleanup drops the index the old design used.
+ */
+public class DesignSync {
+    private static final Logger log = LoggerFactory.getLogger(DesignSync.class);
+
+    // In canonical JSON the first view name directly follows "views":{
+    private static final Pattern FIRST_VIEW_NAME = Pattern.compile("\"views\":\\{\"((?:[^\"\\\\]|\\\\.)*)\":");
+
+    private final CouchDatabase database;
+    private String stagingSuffix = "-staging";
+    private long pollInterval = 1000;
+    private long warmUpTimeout = TimeUnit.MINUTES.toMillis(30);
+    private boolean viewCleanup = true;
+
+    public DesignSync(CouchDatabase database) {
+        ArgUtil.assertNotNull(database, "database");
+        this.database = database;
+    }
+
+    /**
+     * @param stagingSuffix - appended to the design name for its staging id, "-staging" by default
+     * @return this DesignSync
+     */
+    public DesignSync stagingSuffix(String stagingSuffix) {
+        ArgUtil.assertNotEmpty(stagingSuffix, "stagingSuffix");
+        this.stagingSuffix = stagingSuffix;
+        return this;
+    }
+
+    /**
+     * @param pollInterval - milliseconds between reads of the staged index, 1000 by default
+     * @return this DesignSync
+     */
+    public DesignSync pollInterval(long pollInterval) {
+        if (pollInterval <= 0) {
+            throw new IllegalArgumentException("pollInterval must be greater than zero: " + pollInterval);
+        }
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * @param warmUpTimeout - milliseconds a design may take to build before the sync gives up, 30 minutes by
+     *                      default. The staging design is left in place and the build carries on.
+     * @return this DesignSync
+     */
+    public DesignSync warmUpTimeout(long warmUpTimeout) {
+        if (warmUpTimeout <= 0) {
+            throw new IllegalArgumentException("warmUpTimeout must be greater than zero: " + warmUpTimeout);
+        }
+        this.warmUpTimeout = warmUpTimeout;
+        return this;
+    }
+
+    /**
+     * @param viewCleanup - false to keep the index files of replaced designs, _view_cleanup needs an admin
+     * @return this DesignSync
+     */
+    public DesignSync viewCleanup(boolean viewCleanup) {
+        this.viewCleanup = viewCleanup;
+        return this;
+    }
+
+    public List<DesignSyncResult> sync(CouchDesign... designs) {
+        return sync(Arrays.asList(designs));
+    }
+
+    /**
+     * Blocks until every changed design is built and live.
+     * @param designs -
+     * @return a result per design, in order
+     */
+    public List<DesignSyncResult> sync(Collection<CouchDesign> designs) {
+        try {
+            return syncAsync(designs).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Syncs the designs side by side without holding a thread while their views build, so the application can
+     * start serving while the new views warm up.
+     * @param designs -
+     * @return a result per design, in order
+     */
+    public CompletableFuture<List<DesignSyncResult>> syncAsync(Collection<CouchDesign> designs) {
+        ArgUtil.assertNotNull(designs, "designs");
+        List<CompletableFuture<DesignSyncResult>> futures = new ArrayList<>();
+        for (CouchDesign design : designs) {
+            futures.add(syncAsync(design));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+            List<DesignSyncResult> results = new ArrayList<>();
+            for (CompletableFuture<DesignSyncResult> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    public CompletableFuture<DesignSyncResult> syncAsync(CouchDesign design) {
+        ArgUtil.assertNotNull(design, "design");
+        String canonicalJson = database.getJsonStrategy().createCanonicalJson(design.getContent());
+        String digest = digest(canonicalJson);
+
+        return database.get().document(designId(design.getName())).executeAsync().thenCompose(response -> {
+            TextDocument liveDesign = readDesign(response, design.getName());
+            if (liveDesign != null && digest.equals(digest(database.getJsonStrategy().createCanonicalJson(liveDesign.getContent())))) {
+                log.info("Design {} is unchanged", design.getName());
+                return CompletableFuture.completedFuture(new DesignSyncResult(
+                        design.getName(), DesignSyncResult.Status.UNCHANGED, digest, liveDesign.getDocumentRevision(), 0));
+            }
+            return deploy(design.getName(), canonicalJson, digest, liveDesign);
+        });
+    }
+
+    protected CompletableFuture<DesignSyncResult> deploy(String designName, String canonicalJson, String digest, TextDocument liveDesign) {
+        String liveRevision = (liveDesign != null) ? liveDesign.getDocumentRevision() : null;
+        DesignSyncResult.Status status = (liveDesign != null) ? DesignSyncResult.Status.UPDATED : DesignSyncResult.Status.CREATED;
+        long start = System.currentTimeMillis();
+
+        String viewName = firstViewName(canonicalJson);
+        if (viewName == null) {
+            // Nothing to build, the design goes live as is.
+            return putDesign(designName, canonicalJson, liveRevision)
+                    .thenApply(revision -> new DesignSyncResult(designName, status, digest, revision, 0));
+        }
+
+        String stagingName = designName + stagingSuffix;
+        log.info("Design {} changed, building its views as {}", designName, stagingName);
+        return readRevision(stagingName)
+                .thenCompose(stagingRevision -> putDesign(stagingName, canonicalJson, stagingRevision))
+                .thenCompose(stagingRevision -> warmUp(stagingName, viewName, start + warmUpTimeout)
+                        .thenCompose(ignored -> putDesign(designName, canonicalJson, liveRevision))
+                        .thenCompose(revision -> deleteDesign(stagingName, stagingRevision).thenApply(ignored -> revision)))
+                .thenCompose(revision -> {
+                    long warmUpMillis = System.currentTimeMillis() - start;
+                    log.info("Design {} is live after {} ms", designName, warmUpMillis);
+                    DesignSyncResult result = new DesignSyncResult(designName, status, digest, revision, warmUpMillis);
+                    if (viewCleanup && liveDesign != null) {
+                        return cleanupViews().thenApply(ignored -> result);
+                    }
+                    return CompletableFuture.completedFuture(result);
+                });
+    }
+
+    /**
+     * Asks for the view without waiting on it, which starts the build, then reads the design info until nothing
+     * is left to index.
+     */
+    protected CompletableFuture<Void> warmUp(String stagingName, String viewName, long deadline) {
+        String viewPath = designId(stagingName) + "/_view/" + viewName;
+        CouchHttpQuery query = CouchHttpQuery.Builder().add("limit", 0).add("stale", "update_after").build();
+        return database.get().database(viewPath, query).executeAsync()
+                .thenCompose(response -> {
+                    assertSuccess(response, "Error starting the build of " + viewPath);
+                    return pollIndex(stagingName, viewPath, deadline);
+                });
+    }
+
+    protected CompletableFuture<Void> pollIndex(String stagingName, String viewPath, long deadline) {
+        return database.get().database(designId(stagingName) + "/_info").executeAsync().thenCompose(response -> {
+            assertSuccess(response, "Error reading the index of " + designId(stagingName));
+            // updater_running is read from the nested view_index object.
+            Map<String, String> info = CouchJsonUtil.parseJson(response.getStringContent());
+            if (!"true".equals(info.get("updater_running"))) {
+                // The updater may not have started when first asked, a full read of a current index answers at once.
+                CouchHttpQuery query = CouchHttpQuery.Builder().add("limit", 0).build();
+                return database.get().database(viewPath, query).executeAsync()
+                        .thenAccept(viewResponse -> assertSuccess(viewResponse, "Error reading " + viewPath));
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new CouchException(CouchHttpStatus.GATEWAY_TIMEOUT, "Gave up waiting for the views of " + designId(stagingName) + " to build.");
+            }
+            return DelayUtil.delay(pollInterval).thenCompose(ignored -> pollIndex(stagingName, viewPath, deadline));
+        });
+    }
+
+    protected CompletableFuture<String> readRevision(String designName) {
+        return database.get().document(designId(designName)).executeAsync().thenApply(response -> {
+            TextDocument design = readDesign(response, designName);
+            return (design != null) ? design.getDocumentRevision() : null;
+        });
+    }
+
+    protected CompletableFuture<String> putDesign(String designName, String json, String revision) {
+        CompletableFuture<WriteResponse> future = (revision != null)
+                ? database.put().design(designName, json, revision).executeAsync()
+                : database.put().design(designName, json).executeAsync();
+        return future.thenApply(response -> {
+            if (response.isError()) {
+                throw new CouchException(response.getHttpStatus(), "Error writing " + designId(designName) + ": " + response.getErrorReason());
+            }
+            return response.getDocumentRevision();
+        });
+    }
+
+    protected CompletableFuture<Void> deleteDesign(String designName, String revision) {
+        return database.delete().document(designId(designName), revision).executeAsync().thenAccept(response -> {
+            if (response.isError() && !response.isNotFound()) {
+                log.warn("Error deleting {}: {}", designId(designName), response.getErrorReason());
+            }
+        });
+    }
+
+    protected CompletableFuture<Void> cleanupViews() {
+        return database.post().database("_view_cleanup", "{}").executeAsync().thenAccept(response -> {
+            // CouchDB answers 202 Accepted, the cleanup runs in the background.
+            if (!response.getHttpStatus().isSuccess()) {
+                log.warn("Error cleaning up views: {}", response.getErrorReason());
+            }
+        });
+    }
+
+    private TextDocument readDesign(GetDocumentResponse response, String designName) {
+        if (response.isNotFound()) {
+            return null;
+        } else if (response.isError()) {
+            throw new CouchException(response.getHttpStatus(), "Error reading " + designId(designName) + ": " + response.getErrorReason());
+        }
+        return response.getFirstDocument();
+    }
+
+    private void assertSuccess(GetContentResponse response, String message) {
+        if (response.isError()) {
+            throw new CouchException(response.getHttpStatus(), message + ": " + response.getErrorReason());
+        }
+    }
+
+    private static String designId(String designName) {
+        return "_design/" + designName;
+    }
+
+    /**
+     * @param canonicalJson - the design as written by createCanonicalJson
+     * @return the name of its first view, null when it has none
+     */
+    protected static String firstViewName(String canonicalJson) {
+        Matcher matcher = FIRST_VIEW_NAME.matcher(canonicalJson);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * @param canonicalJson - the design as written by createCanonicalJson
+     * @return the SHA-256 of the design, in hex
+     */
+    public static String digest(String canonicalJson) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalJson.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw CouchException.internalServerError(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.design;
+
+/**
+ * What a DesignSync did with one design.
+ */
+public class DesignSyncResult {
+
+    public enum Status {
+        /** The live design already had the same content and was left alone. */
+        UNCHANGED,
+        /** There was no live design. */
+        CREATED,
+        /** The live design was replaced once its new views were built. */
+        UPDATED
+    }
+
+    private final String designName;
+    private final Status status;
+    private final String digest;
+    private final String documentRevision;
+    private final long warmUpMillis;
+
+    public DesignSyncResult(String designName, Status status, String digest, String documentRevision, long warmUpMillis) {
+        this.designName = designName;
+        this.status = status;
+        this.digest = digest;
+        this.documentRevision = documentRevision;
+        this.warmUpMillis = warmUpMillis;
+    }
+
+    public String getDesignName() {
+        return designName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isChanged() {
+        return status != Status.UNCHANGED;
+    }
+
+    /**
+     * @return the SHA-256 of the canonical content, in hex
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * @return the revision of the live design
+     */
+    public String getDocumentRevision() {
+        return documentRevision;
+    }
+
+    /**
+     * @return the time spent building the views before the swap
+     */
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DesignSyncResult{" + designName + " " + status + " " + documentRevision + "}";
+    }
+}
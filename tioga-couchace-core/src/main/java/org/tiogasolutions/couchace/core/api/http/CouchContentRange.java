@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.http;
+
+/**
+ * The Content-Range of a 206 Partial Content response ("bytes 0-99/1000"), or of a 416 response which
+ * only gives the total length ("bytes *&#47;1000"). Positions are inclusive, -1 when not given.
+ */
+public class CouchContentRange {
+    private final long start;
+    private final long end;
+    private final long totalLength;
+
+    public CouchContentRange(long start, long end, long totalLength) {
+        this.start = start;
+        this.end = end;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * @param headerValue - the Content-Range header
+     * @return CouchContentRange or null if the header is missing or not a byte range
+     */
+    public static CouchContentRange parse(String headerValue) {
+        if (headerValue == null || !headerValue.trim().startsWith("bytes")) {
+            return null;
+        }
+        try {
+            String value = headerValue.trim().substring("bytes".length()).trim();
+            int slash = value.indexOf('/');
+            String range = (slash >= 0) ? value.substring(0, slash).trim() : value;
+            String total = (slash >= 0) ? value.substring(slash + 1).trim() : "*";
+
+            long start = -1;
+            long end = -1;
+            int dash = range.indexOf('-');
+            if (!range.equals("*") && dash > 0) {
+                start = Long.parseLong(range.substring(0, dash).trim());
+                end = Long.parseLong(range.substring(dash + 1).trim());
+            }
+            long totalLength = total.equals("*") ? -1 : Long.parseLong(total);
+            return new CouchContentRange(start, end, totalLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the size of the whole attachment, -1 when unknown.
+     */
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return the number of bytes in this range, 0 when there is none.
+     */
+    public long getLength() {
+        return (start >= 0 && end >= start) ? end - start + 1 : 0;
+    }
+
+    /**
+     * @return true if this range ends at the last byte of the attachment.
+     */
+    public boolean isLast() {
+        return totalLength >= 0 && end == totalLength - 1;
+    }
+
+    @Override
+    public String toString() {
+        String range = (start >= 0) ? start + "-" + end : "*";
+        return "bytes " + range + "/" + ((totalLength >= 0) ? String.valueOf(totalLength) : "*");
+    }
+}
@@ -34,6 +34,24 @@ import java.util.List;
  */
 public class AnnotationCouchMetaBuilder implements CouchMetaBuilder {
 
+    private final boolean methodHandleAccessors;
+
+    public AnnotationCouchMetaBuilder() {
+        this(true);
+    }
+
+    /**
+     * @param methodHandleAccessors - true to access id, revision and attachments through generated MethodHandle
+     *                              accessors, false to use plain reflection.
+     */
+    public AnnotationCouchMetaBuilder(boolean methodHandleAccessors) {
+        this.methodHandleAccessors = methodHandleAccessors;
+    }
+
+    public boolean isMethodHandleAccessors() {
+        return methodHandleAccessors;
+    }
+
     public <T> CouchEntityMeta<T> buildEntityMeta(Class<T> entityClass) {
         List<CouchEmbeddedAttachmentMeta> localEmbeddedAttachmentList = new ArrayList<>();
 
@@ -58,25 +76,25 @@ public class AnnotationCouchMetaBuilder implements CouchMetaBuilder {
             if (readMethod != null) {
                 CouchEmbeddedAttachment couchAttachment = readMethod.getAnnotation(CouchEmbeddedAttachment.class);
                 if (couchAttachment != null) {
-                    ValueAccessor attachmentAccessor = new ValueAccessor(entityClass, readMethod);
+                    ValueAccessor attachmentAccessor = newValueAccessor(entityClass, readMethod);
                     localEmbeddedAttachmentList.add(new CouchEmbeddedAttachmentMeta(couchAttachment, attachmentAccessor));
                 }
                 if (localRevisionAccessor == null) {
                     CouchRevision couchRevision = readMethod.getAnnotation(CouchRevision.class);
                     if (couchRevision != null) {
-                        localRevisionAccessor = new ValueAccessor(entityClass, readMethod);
+                        localRevisionAccessor = newValueAccessor(entityClass, readMethod);
                     }
                 }
                 if (localIdAccessor == null) {
                     CouchId couchId = readMethod.getAnnotation(CouchId.class);
                     if (couchId != null) {
-                        localIdAccessor = new ValueAccessor(entityClass, readMethod);
+                        localIdAccessor = newValueAccessor(entityClass, readMethod);
                     }
                 }
                 if (localIdAccessor == null) {
                     CouchEntityId couchId = readMethod.getAnnotation(CouchEntityId.class);
                     if (couchId != null) {
-                        localIdAccessor = new ValueAccessor(entityClass, readMethod);
+                        localIdAccessor = newValueAccessor(entityClass, readMethod);
                         localIdPattern = (StringUtil.isNotBlank(couchId.value())) ? couchId.value() : null;
                     }
                 }
@@ -86,7 +104,7 @@ public class AnnotationCouchMetaBuilder implements CouchMetaBuilder {
         // Look for field level annotations
         for (Field field : ClassUtil.listAllFields(entityClass)) {
             if (CouchAttachmentInfoMap.class.isAssignableFrom(field.getType())) {
-                localAttachmentsMetaMapAccessor = new ValueAccessor(field);
+                localAttachmentsMetaMapAccessor = newValueAccessor(field);
             }
         }
 
@@ -104,4 +122,13 @@ public class AnnotationCouchMetaBuilder implements CouchMetaBuilder {
                 localAttachmentsMetaMapAccessor,
                 localEmbeddedAttachmentList);
     }
+
+    protected ValueAccessor newValueAccessor(Class<?> type, Method readMethod) {
+        return methodHandleAccessors ? new MethodHandleValueAccessor(type, readMethod) : new ValueAccessor(type, readMethod);
+    }
+
+    protected ValueAccessor newValueAccessor(Field field) {
+        return methodHandleAccessors ? new MethodHandleValueAccessor(field) : new ValueAccessor(field);
+    }
+
 }
@@ -133,10 +133,18 @@ public class CouchEntityMeta<T> {
         return idValueAccessor != null && idValueAccessor.readValue(entity) != null;
     }
 
+    public boolean isIdWritable() {
+        return idValueAccessor != null && idValueAccessor.isWritable();
+    }
+
     public boolean hasRevision() {
         return revisionValueAccessor != null;
     }
 
+    public boolean isRevisionWritable() {
+        return revisionValueAccessor != null && revisionValueAccessor.isWritable();
+    }
+
     public boolean hasAttachmentsMeta() {
         return attachmentInfoMapAccessor != null;
     }
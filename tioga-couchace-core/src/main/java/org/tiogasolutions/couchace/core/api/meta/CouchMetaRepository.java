@@ -16,8 +16,11 @@
 
 package org.tiogasolutions.couchace.core.api.meta;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * User: Harlan
@@ -26,7 +29,7 @@ import java.util.Map;
  */
 public class CouchMetaRepository {
 
-    private final Map<String, CouchEntityMeta<?>> entityMetaMap = new HashMap<>();
+    private final ConcurrentMap<Class<?>, CouchEntityMeta<?>> entityMetaMap = new ConcurrentHashMap<>();
     private final CouchMetaBuilder metaBuilder;
 
     public CouchMetaRepository(CouchMetaBuilder metaBuilder) {
@@ -39,32 +42,62 @@ public class CouchMetaRepository {
 
     @SuppressWarnings("unchecked")
     public <T> CouchEntityMeta<T> getEntityMeta(Class<T> type) {
-        String name = type.getName();
-        return (CouchEntityMeta<T>) entityMetaMap.get(name);
+        return (CouchEntityMeta<T>) entityMetaMap.get(type);
     }
 
+    /**
+     * Returns the meta for the type, building it at most once even when first requested concurrently.
+     */
+    @SuppressWarnings("unchecked")
     public <T> CouchEntityMeta<T> getOrCreateEntityMeta(Class<T> type) {
         CouchEntityMeta<T> entityMeta = getEntityMeta(type);
         if (entityMeta == null) {
-            entityMeta = createEntityMeta(type);
-            putEntityMeta(entityMeta);
+            entityMeta = (CouchEntityMeta<T>) entityMetaMap.computeIfAbsent(type, this::createEntityMeta);
         }
         return entityMeta;
     }
 
-    public void putEntityMeta(CouchEntityMeta entityMeta) {
-        entityMetaMap.put(entityMeta.getMetaName(), entityMeta);
+    /**
+     * Builds and registers the meta of each entity class up front, so the first request for them does not pay for it.
+     * @param entityClasses - the entity classes to register.
+     */
+    public void warmUp(Class<?>... entityClasses) {
+        warmUp(Arrays.asList(entityClasses));
+    }
+
+    /**
+     * Builds and registers the meta of each entity class up front, so the first request for them does not pay for it.
+     * @param entityClasses - the entity classes to register.
+     */
+    public void warmUp(Collection<? extends Class<?>> entityClasses) {
+        for (Class<?> entityClass : entityClasses) {
+            getOrCreateEntityMeta(entityClass);
+        }
+    }
+
+    public void putEntityMeta(CouchEntityMeta<?> entityMeta) {
+        entityMetaMap.put(entityMeta.getEntityClass(), entityMeta);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CouchEntityMeta<T> removeEntityMeta(Class<T> type) {
+        return (CouchEntityMeta<T>) entityMetaMap.remove(type);
     }
 
     public CouchEntityMeta removeEntityMeta(String metaName) {
-        return entityMetaMap.remove(metaName);
+        for (CouchEntityMeta<?> entityMeta : entityMetaMap.values()) {
+            if (entityMeta.getMetaName().equals(metaName) && entityMetaMap.remove(entityMeta.getEntityClass(), entityMeta)) {
+                return entityMeta;
+            }
+        }
+        return null;
     }
 
     protected <T> CouchEntityMeta<T> createEntityMeta(Class<T> type) {
         return metaBuilder.buildEntityMeta(type);
     }
 
-    protected Map<String, CouchEntityMeta<?>> getEntityMetaMap() {
+    protected Map<Class<?>, CouchEntityMeta<?>> getEntityMetaMap() {
         return entityMetaMap;
     }
 }
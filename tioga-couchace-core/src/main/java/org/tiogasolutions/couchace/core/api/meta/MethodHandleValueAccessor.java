@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.meta;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * ValueAccessor that reads and writes through functions generated by LambdaMetafactory, which the JIT can
+ * inline like a direct call. Fields and methods the metafactory cannot link to (non-public members or
+ * classes) are accessed through MethodHandles instead.
+ */
+public class MethodHandleValueAccessor extends ValueAccessor {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private final Function<Object, Object> reader;
+    private final BiConsumer<Object, Object> writer;
+
+    public MethodHandleValueAccessor(Class<?> type, Method readMethod) {
+        super(type, readMethod);
+        this.reader = buildReader();
+        this.writer = buildWriter();
+    }
+
+    public MethodHandleValueAccessor(Field field) {
+        super(field);
+        this.reader = buildReader();
+        this.writer = buildWriter();
+    }
+
+    @Override
+    public Object readValue(Object object) {
+        if (reader == null) {
+            throw CouchException.internalServerError("Cannot read value from " + getPropertyName() + ", did not find a corresponding field or getter.");
+        }
+        try {
+            return reader.apply(object);
+        } catch (Throwable e) {
+            throw CouchException.internalServerError("Error reading value from " + getPropertyName() + ", likely an issue with CouchAce id, revision or attachment annotations", e);
+        }
+    }
+
+    @Override
+    public void writeValue(Object object, Object value) {
+        if (writer == null) {
+            throw CouchException.internalServerError("Cannot assign value to " + getPropertyName() + ", did not find a corresponding field or setter.");
+        }
+        try {
+            writer.accept(object, value);
+        } catch (Throwable e) {
+            throw CouchException.internalServerError("Error writing value to " + getPropertyName() + ", likely an issue with CouchAce id, revision or attachment annotations", e);
+        }
+    }
+
+    private Function<Object, Object> buildReader() {
+        try {
+            if (getReadMethod() != null) {
+                Method method = getReadMethod();
+                if (isLinkable(method)) {
+                    return generateReader(lookup.unreflect(method));
+                }
+                method.setAccessible(true);
+                return invokingReader(lookup.unreflect(method));
+
+            } else if (getField() != null) {
+                return invokingReader(lookup.unreflectGetter(getField()));
+
+            } else {
+                return null;
+            }
+        } catch (Throwable e) {
+            throw CouchException.internalServerError("Error creating accessor for " + getPropertyName(), e);
+        }
+    }
+
+    private BiConsumer<Object, Object> buildWriter() {
+        try {
+            if (getWriteMethod() != null) {
+                Method method = getWriteMethod();
+                if (isLinkable(method)) {
+                    return generateWriter(lookup.unreflect(method));
+                }
+                method.setAccessible(true);
+                return invokingWriter(lookup.unreflect(method));
+
+            } else if (getField() != null && !Modifier.isFinal(getField().getModifiers())) {
+                return invokingWriter(lookup.unreflectSetter(getField()));
+
+            } else if (getField() != null) {
+                // Final fields cannot be set through a MethodHandle, fall back to reflection.
+                return super::writeValue;
+
+            } else {
+                return null;
+            }
+        } catch (Throwable e) {
+            throw CouchException.internalServerError("Error creating accessor for " + getPropertyName(), e);
+        }
+    }
+
+    /**
+     * LambdaMetafactory links only to members the caller could call directly.
+     */
+    private static boolean isLinkable(Method method) {
+        return Modifier.isPublic(method.getModifiers())
+                && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> generateReader(MethodHandle getter) throws Throwable {
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    getter,
+                    getter.type().wrap());
+            return (Function<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // Not visible from here (another class loader for example).
+            return invokingReader(getter);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> generateWriter(MethodHandle setter) throws Throwable {
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    setter,
+                    setter.type().wrap().changeReturnType(void.class));
+            return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            return invokingWriter(setter);
+        }
+    }
+
+    private static Function<Object, Object> invokingReader(MethodHandle getter) {
+        MethodHandle handle = getter.asType(MethodType.methodType(Object.class, Object.class));
+        return object -> {
+            try {
+                return handle.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static BiConsumer<Object, Object> invokingWriter(MethodHandle setter) {
+        MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (object, value) -> {
+            try {
+                handle.invokeExact(object, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -85,6 +85,18 @@ public class ValueAccessor {
         }
     }
 
+    protected Method getReadMethod() {
+        return readMethod;
+    }
+
+    protected Method getWriteMethod() {
+        return writeMethod;
+    }
+
+    protected Field getField() {
+        return field;
+    }
+
     public boolean isWritable() {
         return writeMethod != null || field != null;
     }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+/**
+ * What SimpleCouchMetrics recorded for JSON parsing or serializing for one database.
+ */
+public class CouchJsonStats {
+    private final String databaseName;
+    private final CouchJsonOperation operation;
+    private final CouchLatencySnapshot latency;
+
+    public CouchJsonStats(String databaseName, CouchJsonOperation operation, CouchLatencySnapshot latency) {
+        this.databaseName = databaseName;
+        this.operation = operation;
+        this.latency = latency;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public CouchJsonOperation getOperation() {
+        return operation;
+    }
+
+    public CouchLatencySnapshot getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchJsonStats{" +
+                "databaseName='" + databaseName + '\'' +
+                ", operation=" + operation +
+                ", latency=" + latency +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latencies recorded by a CouchLatencyHistogram at one point in time, all values are in nanoseconds.
+ */
+public class CouchLatencySnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    CouchLatencySnapshot(long[] counts, long count, long total, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return (count == 0) ? 0 : total / count;
+    }
+
+    /**
+     * @param percentile - between 0 and 100
+     * @return the value at or below which the percentile of recorded values fall, 0 when nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long recorded = 0;
+        for (long bucketCount : counts) {
+            recorded += bucketCount;
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(recorded * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(CouchLatencyHistogram.bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long getP50() {
+        return getValueAtPercentile(50);
+    }
+
+    public long getP90() {
+        return getValueAtPercentile(90);
+    }
+
+    public long getP99() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public String toString() {
+        return "CouchLatencySnapshot{" +
+                "count=" + count +
+                ", meanMicros=" + TimeUnit.NANOSECONDS.toMicros(getMean()) +
+                ", p50Micros=" + TimeUnit.NANOSECONDS.toMicros(getP50()) +
+                ", p90Micros=" + TimeUnit.NANOSECONDS.toMicros(getP90()) +
+                ", p99Micros=" + TimeUnit.NANOSECONDS.toMicros(getP99()) +
+                ", maxMicros=" + TimeUnit.NANOSECONDS.toMicros(max) +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+/**
+ * Told about every HTTP call, JSON read or write and update made for a database, see SimpleCouchMetrics. It is called
+ * on the thread that made or completed the call, so an implementation should be quick and thread safe.
+ */
+public interface CouchMetrics {
+
+    void recordRequest(CouchRequestMetric metric);
+
+    /**
+     * @param databaseName -
+     * @param operation - parse (READ) or serialize (WRITE)
+     * @param elapsedNanos -
+     */
+    void recordJson(String databaseName, CouchJsonOperation operation, long elapsedNanos);
+
+    /**
+     * Called once an update (read, mutate and put retried on conflict) is done.
+     * @param databaseName -
+     * @param attempts - the number of puts tried
+     * @param conflicts - the number of puts answered 409 Conflict
+     * @param success - false if the update gave up or failed
+     */
+    default void recordUpdate(String databaseName, int attempts, int conflicts, boolean success) {
+    }
+
+}
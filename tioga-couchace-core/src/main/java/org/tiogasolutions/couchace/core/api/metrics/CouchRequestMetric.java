@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+
+/**
+ * One HTTP call, timed from the request being made to the response headers (and any body read with them)
+ * being available.
+ */
+public class CouchRequestMetric {
+    private final String databaseName;
+    private final CouchMethodType methodType;
+    private final CouchHttpStatus httpStatus;
+    private final long elapsedNanos;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final Throwable exception;
+
+    /**
+     * @param databaseName -
+     * @param methodType -
+     * @param httpStatus - null when the call failed with an exception
+     * @param elapsedNanos -
+     * @param requestBytes - size of the request body, -1 when streamed or unknown
+     * @param responseBytes - size of the response body, -1 when streamed or unknown
+     * @param exception - what the call failed with, null when a response was received
+     */
+    public CouchRequestMetric(String databaseName,
+                              CouchMethodType methodType,
+                              CouchHttpStatus httpStatus,
+                              long elapsedNanos,
+                              long requestBytes,
+                              long responseBytes,
+                              Throwable exception) {
+        this.databaseName = databaseName;
+        this.methodType = methodType;
+        this.httpStatus = httpStatus;
+        this.elapsedNanos = elapsedNanos;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.exception = exception;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public CouchMethodType getMethodType() {
+        return methodType;
+    }
+
+    public CouchHttpStatus getHttpStatus() {
+        return httpStatus;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public Throwable getException() {
+        return exception;
+    }
+
+    /**
+     * @return true if the call failed with an exception or an error status.
+     */
+    public boolean isError() {
+        return exception != null || httpStatus.getCode() >= 400;
+    }
+}
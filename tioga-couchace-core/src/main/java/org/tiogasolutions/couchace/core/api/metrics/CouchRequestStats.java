@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+
+/**
+ * What SimpleCouchMetrics recorded for one database, method and status.
+ */
+public class CouchRequestStats {
+    private final String databaseName;
+    private final CouchMethodType methodType;
+    private final CouchHttpStatus httpStatus;
+    private final CouchLatencySnapshot latency;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final long errorCount;
+
+    public CouchRequestStats(String databaseName, CouchMethodType methodType, CouchHttpStatus httpStatus, CouchLatencySnapshot latency, long requestBytes, long responseBytes, long errorCount) {
+        this.databaseName = databaseName;
+        this.methodType = methodType;
+        this.httpStatus = httpStatus;
+        this.latency = latency;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.errorCount = errorCount;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public CouchMethodType getMethodType() {
+        return methodType;
+    }
+
+    /**
+     * @return the response status, null for the calls that failed with an exception.
+     */
+    public CouchHttpStatus getHttpStatus() {
+        return httpStatus;
+    }
+
+    public CouchLatencySnapshot getLatency() {
+        return latency;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchRequestStats{" +
+                "databaseName='" + databaseName + '\'' +
+                ", methodType=" + methodType +
+                ", httpStatus=" + httpStatus +
+                ", latency=" + latency +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                ", errorCount=" + errorCount +
+                '}';
+    }
+}
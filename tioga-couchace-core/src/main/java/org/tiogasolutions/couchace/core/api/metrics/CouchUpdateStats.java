@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+/**
+ * What SimpleCouchMetrics recorded for the updates (read, mutate and put retried on conflict) of one database.
+ */
+public class CouchUpdateStats {
+    private final String databaseName;
+    private final long updates;
+    private final long attempts;
+    private final long conflicts;
+    private final long failures;
+
+    public CouchUpdateStats(String databaseName, long updates, long attempts, long conflicts, long failures) {
+        this.databaseName = databaseName;
+        this.updates = updates;
+        this.attempts = attempts;
+        this.conflicts = conflicts;
+        this.failures = failures;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return the number of updates that gave up after conflicts or failed
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the part of the puts that were answered 409 Conflict, from 0 to 1
+     */
+    public double getConflictRate() {
+        return (attempts == 0) ? 0.0 : (double) conflicts / attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchUpdateStats{" +
+                "databaseName='" + databaseName + '\'' +
+                ", updates=" + updates +
+                ", attempts=" + attempts +
+                ", conflicts=" + conflicts +
+                ", failures=" + failures +
+                '}';
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps CouchMetrics in memory, a latency histogram with byte and error counts per database, method and status,
+ * and per database a histogram of JSON read and write times and update conflict counts. Recording does not lock,
+ * the stats are a snapshot taken when asked for.
+ */
+public class SimpleCouchMetrics implements CouchMetrics {
+    private final ConcurrentMap<RequestKey, RequestCounters> requestMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<JsonKey, CouchLatencyHistogram> jsonMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UpdateCounters> updateMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordRequest(CouchRequestMetric metric) {
+        RequestKey key = new RequestKey(metric.getDatabaseName(), metric.getMethodType(), metric.getHttpStatus());
+        RequestCounters counters = requestMap.computeIfAbsent(key, k -> new RequestCounters());
+        counters.latency.record(metric.getElapsedNanos());
+        if (metric.getRequestBytes() > 0) {
+            counters.requestBytes.add(metric.getRequestBytes());
+        }
+        if (metric.getResponseBytes() > 0) {
+            counters.responseBytes.add(metric.getResponseBytes());
+        }
+        if (metric.isError()) {
+            counters.errors.increment();
+        }
+    }
+
+    @Override
+    public void recordJson(String databaseName, CouchJsonOperation operation, long elapsedNanos) {
+        jsonMap.computeIfAbsent(new JsonKey(databaseName, operation), k -> new CouchLatencyHistogram()).record(elapsedNanos);
+    }
+
+    @Override
+    public void recordUpdate(String databaseName, int attempts, int conflicts, boolean success) {
+        UpdateCounters counters = updateMap.computeIfAbsent(databaseName, k -> new UpdateCounters());
+        counters.updates.increment();
+        counters.attempts.add(attempts);
+        counters.conflicts.add(conflicts);
+        if (!success) {
+            counters.failures.increment();
+        }
+    }
+
+    public List<CouchRequestStats> getRequestStats() {
+        List<CouchRequestStats> statsList = new ArrayList<>(requestMap.size());
+        for (Map.Entry<RequestKey, RequestCounters> entry : requestMap.entrySet()) {
+            RequestKey key = entry.getKey();
+            RequestCounters counters = entry.getValue();
+            statsList.add(new CouchRequestStats(key.databaseName,
+                    key.methodType,
+                    key.httpStatus,
+                    counters.latency.snapshot(),
+                    counters.requestBytes.sum(),
+                    counters.responseBytes.sum(),
+                    counters.errors.sum()));
+        }
+        return statsList;
+    }
+
+    public List<CouchJsonStats> getJsonStats() {
+        List<CouchJsonStats> statsList = new ArrayList<>(jsonMap.size());
+        for (Map.Entry<JsonKey, CouchLatencyHistogram> entry : jsonMap.entrySet()) {
+            statsList.add(new CouchJsonStats(entry.getKey().databaseName, entry.getKey().operation, entry.getValue().snapshot()));
+        }
+        return statsList;
+    }
+
+    public List<CouchUpdateStats> getUpdateStats() {
+        List<CouchUpdateStats> statsList = new ArrayList<>(updateMap.size());
+        for (Map.Entry<String, UpdateCounters> entry : updateMap.entrySet()) {
+            UpdateCounters counters = entry.getValue();
+            statsList.add(new CouchUpdateStats(entry.getKey(),
+                    counters.updates.sum(),
+                    counters.attempts.sum(),
+                    counters.conflicts.sum(),
+                    counters.failures.sum()));
+        }
+        return statsList;
+    }
+
+    public long getErrorCount() {
+        long errors = 0;
+        for (RequestCounters counters : requestMap.values()) {
+            errors += counters.errors.sum();
+        }
+        return errors;
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        requestMap.clear();
+        jsonMap.clear();
+        updateMap.clear();
+    }
+
+    private static final class RequestCounters {
+        private final CouchLatencyHistogram latency = new CouchLatencyHistogram();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private static final class UpdateCounters {
+        private final LongAdder updates = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+    }
+
+    private static final class RequestKey {
+        private final String databaseName;
+        private final CouchMethodType methodType;
+        private final CouchHttpStatus httpStatus;
+
+        private RequestKey(String databaseName, CouchMethodType methodType, CouchHttpStatus httpStatus) {
+            this.databaseName = databaseName;
+            this.methodType = methodType;
+            this.httpStatus = httpStatus;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RequestKey that = (RequestKey) o;
+            return Objects.equals(databaseName, that.databaseName) && methodType == that.methodType && httpStatus == that.httpStatus;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(databaseName, methodType, httpStatus);
+        }
+    }
+
+    private static final class JsonKey {
+        private final String databaseName;
+        private final CouchJsonOperation operation;
+
+        private JsonKey(String databaseName, CouchJsonOperation operation) {
+            this.databaseName = databaseName;
+            this.operation = operation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            JsonKey that = (JsonKey) o;
+            return Objects.equals(databaseName, that.databaseName) && operation == that.operation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(databaseName, operation);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.query;
+
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Mango index, created with a POST to _index and listed with a GET of _index. CouchDB names the design
+ * document and the index when they are not given.
+ */
+public class CouchFindIndex {
+    private final String designName;
+    private final String name;
+    private final String type;
+    private final List<String> fields;
+    private final String partialFilterJson;
+
+    public static CouchFindIndexBuilder builder(String... fields) {
+        return new CouchFindIndexBuilder(fields);
+    }
+
+    public CouchFindIndex(String designName, String name, String type, List<String> fields) {
+        this(designName, name, type, fields, null);
+    }
+
+    public CouchFindIndex(String designName, String name, String type, List<String> fields, String partialFilterJson) {
+        ArgUtil.assertNotNull(fields, "fields");
+        this.designName = designName;
+        this.name = name;
+        this.type = (type != null) ? type : "json";
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.partialFilterJson = partialFilterJson;
+    }
+
+    public String getDesignName() {
+        return designName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public String getPartialFilterJson() {
+        return partialFilterJson;
+    }
+
+    /**
+     * @return the body POSTed to _index
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"index\":{\"fields\":[");
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append((i > 0) ? "," : "").append(CouchJsonUtil.quote(fields.get(i)));
+        }
+        sb.append("]");
+        if (partialFilterJson != null) {
+            sb.append(",\"partial_filter_selector\":").append(partialFilterJson);
+        }
+        sb.append("},\"type\":").append(CouchJsonUtil.quote(type));
+        if (designName != null) {
+            sb.append(",\"ddoc\":").append(CouchJsonUtil.quote(designName));
+        }
+        if (name != null) {
+            sb.append(",\"name\":").append(CouchJsonUtil.quote(name));
+        }
+        return sb.append("}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return "CouchFindIndex{" + designName + "/" + name + " " + fields + "}";
+    }
+
+    public static class CouchFindIndexBuilder {
+
+        private final List<String> fields;
+        private String designName;
+        private String name;
+        private String partialFilterJson;
+
+        public CouchFindIndexBuilder(String... fields) {
+            if (fields == null || fields.length == 0) {
+                throw new IllegalArgumentException("An index needs at least one field.");
+            }
+            this.fields = Arrays.asList(fields);
+        }
+
+        /**
+         * @param designName - the design document, with or without _design/
+         * @return this builder
+         */
+        public CouchFindIndexBuilder designName(String designName) {
+            this.designName = designName;
+            return this;
+        }
+
+        public CouchFindIndexBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param partialFilterJson - a selector as JSON, only documents matching it are indexed
+         * @return this builder
+         */
+        public CouchFindIndexBuilder partialFilter(String partialFilterJson) {
+            this.partialFilterJson = partialFilterJson;
+            return this;
+        }
+
+        public CouchFindIndex build() {
+            return new CouchFindIndex(designName, name, "json", fields, partialFilterJson);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.query;
+
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Mango query POSTed to _find. The fields of an entity are written under "entity", so a selector on the
+ * name of a city is where("entity.name", "Oakhurst") and where("entityType", "city") limits it to cities. When
+ * fields are given for an entity read they must include _id, _rev and entity (or the entity fields wanted).
+ */
+public class CouchFindQuery {
+    private final String selectorJson;
+    private final List<String> fields;
+    private final List<String> sortJson;
+    private final int limit;
+    private final int skip;
+    private final String bookmark;
+    private final String useIndexJson;
+
+    public static CouchFindQueryBuilder builder() {
+        return new CouchFindQueryBuilder();
+    }
+
+    private CouchFindQuery(String selectorJson, List<String> fields, List<String> sortJson, int limit, int skip, String bookmark, String useIndexJson) {
+        ArgUtil.assertNotNull(selectorJson, "selectorJson");
+        this.selectorJson = selectorJson;
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.sortJson = Collections.unmodifiableList(new ArrayList<>(sortJson));
+        this.limit = limit;
+        this.skip = skip;
+        this.bookmark = bookmark;
+        this.useIndexJson = useIndexJson;
+    }
+
+    public String getSelectorJson() {
+        return selectorJson;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getSkip() {
+        return skip;
+    }
+
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    public boolean hasBookmark() {
+        return bookmark != null;
+    }
+
+    /**
+     * The skip is dropped as the bookmark already holds the position.
+     * @param bookmark - the bookmark of the page before, from getBookmark() of its response
+     * @return a copy of this query reading the page after the bookmark
+     */
+    public CouchFindQuery withBookmark(String bookmark) {
+        return new CouchFindQuery(selectorJson, fields, sortJson, limit, 0, bookmark, useIndexJson);
+    }
+
+    /**
+     * @return the body POSTed to _find
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"selector\":").append(selectorJson);
+        if (!fields.isEmpty()) {
+            sb.append(",\"fields\":").append(valueAsJson(fields));
+        }
+        if (!sortJson.isEmpty()) {
+            sb.append(",\"sort\":[").append(String.join(",", sortJson)).append("]");
+        }
+        if (limit > 0) {
+            sb.append(",\"limit\":").append(limit);
+        }
+        if (skip > 0) {
+            sb.append(",\"skip\":").append(skip);
+        }
+        if (bookmark != null) {
+            sb.append(",\"bookmark\":").append(CouchJsonUtil.quote(bookmark));
+        }
+        if (useIndexJson != null) {
+            sb.append(",\"use_index\":").append(useIndexJson);
+        }
+        return sb.append("}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private static String valueAsJson(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof CouchJsonKey) {
+            return ((CouchJsonKey) value).getJsonValue();
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof Object[]) {
+            return valueAsJson(Arrays.asList((Object[]) value));
+        } else if (value instanceof Collection) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object element : (Collection<?>) value) {
+                if (sb.length() > 1) {
+                    sb.append(",");
+                }
+                sb.append(valueAsJson(element));
+            }
+            return sb.append("]").toString();
+        } else {
+            return CouchJsonUtil.quote(value.toString());
+        }
+    }
+
+    public static class CouchFindQueryBuilder {
+
+        private String selectorJson;
+        private final List<String> conditions = new ArrayList<>();
+        private final List<String> fields = new ArrayList<>();
+        private final List<String> sortJson = new ArrayList<>();
+        private int limit;
+        private int skip;
+        private String bookmark;
+        private String useIndexJson;
+
+        public CouchFindQueryBuilder() {
+        }
+
+        /**
+         * Conditions added with where are combined with this selector.
+         * @param selectorJson - a Mango selector as JSON
+         * @return this builder
+         */
+        public CouchFindQueryBuilder selector(String selectorJson) {
+            this.selectorJson = selectorJson;
+            return this;
+        }
+
+        /**
+         * @param field - the field, nested fields are separated by dots
+         * @param value - the value the field must equal, a Collection or array is a JSON array
+         * @return this builder
+         */
+        public CouchFindQueryBuilder where(String field, Object value) {
+            ArgUtil.assertNotNull(field, "field");
+            conditions.add(CouchJsonUtil.quote(field) + ":" + valueAsJson(value));
+            return this;
+        }
+
+        /**
+         * @param field - the field, nested fields are separated by dots
+         * @param operator - the condition operator, for example $gt or $in
+         * @param value - the operand, a Collection or array is a JSON array
+         * @return this builder
+         */
+        public CouchFindQueryBuilder where(String field, String operator, Object value) {
+            ArgUtil.assertNotNull(field, "field");
+            ArgUtil.assertNotNull(operator, "operator");
+            conditions.add(CouchJsonUtil.quote(field) + ":{" + CouchJsonUtil.quote(operator) + ":" + valueAsJson(value) + "}");
+            return this;
+        }
+
+        public CouchFindQueryBuilder fields(String... fields) {
+            this.fields.addAll(Arrays.asList(fields));
+            return this;
+        }
+
+        public CouchFindQueryBuilder sort(String field) {
+            return sort(field, false);
+        }
+
+        /**
+         * A sort needs an index on the sort fields.
+         * @param field - the field, nested fields are separated by dots
+         * @param descending - true to sort descending
+         * @return this builder
+         */
+        public CouchFindQueryBuilder sort(String field, boolean descending) {
+            ArgUtil.assertNotNull(field, "field");
+            sortJson.add("{" + CouchJsonUtil.quote(field) + ":" + (descending ? "\"desc\"" : "\"asc\"") + "}");
+            return this;
+        }
+
+        /**
+         * @param limit - the most documents read, CouchDB reads 25 when not set. When streamed the page size.
+         * @return this builder
+         */
+        public CouchFindQueryBuilder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public CouchFindQueryBuilder skip(int skip) {
+            this.skip = skip;
+            return this;
+        }
+
+        public CouchFindQueryBuilder bookmark(String bookmark) {
+            this.bookmark = bookmark;
+            return this;
+        }
+
+        /**
+         * @param designName - the design document of the index, with or without _design/
+         * @return this builder
+         */
+        public CouchFindQueryBuilder useIndex(String designName) {
+            ArgUtil.assertNotNull(designName, "designName");
+            this.useIndexJson = CouchJsonUtil.quote(designName);
+            return this;
+        }
+
+        public CouchFindQueryBuilder useIndex(String designName, String indexName) {
+            ArgUtil.assertNotNull(designName, "designName");
+            ArgUtil.assertNotNull(indexName, "indexName");
+            this.useIndexJson = "[" + CouchJsonUtil.quote(designName) + "," + CouchJsonUtil.quote(indexName) + "]";
+            return this;
+        }
+
+        public CouchFindQuery build() {
+            String whereJson = "{" + String.join(",", conditions) + "}";
+            String json;
+            if (selectorJson == null) {
+                json = whereJson;
+            } else if (conditions.isEmpty()) {
+                json = selectorJson;
+            } else {
+                json = "{\"$and\":[" + selectorJson + "," + whereJson + "]}";
+            }
+            return new CouchFindQuery(json, fields, sortJson, limit, skip, bookmark, useIndexJson);
+        }
+    }
+
+}
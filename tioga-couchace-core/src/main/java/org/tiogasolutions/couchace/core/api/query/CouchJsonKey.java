@@ -23,10 +23,44 @@ public class CouchJsonKey {
         this.jsonValue = valuesAsJson(values);
     }
 
+    private CouchJsonKey(String jsonValue, boolean isJson) {
+        this.jsonValue = jsonValue;
+    }
+
+    /**
+     * @param json - the key as CouchDB wrote it, used as is
+     * @return CouchJsonKey
+     */
+    public static CouchJsonKey fromJson(String json) {
+        return new CouchJsonKey(json, true);
+    }
+
     public String getJsonValue() {
         return jsonValue;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CouchJsonKey that = (CouchJsonKey) o;
+        return (jsonValue != null) ? jsonValue.equals(that.jsonValue) : that.jsonValue == null;
+    }
+
+    @Override
+    public int hashCode() {
+        return (jsonValue != null) ? jsonValue.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return jsonValue;
+    }
+
     private static String valuesAsJson(Object... values) {
         if (values == null || values.length == 0) {
             return null;
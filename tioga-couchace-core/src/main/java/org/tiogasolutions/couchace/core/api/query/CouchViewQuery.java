@@ -29,6 +29,8 @@ public class CouchViewQuery {
     private boolean descending = false;
     private boolean includeDocs = true;
     private boolean group = false;
+    private final int groupLevel;
+    private final Boolean reduce;
 
     public static CouchViewQueryBuilder builder(String designName, String viewName) {
         return new CouchViewQueryBuilder(designName, viewName);
@@ -44,6 +46,25 @@ public class CouchViewQuery {
                           boolean descending,
                           boolean includeDocs,
                           boolean group) {
+        this(designName, viewName, limit, skip, startKey, endKey, key, descending, includeDocs, group, 0, null);
+    }
+
+    /**
+     * @param groupLevel - how many elements of an array key to group by, zero to not set it
+     * @param reduce - false to read the map rows of a view that has a reduce, null for the view's default
+     */
+    public CouchViewQuery(String designName,
+                          String viewName,
+                          int limit,
+                          int skip,
+                          CouchJsonKey startKey,
+                          CouchJsonKey endKey,
+                          CouchJsonKey key,
+                          boolean descending,
+                          boolean includeDocs,
+                          boolean group,
+                          int groupLevel,
+                          Boolean reduce) {
         ArgUtil.assertNotNull(designName, "designName");
         ArgUtil.assertNotNull(viewName, "viewName");
         this.designName = designName;
@@ -56,6 +77,8 @@ public class CouchViewQuery {
         this.descending = descending;
         this.includeDocs = includeDocs;
         this.group = group;
+        this.groupLevel = groupLevel;
+        this.reduce = reduce;
     }
 
     public String getDesignName() {
@@ -118,6 +141,21 @@ public class CouchViewQuery {
         return group;
     }
 
+    public boolean hasGroupLevel() {
+        return groupLevel > 0;
+    }
+
+    public int getGroupLevel() {
+        return groupLevel;
+    }
+
+    /**
+     * @return false to skip the reduce, true to force it and null to leave it to the view
+     */
+    public Boolean getReduce() {
+        return reduce;
+    }
+
     // TODO - why is this mutable
     public CouchViewQuery setDescending(boolean descending) {
         this.descending = descending;
@@ -156,6 +194,8 @@ public class CouchViewQuery {
         private boolean descending = false;
         private boolean includeDocs = true;
         private boolean group = false;
+        private int groupLevel;
+        private Boolean reduce;
 
         public CouchViewQueryBuilder(String designName, String viewName) {
             this.designName = designName;
@@ -163,7 +203,7 @@ public class CouchViewQuery {
         }
 
         public CouchViewQuery build() {
-            return new CouchViewQuery(designName, viewName, limit, skip, startKey, endKey, key, descending, includeDocs, group);
+            return new CouchViewQuery(designName, viewName, limit, skip, startKey, endKey, key, descending, includeDocs, group, groupLevel, reduce);
         }
 
         public CouchViewQueryBuilder key(Object... key) {
@@ -206,6 +246,28 @@ public class CouchViewQuery {
             return this;
         }
 
+        /**
+         * Groups by the first elements of an array key, for example 2 of [year, month, day] to reduce by month.
+         * @param groupLevel - how many elements of the key to group by
+         * @return this builder
+         */
+        public CouchViewQueryBuilder groupLevel(int groupLevel) {
+            if (groupLevel < 0) {
+                throw new IllegalArgumentException("groupLevel cannot be negative: " + groupLevel);
+            }
+            this.groupLevel = groupLevel;
+            return this;
+        }
+
+        /**
+         * @param reduce - false to read the map rows of a view that has a reduce
+         * @return this builder
+         */
+        public CouchViewQueryBuilder reduce(boolean reduce) {
+            this.reduce = reduce;
+            return this;
+        }
+
     }
 
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.response.BulkResponse;
+import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes a batch of raw JSON documents with one _bulk_docs call. Each document is sent as is,
+ * so any _id, _rev or _deleted values must already be part of the JSON.
+ */
+public class BulkDocumentRequest implements BulkRequest {
+    private final RequestExecutor requestExecutor;
+    private final List<String> documents;
+    private CouchResponseHandler<BulkResponse> onResponse;
+    private CouchResponseHandler<BulkResponse> onSuccess;
+    private CouchResponseHandler<BulkResponse> onError;
+
+    public BulkDocumentRequest(RequestExecutor requestExecutor, Collection<String> documents) {
+        ArgUtil.assertNotNull(documents, "documents");
+        this.requestExecutor = requestExecutor;
+        this.documents = Collections.unmodifiableList(new ArrayList<>(documents));
+    }
+
+    public List<String> getDocuments() {
+        return documents;
+    }
+
+    public BulkResponse execute() {
+        return requestExecutor.execute(this);
+    }
+
+    public CompletableFuture<BulkResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    public BulkDocumentRequest onResponse(CouchResponseHandler<BulkResponse> onResponse) {
+        this.onResponse = onResponse;
+        return this;
+    }
+
+    public BulkDocumentRequest onSuccess(CouchResponseHandler<BulkResponse> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public BulkDocumentRequest onError(CouchResponseHandler<BulkResponse> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnResponse() {
+        return onResponse;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnSuccess() {
+        return onSuccess;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnError() {
+        return onError;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.response.BulkResponse;
+import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes a batch of annotated entities with one _bulk_docs call. The id and revision of each
+ * entity are read through its CouchEntityMeta and the new revisions are written back onto the
+ * entities once the write succeeds.
+ */
+public class BulkEntityRequest implements BulkRequest {
+    private final RequestExecutor requestExecutor;
+    private final List<Object> entities;
+    private CouchResponseHandler<BulkResponse> onResponse;
+    private CouchResponseHandler<BulkResponse> onSuccess;
+    private CouchResponseHandler<BulkResponse> onError;
+
+    public BulkEntityRequest(RequestExecutor requestExecutor, Collection<?> entities) {
+        ArgUtil.assertNotNull(entities, "entities");
+        this.requestExecutor = requestExecutor;
+        this.entities = Collections.unmodifiableList(new ArrayList<>(entities));
+    }
+
+    public List<Object> getEntities() {
+        return entities;
+    }
+
+    public BulkResponse execute() {
+        return requestExecutor.execute(this);
+    }
+
+    public CompletableFuture<BulkResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    public BulkEntityRequest onResponse(CouchResponseHandler<BulkResponse> onResponse) {
+        this.onResponse = onResponse;
+        return this;
+    }
+
+    public BulkEntityRequest onSuccess(CouchResponseHandler<BulkResponse> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public BulkEntityRequest onError(CouchResponseHandler<BulkResponse> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnResponse() {
+        return onResponse;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnSuccess() {
+        return onSuccess;
+    }
+
+    public CouchResponseHandler<BulkResponse> getOnError() {
+        return onError;
+    }
+
+}
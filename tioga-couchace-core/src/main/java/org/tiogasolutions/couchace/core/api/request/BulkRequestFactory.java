@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public class BulkRequestFactory {
+
+    private final RequestExecutor requestExecutor;
+
+    public BulkRequestFactory(RequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * Creates or updates each entity based upon its annotated values.
+     * @param entities -
+     * @return BulkEntityRequest
+     */
+    public BulkEntityRequest entities(Collection<?> entities) {
+        ArgUtil.assertNotNull(entities, "entities");
+        return new BulkEntityRequest(requestExecutor, entities);
+    }
+
+    /**
+     * Creates or updates each entity based upon its annotated values.
+     * @param entities -
+     * @return BulkEntityRequest
+     */
+    public BulkEntityRequest entities(Object... entities) {
+        ArgUtil.assertNotNull(entities, "entities");
+        return new BulkEntityRequest(requestExecutor, Arrays.asList(entities));
+    }
+
+    /**
+     * Writes each JSON document as is.
+     * @param documents -
+     * @return BulkDocumentRequest
+     */
+    public BulkDocumentRequest documents(Collection<String> documents) {
+        ArgUtil.assertNotNull(documents, "documents");
+        return new BulkDocumentRequest(requestExecutor, documents);
+    }
+
+    /**
+     * Writes each JSON document as is.
+     * @param documents -
+     * @return BulkDocumentRequest
+     */
+    public BulkDocumentRequest documents(String... documents) {
+        ArgUtil.assertNotNull(documents, "documents");
+        return new BulkDocumentRequest(requestExecutor, Arrays.asList(documents));
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.changes.ChangesFeed;
+import org.tiogasolutions.couchace.core.api.changes.ChangesFeedType;
+import org.tiogasolutions.couchace.core.api.changes.CouchChangeHandler;
+import org.tiogasolutions.couchace.core.api.changes.CouchCheckpointStore;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+/**
+ * Reads the _changes feed of the database, either as a single stream (executeStream) or as a
+ * ChangesFeed that keeps following the database on a background thread (start).
+ */
+public class ChangesRequest<D extends CouchDocument<?>> implements ReadRequest {
+
+    private final RequestExecutor requestExecutor;
+    private final Class<?> entityClass;
+    private ChangesFeedType feedType = ChangesFeedType.CONTINUOUS;
+    private String since;
+    private boolean includeDocs;
+    private String filter;
+    private long limit;
+    private long heartbeat = 10000;
+    private long timeout;
+    private int queueCapacity = 100;
+    private CouchCheckpointStore checkpointStore;
+    private String checkpointId = "couchace-changes";
+    private int checkpointInterval = 100;
+    private long reconnectDelay = 1000;
+    private long maxReconnectDelay = 60000;
+
+    /**
+     * @param requestExecutor -
+     * @param entityClass - the entity class of included docs, null to read them as TextDocument.
+     */
+    public ChangesRequest(RequestExecutor requestExecutor, Class<?> entityClass) {
+        this.requestExecutor = requestExecutor;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Opens the feed and reads its rows as they are iterated, the iterator must be closed.
+     * @return CouchChangeIterator
+     */
+    public CouchChangeIterator<D> executeStream() {
+        return requestExecutor.executeStream(this, since);
+    }
+
+    /**
+     * Starts following the feed, each change is passed to the handler on a dedicated thread. The feed
+     * resumes from since, or from the checkpoint store when since was not given.
+     * @param handler -
+     * @return the running ChangesFeed, close it to stop.
+     */
+    public ChangesFeed<D> start(CouchChangeHandler<D> handler) {
+        ArgUtil.assertNotNull(handler, "handler");
+        return requestExecutor.start(this, handler);
+    }
+
+    public ChangesRequest<D> feedType(ChangesFeedType feedType) {
+        ArgUtil.assertNotNull(feedType, "feedType");
+        this.feedType = feedType;
+        return this;
+    }
+
+    /**
+     * @param since - the sequence to start after, "now" for only future changes.
+     * @return this
+     */
+    public ChangesRequest<D> since(String since) {
+        this.since = since;
+        return this;
+    }
+
+    public ChangesRequest<D> includeDocs(boolean includeDocs) {
+        this.includeDocs = includeDocs;
+        return this;
+    }
+
+    /**
+     * @param filter - filter function as designName/filterName, or _view, _design, _doc_ids.
+     * @return this
+     */
+    public ChangesRequest<D> filter(String filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public ChangesRequest<D> limit(long limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param heartbeat - milliseconds between the newlines CouchDB sends on an idle feed, keep it below the
+     *                  client read timeout, 0 for none.
+     * @return this
+     */
+    public ChangesRequest<D> heartbeat(long heartbeat) {
+        this.heartbeat = heartbeat;
+        return this;
+    }
+
+    /**
+     * @param timeout - milliseconds CouchDB waits for a change before ending the response, 0 for the server default.
+     * @return this
+     */
+    public ChangesRequest<D> timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity - changes read ahead of the handler, once full the feed stops reading until the
+     *                      handler catches up.
+     * @return this
+     */
+    public ChangesRequest<D> queueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1.");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * @param checkpointStore - where the last handled sequence is saved, null to not checkpoint.
+     * @param checkpointId - identifies this feed within the store.
+     * @return this
+     */
+    public ChangesRequest<D> checkpoint(CouchCheckpointStore checkpointStore, String checkpointId) {
+        ArgUtil.assertNotNull(checkpointId, "checkpointId");
+        this.checkpointStore = checkpointStore;
+        this.checkpointId = checkpointId;
+        return this;
+    }
+
+    /**
+     * @param checkpointInterval - number of handled changes between checkpoints, the rest are checkpointed when
+     *                           the feed stops.
+     * @return this
+     */
+    public ChangesRequest<D> checkpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be at least 1.");
+        }
+        this.checkpointInterval = checkpointInterval;
+        return this;
+    }
+
+    /**
+     * @param reconnectDelay - least milliseconds between connections while responses end without changes, and
+     *                       the wait after a transient failure.
+     * @param maxReconnectDelay - most milliseconds to wait, the wait doubles with each transient failure in a row.
+     * @return this
+     */
+    public ChangesRequest<D> reconnectDelay(long reconnectDelay, long maxReconnectDelay) {
+        if (reconnectDelay < 0 || maxReconnectDelay < reconnectDelay) {
+            throw new IllegalArgumentException("reconnectDelay must be at least 0 and no more than maxReconnectDelay.");
+        }
+        this.reconnectDelay = reconnectDelay;
+        this.maxReconnectDelay = maxReconnectDelay;
+        return this;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public ChangesFeedType getFeedType() {
+        return feedType;
+    }
+
+    public String getSince() {
+        return since;
+    }
+
+    public boolean isIncludeDocs() {
+        return includeDocs;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getHeartbeat() {
+        return heartbeat;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public CouchCheckpointStore getCheckpointStore() {
+        return checkpointStore;
+    }
+
+    public String getCheckpointId() {
+        return checkpointId;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public long getReconnectDelay() {
+        return reconnectDelay;
+    }
+
+    public long getMaxReconnectDelay() {
+        return maxReconnectDelay;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+/**
+ * Creates requests for the _changes feed of the database.
+ */
+public class ChangesRequestFactory {
+
+    private final RequestExecutor requestExecutor;
+
+    public ChangesRequestFactory(RequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    /**
+     * @return ChangesRequest with included docs read as TextDocument.
+     */
+    public ChangesRequest<TextDocument> document() {
+        return new ChangesRequest<>(requestExecutor, null);
+    }
+
+    /**
+     * Included docs are read as entities of the given class, every changed document should then be of
+     * that entity type (use a filter otherwise).
+     * @param entityClass -
+     * @param <T> -
+     * @return ChangesRequest
+     */
+    public <T> ChangesRequest<EntityDocument<T>> entity(Class<T> entityClass) {
+        ArgUtil.assertNotNull(entityClass, "entityClass");
+        return new ChangesRequest<>(requestExecutor, entityClass);
+    }
+
+}
@@ -17,5 +17,12 @@
 package org.tiogasolutions.couchace.core.api.request;
 
 public enum CouchFeature {
-    ALLOW_DB_DELETE
+    ALLOW_DB_DELETE,
+
+    /**
+     * Entities with embedded attachments are read with attachments=true and written with their attachments
+     * base64 encoded in _attachments, the attachment content travels with the document instead of one
+     * request per attachment.
+     */
+    INLINE_ATTACHMENTS
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+
+/**
+ * Attachment content written inline, base64 encoded in the document's _attachments, so the document and its
+ * attachments are stored with one request and one revision.
+ */
+public class CouchInlineAttachment {
+    private final String attachmentName;
+    private final CouchMediaType contentType;
+    private final byte[] data;
+
+    public CouchInlineAttachment(String attachmentName, CouchMediaType contentType, byte[] data) {
+        this.attachmentName = attachmentName;
+        this.contentType = contentType;
+        this.data = data;
+    }
+
+    public String getAttachmentName() {
+        return attachmentName;
+    }
+
+    public CouchMediaType getContentType() {
+        return contentType;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+}
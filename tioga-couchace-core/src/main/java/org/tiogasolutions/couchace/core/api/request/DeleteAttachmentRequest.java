@@ -21,6 +21,8 @@ import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -54,6 +56,10 @@ public class DeleteAttachmentRequest implements DeleteRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public DeleteAttachmentRequest onResponse(CouchResponseHandler<GetAttachmentResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
@@ -15,11 +15,15 @@
  */
 package org.tiogasolutions.couchace.core.api.request;
 
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.response.CouchDeleteProgressHandler;
 import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -27,11 +31,16 @@ import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
  */
 public class DeleteDocumentRequest implements DeleteRequest {
 
-    public enum Type {DATABASE, DOCUMENT, ALL_DESIGNS, ALL_DOCUMENTS, ALL_NON_DESIGNS}
+    public enum Type {DATABASE, DOCUMENT, ALL_DESIGNS, ALL_DOCUMENTS, ALL_NON_DESIGNS, INDEX}
+    public static final int DEFAULT_BATCH_SIZE = 1000;
     private final RequestExecutor requestExecutor;
     private final Type type;
     private final String documentId;
     private final String documentRevision;
+    private final String indexName;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int parallelism = 1;
+    private CouchDeleteProgressHandler onProgress;
     private CouchResponseHandler<WriteResponse> onResponse;
     private CouchResponseHandler<WriteResponse> onSuccess;
     private CouchResponseHandler<WriteResponse> onError;
@@ -42,6 +51,13 @@ public class DeleteDocumentRequest implements DeleteRequest {
         return new DeleteDocumentRequest(requestExecutor, Type.DOCUMENT, documentId, documentRevision);
     }
 
+    public static DeleteDocumentRequest index(RequestExecutor requestExecutor, String designName, String indexName) {
+        ArgUtil.assertNotNull(designName, "designName");
+        ArgUtil.assertNotNull(indexName, "indexName");
+        String designId = designName.startsWith("_design/") ? designName : "_design/" + designName;
+        return new DeleteDocumentRequest(requestExecutor, Type.INDEX, designId, null, indexName);
+    }
+
     public static DeleteDocumentRequest database(RequestExecutor requestExecutor) {
         return new DeleteDocumentRequest(requestExecutor, Type.DATABASE, null, null);
     }
@@ -59,10 +75,15 @@ public class DeleteDocumentRequest implements DeleteRequest {
     }
 
     public DeleteDocumentRequest(RequestExecutor requestExecutor, Type type, String documentId, String documentRevision) {
+        this(requestExecutor, type, documentId, documentRevision, null);
+    }
+
+    private DeleteDocumentRequest(RequestExecutor requestExecutor, Type type, String documentId, String documentRevision, String indexName) {
         this.requestExecutor = requestExecutor;
         this.type = type;
         this.documentId = documentId;
         this.documentRevision = documentRevision;
+        this.indexName = indexName;
     }
 
     public Type getType() {
@@ -77,14 +98,68 @@ public class DeleteDocumentRequest implements DeleteRequest {
         return documentRevision;
     }
 
+    /**
+     * @return the name of the index deleted by INDEX, its design document is the documentId
+     */
+    public String getIndexName() {
+        return indexName;
+    }
+
     public boolean hasRevision() {
         return documentRevision != null;
     }
 
+    /**
+     * Used by ALL_DOCUMENTS, ALL_DESIGNS and ALL_NON_DESIGNS, which page through _all_docs and delete each page
+     * with a single _bulk_docs call.
+     * @param batchSize - the number of documents read and deleted at a time
+     * @return this request
+     */
+    public DeleteDocumentRequest batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw CouchException.badRequest("Batch size must be at least 1: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param parallelism - the number of _bulk_docs batches written at the same time while the next page is read
+     * @return this request
+     */
+    public DeleteDocumentRequest parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw CouchException.badRequest("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public DeleteDocumentRequest onProgress(CouchDeleteProgressHandler onProgress) {
+        this.onProgress = onProgress;
+        return this;
+    }
+
+    public CouchDeleteProgressHandler getOnProgress() {
+        return onProgress;
+    }
+
     public WriteResponse execute() {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public DeleteDocumentRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
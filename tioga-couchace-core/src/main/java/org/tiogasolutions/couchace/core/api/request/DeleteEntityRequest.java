@@ -20,6 +20,8 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 public class DeleteEntityRequest implements DeleteRequest {
 
     private final RequestExecutor requestExecutor;
@@ -45,6 +47,10 @@ public class DeleteEntityRequest implements DeleteRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public DeleteEntityRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
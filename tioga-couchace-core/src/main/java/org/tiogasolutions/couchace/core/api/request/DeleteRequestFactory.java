@@ -54,6 +54,15 @@ public class DeleteRequestFactory {
         return DeleteDocumentRequest.allNonDesigns(requestExecutor);
     }
 
+    /**
+     * @param designName - the design document of the index, with or without _design/
+     * @param indexName - the index name
+     * @return DeleteDocumentRequest deleting the Mango index
+     */
+    public DeleteDocumentRequest index(String designName, String indexName) {
+        return DeleteDocumentRequest.index(requestExecutor, designName, indexName);
+    }
+
     public DeleteAttachmentRequest attachment(String documentId, String revision, String attachmentName) {
         return new DeleteAttachmentRequest(requestExecutor, documentId, revision, attachmentName);
     }
@@ -15,10 +15,15 @@
  */
 package org.tiogasolutions.couchace.core.api.request;
 
+import org.tiogasolutions.couchace.core.api.CouchException;
 import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.GetAttachmentResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -28,6 +33,7 @@ public class GetAttachmentRequest extends ReadDocumentRequest {
 
     private final RequestExecutor requestExecutor;
     private final String attachmentName;
+    private String range;
     private CouchResponseHandler<GetAttachmentResponse> onResponse;
     private CouchResponseHandler<GetAttachmentResponse> onSuccess;
     private CouchResponseHandler<GetAttachmentResponse> onError;
@@ -42,10 +48,87 @@ public class GetAttachmentRequest extends ReadDocumentRequest {
         return attachmentName;
     }
 
+    /**
+     * Reads only the bytes start to end (inclusive), answered with 206 Partial Content and a Content-Range.
+     *
+     * @param start - first byte, from 0
+     * @param end - last byte, inclusive
+     * @return this request
+     */
+    public GetAttachmentRequest range(long start, long end) {
+        if (start < 0 || end < start) {
+            throw CouchException.badRequest(String.format("Invalid attachment range %s-%s.", start, end));
+        }
+        this.range = "bytes=" + start + "-" + end;
+        return this;
+    }
+
+    /**
+     * Reads from start to the end of the attachment, as when resuming a download.
+     *
+     * @param start - first byte, from 0
+     * @return this request
+     */
+    public GetAttachmentRequest rangeFrom(long start) {
+        if (start < 0) {
+            throw CouchException.badRequest(String.format("Invalid attachment range %s-.", start));
+        }
+        this.range = "bytes=" + start + "-";
+        return this;
+    }
+
+    /**
+     * Reads the last count bytes of the attachment, as when tailing a log.
+     *
+     * @param count - number of bytes
+     * @return this request
+     */
+    public GetAttachmentRequest rangeLast(long count) {
+        if (count <= 0) {
+            throw CouchException.badRequest(String.format("Invalid attachment range -%s.", count));
+        }
+        this.range = "bytes=-" + count;
+        return this;
+    }
+
+    /**
+     * @return the Range header value, null to read the whole attachment.
+     */
+    public String getRange() {
+        return range;
+    }
+
     public GetAttachmentResponse execute() {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<GetAttachmentResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    /**
+     * @return a successful response holds the unread InputStream (GetAttachmentResponse.getInputStreamContent()), which the caller must close
+     */
+    public GetAttachmentResponse executeStream() {
+        return requestExecutor.executeStream(this);
+    }
+
+    /**
+     * @param outputStream - receives the attachment, it is not closed
+     * @return GetAttachmentResponse with no content
+     */
+    public GetAttachmentResponse executeTo(OutputStream outputStream) {
+        return requestExecutor.executeTo(this, outputStream);
+    }
+
+    /**
+     * @param path - the file the attachment is written to, replacing any existing one
+     * @return GetAttachmentResponse with no content
+     */
+    public GetAttachmentResponse executeTo(Path path) {
+        return requestExecutor.executeTo(this, path);
+    }
+
     public GetAttachmentRequest onResponse(CouchResponseHandler<GetAttachmentResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
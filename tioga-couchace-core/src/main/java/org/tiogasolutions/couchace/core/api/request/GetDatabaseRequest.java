@@ -21,6 +21,8 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.GetContentResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -55,6 +57,10 @@ public class GetDatabaseRequest implements ReadRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<GetContentResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public String getPath() {
         return path;
     }
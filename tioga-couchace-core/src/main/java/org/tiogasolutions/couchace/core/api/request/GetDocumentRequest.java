@@ -17,10 +17,15 @@ package org.tiogasolutions.couchace.core.api.request;
 
 import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.GetDocumentResponse;
+import org.tiogasolutions.couchace.core.api.response.GetStreamResponse;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -48,10 +53,26 @@ public class GetDocumentRequest extends ReadDocumentRequest {
         this.requestExecutor = requestExecutor;
     }
 
+    public GetDocumentRequest(RequestExecutor requestExecutor, CouchFindQuery findQuery) {
+        super(findQuery);
+        this.requestExecutor = requestExecutor;
+    }
+
     public GetDocumentResponse execute() {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<GetDocumentResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    /**
+     * Reads the rows lazily from the response, see GetStreamResponse.
+     */
+    public GetStreamResponse<TextDocument> executeStream() {
+        return requestExecutor.executeStream(this);
+    }
+
     public GetDocumentRequest onResponse(CouchResponseHandler<GetDocumentResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
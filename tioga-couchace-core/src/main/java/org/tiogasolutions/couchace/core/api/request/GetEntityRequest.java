@@ -16,12 +16,18 @@
 package org.tiogasolutions.couchace.core.api.request;
 
 import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
 import org.tiogasolutions.couchace.core.api.response.GetEntityResponse;
+import org.tiogasolutions.couchace.core.api.response.GetStreamResponse;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -56,6 +62,20 @@ public class GetEntityRequest<T> extends ReadDocumentRequest {
         this.entityClass = entityClass;
     }
 
+    public GetEntityRequest(RequestExecutor requestExecutor, Class<T> entityClass, CouchFindQuery findQuery) {
+        super(findQuery);
+        ArgUtil.assertNotNull(entityClass, "entityClass");
+        this.requestExecutor = requestExecutor;
+        this.entityClass = entityClass;
+    }
+
+    public GetEntityRequest(RequestExecutor requestExecutor, Class<T> entityClass, Collection<String> documentIds) {
+        super(documentIds);
+        ArgUtil.assertNotNull(entityClass, "entityClass");
+        this.requestExecutor = requestExecutor;
+        this.entityClass = entityClass;
+    }
+
     public Class<T> getEntityClass() {
         return entityClass;
     }
@@ -64,6 +84,17 @@ public class GetEntityRequest<T> extends ReadDocumentRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<GetEntityResponse<T>> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    /**
+     * Reads the rows lazily from the response, see GetStreamResponse.
+     */
+    public GetStreamResponse<EntityDocument<T>> executeStream() {
+        return requestExecutor.executeStream(this);
+    }
+
     public GetEntityRequest<T> onResponse(CouchResponseHandler<GetEntityResponse<T>> onResponse) {
         this.onResponse = onResponse;
         return this;
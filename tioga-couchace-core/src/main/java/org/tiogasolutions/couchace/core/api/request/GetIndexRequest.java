@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.api.response.GetIndexResponse;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lists the Mango indexes of the database with a GET of _index.
+ */
+public class GetIndexRequest implements ReadRequest {
+
+    private final RequestExecutor requestExecutor;
+    private CouchResponseHandler<GetIndexResponse> onResponse;
+    private CouchResponseHandler<GetIndexResponse> onSuccess;
+    private CouchResponseHandler<GetIndexResponse> onError;
+
+    public GetIndexRequest(RequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    public GetIndexResponse execute() {
+        return requestExecutor.execute(this);
+    }
+
+    public CompletableFuture<GetIndexResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    public GetIndexRequest onResponse(CouchResponseHandler<GetIndexResponse> onResponse) {
+        this.onResponse = onResponse;
+        return this;
+    }
+
+    public GetIndexRequest onSuccess(CouchResponseHandler<GetIndexResponse> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public GetIndexRequest onError(CouchResponseHandler<GetIndexResponse> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public CouchResponseHandler<GetIndexResponse> getOnResponse() {
+        return onResponse;
+    }
+
+    public CouchResponseHandler<GetIndexResponse> getOnSuccess() {
+        return onSuccess;
+    }
+
+    public CouchResponseHandler<GetIndexResponse> getOnError() {
+        return onError;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
+import org.tiogasolutions.couchace.core.api.response.CouchReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.api.response.GetReduceResponse;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads the reduced rows of a view into one of the CouchReduction types, the values are read as numbers straight
+ * off the response.
+ */
+public class GetReduceRequest<R extends CouchReduction> implements ReadRequest {
+
+    private final RequestExecutor requestExecutor;
+    private final CouchViewQuery viewQuery;
+    private final Class<R> reductionType;
+    private CouchResponseHandler<GetReduceResponse<R>> onResponse;
+    private CouchResponseHandler<GetReduceResponse<R>> onSuccess;
+    private CouchResponseHandler<GetReduceResponse<R>> onError;
+
+    public GetReduceRequest(RequestExecutor requestExecutor, CouchViewQuery viewQuery, Class<R> reductionType) {
+        this.requestExecutor = requestExecutor;
+        this.viewQuery = viewQuery;
+        this.reductionType = reductionType;
+    }
+
+    public GetReduceResponse<R> execute() {
+        return requestExecutor.execute(this);
+    }
+
+    public CompletableFuture<GetReduceResponse<R>> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    public GetReduceRequest<R> onResponse(CouchResponseHandler<GetReduceResponse<R>> onResponse) {
+        this.onResponse = onResponse;
+        return this;
+    }
+
+    public GetReduceRequest<R> onSuccess(CouchResponseHandler<GetReduceResponse<R>> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public GetReduceRequest<R> onError(CouchResponseHandler<GetReduceResponse<R>> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public CouchViewQuery getViewQuery() {
+        return viewQuery;
+    }
+
+    public Class<R> getReductionType() {
+        return reductionType;
+    }
+
+    public CouchResponseHandler<GetReduceResponse<R>> getOnResponse() {
+        return onResponse;
+    }
+
+    public CouchResponseHandler<GetReduceResponse<R>> getOnSuccess() {
+        return onSuccess;
+    }
+
+    public CouchResponseHandler<GetReduceResponse<R>> getOnError() {
+        return onError;
+    }
+
+}
@@ -18,10 +18,17 @@ package org.tiogasolutions.couchace.core.api.request;
 
 import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * User: harlan
  * Date: 2/19/14
@@ -71,6 +78,15 @@ public class GetRequestFactory {
         return new GetDocumentRequest(requestExecutor, pageQuery);
     }
 
+    /**
+     * Reads the documents matching the Mango query with a POST to _find.
+     * @param findQuery -
+     * @return GetDocumentRequest
+     */
+    public GetDocumentRequest document(CouchFindQuery findQuery) {
+        return new GetDocumentRequest(requestExecutor, findQuery);
+    }
+
     public GetAttachmentRequest attachment(String documentId, String attachmentName) {
         return new GetAttachmentRequest(requestExecutor, documentId, null, attachmentName);
     }
@@ -79,6 +95,17 @@ public class GetRequestFactory {
         return new GetAttachmentRequest(requestExecutor, documentId, documentRevision, attachmentName);
     }
 
+    /**
+     * @param documentId -
+     * @param attachmentName -
+     * @param start - first byte, from 0
+     * @param end - last byte, inclusive
+     * @return GetAttachmentRequest for the bytes start to end
+     */
+    public GetAttachmentRequest attachment(String documentId, String attachmentName, long start, long end) {
+        return new GetAttachmentRequest(requestExecutor, documentId, null, attachmentName).range(start, end);
+    }
+
     public <T> GetEntityRequest<T> entity(Class<T> entityClass, String documentId) {
         return new GetEntityRequest<>(requestExecutor, entityClass, documentId, null);
     }
@@ -95,5 +122,67 @@ public class GetRequestFactory {
         return new GetEntityRequest<>(requestExecutor, entityClass, pageQuery);
     }
 
+    /**
+     * Reads the entities matching the Mango query with a POST to _find.
+     * @param entityClass -
+     * @param findQuery -
+     * @param <T> -
+     * @return GetEntityRequest
+     */
+    public <T> GetEntityRequest<T> entity(Class<T> entityClass, CouchFindQuery findQuery) {
+        return new GetEntityRequest<>(requestExecutor, entityClass, findQuery);
+    }
+
+    /**
+     * Reads many entities with a single POST to _all_docs. The response holds one document per id in the
+     * order the ids were given, ids that are missing or deleted are marked on their EntityDocument.
+     * @param entityClass -
+     * @param documentIds -
+     * @param <T> -
+     * @return GetEntityRequest
+     */
+    public <T> GetEntityRequest<T> entities(Class<T> entityClass, Collection<String> documentIds) {
+        return new GetEntityRequest<>(requestExecutor, entityClass, documentIds);
+    }
+
+    public <T> GetEntityRequest<T> entities(Class<T> entityClass, String... documentIds) {
+        return new GetEntityRequest<>(requestExecutor, entityClass, Arrays.asList(documentIds));
+    }
+
+    /**
+     * Lists the Mango indexes of the database.
+     * @return GetIndexRequest
+     */
+    public GetIndexRequest indexes() {
+        return new GetIndexRequest(requestExecutor);
+    }
+
+    /**
+     * Reads the reduced rows of a view of whole numbers, such as _count.
+     * @param viewQuery - use group or groupLevel to reduce by key
+     * @return GetReduceRequest
+     */
+    public GetReduceRequest<CouchLongReduction> reduceLongs(CouchViewQuery viewQuery) {
+        return new GetReduceRequest<>(requestExecutor, viewQuery, CouchLongReduction.class);
+    }
+
+    /**
+     * Reads the reduced rows of a view of decimal numbers, such as a _sum of prices.
+     * @param viewQuery - use group or groupLevel to reduce by key
+     * @return GetReduceRequest
+     */
+    public GetReduceRequest<CouchDoubleReduction> reduceDoubles(CouchViewQuery viewQuery) {
+        return new GetReduceRequest<>(requestExecutor, viewQuery, CouchDoubleReduction.class);
+    }
+
+    /**
+     * Reads the reduced rows of a view reduced by _stats.
+     * @param viewQuery - use group or groupLevel to reduce by key
+     * @return GetReduceRequest
+     */
+    public GetReduceRequest<CouchStatsReduction> reduceStats(CouchViewQuery viewQuery) {
+        return new GetReduceRequest<>(requestExecutor, viewQuery, CouchStatsReduction.class);
+    }
+
 
 }
@@ -21,6 +21,8 @@ import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -52,6 +54,10 @@ public class HeadRequest extends ReadDocumentRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<HeadResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public HeadRequest onResponse(CouchResponseHandler<HeadResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
@@ -20,6 +20,8 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 7/27/14
@@ -43,6 +45,10 @@ public class PostDatabaseRequest implements PostRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public RequestExecutor getRequestExecutor() {
         return requestExecutor;
     }
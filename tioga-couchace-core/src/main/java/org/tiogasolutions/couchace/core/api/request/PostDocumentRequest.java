@@ -20,6 +20,8 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -45,6 +47,10 @@ public class PostDocumentRequest implements PostRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public PostDocumentRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
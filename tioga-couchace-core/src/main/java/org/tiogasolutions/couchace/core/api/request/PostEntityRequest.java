@@ -19,6 +19,10 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -28,14 +32,23 @@ public class PostEntityRequest implements PostRequest {
     private final RequestExecutor requestExecutor;
     private final String entityType;
     private final Object entity;
+    private final List<CouchInlineAttachment> inlineAttachments;
     private CouchResponseHandler<WriteResponse> onResponse;
     private CouchResponseHandler<WriteResponse> onSuccess;
     private CouchResponseHandler<WriteResponse> onError;
 
     public PostEntityRequest(RequestExecutor requestExecutor, String entityType, Object entity) {
+        this(requestExecutor, entityType, entity, null);
+    }
+
+    /**
+     * @param inlineAttachments - attachment content written with the document, may be null
+     */
+    public PostEntityRequest(RequestExecutor requestExecutor, String entityType, Object entity, List<CouchInlineAttachment> inlineAttachments) {
         this.requestExecutor = requestExecutor;
         this.entityType = entityType;
         this.entity = entity;
+        this.inlineAttachments = (inlineAttachments != null) ? Collections.unmodifiableList(inlineAttachments) : null;
     }
 
     public String getEntityType() {
@@ -46,6 +59,10 @@ public class PostEntityRequest implements PostRequest {
         return entity;
     }
 
+    public List<CouchInlineAttachment> getInlineAttachments() {
+        return inlineAttachments;
+    }
+
     public Class<?> getEntityClass() {
         return (entity != null) ? entity.getClass() : Object.class;
     }
@@ -54,6 +71,10 @@ public class PostEntityRequest implements PostRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public PostEntityRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
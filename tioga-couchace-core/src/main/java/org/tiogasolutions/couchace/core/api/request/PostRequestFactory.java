@@ -16,7 +16,9 @@
 
 package org.tiogasolutions.couchace.core.api.request;
 
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
 /**
  * User: harlan
@@ -47,4 +49,14 @@ public class PostRequestFactory {
         return new PostDatabaseRequest(requestExecutor, path, null);
     }
 
+    /**
+     * Creates the Mango index, CouchDB answers OK rather than CREATED when it already exists.
+     * @param index -
+     * @return PostDatabaseRequest for a POST to _index
+     */
+    public PostDatabaseRequest index(CouchFindIndex index) {
+        ArgUtil.assertNotNull(index, "index");
+        return new PostDatabaseRequest(requestExecutor, "_index", index.toJson());
+    }
+
 }
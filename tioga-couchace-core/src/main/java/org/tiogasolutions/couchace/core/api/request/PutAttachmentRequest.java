@@ -21,6 +21,8 @@ import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -71,6 +73,10 @@ public class PutAttachmentRequest implements PutRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public PutAttachmentRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
@@ -21,6 +21,10 @@ import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.RequestExecutor;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -33,6 +37,7 @@ public class PutEntityRequest implements PutRequest {
     private final String entityType;
     private final Object entity;
     private final CouchAttachmentInfoMap attachmentInfoMap;
+    private final List<CouchInlineAttachment> inlineAttachments;
     private CouchResponseHandler<WriteResponse> onResponse;
     private CouchResponseHandler<WriteResponse> onSuccess;
     private CouchResponseHandler<WriteResponse> onError;
@@ -43,12 +48,26 @@ public class PutEntityRequest implements PutRequest {
                             Object entity,
                             String documentRevision,
                             CouchAttachmentInfoMap attachmentInfoMap) {
+        this(requestExecutor, documentId, entityType, entity, documentRevision, attachmentInfoMap, null);
+    }
+
+    /**
+     * @param inlineAttachments - attachment content written with the document, may be null
+     */
+    public PutEntityRequest(RequestExecutor requestExecutor,
+                            String documentId,
+                            String entityType,
+                            Object entity,
+                            String documentRevision,
+                            CouchAttachmentInfoMap attachmentInfoMap,
+                            List<CouchInlineAttachment> inlineAttachments) {
         this.requestExecutor = requestExecutor;
         this.documentId = documentId;
         this.documentRevision = documentRevision;
         this.entityType = entityType;
         this.entity = entity;
         this.attachmentInfoMap = attachmentInfoMap;
+        this.inlineAttachments = (inlineAttachments != null) ? Collections.unmodifiableList(inlineAttachments) : null;
     }
 
     public PutEntityRequest(RequestExecutor requestExecutor,
@@ -79,6 +98,10 @@ public class PutEntityRequest implements PutRequest {
         return attachmentInfoMap;
     }
 
+    public List<CouchInlineAttachment> getInlineAttachments() {
+        return inlineAttachments;
+    }
+
     public Class<?> getEntityClass() {
         return (entity != null) ? entity.getClass() : Object.class;
     }
@@ -87,6 +110,10 @@ public class PutEntityRequest implements PutRequest {
         return requestExecutor.execute(this);
     }
 
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
     public PutEntityRequest onResponse(CouchResponseHandler<WriteResponse> onResponse) {
         this.onResponse = onResponse;
         return this;
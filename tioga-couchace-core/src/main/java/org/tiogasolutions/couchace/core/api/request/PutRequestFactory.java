@@ -180,6 +180,15 @@ public class PutRequestFactory {
         return new PutDocumentRequest(requestExecutor, documentId, document, documentRevision);
     }
 
+    /**
+     * @param documentId -
+     * @param documentRevision -
+     * @param attachmentName -
+     * @param contentType -
+     * @param content - a String or byte[], or streamed without being held in memory: an InputStream (closed once sent),
+     *                a Path or File, or a FileChannel (sent from its position to its end, left open)
+     * @return PutAttachmentRequest
+     */
     public PutAttachmentRequest attachment(String documentId, String documentRevision, String attachmentName, CouchMediaType contentType, Object content) {
         ArgUtil.assertNotNull(documentId, "documentId");
         ArgUtil.assertNotNull(documentRevision, "documentRevision");
@@ -15,10 +15,16 @@
  */
 package org.tiogasolutions.couchace.core.api.request;
 
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * User: harlan
  * Date: 9/15/12
@@ -30,6 +36,8 @@ public abstract class ReadDocumentRequest implements ReadRequest {
     private final String documentRevision;
     private final CouchViewQuery viewQuery;
     private final CouchPageQuery pageQuery;
+    private final List<String> documentIds;
+    private final CouchFindQuery findQuery;
 
     protected ReadDocumentRequest(String documentId, String documentRevision) {
         ArgUtil.assertNotNull(documentId, "documentId");
@@ -37,6 +45,8 @@ public abstract class ReadDocumentRequest implements ReadRequest {
         this.documentRevision = documentRevision;
         this.viewQuery = null;
         this.pageQuery = null;
+        this.documentIds = null;
+        this.findQuery = null;
     }
 
     protected ReadDocumentRequest(CouchViewQuery viewQuery) {
@@ -45,6 +55,8 @@ public abstract class ReadDocumentRequest implements ReadRequest {
         this.documentId = null;
         this.documentRevision = null;
         this.pageQuery = null;
+        this.documentIds = null;
+        this.findQuery = null;
     }
 
     protected ReadDocumentRequest(CouchPageQuery pageQuery) {
@@ -53,6 +65,28 @@ public abstract class ReadDocumentRequest implements ReadRequest {
         this.viewQuery = null;
         this.documentId = null;
         this.documentRevision = null;
+        this.documentIds = null;
+        this.findQuery = null;
+    }
+
+    protected ReadDocumentRequest(Collection<String> documentIds) {
+        ArgUtil.assertNotNull(documentIds, "documentIds");
+        this.documentIds = Collections.unmodifiableList(new ArrayList<>(documentIds));
+        this.documentId = null;
+        this.documentRevision = null;
+        this.viewQuery = null;
+        this.pageQuery = null;
+        this.findQuery = null;
+    }
+
+    protected ReadDocumentRequest(CouchFindQuery findQuery) {
+        ArgUtil.assertNotNull(findQuery, "findQuery");
+        this.findQuery = findQuery;
+        this.documentId = null;
+        this.documentRevision = null;
+        this.viewQuery = null;
+        this.pageQuery = null;
+        this.documentIds = null;
     }
 
     public String getDocumentId() {
@@ -71,4 +105,12 @@ public abstract class ReadDocumentRequest implements ReadRequest {
         return viewQuery;
     }
 
+    public List<String> getDocumentIds() {
+        return documentIds;
+    }
+
+    public CouchFindQuery getFindQuery() {
+        return findQuery;
+    }
+
 }
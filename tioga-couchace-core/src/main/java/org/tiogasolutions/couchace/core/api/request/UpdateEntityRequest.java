@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.request;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.response.CouchResponseHandler;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.internal.RequestExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Reads the current revision of an entity, applies the mutator and puts the result. On a 409 conflict the
+ * latest revision is read and the mutator applied again, up to maxAttempts times with a growing random delay
+ * between attempts. The mutator may therefore be called more than once and should only change the entity it is given.
+ */
+public class UpdateEntityRequest<T> {
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_INITIAL_DELAY = 10;
+    public static final long DEFAULT_MAX_DELAY = 1000;
+    private final RequestExecutor requestExecutor;
+    private final Class<T> entityClass;
+    private final String documentId;
+    private final Function<T, T> mutator;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long initialDelay = DEFAULT_INITIAL_DELAY;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    private CouchResponseHandler<WriteResponse> onResponse;
+    private CouchResponseHandler<WriteResponse> onSuccess;
+    private CouchResponseHandler<WriteResponse> onError;
+
+    public UpdateEntityRequest(RequestExecutor requestExecutor, Class<T> entityClass, String documentId, Function<T, T> mutator) {
+        this.requestExecutor = requestExecutor;
+        this.entityClass = entityClass;
+        this.documentId = documentId;
+        this.mutator = mutator;
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Function<T, T> getMutator() {
+        return mutator;
+    }
+
+    /**
+     * @param maxAttempts - the number of times the entity is read, mutated and put before the conflict is returned
+     * @return this request
+     */
+    public UpdateEntityRequest<T> maxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw CouchException.badRequest("Max attempts must be at least 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param initialDelay - milliseconds of the delay after the first conflict, doubled after each one
+     * @param maxDelay - cap on the delay in milliseconds, each delay is a random time up to the current one
+     * @return this request
+     */
+    public UpdateEntityRequest<T> backoff(long initialDelay, long maxDelay) {
+        if (initialDelay < 0 || maxDelay < initialDelay) {
+            throw CouchException.badRequest("Initial delay must be between 0 and max delay: " + initialDelay + ", " + maxDelay);
+        }
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public WriteResponse execute() {
+        return requestExecutor.execute(this);
+    }
+
+    public CompletableFuture<WriteResponse> executeAsync() {
+        return requestExecutor.executeAsync(this);
+    }
+
+    public UpdateEntityRequest<T> onResponse(CouchResponseHandler<WriteResponse> onResponse) {
+        this.onResponse = onResponse;
+        return this;
+    }
+
+    public UpdateEntityRequest<T> onSuccess(CouchResponseHandler<WriteResponse> onSuccess) {
+        this.onSuccess = onSuccess;
+        return this;
+    }
+
+    public UpdateEntityRequest<T> onError(CouchResponseHandler<WriteResponse> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    public CouchResponseHandler<WriteResponse> getOnResponse() {
+        return onResponse;
+    }
+
+    public CouchResponseHandler<WriteResponse> getOnSuccess() {
+        return onSuccess;
+    }
+
+    public CouchResponseHandler<WriteResponse> getOnError() {
+        return onError;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Response to a _bulk_docs write. The status of the response is that of the HTTP call, which
+ * CouchDB reports as created even when individual documents fail, so use hasErrors() or
+ * getErrorResponses() to find documents that were not written.
+ */
+public class BulkResponse implements CouchResponse, Iterable<WriteResponse> {
+    private final URI uri;
+    private final CouchHttpStatus httpStatus;
+    private final CouchMediaType contentType;
+    private final CouchErrorContent errorContent;
+    private final List<WriteResponse> writeResponses;
+
+    public static BulkResponse withError(URI uri, CouchHttpStatus httpStatus, CouchMediaType contentType, CouchErrorContent errorContent) {
+        return new BulkResponse(uri, httpStatus, contentType, errorContent, null);
+    }
+
+    public static BulkResponse withWriteResponses(URI uri, CouchHttpStatus httpStatus, CouchMediaType contentType, List<WriteResponse> writeResponses) {
+        return new BulkResponse(uri, httpStatus, contentType, null, writeResponses);
+    }
+
+    private BulkResponse(URI uri, CouchHttpStatus httpStatus, CouchMediaType contentType, CouchErrorContent errorContent, List<WriteResponse> writeResponses) {
+        ArgUtil.assertNotNull(uri, "URI");
+        ArgUtil.assertNotNull(httpStatus, "HttpStatus");
+        this.uri = uri;
+        this.httpStatus = httpStatus;
+        this.contentType = (contentType != null) ? contentType : CouchMediaType.APPLICATION_JSON;
+        this.errorContent = (errorContent != null) ? errorContent : CouchErrorContent.noError;
+        if (writeResponses == null) {
+            this.writeResponses = Collections.emptyList();
+        } else {
+            this.writeResponses = Collections.unmodifiableList(new ArrayList<>(writeResponses));
+        }
+    }
+
+    /**
+     * @return one WriteResponse per document, in the order the documents were given.
+     */
+    public List<WriteResponse> getWriteResponses() {
+        return writeResponses;
+    }
+
+    public List<WriteResponse> getErrorResponses() {
+        List<WriteResponse> errorResponses = new ArrayList<>();
+        for (WriteResponse writeResponse : writeResponses) {
+            if (writeResponse.isError()) {
+                errorResponses.add(writeResponse);
+            }
+        }
+        return errorResponses;
+    }
+
+    public boolean hasErrors() {
+        for (WriteResponse writeResponse : writeResponses) {
+            if (writeResponse.isError()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSize() {
+        return writeResponses.size();
+    }
+
+    public boolean isEmpty() {
+        return writeResponses.isEmpty();
+    }
+
+    @Override
+    public Iterator<WriteResponse> iterator() {
+        return writeResponses.iterator();
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public CouchMediaType getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public CouchMethodType getMethodType() {
+        return CouchMethodType.POST;
+    }
+
+    @Override
+    public CouchHttpStatus getHttpStatus() {
+        return httpStatus;
+    }
+
+    @Override
+    public int getHttpStatusCode() {
+        return httpStatus.getCode();
+    }
+
+    @Override
+    public boolean isOk() {
+        return httpStatus.isOk();
+    }
+
+    @Override
+    public boolean isError() {
+        return httpStatus != CouchHttpStatus.CREATED && httpStatus != CouchHttpStatus.OK;
+    }
+
+    @Override
+    public boolean isCreated() {
+        return httpStatus.isCreated();
+    }
+
+    @Override
+    public boolean isNotFound() {
+        return httpStatus.isNotFound();
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return httpStatus == CouchHttpStatus.CREATED || httpStatus == CouchHttpStatus.OK;
+    }
+
+    @Override
+    public boolean isConflict() {
+        return httpStatus.isConflict();
+    }
+
+    @Override
+    public boolean isUnauthorized() {
+        return httpStatus.isUnauthorized();
+    }
+
+    @Override
+    public CouchErrorContent getErrorContent() {
+        return errorContent;
+    }
+
+    @Override
+    public String getErrorReason() {
+        return errorContent.getReason();
+    }
+
+}
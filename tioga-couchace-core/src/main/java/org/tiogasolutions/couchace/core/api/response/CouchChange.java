@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single row of the _changes feed, the document is only present when docs were included.
+ */
+public class CouchChange<D extends CouchDocument<?>> {
+    private final String seq;
+    private final String documentId;
+    private final List<String> revisions;
+    private final boolean deleted;
+    private final D document;
+
+    public CouchChange(String seq, String documentId, List<String> revisions, boolean deleted, D document) {
+        this.seq = seq;
+        this.documentId = documentId;
+        this.revisions = (revisions != null) ? Collections.unmodifiableList(revisions) : Collections.<String>emptyList();
+        this.deleted = deleted;
+        this.document = document;
+    }
+
+    /**
+     * @return the update sequence of this change, opaque and only meant to be passed back as since.
+     */
+    public String getSeq() {
+        return seq;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * @return the leaf revisions of the changed document, the winning revision first.
+     */
+    public List<String> getRevisions() {
+        return revisions;
+    }
+
+    public String getDocumentRevision() {
+        return revisions.isEmpty() ? null : revisions.get(0);
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return the document when include_docs was requested, otherwise null.
+     */
+    public D getDocument() {
+        return document;
+    }
+
+    public boolean hasDocument() {
+        return document != null;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchChange{" +
+                "seq='" + seq + '\'' +
+                ", documentId='" + documentId + '\'' +
+                ", revisions=" + revisions +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
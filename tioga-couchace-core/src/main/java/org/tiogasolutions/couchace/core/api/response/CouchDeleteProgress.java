@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How far a batched delete of all (design or non-design) documents has got. Documents that could not be
+ * deleted, typically because they were updated since their page was read, are reported as failures and
+ * do not stop the run.
+ */
+public class CouchDeleteProgress {
+    private final long documentsRead;
+    private final long documentsDeleted;
+    private final int batchesWritten;
+    private final List<WriteResponse> failures;
+    private final boolean complete;
+
+    public CouchDeleteProgress(long documentsRead, long documentsDeleted, int batchesWritten, List<WriteResponse> failures, boolean complete) {
+        this.documentsRead = documentsRead;
+        this.documentsDeleted = documentsDeleted;
+        this.batchesWritten = batchesWritten;
+        this.failures = Collections.unmodifiableList(failures);
+        this.complete = complete;
+    }
+
+    /**
+     * @return the number of documents listed so far that matched the delete.
+     */
+    public long getDocumentsRead() {
+        return documentsRead;
+    }
+
+    public long getDocumentsDeleted() {
+        return documentsDeleted;
+    }
+
+    public int getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    /**
+     * @return the error response of each document that was not deleted.
+     */
+    public List<WriteResponse> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * @return true for the last report, once every page has been read and every batch written.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "CouchDeleteProgress{" +
+                "documentsRead=" + documentsRead +
+                ", documentsDeleted=" + documentsDeleted +
+                ", batchesWritten=" + batchesWritten +
+                ", failures=" + failures.size() +
+                ", complete=" + complete +
+                '}';
+    }
+}
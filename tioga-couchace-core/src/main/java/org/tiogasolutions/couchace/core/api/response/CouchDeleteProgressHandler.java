@@ -0,0 +1,28 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+/**
+ * Told about a batched delete after each _bulk_docs batch is written and once more when it completes.
+ * Reports are made one at a time but not always from the same thread.
+ */
+public interface CouchDeleteProgressHandler {
+
+    void handle(CouchDeleteProgress progress);
+
+}
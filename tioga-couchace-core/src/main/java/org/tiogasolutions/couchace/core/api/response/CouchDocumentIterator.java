@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Iterates over the documents of a response as they are read from the underlying stream. Closing the
+ * iterator releases the stream, it is also closed once the last document has been read.
+ */
+public interface CouchDocumentIterator<D> extends Iterator<D>, AutoCloseable {
+
+    @Override
+    void close();
+
+    static <D> CouchDocumentIterator<D> empty() {
+        Iterator<D> iterator = Collections.emptyIterator();
+        return new CouchDocumentIterator<D>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public D next() {
+                return iterator.next();
+            }
+        };
+    }
+
+}
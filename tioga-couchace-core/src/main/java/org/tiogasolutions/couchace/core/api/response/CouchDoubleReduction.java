@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A reduction of decimal numbers, such as a _sum of prices or a custom average.
+ */
+public class CouchDoubleReduction extends CouchReduction {
+    private final double[] values;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public CouchDoubleReduction(CouchJsonKey[] keys, double[] values) {
+        super(keys);
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Reduction has " + keys.length + " keys but " + values.length + " values");
+        }
+        this.values = values;
+    }
+
+    public double getValue(int row) {
+        return values[row];
+    }
+
+    /**
+     * @return the value of an ungrouped reduction, zero if the view had no rows
+     */
+    public double getValue() {
+        return isEmpty() ? 0 : values[0];
+    }
+
+    public double getValue(CouchJsonKey key, double defaultValue) {
+        int row = indexOf(key);
+        return (row >= 0) ? values[row] : defaultValue;
+    }
+
+    /**
+     * @return a copy of the values in row order
+     */
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    public double getTotal() {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * @return the values by key in row order, boxing each of them
+     */
+    public Map<CouchJsonKey, Double> toMap() {
+        Map<CouchJsonKey, Double> map = new LinkedHashMap<>(size() * 4 / 3 + 1);
+        for (int row = 0; row < values.length; row++) {
+            map.put(getKey(row), values[row]);
+        }
+        return map;
+    }
+
+    public static class Builder {
+        private CouchJsonKey[] keys = new CouchJsonKey[16];
+        private double[] values = new double[16];
+        private int size;
+
+        public Builder add(CouchJsonKey key, double value) {
+            if (size == keys.length) {
+                int capacity = grow(keys.length);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size++] = value;
+            return this;
+        }
+
+        public CouchDoubleReduction build() {
+            return new CouchDoubleReduction(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+        }
+    }
+}
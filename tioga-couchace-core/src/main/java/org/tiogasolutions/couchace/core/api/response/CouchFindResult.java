@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The documents of one page of a _find, with the bookmark that reads the page after it.
+ */
+public class CouchFindResult<D> {
+    private final List<D> documents;
+    private final String bookmark;
+    private final String warning;
+
+    public CouchFindResult(List<D> documents, String bookmark, String warning) {
+        this.documents = (documents != null) ? documents : Collections.<D>emptyList();
+        this.bookmark = bookmark;
+        this.warning = warning;
+    }
+
+    public List<D> getDocuments() {
+        return documents;
+    }
+
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    /**
+     * @return the warning of CouchDB, for example when no index matched the selector, or null
+     */
+    public String getWarning() {
+        return warning;
+    }
+}
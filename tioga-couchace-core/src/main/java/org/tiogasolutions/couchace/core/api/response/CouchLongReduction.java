@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A reduction of whole numbers, such as the built in _count or a _sum of integers.
+ */
+public class CouchLongReduction extends CouchReduction {
+    private final long[] values;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public CouchLongReduction(CouchJsonKey[] keys, long[] values) {
+        super(keys);
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Reduction has " + keys.length + " keys but " + values.length + " values");
+        }
+        this.values = values;
+    }
+
+    public long getValue(int row) {
+        return values[row];
+    }
+
+    /**
+     * @return the value of an ungrouped reduction, zero if the view had no rows
+     */
+    public long getValue() {
+        return isEmpty() ? 0 : values[0];
+    }
+
+    public long getValue(CouchJsonKey key, long defaultValue) {
+        int row = indexOf(key);
+        return (row >= 0) ? values[row] : defaultValue;
+    }
+
+    /**
+     * @return a copy of the values in row order
+     */
+    public long[] getValues() {
+        return values.clone();
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * @return the values by key in row order, boxing each of them
+     */
+    public Map<CouchJsonKey, Long> toMap() {
+        Map<CouchJsonKey, Long> map = new LinkedHashMap<>(size() * 4 / 3 + 1);
+        for (int row = 0; row < values.length; row++) {
+            map.put(getKey(row), values[row]);
+        }
+        return map;
+    }
+
+    public static class Builder {
+        private CouchJsonKey[] keys = new CouchJsonKey[16];
+        private long[] values = new long[16];
+        private int size;
+
+        public Builder add(CouchJsonKey key, long value) {
+            if (size == keys.length) {
+                int capacity = grow(keys.length);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size++] = value;
+            return this;
+        }
+
+        public CouchLongReduction build() {
+            return new CouchLongReduction(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a reduced view, the keys are shared here and the values are held by the subclass in primitive arrays
+ * so a large grouped reduction is not a row object per key. The key of a row is null when the view is reduced
+ * without grouping.
+ */
+public abstract class CouchReduction {
+    private final CouchJsonKey[] keys;
+    private volatile Map<CouchJsonKey, Integer> rowIndex;
+
+    protected CouchReduction(CouchJsonKey[] keys) {
+        this.keys = keys;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public CouchJsonKey getKey(int row) {
+        return keys[row];
+    }
+
+    public List<CouchJsonKey> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * The index of the keys is built on the first call.
+     * @param key - the key of the row, such as new CouchJsonKey(2014, 3) for a group_level of 2
+     * @return the row of the key or -1 if there is none
+     */
+    public int indexOf(CouchJsonKey key) {
+        Map<CouchJsonKey, Integer> index = rowIndex;
+        if (index == null) {
+            index = new HashMap<>(keys.length * 4 / 3 + 1);
+            for (int row = keys.length - 1; row >= 0; row--) {
+                index.put(keys[row], row);
+            }
+            rowIndex = index;
+        }
+        Integer row = index.get(key);
+        return (row != null) ? row : -1;
+    }
+
+    static int grow(int capacity) {
+        return Math.max(16, capacity * 2);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+
+import java.util.Arrays;
+
+/**
+ * A reduction by the built in _stats, each row holds the sum, count, min, max and sum of squares of its values.
+ */
+public class CouchStatsReduction extends CouchReduction {
+    private final double[] sums;
+    private final long[] counts;
+    private final double[] mins;
+    private final double[] maxes;
+    private final double[] sumsqrs;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public CouchStatsReduction(CouchJsonKey[] keys, double[] sums, long[] counts, double[] mins, double[] maxes, double[] sumsqrs) {
+        super(keys);
+        if (sums.length != keys.length || counts.length != keys.length || mins.length != keys.length
+                || maxes.length != keys.length || sumsqrs.length != keys.length) {
+            throw new IllegalArgumentException("Reduction must have the same number of keys and stats");
+        }
+        this.sums = sums;
+        this.counts = counts;
+        this.mins = mins;
+        this.maxes = maxes;
+        this.sumsqrs = sumsqrs;
+    }
+
+    public double getSum(int row) {
+        return sums[row];
+    }
+
+    public long getCount(int row) {
+        return counts[row];
+    }
+
+    public double getMin(int row) {
+        return mins[row];
+    }
+
+    public double getMax(int row) {
+        return maxes[row];
+    }
+
+    public double getSumsqr(int row) {
+        return sumsqrs[row];
+    }
+
+    /**
+     * @param row -
+     * @return the sum divided by the count, NaN for a count of zero
+     */
+    public double getMean(int row) {
+        return (counts[row] != 0) ? sums[row] / counts[row] : Double.NaN;
+    }
+
+    /**
+     * @return a copy of the sums in row order
+     */
+    public double[] getSums() {
+        return sums.clone();
+    }
+
+    /**
+     * @return a copy of the counts in row order
+     */
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+    public static class Builder {
+        private CouchJsonKey[] keys = new CouchJsonKey[16];
+        private double[] sums = new double[16];
+        private long[] counts = new long[16];
+        private double[] mins = new double[16];
+        private double[] maxes = new double[16];
+        private double[] sumsqrs = new double[16];
+        private int size;
+
+        public Builder add(CouchJsonKey key, double sum, long count, double min, double max, double sumsqr) {
+            if (size == keys.length) {
+                int capacity = grow(keys.length);
+                keys = Arrays.copyOf(keys, capacity);
+                sums = Arrays.copyOf(sums, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                mins = Arrays.copyOf(mins, capacity);
+                maxes = Arrays.copyOf(maxes, capacity);
+                sumsqrs = Arrays.copyOf(sumsqrs, capacity);
+            }
+            keys[size] = key;
+            sums[size] = sum;
+            counts[size] = count;
+            mins[size] = min;
+            maxes[size] = max;
+            sumsqrs[size++] = sumsqr;
+            return this;
+        }
+
+        public CouchStatsReduction build() {
+            return new CouchStatsReduction(
+                    Arrays.copyOf(keys, size),
+                    Arrays.copyOf(sums, size),
+                    Arrays.copyOf(counts, size),
+                    Arrays.copyOf(mins, size),
+                    Arrays.copyOf(maxes, size),
+                    Arrays.copyOf(sumsqrs, size));
+        }
+    }
+}
@@ -29,18 +29,55 @@ public final class EntityDocument<T> implements CouchDocument<T> {
     private final String entityType;
     private final Class<?> entityClass;
     private final T entity;
+    private final boolean notFound;
+    private final boolean deleted;
+
+    /**
+     * Placeholder for a requested id that does not exist in the database.
+     * @param documentId -
+     * @param key -
+     * @param <T> -
+     * @return EntityDocument
+     */
+    public static <T> EntityDocument<T> notFound(String documentId, CouchJsonKey key) {
+        return new EntityDocument<>(documentId, null, key, null, null, true, false);
+    }
+
+    /**
+     * Placeholder for a requested id whose document has been deleted.
+     * @param documentId -
+     * @param documentRevision -
+     * @param key -
+     * @param <T> -
+     * @return EntityDocument
+     */
+    public static <T> EntityDocument<T> deleted(String documentId, String documentRevision, CouchJsonKey key) {
+        return new EntityDocument<>(documentId, documentRevision, key, null, null, false, true);
+    }
 
     public EntityDocument(String documentId,
                           String documentRevision,
                           CouchJsonKey key,
                           String entityType,
                           T entity) {
+        this(documentId, documentRevision, key, entityType, entity, false, false);
+    }
+
+    private EntityDocument(String documentId,
+                           String documentRevision,
+                           CouchJsonKey key,
+                           String entityType,
+                           T entity,
+                           boolean notFound,
+                           boolean deleted) {
         this.documentId = documentId;
         this.documentRevision = documentRevision;
         this.key = key;
         this.entityType = entityType;
         this.entity = entity;
         this.entityClass = (entity != null) ? entity.getClass() : Object.class;
+        this.notFound = notFound;
+        this.deleted = deleted;
     }
 
     @Override
@@ -75,6 +112,18 @@ public final class EntityDocument<T> implements CouchDocument<T> {
         return entityClass;
     }
 
+    public boolean isNotFound() {
+        return notFound;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public boolean hasEntity() {
+        return entity != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -111,6 +160,8 @@ public final class EntityDocument<T> implements CouchDocument<T> {
             ", entityType='" + entityType + '\'' +
             ", entityClass=" + entityClass +
             ", entity=" + entity +
+            ", notFound=" + notFound +
+            ", deleted=" + deleted +
             '}';
     }
 }
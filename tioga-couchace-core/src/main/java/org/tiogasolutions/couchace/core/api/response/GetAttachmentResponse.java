@@ -15,11 +15,15 @@
  */
 package org.tiogasolutions.couchace.core.api.response;
 
+import org.tiogasolutions.couchace.core.api.http.CouchContentRange;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 
 /**
  * User: harlan
@@ -30,6 +34,7 @@ public class GetAttachmentResponse extends GetResponse {
     private final String documentId;
     private final String etag;
     private final Object content;
+    private final CouchContentRange contentRange;
 
     public GetAttachmentResponse(URI uri,
                                  CouchHttpStatus statusCode,
@@ -38,11 +43,23 @@ public class GetAttachmentResponse extends GetResponse {
                                  CouchMediaType contentType,
                                  Object content,
                                  CouchErrorContent errorContent) {
+        this(uri, statusCode, documentId, etag, contentType, content, errorContent, null);
+    }
+
+    public GetAttachmentResponse(URI uri,
+                                 CouchHttpStatus statusCode,
+                                 String documentId,
+                                 String etag,
+                                 CouchMediaType contentType,
+                                 Object content,
+                                 CouchErrorContent errorContent,
+                                 CouchContentRange contentRange) {
         super(uri, statusCode, contentType, errorContent);
         ArgUtil.assertNotNull(uri, "URI");
         this.documentId = documentId;
         this.etag = etag;
         this.content = content;
+        this.contentRange = contentRange;
     }
 
     public String getDocumentId() {
@@ -61,10 +78,36 @@ public class GetAttachmentResponse extends GetResponse {
         return content;
     }
 
+    /**
+     * @return the Content-Range of a 206 Partial Content (or 416) response, null when the whole attachment was read.
+     */
+    public CouchContentRange getContentRange() {
+        return contentRange;
+    }
+
+    public boolean isPartial() {
+        return getHttpStatus() == CouchHttpStatus.PARTIAL_CONTENT;
+    }
+
     public String getStringContent() {
         return (content != null) ? content.toString() : null;
     }
 
+    /**
+     * @return the content as an InputStream, for a streamed response the stream itself which the caller must close
+     */
+    public InputStream getInputStreamContent() {
+        if (content == null) {
+            return null;
+        } else if (content instanceof InputStream) {
+            return (InputStream) content;
+        } else if (content instanceof byte[]) {
+            return new ByteArrayInputStream((byte[]) content);
+        } else {
+            return new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     @Override
     public CouchErrorContent getErrorContent() {
         return CouchErrorContent.parseJson(getStringContent());
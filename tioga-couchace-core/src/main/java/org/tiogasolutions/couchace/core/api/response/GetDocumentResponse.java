@@ -32,32 +32,42 @@ import java.util.List;
 public class GetDocumentResponse extends GetResponse implements Iterable<TextDocument> {
     private final CouchPageNavigation couchPageNavigation;
     private final List<TextDocument> documentList;
+    private final String bookmark;
 
     public static GetDocumentResponse withError(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent) {
         return new GetDocumentResponse(uri, statusCode, contentType, errorContent);
     }
 
     public static GetDocumentResponse withDocument(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, TextDocument document) {
-        return new GetDocumentResponse(uri, statusCode, contentType, null, Collections.singletonList(document));
+        return new GetDocumentResponse(uri, statusCode, contentType, null, null, Collections.singletonList(document));
     }
 
     public static GetDocumentResponse withDocuments(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, List<TextDocument> documents) {
-        return new GetDocumentResponse(uri, statusCode, contentType, null, documents);
+        return new GetDocumentResponse(uri, statusCode, contentType, null, null, documents);
     }
 
     public static GetDocumentResponse withDocuments(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchPageNavigation couchPageNavigation, List<TextDocument> documents) {
-        return new GetDocumentResponse(uri, statusCode, contentType, couchPageNavigation, documents);
+        return new GetDocumentResponse(uri, statusCode, contentType, couchPageNavigation, null, documents);
+    }
+
+    /**
+     * @param bookmark - reads the next page of a _find, see CouchFindQuery.withBookmark
+     */
+    public static GetDocumentResponse withFoundDocuments(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, String bookmark, List<TextDocument> documents) {
+        return new GetDocumentResponse(uri, statusCode, contentType, CouchPageNavigation.empty(), bookmark, documents);
     }
 
     private GetDocumentResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent) {
         super(uri, statusCode, contentType, errorContent);
         this.couchPageNavigation = CouchPageNavigation.empty();
         this.documentList = Collections.emptyList();
+        this.bookmark = null;
     }
 
-    private GetDocumentResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchPageNavigation couchPageNavigation, List<TextDocument> documentList) {
+    private GetDocumentResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchPageNavigation couchPageNavigation, String bookmark, List<TextDocument> documentList) {
         super(uri, statusCode, contentType, null);
         this.couchPageNavigation = couchPageNavigation;
+        this.bookmark = bookmark;
         if (documentList == null) {
             this.documentList = Collections.emptyList();
         } else {
@@ -93,6 +103,13 @@ public class GetDocumentResponse extends GetResponse implements Iterable<TextDoc
         return couchPageNavigation;
     }
 
+    /**
+     * @return the bookmark of a _find response, null for other reads
+     */
+    public String getBookmark() {
+        return bookmark;
+    }
+
 
     public Long getFirstContentAsLong() {
         if (isEmpty()) {
@@ -35,21 +35,29 @@ public class GetEntityResponse<T> extends GetResponse implements Iterable<T> {
     private final List<T> entityList;
     private final List<EntityDocument<T>> entityDocumentList;
     private final CouchPageNavigation couchPageNavigation;
+    private final String bookmark;
 
     public static <T> GetEntityResponse<T> withError(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, CouchErrorContent errorContent) {
         return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, errorContent);
     }
 
     public static <T> GetEntityResponse<T> withEntity(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, EntityDocument<T> entity) {
-        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, null, Collections.singletonList(entity));
+        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, null, null, Collections.singletonList(entity));
     }
 
     public static <T> GetEntityResponse<T> withEntities(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, List<EntityDocument<T>> entities) {
-        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, null, entities);
+        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, null, null, entities);
     }
 
     public static <T> GetEntityResponse<T> withEntities(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, CouchPageNavigation couchPageNavigation, List<EntityDocument<T>> entities) {
-        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, couchPageNavigation, entities);
+        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, couchPageNavigation, null, entities);
+    }
+
+    /**
+     * @param bookmark - reads the next page of a _find, see CouchFindQuery.withBookmark
+     */
+    public static <T> GetEntityResponse<T> withFoundEntities(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, String bookmark, List<EntityDocument<T>> entities) {
+        return new GetEntityResponse<>(uri, statusCode, contentType, entityClass, CouchPageNavigation.empty(), bookmark, entities);
     }
 
     /**
@@ -60,7 +68,7 @@ public class GetEntityResponse<T> extends GetResponse implements Iterable<T> {
      * @param entityClass
      * @param entityDocuments
      */
-    private GetEntityResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, CouchPageNavigation couchPageNavigation, List<EntityDocument<T>> entityDocuments) {
+    private GetEntityResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, CouchPageNavigation couchPageNavigation, String bookmark, List<EntityDocument<T>> entityDocuments) {
         super(uri, statusCode, contentType, null);
         this.entityClass = (entityClass != null) ? entityClass : Object.class;
         if (entityDocuments == null) {
@@ -75,6 +83,7 @@ public class GetEntityResponse<T> extends GetResponse implements Iterable<T> {
             this.entityList = Collections.unmodifiableList(localEntityList);
         }
         this.couchPageNavigation = couchPageNavigation;
+        this.bookmark = bookmark;
     }
 
     private GetEntityResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, Class<T> entityClass, CouchErrorContent errorContent) {
@@ -83,6 +92,7 @@ public class GetEntityResponse<T> extends GetResponse implements Iterable<T> {
         this.entityDocumentList = Collections.emptyList();
         this.entityList = Collections.emptyList();
         this.couchPageNavigation = CouchPageNavigation.empty();
+        this.bookmark = null;
     }
 
     public List<EntityDocument<T>> getDocumentList() {
@@ -128,4 +138,11 @@ public class GetEntityResponse<T> extends GetResponse implements Iterable<T> {
         return couchPageNavigation;
     }
 
+    /**
+     * @return the bookmark of a _find response, null for other reads
+     */
+    public String getBookmark() {
+        return bookmark;
+    }
+
 }
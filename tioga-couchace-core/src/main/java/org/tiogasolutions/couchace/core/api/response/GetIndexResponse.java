@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+public class GetIndexResponse extends GetResponse {
+    private final List<CouchFindIndex> indexList;
+
+    public static GetIndexResponse withError(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent) {
+        return new GetIndexResponse(uri, statusCode, contentType, null, errorContent);
+    }
+
+    public static GetIndexResponse withIndexes(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, List<CouchFindIndex> indexes) {
+        return new GetIndexResponse(uri, statusCode, contentType, indexes, null);
+    }
+
+    private GetIndexResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, List<CouchFindIndex> indexList, CouchErrorContent errorContent) {
+        super(uri, statusCode, contentType, errorContent);
+        this.indexList = (indexList != null) ? Collections.unmodifiableList(indexList) : Collections.<CouchFindIndex>emptyList();
+    }
+
+    /**
+     * @return the indexes, including the special _all_docs index CouchDB always lists
+     */
+    public List<CouchFindIndex> getIndexList() {
+        return indexList;
+    }
+
+    /**
+     * @param designName - the design document, with or without _design/
+     * @param name - the index name
+     * @return the index or null
+     */
+    public CouchFindIndex getIndex(String designName, String name) {
+        String designId = designName.startsWith("_design/") ? designName : "_design/" + designName;
+        for (CouchFindIndex index : indexList) {
+            if (designId.equals(index.getDesignName()) && name.equals(index.getName())) {
+                return index;
+            }
+        }
+        return null;
+    }
+}
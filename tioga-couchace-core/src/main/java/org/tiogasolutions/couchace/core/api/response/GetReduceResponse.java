@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+
+import java.net.URI;
+
+public class GetReduceResponse<R extends CouchReduction> extends GetResponse {
+    private final R reduction;
+
+    public static <R extends CouchReduction> GetReduceResponse<R> withError(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent) {
+        return new GetReduceResponse<>(uri, statusCode, contentType, null, errorContent);
+    }
+
+    public static <R extends CouchReduction> GetReduceResponse<R> withReduction(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, R reduction) {
+        return new GetReduceResponse<>(uri, statusCode, contentType, reduction, null);
+    }
+
+    private GetReduceResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, R reduction, CouchErrorContent errorContent) {
+        super(uri, statusCode, contentType, errorContent);
+        this.reduction = reduction;
+    }
+
+    /**
+     * @return the reduced rows, null on error
+     */
+    public R getReduction() {
+        return reduction;
+    }
+}
@@ -48,7 +48,7 @@ public abstract class GetResponse implements CouchResponse {
 
     @Override
     public boolean isSuccess() {
-        return httpStatus == CouchHttpStatus.CREATED || httpStatus == CouchHttpStatus.OK;
+        return httpStatus == CouchHttpStatus.CREATED || httpStatus == CouchHttpStatus.OK || httpStatus == CouchHttpStatus.PARTIAL_CONTENT;
     }
 
     @Override
@@ -58,7 +58,7 @@ public abstract class GetResponse implements CouchResponse {
 
     @Override
     public boolean isError() {
-        return httpStatus != CouchHttpStatus.CREATED && httpStatus != CouchHttpStatus.OK;
+        return !isSuccess();
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.response;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Response of a streamed get, documents are read from the HTTP response one row at a time so only the
+ * current row is held in memory. The documents can be iterated once, the response should be closed
+ * (try-with-resources) if it is not read to the end.
+ */
+public class GetStreamResponse<D extends CouchDocument<?>> extends GetResponse implements Iterable<D>, AutoCloseable {
+    private final CouchDocumentIterator<D> documentIterator;
+    private boolean consumed;
+
+    public static <D extends CouchDocument<?>> GetStreamResponse<D> withError(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent) {
+        return new GetStreamResponse<>(uri, statusCode, contentType, errorContent, CouchDocumentIterator.<D>empty());
+    }
+
+    public static <D extends CouchDocument<?>> GetStreamResponse<D> withDocuments(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchDocumentIterator<D> documentIterator) {
+        return new GetStreamResponse<>(uri, statusCode, contentType, null, documentIterator);
+    }
+
+    private GetStreamResponse(URI uri, CouchHttpStatus statusCode, CouchMediaType contentType, CouchErrorContent errorContent, CouchDocumentIterator<D> documentIterator) {
+        super(uri, statusCode, contentType, errorContent);
+        this.documentIterator = (documentIterator != null) ? documentIterator : CouchDocumentIterator.<D>empty();
+    }
+
+    /**
+     * @return iterator over the documents, may only be called once.
+     */
+    @Override
+    public Iterator<D> iterator() {
+        if (consumed) {
+            throw new IllegalStateException("The documents of a GetStreamResponse can only be iterated once.");
+        }
+        consumed = true;
+        return documentIterator;
+    }
+
+    /**
+     * @return sequential stream of the documents, closing the stream closes this response.
+     */
+    public Stream<D> stream() {
+        Spliterator<D> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        documentIterator.close();
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.cluster.ClusterSetup;
+import org.tiogasolutions.couchace.core.api.cluster.CouchNode;
+import org.tiogasolutions.couchace.core.api.cluster.CouchNodeBalancer;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Sends each call to a node of a cluster chosen by the CouchNodeBalancer, reads to the read nodes and writes to
+ * the write nodes. A POST that only reads (see HttpRequest.isReadOnly()) is a read. A read that fails with an
+ * IOException or a 502, 503 or 504 is sent to another node, a write only when it was never sent (it could not
+ * connect or the node's circuit breaker is open). Given a RetrySetup, each node retries with its own circuit
+ * breaker. With health checks on, a node that fails is taken down until a GET / answers OK again, close stops
+ * the health checks and closes the node clients built from a CouchSetup.
+ */
+public class ClusteredCouchHttpClient implements CouchHttpClient, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ClusteredCouchHttpClient.class);
+
+    private final List<CouchNode> nodes;
+    private final List<CouchNode> readNodes = new ArrayList<>();
+    private final List<CouchNode> writeNodes = new ArrayList<>();
+    private final CouchNodeBalancer balancer;
+    private final boolean healthChecked;
+    private final ScheduledExecutorService healthChecker;
+    private final boolean ownsNodeClients;
+
+    public ClusteredCouchHttpClient(CouchSetup couchSetup) {
+        this(createNodes(couchSetup), couchSetup.getClusterSetup().getBalancer(), couchSetup.getClusterSetup().getHealthCheckInterval(), true);
+    }
+
+    /**
+     * @param nodes - the nodes, each with its own http client
+     * @param balancer - chooses the node of each call
+     * @param healthCheckInterval - milliseconds between health checks, zero or less to never take a node down
+     */
+    public ClusteredCouchHttpClient(List<CouchNode> nodes, CouchNodeBalancer balancer, long healthCheckInterval) {
+        this(nodes, balancer, healthCheckInterval, false);
+    }
+
+    private ClusteredCouchHttpClient(List<CouchNode> nodes, CouchNodeBalancer balancer, long healthCheckInterval, boolean ownsNodeClients) {
+        this.ownsNodeClients = ownsNodeClients;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.balancer = balancer;
+        for (CouchNode node : nodes) {
+            if (node.isRead()) {
+                readNodes.add(node);
+            }
+            if (node.isWrite()) {
+                writeNodes.add(node);
+            }
+        }
+        if (readNodes.isEmpty() || writeNodes.isEmpty()) {
+            throw CouchException.badRequest("A cluster needs at least one node taking reads and one taking writes.");
+        }
+
+        this.healthChecked = healthCheckInterval > 0;
+        if (healthChecked) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "couchace-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    private static List<CouchNode> createNodes(CouchSetup couchSetup) {
+        ClusterSetup clusterSetup = couchSetup.getClusterSetup();
+        if (clusterSetup.getNodes().isEmpty()) {
+            throw CouchException.badRequest("ClusterSetup has no nodes.");
+        }
+        List<CouchNode> nodes = new ArrayList<>();
+        RetrySetup retrySetup = couchSetup.getRetrySetup();
+        for (ClusterSetup.Node node : clusterSetup.getNodes()) {
+            CouchHttpClient httpClient = couchSetup.nodeSetup(node.getUrl()).getHttpClient();
+            if (retrySetup != null) {
+                // Retries and the circuit breaker are per node, so one failing node does not open the others.
+                RetryingCouchHttpInterceptor retrying = new RetryingCouchHttpInterceptor(retrySetup, RetryingCouchHttpInterceptor.hostOf(node.getUrl()));
+                httpClient = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(retrying));
+            }
+            nodes.add(new CouchNode(node.getUrl(), node.isRead(), node.isWrite(), httpClient));
+        }
+        return nodes;
+    }
+
+    public List<CouchNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Takes each node up or down by whether GET / answers OK, run every health check interval.
+     */
+    public void checkHealth() {
+        for (CouchNode node : nodes) {
+            boolean up;
+            try {
+                up = node.getHttpClient().get(new HttpGetRequest()).isOk();
+            } catch (Throwable e) {
+                up = false;
+            }
+            if (up != node.isUp()) {
+                log.info("CouchDB node " + node.getUrl() + " is " + (up ? "up." : "down."));
+                node.setUp(up);
+            }
+        }
+    }
+
+    /**
+     * Stops the health checks. The nodes' clients are closed when this client built them from a CouchSetup, nodes
+     * given to the constructor are left open.
+     */
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        if (ownsNodeClients) {
+            for (CouchNode node : nodes) {
+                closeNodeClient(node);
+            }
+        }
+    }
+
+    private static void closeNodeClient(CouchNode node) {
+        CouchHttpClient httpClient = node.getHttpClient();
+        // The per node retries wrap the client that was built.
+        if (httpClient instanceof InterceptingCouchHttpClient) {
+            httpClient = ((InterceptingCouchHttpClient) httpClient).getHttpClient();
+        }
+        if (httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) httpClient).close();
+            } catch (Exception e) {
+                log.warn("Error closing the client of CouchDB node " + node.getUrl() + ".", e);
+            }
+        }
+    }
+
+    @Override
+    public void init(CouchSetup couchSetup) {
+        // Each node's client is initialized with its own setup.
+    }
+
+    @Override
+    public CouchHttpResponse createDatabase(String databaseName) {
+        return join(call(writeNodes, false, node -> completed(() -> node.getHttpClient().createDatabase(databaseName))));
+    }
+
+    @Override
+    public CouchHttpResponse deleteDatabase(String databaseName) {
+        return join(call(writeNodes, false, node -> completed(() -> node.getHttpClient().deleteDatabase(databaseName))));
+    }
+
+    @Override
+    public CouchHttpResponse head(HttpHeadRequest headRequest) {
+        return join(call(readNodes, true, node -> completed(() -> node.getHttpClient().head(headRequest))));
+    }
+
+    @Override
+    public CouchHttpResponse get(HttpGetRequest request) {
+        return join(call(readNodes, true, node -> completed(() -> node.getHttpClient().get(request))));
+    }
+
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+        return join(call(readNodes, true, node -> completed(() -> node.getHttpClient().getStream(request))));
+    }
+
+    @Override
+    public CouchHttpResponse put(HttpPutRequest putRequest) {
+        return join(call(writeNodes, false, node -> completed(() -> node.getHttpClient().put(putRequest))));
+    }
+
+    @Override
+    public CouchHttpResponse post(HttpPostRequest postRequest) {
+        boolean read = postRequest.isReadOnly();
+        return join(call(read ? readNodes : writeNodes, read, node -> completed(() -> node.getHttpClient().post(postRequest))));
+    }
+
+    @Override
+    public CouchHttpResponse delete(HttpDeleteRequest request) {
+        return join(call(writeNodes, false, node -> completed(() -> node.getHttpClient().delete(request))));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+        return call(readNodes, true, node -> node.getHttpClient().headAsync(headRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        return call(readNodes, true, node -> node.getHttpClient().getAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+        return call(writeNodes, false, node -> node.getHttpClient().putAsync(putRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest) {
+        boolean read = postRequest.isReadOnly();
+        return call(read ? readNodes : writeNodes, read, node -> node.getHttpClient().postAsync(postRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        return call(writeNodes, false, node -> node.getHttpClient().deleteAsync(request));
+    }
+
+    @Override
+    public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
+        return uriNode().getHttpClient().pageUri(currentPageUri, document, reverse);
+    }
+
+    @Override
+    public URI uri(String... paths) {
+        return uriNode().getHttpClient().uri(paths);
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return uriNode().getHttpClient().getBaseUrl();
+    }
+
+    /**
+     * @return the first read node that is up, or the first read node when all are down, so built URIs point at
+     * a node that answers
+     */
+    protected CouchNode uriNode() {
+        for (CouchNode node : readNodes) {
+            if (node.isUp()) {
+                return node;
+            }
+        }
+        return readNodes.get(0);
+    }
+
+    protected CompletableFuture<CouchHttpResponse> call(List<CouchNode> pool, boolean read, Function<CouchNode, CompletableFuture<CouchHttpResponse>> call) {
+        CompletableFuture<CouchHttpResponse> result = new CompletableFuture<>();
+        attempt(pool, read, call, new ArrayList<>(pool.size()), result);
+        return result;
+    }
+
+    protected void attempt(List<CouchNode> pool,
+                           boolean read,
+                           Function<CouchNode, CompletableFuture<CouchHttpResponse>> call,
+                           List<CouchNode> tried,
+                           CompletableFuture<CouchHttpResponse> result) {
+
+        CouchNode node = select(pool, tried);
+        tried.add(node);
+
+        long start = System.nanoTime();
+        node.start();
+        CompletableFuture<CouchHttpResponse> future;
+        try {
+            future = call.apply(node);
+        } catch (RuntimeException | Error e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((response, ex) -> {
+            node.complete(System.nanoTime() - start);
+            Throwable failure = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            boolean nodeFailed = (failure != null) ? isNodeFailure(failure, read) : read && isNodeFailure(response.getHttpStatus());
+            if (nodeFailed && healthChecked && node.isUp()) {
+                log.warn("CouchDB node " + node.getUrl() + " is down: " + ((failure != null) ? failure : response.getHttpStatus()));
+                node.setUp(false);
+            }
+
+            if (nodeFailed && tried.size() < pool.size()) {
+                attempt(pool, read, call, tried, result);
+            } else if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    /**
+     * @return a node that is up and not yet tried, or if all are down one not yet tried
+     */
+    protected CouchNode select(List<CouchNode> pool, List<CouchNode> tried) {
+        List<CouchNode> candidates = pool;
+        if (!tried.isEmpty() || !allUp(pool)) {
+            candidates = new ArrayList<>(pool.size());
+            for (CouchNode node : pool) {
+                if (node.isUp() && !tried.contains(node)) {
+                    candidates.add(node);
+                }
+            }
+            if (candidates.isEmpty()) {
+                for (CouchNode node : pool) {
+                    if (!tried.contains(node)) {
+                        candidates.add(node);
+                    }
+                }
+            }
+        }
+        return balancer.select(candidates);
+    }
+
+    private static boolean allUp(List<CouchNode> pool) {
+        for (CouchNode node : pool) {
+            if (!node.isUp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean isNodeFailure(Throwable failure, boolean read) {
+        Class<? extends IOException> failureClass = read ? IOException.class : ConnectException.class;
+        for (Throwable cause = failure; cause != null; cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+            if (failureClass.isInstance(cause) || cause instanceof CouchCircuitOpenException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected boolean isNodeFailure(CouchHttpStatus status) {
+        return status == CouchHttpStatus.BAD_GATEWAY
+                || status == CouchHttpStatus.SERVICE_UNAVAILABLE
+                || status == CouchHttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    private static CompletableFuture<CouchHttpResponse> completed(Supplier<CouchHttpResponse> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException | Error e) {
+            CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static CouchHttpResponse join(CompletableFuture<CouchHttpResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
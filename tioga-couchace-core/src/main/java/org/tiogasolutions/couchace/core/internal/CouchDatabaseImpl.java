@@ -16,8 +16,10 @@
 package org.tiogasolutions.couchace.core.internal;
 
 import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.cache.CouchEntityCache;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
 import org.tiogasolutions.couchace.core.api.request.*;
 import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
@@ -31,6 +33,8 @@ import org.slf4j.LoggerFactory;
 import org.tiogasolutions.couchace.core.api.CouchDatabaseInfo;
 import org.tiogasolutions.couchace.core.api.CouchException;
 
+import java.util.function.Function;
+
 /**
  * User: harlan
  * Date: 9/17/12
@@ -48,25 +52,43 @@ public class CouchDatabaseImpl implements CouchDatabase {
     private final PostRequestFactory postRequestFactory;
     private final HeadRequestFactory headRequestFactory;
     private final DeleteRequestFactory deleteRequestFactory;
+    private final BulkRequestFactory bulkRequestFactory;
+    private final ChangesRequestFactory changesRequestFactory;
+    private final RequestExecutor requestExecutor;
     private final CouchMetaRepository metaRepository;
+    private final CouchEntityCache entityCache;
+    private final CouchMetrics metrics;
 
     public CouchDatabaseImpl(String databaseName, CouchHttpClient httpClient, CouchJsonStrategy jsonStrategy, CouchMetaRepository metaRepository, CouchFeatureSet featureSet) {
+        this(databaseName, httpClient, jsonStrategy, metaRepository, null, featureSet);
+    }
+
+    public CouchDatabaseImpl(String databaseName, CouchHttpClient httpClient, CouchJsonStrategy jsonStrategy, CouchMetaRepository metaRepository, CouchEntityCache entityCache, CouchFeatureSet featureSet) {
+        this(databaseName, httpClient, jsonStrategy, metaRepository, entityCache, null, featureSet);
+    }
+
+    public CouchDatabaseImpl(String databaseName, CouchHttpClient httpClient, CouchJsonStrategy jsonStrategy, CouchMetaRepository metaRepository, CouchEntityCache entityCache, CouchMetrics metrics, CouchFeatureSet featureSet) {
         ArgUtil.assertNotNull(databaseName, "databaseName");
         ArgUtil.assertNotNull(httpClient, "httpClient");
         ArgUtil.assertNotNull(jsonStrategy, "jsonStrategy");
         this.databaseName = databaseName;
-        this.httpClient = httpClient;
-        this.jsonStrategy = jsonStrategy;
+        // With metrics every call and JSON read or write of this database is timed.
+        this.httpClient = (metrics != null) ? new MeteredCouchHttpClient(httpClient, metrics, databaseName) : httpClient;
+        this.jsonStrategy = (metrics != null) ? new MeteredCouchJsonStrategy(jsonStrategy, metrics, databaseName) : jsonStrategy;
         this.metaRepository = metaRepository;
+        this.entityCache = entityCache;
+        this.metrics = metrics;
         this.featureSet = featureSet;
 
         // Create RequestExecutor and request factories
-        RequestExecutor requestExecutor = new RequestExecutor(this);
+        this.requestExecutor = new RequestExecutor(this);
         this.getRequestFactory = new GetRequestFactory(requestExecutor);
         this.putRequestFactory = new PutRequestFactory(requestExecutor);
         this.postRequestFactory = new PostRequestFactory(requestExecutor);
         this.headRequestFactory = new HeadRequestFactory(requestExecutor);
         this.deleteRequestFactory = new DeleteRequestFactory(requestExecutor);
+        this.bulkRequestFactory = new BulkRequestFactory(requestExecutor);
+        this.changesRequestFactory = new ChangesRequestFactory(requestExecutor);
     }
 
     @Override
@@ -147,6 +169,24 @@ public class CouchDatabaseImpl implements CouchDatabase {
         return deleteRequestFactory;
     }
 
+    @Override
+    public BulkRequestFactory bulk() {
+        return bulkRequestFactory;
+    }
+
+    @Override
+    public <T> UpdateEntityRequest<T> update(Class<T> entityClass, String documentId, Function<T, T> mutator) {
+        ArgUtil.assertNotNull(entityClass, "entityClass");
+        ArgUtil.assertNotNull(documentId, "documentId");
+        ArgUtil.assertNotNull(mutator, "mutator");
+        return new UpdateEntityRequest<>(requestExecutor, entityClass, documentId, mutator);
+    }
+
+    @Override
+    public ChangesRequestFactory changes() {
+        return changesRequestFactory;
+    }
+
     @Override
     public CouchFeatureSet getFeatureSet() {
         return featureSet;
@@ -166,4 +206,14 @@ public class CouchDatabaseImpl implements CouchDatabase {
     public CouchMetaRepository getMetaRepository() {
         return metaRepository;
     }
+
+    @Override
+    public CouchEntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    @Override
+    public CouchMetrics getMetrics() {
+        return metrics;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterates over the documents of a _find a page at a time, the next page is read with the bookmark of the one
+ * before once its documents are used up. A page with fewer documents than the page size is the last.
+ */
+public class FindDocumentIterator<D> implements CouchDocumentIterator<D> {
+    private final int pageSize;
+    private final Function<String, CouchFindResult<D>> pageReader;
+    private Iterator<D> page;
+    private String bookmark;
+    private boolean lastPage;
+    private boolean closed;
+
+    /**
+     * @param firstPage - the first page, already read
+     * @param pageSize - the most documents of a page
+     * @param pageReader - reads the page after a bookmark
+     */
+    public FindDocumentIterator(CouchFindResult<D> firstPage, int pageSize, Function<String, CouchFindResult<D>> pageReader) {
+        this.pageSize = pageSize;
+        this.pageReader = pageReader;
+        setPage(firstPage);
+    }
+
+    private void setPage(CouchFindResult<D> result) {
+        String nextBookmark = result.getBookmark();
+        lastPage = result.getDocuments().size() < pageSize || nextBookmark == null || nextBookmark.equals(bookmark);
+        page = result.getDocuments().iterator();
+        bookmark = nextBookmark;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!closed && !page.hasNext() && !lastPage) {
+            setPage(pageReader.apply(bookmark));
+        }
+        return !closed && page.hasNext();
+    }
+
+    @Override
+    public D next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * @return the bookmark of the last page read
+     */
+    public String getBookmark() {
+        return bookmark;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -20,6 +20,7 @@ import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.request.ChangesRequest;
 import org.tiogasolutions.couchace.core.api.request.GetDocumentRequest;
 import org.tiogasolutions.couchace.core.api.response.*;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
@@ -27,6 +28,7 @@ import org.tiogasolutions.couchace.core.api.query.CouchPageNavigation;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
 import org.tiogasolutions.couchace.core.api.request.GetEntityRequest;
+import org.tiogasolutions.couchace.core.api.request.GetReduceRequest;
 import org.tiogasolutions.couchace.core.spi.http.CouchHttpClient;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 import org.slf4j.Logger;
@@ -60,11 +62,18 @@ public class GetResponseBuilder {
 
         GetEntityResponse<T> entityResponse;
         if (httpResponse.isSuccess()) {
-            if (request.getDocumentId() != null) {
-                EntityDocument<T> entityDocument = jsonStrategy.readEntityDocument(
-                        couch.get(),
-                        entityMeta,
-                        httpResponse.getStringContent());
+            if (request.getFindQuery() != null) {
+                CouchFindResult<EntityDocument<T>> findResult = readFindEntities(entityMeta, httpResponse);
+                entityResponse = GetEntityResponse.withFoundEntities(
+                        httpResponse.getUri(),
+                        httpResponse.getHttpStatus(),
+                        contentType,
+                        entityMeta.getEntityClass(),
+                        findResult.getBookmark(),
+                        findResult.getDocuments());
+
+            } else if (request.getDocumentId() != null) {
+                EntityDocument<T> entityDocument = readEntityDocument(entityMeta, httpResponse);
                 entityResponse = GetEntityResponse.withEntity(
                         httpResponse.getUri(),
                         httpResponse.getHttpStatus(),
@@ -74,17 +83,16 @@ public class GetResponseBuilder {
 
             } else {
                 // Parse entity documents
-                List<EntityDocument<T>> entityDocuments = jsonStrategy.readEntityDocuments(
-                        couch.get(),
-                        entityMeta,
-                        httpResponse.getStringContent());
+                List<EntityDocument<T>> entityDocuments = readEntityDocuments(entityMeta, httpResponse);
                 CouchPageNavigation couchPageNavigation;
                 if (request.getViewQuery() != null) {
                     couchPageNavigation = buildPageNavigationForViewQuery(httpResponse.getUri(), entityDocuments, request.getViewQuery());
                 } else if (request.getPageQuery() != null) {
                     couchPageNavigation = buildPageNavigationForPageQuery(httpResponse.getUri(), entityDocuments, request.getPageQuery());
+                } else if (request.getDocumentIds() != null) {
+                    couchPageNavigation = CouchPageNavigation.empty();
                 } else {
-                    throw new CouchException(CouchHttpStatus.BAD_REQUEST, "Get request did not supply document id, view query or page query.");
+                    throw new CouchException(CouchHttpStatus.BAD_REQUEST, "Get request did not supply document id, document ids, view query or page query.");
                 }
                 // Return our response.
                 entityResponse = GetEntityResponse.withEntities(
@@ -113,10 +121,19 @@ public class GetResponseBuilder {
     public GetDocumentResponse buildDocumentResponse(GetDocumentRequest request, CouchHttpResponse httpResponse) {
         GetDocumentResponse docResponse;
         if (httpResponse.isSuccess()) {
-            if (request.getDocumentId() != null &&
+            if (request.getFindQuery() != null) {
+                CouchFindResult<TextDocument> findResult = readFindDocuments(httpResponse);
+                docResponse = GetDocumentResponse.withFoundDocuments(
+                        httpResponse.getUri(),
+                        httpResponse.getHttpStatus(),
+                        CouchMediaType.APPLICATION_JSON,
+                        findResult.getBookmark(),
+                        findResult.getDocuments());
+
+            } else if (request.getDocumentId() != null &&
                 (request.getDocumentId().equals("_all_docs") ||
                  request.getDocumentId().startsWith("/_all_docs?"))) {
-                List<TextDocument> documentList = jsonStrategy.readTextDocuments(httpResponse.getStringContent());
+                List<TextDocument> documentList = readTextDocuments(httpResponse);
                 docResponse = GetDocumentResponse.withDocuments(
                         httpResponse.getUri(),
                         httpResponse.getHttpStatus(),
@@ -125,7 +142,7 @@ public class GetResponseBuilder {
                         documentList);
 
             } else if (request.getDocumentId() != null) {
-                TextDocument textDocument = jsonStrategy.readTextDocument(httpResponse.getStringContent());
+                TextDocument textDocument = readTextDocument(httpResponse);
                 docResponse = GetDocumentResponse.withDocument(
                         httpResponse.getUri(),
                         httpResponse.getHttpStatus(),
@@ -135,7 +152,7 @@ public class GetResponseBuilder {
             } else if (request.getDocumentId() != null &&
                        (request.getDocumentId().equals("_all_docs") ||
                         request.getDocumentId().startsWith("/_all_docs?"))) {
-                List<TextDocument> documentList = jsonStrategy.readTextDocuments(httpResponse.getStringContent());
+                List<TextDocument> documentList = readTextDocuments(httpResponse);
                 docResponse = GetDocumentResponse.withDocuments(
                         httpResponse.getUri(),
                         httpResponse.getHttpStatus(),
@@ -144,7 +161,7 @@ public class GetResponseBuilder {
                         documentList);
 
             } else {
-                List<TextDocument> documentList = jsonStrategy.readTextDocuments(httpResponse.getStringContent());
+                List<TextDocument> documentList = readTextDocuments(httpResponse);
                 CouchPageNavigation couchPageNavigation;
                 if (request.getViewQuery() != null) {
                     couchPageNavigation = buildPageNavigationForViewQuery(httpResponse.getUri(), documentList, request.getViewQuery());
@@ -172,6 +189,189 @@ public class GetResponseBuilder {
         return docResponse;
     }
 
+    /**
+     * Byte content is handed to the json strategy as is, sparing a decode into a String.
+     */
+    private <T> EntityDocument<T> readEntityDocument(CouchEntityMeta<T> entityMeta, CouchHttpResponse httpResponse) {
+        if (httpResponse.getContent() instanceof byte[]) {
+            return jsonStrategy.readEntityDocument(couch.get(), entityMeta, (byte[]) httpResponse.getContent());
+        }
+        return jsonStrategy.readEntityDocument(couch.get(), entityMeta, httpResponse.getStringContent());
+    }
+
+    private <T> List<EntityDocument<T>> readEntityDocuments(CouchEntityMeta<T> entityMeta, CouchHttpResponse httpResponse) {
+        if (httpResponse.getContent() instanceof byte[]) {
+            return jsonStrategy.readEntityDocuments(couch.get(), entityMeta, (byte[]) httpResponse.getContent());
+        }
+        return jsonStrategy.readEntityDocuments(couch.get(), entityMeta, httpResponse.getStringContent());
+    }
+
+    private TextDocument readTextDocument(CouchHttpResponse httpResponse) {
+        if (httpResponse.getContent() instanceof byte[]) {
+            return jsonStrategy.readTextDocument((byte[]) httpResponse.getContent());
+        }
+        return jsonStrategy.readTextDocument(httpResponse.getStringContent());
+    }
+
+    private List<TextDocument> readTextDocuments(CouchHttpResponse httpResponse) {
+        if (httpResponse.getContent() instanceof byte[]) {
+            return jsonStrategy.readTextDocuments((byte[]) httpResponse.getContent());
+        }
+        return jsonStrategy.readTextDocuments(httpResponse.getStringContent());
+    }
+
+    /**
+     * Reads a page of _find results, CouchDB's warning (e.g. no matching index) is logged.
+     */
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntities(CouchEntityMeta<T> entityMeta, CouchHttpResponse httpResponse) {
+        CouchFindResult<EntityDocument<T>> findResult;
+        if (httpResponse.getContent() instanceof byte[]) {
+            findResult = jsonStrategy.readFindEntityDocuments(couch.get(), entityMeta, (byte[]) httpResponse.getContent());
+        } else {
+            findResult = jsonStrategy.readFindEntityDocuments(couch.get(), entityMeta, httpResponse.getStringContent());
+        }
+        logFindWarning(httpResponse, findResult);
+        return findResult;
+    }
+
+    /**
+     * Reads a page of _find results, CouchDB's warning (e.g. no matching index) is logged.
+     */
+    public CouchFindResult<TextDocument> readFindDocuments(CouchHttpResponse httpResponse) {
+        CouchFindResult<TextDocument> findResult;
+        if (httpResponse.getContent() instanceof byte[]) {
+            findResult = jsonStrategy.readFindTextDocuments((byte[]) httpResponse.getContent());
+        } else {
+            findResult = jsonStrategy.readFindTextDocuments(httpResponse.getStringContent());
+        }
+        logFindWarning(httpResponse, findResult);
+        return findResult;
+    }
+
+    private void logFindWarning(CouchHttpResponse httpResponse, CouchFindResult<?> findResult) {
+        if (findResult.getWarning() != null) {
+            log.info("Find on {}: {}", httpResponse.getUri(), findResult.getWarning());
+        }
+    }
+
+    public GetIndexResponse buildIndexResponse(CouchHttpResponse httpResponse) {
+        if (httpResponse.isSuccess()) {
+            return GetIndexResponse.withIndexes(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    jsonStrategy.readFindIndexes(httpResponse.getStringContent()));
+        } else {
+            CouchErrorContent errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+            return GetIndexResponse.withError(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    errorContent);
+        }
+    }
+
+    /**
+     * Answers a read revalidated by a 304 Not Modified with a copy of the cached document.
+     */
+    public <T> GetEntityResponse<T> buildCachedEntityResponse(GetEntityRequest<T> request, CouchHttpResponse httpResponse, EntityDocument<T> cachedDocument) {
+        CouchEntityMeta<T> entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+        return GetEntityResponse.withEntity(
+                httpResponse.getUri(),
+                CouchHttpStatus.OK,
+                CouchMediaType.APPLICATION_JSON,
+                entityMeta.getEntityClass(),
+                jsonStrategy.copyEntityDocument(couch.get(), entityMeta, cachedDocument));
+    }
+
+    public <R extends CouchReduction> GetReduceResponse<R> buildReduceResponse(GetReduceRequest<R> request, CouchHttpResponse httpResponse) {
+        if (httpResponse.isSuccess()) {
+            Class<R> reductionType = request.getReductionType();
+            CouchReduction reduction;
+            if (reductionType == CouchLongReduction.class) {
+                reduction = jsonStrategy.readLongReduction(httpResponse.getInputStreamContent());
+            } else if (reductionType == CouchDoubleReduction.class) {
+                reduction = jsonStrategy.readDoubleReduction(httpResponse.getInputStreamContent());
+            } else if (reductionType == CouchStatsReduction.class) {
+                reduction = jsonStrategy.readStatsReduction(httpResponse.getInputStreamContent());
+            } else {
+                throw CouchException.badRequest("Unsupported reduction type " + reductionType);
+            }
+            return GetReduceResponse.withReduction(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    reductionType.cast(reduction));
+        } else {
+            CouchErrorContent errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+            return GetReduceResponse.withError(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    errorContent);
+        }
+    }
+
+    public <T> GetStreamResponse<EntityDocument<T>> buildEntityStreamResponse(GetEntityRequest<T> request, CouchHttpResponse httpResponse) {
+        CouchEntityMeta<T> entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+
+        if (httpResponse.isSuccess()) {
+            CouchDocumentIterator<EntityDocument<T>> documentIterator = jsonStrategy.streamEntityDocuments(
+                    couch.get(),
+                    entityMeta,
+                    httpResponse.getInputStreamContent());
+            return GetStreamResponse.withDocuments(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    documentIterator);
+        } else {
+            CouchErrorContent errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+            return GetStreamResponse.withError(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    errorContent);
+        }
+    }
+
+    public GetStreamResponse<TextDocument> buildDocumentStreamResponse(GetDocumentRequest request, CouchHttpResponse httpResponse) {
+        if (httpResponse.isSuccess()) {
+            CouchDocumentIterator<TextDocument> documentIterator = jsonStrategy.streamTextDocuments(httpResponse.getInputStreamContent());
+            return GetStreamResponse.withDocuments(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    httpResponse.getContentType(),
+                    documentIterator);
+        } else {
+            CouchErrorContent errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+            return GetStreamResponse.withError(
+                    httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    CouchMediaType.APPLICATION_JSON,
+                    errorContent);
+        }
+    }
+
+    /**
+     * @throws CouchException when CouchDB answered with an error.
+     */
+    @SuppressWarnings("unchecked")
+    public <D extends CouchDocument<?>> CouchChangeIterator<D> buildChangeIterator(ChangesRequest<D> request, CouchHttpResponse httpResponse) {
+        if (!httpResponse.isSuccess()) {
+            CouchErrorContent errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+            String reason = (errorContent != null) ? errorContent.getReason() : null;
+            throw new CouchException(httpResponse.getHttpStatus(), "Error reading changes from " + httpResponse.getUri() + ": " + reason);
+        }
+
+        if (request.getEntityClass() == null) {
+            return (CouchChangeIterator<D>) jsonStrategy.streamTextChanges(httpResponse.getInputStreamContent());
+        } else {
+            CouchEntityMeta<?> entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+            return (CouchChangeIterator<D>) jsonStrategy.streamEntityChanges(couch.get(), entityMeta, httpResponse.getInputStreamContent());
+        }
+    }
+
     protected CouchPageNavigation buildPageNavigationForPageQuery(URI requestedPageUri, List<? extends CouchDocument> documentList, CouchPageQuery pageQuery) {
 
         // Paging
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.spi.http.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a read a second time when it has not answered after the delay of the HedgeSetup, the first answer wins and
+ * the other call is cancelled, or closed if it answers anyway. Each read earns a share of a hedge as set by the
+ * max hedge ratio and each hedge spends one, so hedges never exceed that share of the reads. Latency is kept per
+ * kind of read (documents, _all_docs and views) as they differ widely.
+ *
+ * The read is sent as it comes and a timer is only set while it is out. A blocking read is made through the
+ * client's async call (see isAsync) so it is still out when the timer fires, the caller waits for the first
+ * answer. The hedge is sent from a pooled thread as the client may block. With a cluster the hedge is routed by
+ * the balancer like any other call, so usually to another node. Close stops the timer and the pool.
+ */
+public class HedgingCouchHttpInterceptor implements CouchHttpInterceptor, AutoCloseable {
+
+    // The most hedges that can be saved up by a quiet period.
+    private static final double MAX_BUDGET = 10;
+
+    private final HedgeSetup hedgeSetup;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private double budget;
+
+    public HedgingCouchHttpInterceptor(HedgeSetup hedgeSetup) {
+        this.hedgeSetup = hedgeSetup;
+        this.timer = new ScheduledThreadPoolExecutor(1, daemon("couchace-hedge-timer"));
+        // A read that answers first cancels its timer, which would otherwise be kept until it is due.
+        timer.setRemoveOnCancelPolicy(true);
+        this.executor = Executors.newCachedThreadPool(daemon("couchace-hedge"));
+    }
+
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * @return number of hedges that answered before the call they hedged
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return number of reads still out with a hedge to be sent
+     */
+    public int getScheduledHedgeCount() {
+        return timer.getQueue().size();
+    }
+
+    /**
+     * @param request - the read
+     * @return time to wait before hedging the read in milliseconds
+     */
+    public long getDelay(HttpRequest request) {
+        return getLatencyWindow(request).getDelay();
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> intercept(HttpRequest request, CouchHttpChain chain) {
+        if (!hedgeSetup.isHedgeable(request)) {
+            return chain.proceed(request);
+        }
+        reads.incrementAndGet();
+        earnBudget();
+
+        LatencyWindow latencyWindow = getLatencyWindow(request);
+        CompletableFuture<CouchHttpResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        send(request, chain, latencyWindow, result, pending, false);
+        if (result.isDone()) {
+            return result;
+        }
+
+        try {
+            ScheduledFuture<?> hedgeTimer = timer.schedule(() -> {
+                // Only hedge while the first call is still out, a failed call is answered as is.
+                if (!result.isDone() && spendBudget()) {
+                    if (pending.getAndUpdate(count -> (count == 0) ? 0 : count + 1) > 0) {
+                        hedges.incrementAndGet();
+                        try {
+                            executor.execute(() -> send(request, chain, latencyWindow, result, pending, true));
+                        } catch (RejectedExecutionException e) {
+                            // Closed meanwhile, the hedge is counted as out so it is sent rather than dropped.
+                            send(request, chain, latencyWindow, result, pending, true);
+                        }
+                    } else {
+                        refundBudget();
+                    }
+                }
+            }, latencyWindow.getDelay(), TimeUnit.MILLISECONDS);
+            result.whenComplete((response, ex) -> hedgeTimer.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // Closed, the read is answered without a hedge.
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isAsync(HttpRequest request) {
+        return hedgeSetup.isHedgeable(request);
+    }
+
+    /**
+     * Stops the timer and the pool, hedges already sent still answer.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    protected void send(HttpRequest request,
+                        CouchHttpChain chain,
+                        LatencyWindow latencyWindow,
+                        CompletableFuture<CouchHttpResponse> result,
+                        AtomicInteger pending,
+                        boolean hedge) {
+
+        if (hedge && result.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<CouchHttpResponse> future;
+        try {
+            future = chain.proceed(request);
+        } catch (RuntimeException | Error e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        CompletableFuture<CouchHttpResponse> call = future;
+        result.whenComplete((response, ex) -> call.cancel(true));
+        call.whenComplete((response, ex) -> {
+            if (ex == null) {
+                latencyWindow.record(System.nanoTime() - start);
+                if (result.complete(response)) {
+                    if (hedge) {
+                        hedgeWins.incrementAndGet();
+                    }
+                } else {
+                    close(response);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally((ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex);
+            }
+        });
+    }
+
+    protected LatencyWindow getLatencyWindow(HttpRequest request) {
+        String path = (request.getPath() != null) ? request.getPath() : "";
+        String kind = path.contains("/_view/") ? "view" : path.endsWith("/_all_docs") ? "_all_docs" : "document";
+        return latencyWindows.computeIfAbsent(kind, key -> new LatencyWindow(hedgeSetup));
+    }
+
+    private synchronized void earnBudget() {
+        budget = Math.min(budget + hedgeSetup.getMaxHedgeRatio(), MAX_BUDGET);
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private synchronized void refundBudget() {
+        budget += 1;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void close(CouchHttpResponse response) {
+        // A streamed response of the losing call would otherwise hold its connection.
+        if (response != null && response.getContent() instanceof Closeable) {
+            try {
+                ((Closeable) response.getContent()).close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * The recent latencies of one kind of read, the percentile is worked out again every few reads.
+     */
+    protected static class LatencyWindow {
+        private static final int MIN_SAMPLES = 10;
+        private static final int RECALCULATE_EVERY = 8;
+
+        private final HedgeSetup hedgeSetup;
+        private final long[] samples;
+        private long count;
+        private volatile long percentileDelay = -1;
+
+        protected LatencyWindow(HedgeSetup hedgeSetup) {
+            this.hedgeSetup = hedgeSetup;
+            this.samples = new long[hedgeSetup.getWindowSize()];
+        }
+
+        public long getDelay() {
+            long delay = percentileDelay;
+            return (hedgeSetup.getPercentile() > 0 && delay >= 0) ? delay : hedgeSetup.getDelay();
+        }
+
+        public synchronized void record(long elapsedNanos) {
+            samples[(int) (count % samples.length)] = elapsedNanos;
+            count++;
+            if (hedgeSetup.getPercentile() > 0 && count >= MIN_SAMPLES && (count % RECALCULATE_EVERY == 0 || percentileDelay < 0)) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(hedgeSetup.getPercentile() * sorted.length) - 1;
+                long nanos = sorted[Math.max(index, 0)];
+                percentileDelay = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+            }
+        }
+    }
+}
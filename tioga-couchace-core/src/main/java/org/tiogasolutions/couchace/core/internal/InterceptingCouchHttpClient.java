@@ -0,0 +1,237 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.spi.http.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs head, get, getStream, put, post and delete through the CouchHttpInterceptor chain before the client.
+ * Only used when interceptors are registered, otherwise CouchServer talks to the client directly.
+ */
+public class InterceptingCouchHttpClient implements CouchHttpClient {
+    private final CouchHttpClient httpClient;
+    private final CouchHttpInterceptor[] interceptors;
+
+    // The end of the chain for each kind of call, created once.
+    private final CouchHttpChain blockingCall = request -> completed(() -> send(request, false));
+    private final CouchHttpChain streamCall = request -> completed(() -> send(request, true));
+    private final CouchHttpChain asyncCall = this::sendAsync;
+
+    public InterceptingCouchHttpClient(CouchHttpClient httpClient, List<CouchHttpInterceptor> interceptors) {
+        this.httpClient = httpClient;
+        this.interceptors = interceptors.toArray(new CouchHttpInterceptor[interceptors.size()]);
+    }
+
+    public CouchHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public void init(CouchSetup couchSetup) {
+        httpClient.init(couchSetup);
+    }
+
+    @Override
+    public CouchHttpResponse createDatabase(String databaseName) {
+        return httpClient.createDatabase(databaseName);
+    }
+
+    @Override
+    public CouchHttpResponse deleteDatabase(String databaseName) {
+        return httpClient.deleteDatabase(databaseName);
+    }
+
+    @Override
+    public CouchHttpResponse head(HttpHeadRequest headRequest) {
+        return join(new Link(0, blockingEnd(headRequest)).proceed(headRequest));
+    }
+
+    @Override
+    public CouchHttpResponse get(HttpGetRequest request) {
+        return join(new Link(0, blockingEnd(request)).proceed(request));
+    }
+
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+        return join(new Link(0, streamCall).proceed(request));
+    }
+
+    @Override
+    public CouchHttpResponse put(HttpPutRequest putRequest) {
+        return join(new Link(0, blockingEnd(putRequest)).proceed(putRequest));
+    }
+
+    @Override
+    public CouchHttpResponse post(HttpPostRequest postRequest) {
+        return join(new Link(0, blockingEnd(postRequest)).proceed(postRequest));
+    }
+
+    @Override
+    public CouchHttpResponse delete(HttpDeleteRequest request) {
+        return join(new Link(0, blockingEnd(request)).proceed(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+        return new Link(0, asyncCall).proceed(headRequest);
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        return new Link(0, asyncCall).proceed(request);
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+        return new Link(0, asyncCall).proceed(putRequest);
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest) {
+        return new Link(0, asyncCall).proceed(postRequest);
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        return new Link(0, asyncCall).proceed(request);
+    }
+
+    @Override
+    public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
+        return httpClient.pageUri(currentPageUri, document, reverse);
+    }
+
+    @Override
+    public URI uri(String... paths) {
+        return httpClient.uri(paths);
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return httpClient.getBaseUrl();
+    }
+
+    /**
+     * A blocking call is made through the client's async call when an interceptor asks for it, see
+     * CouchHttpInterceptor.isAsync.
+     */
+    protected CouchHttpChain blockingEnd(HttpRequest request) {
+        for (CouchHttpInterceptor interceptor : interceptors) {
+            if (interceptor.isAsync(request)) {
+                return asyncCall;
+            }
+        }
+        return blockingCall;
+    }
+
+    /**
+     * An interceptor may hand on a different kind of request than it was given, so dispatch on the request.
+     */
+    protected CouchHttpResponse send(HttpRequest request, boolean stream) {
+        if (request instanceof HttpGetRequest) {
+            return stream ? httpClient.getStream((HttpGetRequest) request) : httpClient.get((HttpGetRequest) request);
+        } else if (request instanceof HttpHeadRequest) {
+            return httpClient.head((HttpHeadRequest) request);
+        } else if (request instanceof HttpPutRequest) {
+            return httpClient.put((HttpPutRequest) request);
+        } else if (request instanceof HttpPostRequest) {
+            return httpClient.post((HttpPostRequest) request);
+        } else if (request instanceof HttpDeleteRequest) {
+            return httpClient.delete((HttpDeleteRequest) request);
+        }
+        throw CouchException.badRequest("Unsupported HttpRequest " + ((request == null) ? "null" : request.getClass().getName()));
+    }
+
+    protected CompletableFuture<CouchHttpResponse> sendAsync(HttpRequest request) {
+        if (request instanceof HttpGetRequest) {
+            return httpClient.getAsync((HttpGetRequest) request);
+        } else if (request instanceof HttpHeadRequest) {
+            return httpClient.headAsync((HttpHeadRequest) request);
+        } else if (request instanceof HttpPutRequest) {
+            return httpClient.putAsync((HttpPutRequest) request);
+        } else if (request instanceof HttpPostRequest) {
+            return httpClient.postAsync((HttpPostRequest) request);
+        } else if (request instanceof HttpDeleteRequest) {
+            return httpClient.deleteAsync((HttpDeleteRequest) request);
+        }
+        return failed(CouchException.badRequest("Unsupported HttpRequest " + ((request == null) ? "null" : request.getClass().getName())));
+    }
+
+    private static CompletableFuture<CouchHttpResponse> completed(Supplier<CouchHttpResponse> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException | Error e) {
+            return failed(e);
+        }
+    }
+
+    private static CompletableFuture<CouchHttpResponse> failed(Throwable e) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private static CouchHttpResponse join(CompletableFuture<CouchHttpResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The chain from one interceptor on, an interceptor that throws is treated as one that failed its future.
+     */
+    private final class Link implements CouchHttpChain {
+        private final int index;
+        private final CouchHttpChain call;
+
+        private Link(int index, CouchHttpChain call) {
+            this.index = index;
+            this.call = call;
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> proceed(HttpRequest request) {
+            if (index == interceptors.length) {
+                return call.proceed(request);
+            }
+            try {
+                CompletableFuture<CouchHttpResponse> future = interceptors[index].intercept(request, new Link(index + 1, call));
+                return (future != null) ? future : failed(CouchException.internalServerError("Interceptor " + interceptors[index].getClass().getName() + " returned null."));
+            } catch (RuntimeException | Error e) {
+                return failed(e);
+            }
+        }
+    }
+}
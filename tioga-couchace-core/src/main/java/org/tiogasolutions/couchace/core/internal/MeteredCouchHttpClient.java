@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
+import org.tiogasolutions.couchace.core.api.metrics.CouchRequestMetric;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.spi.http.*;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Records a CouchRequestMetric for each call made through the client of one database. A streamed response is
+ * timed to its headers, the body is read by the caller afterwards.
+ */
+public class MeteredCouchHttpClient implements CouchHttpClient {
+    private final CouchHttpClient httpClient;
+    private final CouchMetrics metrics;
+    private final String databaseName;
+
+    public MeteredCouchHttpClient(CouchHttpClient httpClient, CouchMetrics metrics, String databaseName) {
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.databaseName = databaseName;
+    }
+
+    public CouchHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public void init(CouchSetup couchSetup) {
+        httpClient.init(couchSetup);
+    }
+
+    @Override
+    public CouchHttpResponse createDatabase(String databaseName) {
+        return timed(CouchMethodType.PUT, -1, () -> httpClient.createDatabase(databaseName));
+    }
+
+    @Override
+    public CouchHttpResponse deleteDatabase(String databaseName) {
+        return timed(CouchMethodType.DELETE, -1, () -> httpClient.deleteDatabase(databaseName));
+    }
+
+    @Override
+    public CouchHttpResponse head(HttpHeadRequest headRequest) {
+        return timed(CouchMethodType.HEAD, -1, () -> httpClient.head(headRequest));
+    }
+
+    @Override
+    public CouchHttpResponse get(HttpGetRequest request) {
+        return timed(CouchMethodType.GET, -1, () -> httpClient.get(request));
+    }
+
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+        return timed(CouchMethodType.GET, -1, () -> httpClient.getStream(request));
+    }
+
+    @Override
+    public CouchHttpResponse put(HttpPutRequest putRequest) {
+        return timed(CouchMethodType.PUT, contentLength(putRequest.getContent()), () -> httpClient.put(putRequest));
+    }
+
+    @Override
+    public CouchHttpResponse post(HttpPostRequest postRequest) {
+        return timed(CouchMethodType.POST, contentLength(postRequest.getContent()), () -> httpClient.post(postRequest));
+    }
+
+    @Override
+    public CouchHttpResponse delete(HttpDeleteRequest request) {
+        return timed(CouchMethodType.DELETE, -1, () -> httpClient.delete(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+        return timedAsync(CouchMethodType.HEAD, -1, () -> httpClient.headAsync(headRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        return timedAsync(CouchMethodType.GET, -1, () -> httpClient.getAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+        return timedAsync(CouchMethodType.PUT, contentLength(putRequest.getContent()), () -> httpClient.putAsync(putRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest) {
+        return timedAsync(CouchMethodType.POST, contentLength(postRequest.getContent()), () -> httpClient.postAsync(postRequest));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        return timedAsync(CouchMethodType.DELETE, -1, () -> httpClient.deleteAsync(request));
+    }
+
+    @Override
+    public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
+        return httpClient.pageUri(currentPageUri, document, reverse);
+    }
+
+    @Override
+    public URI uri(String... paths) {
+        return httpClient.uri(paths);
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return httpClient.getBaseUrl();
+    }
+
+    protected CouchHttpResponse timed(CouchMethodType methodType, long requestBytes, Supplier<CouchHttpResponse> call) {
+        long start = System.nanoTime();
+        CouchHttpResponse response;
+        try {
+            response = call.get();
+        } catch (RuntimeException | Error e) {
+            record(methodType, start, requestBytes, null, e);
+            throw e;
+        }
+        record(methodType, start, requestBytes, response, null);
+        return response;
+    }
+
+    protected CompletableFuture<CouchHttpResponse> timedAsync(CouchMethodType methodType, long requestBytes, Supplier<CompletableFuture<CouchHttpResponse>> call) {
+        long start = System.nanoTime();
+        return call.get().whenComplete((response, ex) -> record(methodType, start, requestBytes, response, ex));
+    }
+
+    protected void record(CouchMethodType methodType, long start, long requestBytes, CouchHttpResponse response, Throwable exception) {
+        long elapsed = System.nanoTime() - start;
+        CouchRequestMetric metric = (response != null)
+                ? new CouchRequestMetric(databaseName, methodType, response.getHttpStatus(), elapsed, requestBytes, contentLength(response.getContent()), null)
+                : new CouchRequestMetric(databaseName, methodType, null, elapsed, requestBytes, -1, exception);
+        metrics.recordRequest(metric);
+    }
+
+    /**
+     * @param content -
+     * @return the size in bytes of a String, byte[] or File, -1 for a stream or when there is no content.
+     */
+    protected static long contentLength(Object content) {
+        if (content instanceof byte[]) {
+            return ((byte[]) content).length;
+        } else if (content instanceof String) {
+            return utf8Length((String) content);
+        } else if (content instanceof File) {
+            return ((File) content).length();
+        }
+        return -1;
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
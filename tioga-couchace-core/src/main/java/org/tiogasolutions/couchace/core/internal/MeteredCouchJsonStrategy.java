@@ -0,0 +1,228 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.api.CouchDatabaseInfo;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.metrics.CouchJsonOperation;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
+import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
+import org.tiogasolutions.couchace.core.api.request.PostEntityRequest;
+import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records how long the json strategy of one database takes to read and write. The stream methods only time
+ * starting the iterator, rows are parsed as they are read. Reading entities includes fetching any embedded
+ * attachments that are not inline.
+ */
+public class MeteredCouchJsonStrategy implements CouchJsonStrategy {
+    private final CouchJsonStrategy jsonStrategy;
+    private final CouchMetrics metrics;
+    private final String databaseName;
+
+    public MeteredCouchJsonStrategy(CouchJsonStrategy jsonStrategy, CouchMetrics metrics, String databaseName) {
+        this.jsonStrategy = jsonStrategy;
+        this.metrics = metrics;
+        this.databaseName = databaseName;
+    }
+
+    public CouchJsonStrategy getJsonStrategy() {
+        return jsonStrategy;
+    }
+
+    @Override
+    public void init(CouchSetup couchSetup) {
+        jsonStrategy.init(couchSetup);
+    }
+
+    @Override
+    public CouchDatabaseInfo readDatabaseInfo(String json) {
+        return read(() -> jsonStrategy.readDatabaseInfo(json));
+    }
+
+    @Override
+    public String createJsonForPut(PutEntityRequest request) {
+        return write(() -> jsonStrategy.createJsonForPut(request));
+    }
+
+    @Override
+    public String createJsonForPost(PostEntityRequest request) {
+        return write(() -> jsonStrategy.createJsonForPost(request));
+    }
+
+    @Override
+    public String createJsonForBulk(List<PutEntityRequest> requests) {
+        return write(() -> jsonStrategy.createJsonForBulk(requests));
+    }
+
+    @Override
+    public String createJsonForKeys(Collection<String> keys) {
+        return write(() -> jsonStrategy.createJsonForKeys(keys));
+    }
+
+    @Override
+    public String createCanonicalJson(String json) throws CouchJsonException {
+        return write(() -> jsonStrategy.createCanonicalJson(json));
+    }
+
+    @Override
+    public List<WriteResponse> readBulkWriteResponses(URI uri, String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readBulkWriteResponses(uri, json));
+    }
+
+    @Override
+    public TextDocument readTextDocument(String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readTextDocument(json));
+    }
+
+    @Override
+    public List<TextDocument> readTextDocuments(String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readTextDocuments(json));
+    }
+
+    @Override
+    public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readEntityDocument(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readEntityDocuments(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public TextDocument readTextDocument(byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readTextDocument(json));
+    }
+
+    @Override
+    public List<TextDocument> readTextDocuments(byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readTextDocuments(json));
+    }
+
+    @Override
+    public CouchFindResult<TextDocument> readFindTextDocuments(String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readFindTextDocuments(json));
+    }
+
+    @Override
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readFindEntityDocuments(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public CouchFindResult<TextDocument> readFindTextDocuments(byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readFindTextDocuments(json));
+    }
+
+    @Override
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readFindEntityDocuments(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public List<CouchFindIndex> readFindIndexes(String json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readFindIndexes(json));
+    }
+
+    @Override
+    public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readEntityDocument(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return read(() -> jsonStrategy.readEntityDocuments(getRequestFactory, entityMeta, json));
+    }
+
+    @Override
+    public CouchDocumentIterator<TextDocument> streamTextDocuments(InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.streamTextDocuments(inputStream));
+    }
+
+    @Override
+    public <T> CouchDocumentIterator<EntityDocument<T>> streamEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.streamEntityDocuments(getRequestFactory, entityMeta, inputStream));
+    }
+
+    @Override
+    public CouchChangeIterator<TextDocument> streamTextChanges(InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.streamTextChanges(inputStream));
+    }
+
+    @Override
+    public <T> CouchChangeIterator<EntityDocument<T>> streamEntityChanges(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.streamEntityChanges(getRequestFactory, entityMeta, inputStream));
+    }
+
+    @Override
+    public <T> EntityDocument<T> copyEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, EntityDocument<T> document) throws CouchJsonException {
+        return read(() -> jsonStrategy.copyEntityDocument(getRequestFactory, entityMeta, document));
+    }
+
+    @Override
+    public CouchLongReduction readLongReduction(InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.readLongReduction(inputStream));
+    }
+
+    @Override
+    public CouchDoubleReduction readDoubleReduction(InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.readDoubleReduction(inputStream));
+    }
+
+    @Override
+    public CouchStatsReduction readStatsReduction(InputStream inputStream) throws CouchJsonException {
+        return read(() -> jsonStrategy.readStatsReduction(inputStream));
+    }
+
+    protected <R> R read(Supplier<R> call) {
+        return timed(CouchJsonOperation.READ, call);
+    }
+
+    protected <R> R write(Supplier<R> call) {
+        return timed(CouchJsonOperation.WRITE, call);
+    }
+
+    protected <R> R timed(CouchJsonOperation operation, Supplier<R> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            metrics.recordJson(databaseName, operation, System.nanoTime() - start);
+        }
+    }
+}
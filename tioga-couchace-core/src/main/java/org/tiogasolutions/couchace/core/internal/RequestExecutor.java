@@ -19,170 +19,459 @@ package org.tiogasolutions.couchace.core.internal;
 import org.tiogasolutions.couchace.annotations.CouchAttachmentInfoMap;
 import org.tiogasolutions.couchace.core.api.CouchDatabase;
 import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.cache.CouchEntityCache;
+import org.tiogasolutions.couchace.core.api.changes.ChangesFeed;
+import org.tiogasolutions.couchace.core.api.changes.CouchChangeHandler;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 import org.tiogasolutions.couchace.core.api.meta.CouchEmbeddedAttachmentMeta;
 import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.metrics.CouchMetrics;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
+import org.tiogasolutions.couchace.core.api.http.CouchContentRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tiogasolutions.couchace.core.api.request.*;
 import org.tiogasolutions.couchace.core.api.response.*;
 import org.tiogasolutions.couchace.core.spi.http.*;
-
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
+import org.tiogasolutions.couchace.core.internal.util.DelayUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Executes requests against the CouchHttpClient. Each request is implemented once as a chain of
+ * CompletableFuture stages; execute() runs that chain with the blocking client calls (so every stage
+ * runs on the calling thread) while executeAsync() runs it with the client's async calls.
+ */
 public class RequestExecutor {
     private static final Logger log = LoggerFactory.getLogger(RequestExecutor.class);
+    private static final int DEFAULT_FIND_PAGE_SIZE = 25;
 
     private final CouchDatabase couch;
     private final CouchHttpClient httpClient;
     private final HttpRequestFactory httpRequestFactory;
     private final GetResponseBuilder getResponseBuilder;
     private final CouchMetaRepository metaRepository;
+    private final CouchEntityCache entityCache;
+    private final HttpDispatcher syncDispatcher;
+    private final HttpDispatcher asyncDispatcher;
 
     public RequestExecutor(CouchDatabase couch) {
         this.couch = couch;
         this.httpClient = couch.getHttpClient();
         this.metaRepository = couch.getMetaRepository();
+        this.entityCache = couch.getEntityCache();
         this.httpRequestFactory = new HttpRequestFactory(couch.getDatabaseName(), couch.getJsonStrategy());
         this.getResponseBuilder = new GetResponseBuilder(couch);
+        this.syncDispatcher = new SyncHttpDispatcher(httpClient);
+        this.asyncDispatcher = new AsyncHttpDispatcher(httpClient);
     }
 
     public HeadResponse execute(HeadRequest request) {
-        HttpHeadRequest httpHeadRequest = httpRequestFactory.newHttpHeadRequest(request);
-        CouchHttpResponse httpResponse = httpClient.head(httpHeadRequest);
-        HeadResponse response = new HeadResponse(httpResponse);
+        return join(executeHead(request, syncDispatcher));
+    }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
-        }
+    public CompletableFuture<HeadResponse> executeAsync(HeadRequest request) {
+        return executeHead(request, asyncDispatcher);
+    }
 
-        return response;
+    protected CompletableFuture<HeadResponse> executeHead(HeadRequest request, HttpDispatcher dispatcher) {
+        HttpHeadRequest httpHeadRequest = httpRequestFactory.newHttpHeadRequest(request);
+        return dispatcher.head(httpHeadRequest)
+                .thenApply(HeadResponse::new)
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
     }
 
     public GetDocumentResponse execute(GetDocumentRequest request) {
-        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.get(httpGetRequest);
+        return join(executeGetDocument(request, syncDispatcher));
+    }
 
-        GetDocumentResponse response = getResponseBuilder.buildDocumentResponse(request, couchHttpResponse);
+    public CompletableFuture<GetDocumentResponse> executeAsync(GetDocumentRequest request) {
+        return executeGetDocument(request, asyncDispatcher);
+    }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
+    protected CompletableFuture<GetDocumentResponse> executeGetDocument(GetDocumentRequest request, HttpDispatcher dispatcher) {
+        CompletableFuture<CouchHttpResponse> future;
+        if (request.getFindQuery() != null) {
+            future = dispatcher.post(httpRequestFactory.newHttpPostFindRequest(request.getFindQuery()));
+        } else {
+            future = dispatcher.get(httpRequestFactory.newHttpGetRequest(request));
         }
+        return future
+                .thenApply(couchHttpResponse -> getResponseBuilder.buildDocumentResponse(request, couchHttpResponse))
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
 
-        return response;
+    public GetContentResponse execute(GetDatabaseRequest request) {
+        return join(executeGetDatabase(request, syncDispatcher));
+    }
 
+    public CompletableFuture<GetContentResponse> executeAsync(GetDatabaseRequest request) {
+        return executeGetDatabase(request, asyncDispatcher);
     }
 
-    public GetContentResponse execute(GetDatabaseRequest request) {
+    protected CompletableFuture<GetContentResponse> executeGetDatabase(GetDatabaseRequest request, HttpDispatcher dispatcher) {
         HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
-        CouchHttpResponse httpResponse = httpClient.get(httpGetRequest);
+        return dispatcher.get(httpGetRequest)
+                .thenApply(httpResponse -> new GetContentResponse(httpResponse.getUri(),
+                        httpResponse.getHttpStatus(),
+                        httpResponse.getContentType(),
+                        httpResponse.getTypedContent(),
+                        readErrorContent(httpResponse)))
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
 
-        CouchErrorContent errorContent = CouchErrorContent.noError;
-        if (httpResponse.isError() && httpResponse.getContentType() == CouchMediaType.APPLICATION_JSON) {
-            errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
-        }
+    public GetAttachmentResponse execute(GetAttachmentRequest request) {
+        return join(executeGetAttachment(request, syncDispatcher));
+    }
 
-        GetContentResponse response = new GetContentResponse(httpResponse.getUri(),
-                httpResponse.getHttpStatus(),
-                httpResponse.getContentType(),
-                httpResponse.getContent(),
-                errorContent);
+    public CompletableFuture<GetAttachmentResponse> executeAsync(GetAttachmentRequest request) {
+        return executeGetAttachment(request, asyncDispatcher);
+    }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
-        }
+    /**
+     * Reads the attachment without buffering it, a successful response's content is the unread InputStream
+     * which the caller must close.
+     */
+    public GetAttachmentResponse executeStream(GetAttachmentRequest request) {
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
+        CouchHttpResponse httpResponse = httpClient.getStream(httpGetRequest);
+        GetAttachmentResponse response = buildAttachmentResponse(httpResponse);
+        return handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse());
+    }
 
-        return response;
+    /**
+     * Copies a successful response to the OutputStream, which is left open, the content of the returned
+     * response is null. An error response is returned as usual and nothing is written.
+     */
+    public GetAttachmentResponse executeTo(GetAttachmentRequest request, OutputStream outputStream) {
+        return executeTo(request, (in, contentRange) -> {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        });
     }
 
-    public GetAttachmentResponse execute(GetAttachmentRequest request) {
-        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
-        CouchHttpResponse httpResponse = httpClient.get(httpGetRequest);
+    /**
+     * Writes a successful response to the file, the content of the returned response is null. The whole attachment
+     * replaces the file, a partial one is written at its range's position so a download can be resumed.
+     * An error response is returned as usual and the file is not touched.
+     */
+    public GetAttachmentResponse executeTo(GetAttachmentRequest request, Path path) {
+        return executeTo(request, (in, contentRange) -> {
+            boolean partial = contentRange != null && contentRange.getStart() >= 0;
+            StandardOpenOption truncate = partial ? StandardOpenOption.WRITE : StandardOpenOption.TRUNCATE_EXISTING;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, truncate)) {
+                ReadableByteChannel source = Channels.newChannel(in);
+                long position = partial ? contentRange.getStart() : 0;
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, 1 << 20)) > 0) {
+                    position += transferred;
+                }
+            }
+        });
+    }
 
-        CouchErrorContent errorContent = CouchErrorContent.noError;
-        if (httpResponse.isError() && httpResponse.getContentType() == CouchMediaType.APPLICATION_JSON) {
-            errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
+    protected GetAttachmentResponse executeTo(GetAttachmentRequest request, AttachmentSink sink) {
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
+        CouchHttpResponse httpResponse = httpClient.getStream(httpGetRequest);
+        GetAttachmentResponse response;
+        if (httpResponse.isSuccess()) {
+            try (InputStream in = httpResponse.getInputStreamContent()) {
+                if (in != null) {
+                    sink.write(in, httpResponse.getContentRange());
+                }
+            } catch (IOException e) {
+                throw CouchException.internalServerError("Exception reading attachment " + request.getAttachmentName() + ": " + e.getMessage(), e);
+            }
+            response = new GetAttachmentResponse(httpResponse.getUri(),
+                    httpResponse.getHttpStatus(),
+                    httpResponse.getDocumentId(),
+                    httpResponse.getEtag(),
+                    httpResponse.getContentType(),
+                    null,
+                    CouchErrorContent.noError,
+                    httpResponse.getContentRange());
+        } else {
+            response = buildAttachmentResponse(httpResponse);
         }
+        return handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse());
+    }
 
-        GetAttachmentResponse response = new GetAttachmentResponse(
+    protected GetAttachmentResponse buildAttachmentResponse(CouchHttpResponse httpResponse) {
+        return new GetAttachmentResponse(
                 httpResponse.getUri(),
                 httpResponse.getHttpStatus(),
                 httpResponse.getDocumentId(),
                 httpResponse.getEtag(),
                 httpResponse.getContentType(),
-                httpResponse.getContent(),
-                errorContent);
+                httpResponse.getTypedContent(),
+                readErrorContent(httpResponse),
+                httpResponse.getContentRange());
+    }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
+    protected interface AttachmentSink {
+        void write(InputStream in, CouchContentRange contentRange) throws IOException;
+    }
+
+    protected CompletableFuture<GetAttachmentResponse> executeGetAttachment(GetAttachmentRequest request, HttpDispatcher dispatcher) {
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
+        return dispatcher.get(httpGetRequest)
+                .thenApply(this::buildAttachmentResponse)
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
+
+    public <T> GetEntityResponse<T> execute(GetEntityRequest<T> request) {
+        return join(executeGetEntity(request, syncDispatcher));
+    }
+
+    public <T> CompletableFuture<GetEntityResponse<T>> executeAsync(GetEntityRequest<T> request) {
+        return executeGetEntity(request, asyncDispatcher);
+    }
+
+    protected <T> CompletableFuture<GetEntityResponse<T>> executeGetEntity(GetEntityRequest<T> request, HttpDispatcher dispatcher) {
+        if (entityCache != null && isCacheable(request)) {
+            return executeCachedGetEntity(request, dispatcher)
+                    .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
         }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
+
+        CompletableFuture<CouchHttpResponse> future;
+        if (request.getFindQuery() != null) {
+            // A Mango query is a POST to _find
+            future = dispatcher.post(httpRequestFactory.newHttpPostFindRequest(request.getFindQuery()));
+        } else if (request.getDocumentIds() != null) {
+            // Many ids are read with a single POST to _all_docs
+            HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostAllDocsRequest(request, isInlineAttachments(request));
+            future = dispatcher.post(httpPostRequest);
+        } else {
+            // Execute the GET
+            HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request, null, isInlineAttachments(request));
+            future = dispatcher.get(httpGetRequest);
         }
 
-        return response;
+        return future
+                .thenApply(couchHttpResponse -> getResponseBuilder.buildEntityResponse(request, couchHttpResponse))
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
 
+    /**
+     * Reads a single entity through the entity cache, a cached copy is revalidated with its revision
+     * and a copy of it is returned when CouchDB answers 304 Not Modified.
+     */
+    protected <T> CompletableFuture<GetEntityResponse<T>> executeCachedGetEntity(GetEntityRequest<T> request, HttpDispatcher dispatcher) {
+        String databaseName = couch.getDatabaseName();
+        String documentId = request.getDocumentId();
+        EntityDocument<T> cachedDocument = entityCache.get(databaseName, documentId, request.getEntityClass());
+        String ifNoneMatch = (cachedDocument != null) ? cachedDocument.getDocumentRevision() : null;
+
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request, ifNoneMatch, isInlineAttachments(request));
+        return dispatcher.get(httpGetRequest)
+                .thenApply(couchHttpResponse -> {
+                    if (cachedDocument != null && couchHttpResponse.getHttpStatus() == CouchHttpStatus.NOT_MODIFIED) {
+                        return getResponseBuilder.buildCachedEntityResponse(request, couchHttpResponse, cachedDocument);
+                    }
+
+                    GetEntityResponse<T> response = getResponseBuilder.buildEntityResponse(request, couchHttpResponse);
+                    if (response.isOk() && response.getFirstDocument() != null) {
+                        entityCache.put(databaseName, response.getFirstDocument());
+                    } else {
+                        entityCache.remove(databaseName, documentId);
+                    }
+                    return response;
+                });
     }
 
-    public <T> GetEntityResponse<T> execute(GetEntityRequest<T> request) {
-        // Execute the GET
-        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.get(httpGetRequest);
+    /**
+     * With INLINE_ATTACHMENTS on, the embedded attachments of an entity are read with the document (attachments=true).
+     */
+    protected boolean isInlineAttachments(GetEntityRequest<?> request) {
+        if (!couch.getFeatureSet().isTrue(CouchFeature.INLINE_ATTACHMENTS) || request.getEntityClass() == String.class) {
+            return false;
+        }
+        return metaRepository.getOrCreateEntityMeta(request.getEntityClass()).hasEmbeddedAttachments();
+    }
 
-        GetEntityResponse<T> response = getResponseBuilder.buildEntityResponse(request, couchHttpResponse);
+    /**
+     * Only the current revision of a single document is cached.
+     */
+    protected boolean isCacheable(GetEntityRequest<?> request) {
+        return request.getDocumentId() != null
+                && request.getDocumentRevision() == null
+                && request.getDocumentIds() == null
+                && request.getViewQuery() == null
+                && request.getPageQuery() == null;
+    }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
+    /**
+     * Drops the written document from the entity cache, its cached revision is no longer current.
+     */
+    protected <R extends WriteResponse> R invalidateCache(R response) {
+        if (entityCache != null && response.getDocumentId() != null) {
+            entityCache.remove(couch.getDatabaseName(), response.getDocumentId());
         }
+        return response;
+    }
 
+    /**
+     * Drops every document of this database from the entity cache.
+     */
+    protected WriteResponse clearCache(WriteResponse response) {
+        if (entityCache != null) {
+            entityCache.clear(couch.getDatabaseName());
+        }
         return response;
     }
 
+    /**
+     * Executes the view query reading the rows from the response stream as they are iterated. The onError,
+     * onSuccess and onResponse handlers, being typed to GetEntityResponse, are not called.
+     */
+    public <T> GetStreamResponse<EntityDocument<T>> executeStream(GetEntityRequest<T> request) {
+        if (request.getFindQuery() != null) {
+            CouchEntityMeta<T> entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+            return executeFindStream(request.getFindQuery(), httpResponse -> getResponseBuilder.readFindEntities(entityMeta, httpResponse));
+        }
+        if (request.getViewQuery() == null) {
+            throw CouchException.badRequest("Streaming is only supported for a view query or a find query.");
+        }
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request, null, isInlineAttachments(request));
+        CouchHttpResponse couchHttpResponse = httpClient.getStream(httpGetRequest);
+        return getResponseBuilder.buildEntityStreamResponse(request, couchHttpResponse);
+    }
+
+    /**
+     * Executes the view query or _all_docs read, reading the rows from the response stream as they are iterated.
+     * The onError, onSuccess and onResponse handlers, being typed to GetDocumentResponse, are not called.
+     */
+    public GetStreamResponse<TextDocument> executeStream(GetDocumentRequest request) {
+        if (request.getFindQuery() != null) {
+            return executeFindStream(request.getFindQuery(), getResponseBuilder::readFindDocuments);
+        }
+        String documentId = request.getDocumentId();
+        boolean allDocs = documentId != null && (documentId.equals("_all_docs") || documentId.startsWith("/_all_docs?"));
+        if (request.getViewQuery() == null && !allDocs) {
+            throw CouchException.badRequest("Streaming is only supported for a view query, a find query or _all_docs.");
+        }
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request);
+        CouchHttpResponse couchHttpResponse = httpClient.getStream(httpGetRequest);
+        return getResponseBuilder.buildDocumentStreamResponse(request, couchHttpResponse);
+    }
+
+    /**
+     * Reads the documents of the Mango query a page at a time as they are iterated, each page after the first is
+     * read with the bookmark of the one before. A page holds the limit of the query, 25 when it has none.
+     */
+    protected <D extends CouchDocument<?>> GetStreamResponse<D> executeFindStream(CouchFindQuery findQuery, Function<CouchHttpResponse, CouchFindResult<D>> reader) {
+        CouchHttpResponse httpResponse = httpClient.post(httpRequestFactory.newHttpPostFindRequest(findQuery));
+        if (!httpResponse.isSuccess()) {
+            return GetStreamResponse.withError(httpResponse.getUri(), httpResponse.getHttpStatus(), CouchMediaType.APPLICATION_JSON, readErrorContent(httpResponse));
+        }
+
+        int pageSize = (findQuery.getLimit() > 0) ? findQuery.getLimit() : DEFAULT_FIND_PAGE_SIZE;
+        FindDocumentIterator<D> iterator = new FindDocumentIterator<>(reader.apply(httpResponse), pageSize, bookmark -> {
+            CouchHttpResponse pageResponse = httpClient.post(httpRequestFactory.newHttpPostFindRequest(findQuery.withBookmark(bookmark)));
+            if (!pageResponse.isSuccess()) {
+                CouchErrorContent errorContent = readErrorContent(pageResponse);
+                String reason = (errorContent != null) ? errorContent.getReason() : null;
+                throw new CouchException(pageResponse.getHttpStatus(), "Error reading the next page of " + pageResponse.getUri() + ": " + reason);
+            }
+            return reader.apply(pageResponse);
+        });
+        return GetStreamResponse.withDocuments(httpResponse.getUri(), httpResponse.getHttpStatus(), CouchMediaType.APPLICATION_JSON, iterator);
+    }
+
+    public GetIndexResponse execute(GetIndexRequest request) {
+        return join(executeGetIndex(request, syncDispatcher));
+    }
+
+    public CompletableFuture<GetIndexResponse> executeAsync(GetIndexRequest request) {
+        return executeGetIndex(request, asyncDispatcher);
+    }
+
+    protected CompletableFuture<GetIndexResponse> executeGetIndex(GetIndexRequest request, HttpDispatcher dispatcher) {
+        return dispatcher.get(httpRequestFactory.newHttpGetIndexRequest())
+                .thenApply(getResponseBuilder::buildIndexResponse)
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
+
+    /**
+     * Reads the reduced rows straight off the response stream rather than buffering the body first.
+     */
+    public <R extends CouchReduction> GetReduceResponse<R> execute(GetReduceRequest<R> request) {
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetReduceRequest(request.getViewQuery());
+        CouchHttpResponse httpResponse = httpClient.getStream(httpGetRequest);
+        GetReduceResponse<R> response = getResponseBuilder.buildReduceResponse(request, httpResponse);
+        return handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse());
+    }
+
+    public <R extends CouchReduction> CompletableFuture<GetReduceResponse<R>> executeAsync(GetReduceRequest<R> request) {
+        return asyncDispatcher.get(httpRequestFactory.newHttpGetReduceRequest(request.getViewQuery()))
+                .thenApply(httpResponse -> getResponseBuilder.buildReduceResponse(request, httpResponse))
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
+
+    /**
+     * Opens the _changes feed after the given sequence, reading the rows from the response stream as they are iterated.
+     */
+    public <D extends CouchDocument<?>> CouchChangeIterator<D> executeStream(ChangesRequest<D> request, String since) {
+        HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(request, since);
+        CouchHttpResponse couchHttpResponse = httpClient.getStream(httpGetRequest);
+        return getResponseBuilder.buildChangeIterator(request, couchHttpResponse);
+    }
+
+    public <D extends CouchDocument<?>> ChangesFeed<D> start(ChangesRequest<D> request, CouchChangeHandler<D> handler) {
+        return new ChangesFeed<>(this, couch.getDatabaseName(), request, handler).start();
+    }
+
     public WriteResponse execute(PutRequest request) {
+        return join(executePut(request, syncDispatcher));
+    }
+
+    public CompletableFuture<WriteResponse> executeAsync(PutRequest request) {
+        return executePut(request, asyncDispatcher);
+    }
 
-        WriteResponse response;
+    protected CompletableFuture<WriteResponse> executePut(PutRequest request, HttpDispatcher dispatcher) {
+
+        CompletableFuture<WriteResponse> future;
         if (request instanceof PutEntityRequest) {
-            response = executePutEntity((PutEntityRequest) request);
+            future = executePutEntity((PutEntityRequest) request, dispatcher);
 
         } else if (request instanceof PutDocumentRequest) {
-            response =  executePutDocument((PutDocumentRequest) request);
+            future = executePutDocument((PutDocumentRequest) request, dispatcher);
 
         } else if (request instanceof PutAttachmentRequest) {
-            response =  executePutAttachment((PutAttachmentRequest) request);
+            future = executePutAttachment((PutAttachmentRequest) request, dispatcher);
 
         } else if (request instanceof PutDesignRequest) {
-            response =  executePutDesign((PutDesignRequest) request);
+            future = executePutDesign((PutDesignRequest) request, dispatcher);
 
         } else if (request instanceof PutDatabaseRequest) {
-            response =  executePutDatabase((PutDatabaseRequest) request);
+            future = executePutDatabase((PutDatabaseRequest) request, dispatcher);
 
         } else {
             String className = (request == null) ? "null" : request.getClass().getName();
@@ -190,21 +479,12 @@ public class RequestExecutor {
             throw new UnsupportedOperationException(msg);
         }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
-        }
-
-        return response;
-
+        return future
+                .thenApply(this::invalidateCache)
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
     }
 
-    protected WriteResponse executePutEntity(PutEntityRequest request) {
+    protected CompletableFuture<WriteResponse> executePutEntity(PutEntityRequest request, HttpDispatcher dispatcher) {
         CouchEntityMeta entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
 
         if (request.getDocumentId() == null && request.getDocumentRevision() == null) {
@@ -228,48 +508,153 @@ public class RequestExecutor {
             }
         }
 
-        HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.put(httpPutRequest);
-
-        if (couchHttpResponse.isSuccess() && entityMeta.hasEmbeddedAttachments()) {
-            couchHttpResponse = writeEntityAttachments(entityMeta, couchHttpResponse, request.getEntity());
+        Object entity = request.getEntity();
+        boolean inline = canInlineAttachments(entityMeta, entity);
+        if (inline && request.getInlineAttachments() == null) {
+            request = new PutEntityRequest(this,
+                    request.getDocumentId(),
+                    request.getEntityType(),
+                    entity,
+                    request.getDocumentRevision(),
+                    request.getAttachmentInfoMap(),
+                    buildInlineAttachments(entityMeta, entity));
         }
 
-        return new WriteResponse(couchHttpResponse);
+        HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
+        return dispatcher.put(httpPutRequest)
+                .thenCompose(couchHttpResponse -> {
+                    if (couchHttpResponse.isSuccess() && entityMeta.hasEmbeddedAttachments() && !inline) {
+                        return writeEntityAttachments(entityMeta, couchHttpResponse, entity, dispatcher);
+                    }
+                    return CompletableFuture.completedFuture(couchHttpResponse);
+                })
+                .thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executePutDocument(PutDocumentRequest request) {
+    protected CompletableFuture<WriteResponse> executePutDocument(PutDocumentRequest request, HttpDispatcher dispatcher) {
         HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
-        return new WriteResponse(httpClient.put(httpPutRequest));
+        return dispatcher.put(httpPutRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executePutAttachment(PutAttachmentRequest request) {
+    protected CompletableFuture<WriteResponse> executePutAttachment(PutAttachmentRequest request, HttpDispatcher dispatcher) {
         HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
-        CouchHttpResponse response = httpClient.put(httpPutRequest);
-        return new WriteResponse(response);
+        return dispatcher.put(httpPutRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executePutDesign(PutDesignRequest request) {
+    protected CompletableFuture<WriteResponse> executePutDesign(PutDesignRequest request, HttpDispatcher dispatcher) {
         HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
-        CouchHttpResponse response = httpClient.put(httpPutRequest);
-        return new WriteResponse(response);
+        return dispatcher.put(httpPutRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executePutDatabase(PutDatabaseRequest request) {
+    protected CompletableFuture<WriteResponse> executePutDatabase(PutDatabaseRequest request, HttpDispatcher dispatcher) {
+        // A raw database path may write any document, so the cache is cleared.
         HttpPutRequest httpPutRequest = httpRequestFactory.newHttpPutRequest(request);
-        return new WriteResponse(httpClient.put(httpPutRequest));
+        return dispatcher.put(httpPutRequest).thenApply(WriteResponse::new).thenApply(this::clearCache);
+    }
+
+    public <T> WriteResponse execute(UpdateEntityRequest<T> request) {
+        return join(executeUpdate(request, syncDispatcher));
+    }
+
+    public <T> CompletableFuture<WriteResponse> executeAsync(UpdateEntityRequest<T> request) {
+        return executeUpdate(request, asyncDispatcher);
+    }
+
+    protected <T> CompletableFuture<WriteResponse> executeUpdate(UpdateEntityRequest<T> request, HttpDispatcher dispatcher) {
+        CompletableFuture<WriteResponse> result = new CompletableFuture<>();
+        updateEntity(request, dispatcher, 1, result);
+        return result
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
+
+    /**
+     * One read, mutate and put of an update, a conflict schedules the next attempt after a random delay.
+     */
+    protected <T> void updateEntity(UpdateEntityRequest<T> request, HttpDispatcher dispatcher, int attempt, CompletableFuture<WriteResponse> result) {
+        // A client that throws (the sync dispatcher does) must still complete the result, even on a retry.
+        try {
+            String documentId = request.getDocumentId();
+
+            // Always read from CouchDB, the entity cache may hold a stale revision and must not see the mutation.
+            GetEntityRequest<T> getRequest = couch.get().entity(request.getEntityClass(), documentId);
+            HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetRequest(getRequest, null, isInlineAttachments(getRequest));
+            dispatcher.get(httpGetRequest)
+                    .thenApply(couchHttpResponse -> getResponseBuilder.buildEntityResponse(getRequest, couchHttpResponse))
+                    .thenCompose(getResponse -> {
+                        EntityDocument<T> document = getResponse.isNotEmpty() ? getResponse.getFirstDocument() : null;
+                        if (!getResponse.isOk() || document == null || !document.hasEntity()) {
+                            return CompletableFuture.completedFuture(buildUpdateReadError(getResponse, documentId));
+                        }
+                        T entity = request.getMutator().apply(document.getEntity());
+                        if (entity == null) {
+                            throw CouchException.badRequest("The update of " + documentId + " returned a null entity.");
+                        }
+                        PutEntityRequest putRequest = new PutEntityRequest(this, documentId, document.getEntityType(), entity, document.getDocumentRevision());
+                        return executePutEntity(putRequest, dispatcher).thenApply(this::invalidateCache);
+                    })
+                    .whenComplete((response, ex) -> {
+                        if (ex != null) {
+                            recordUpdate(attempt, attempt - 1, false);
+                            result.completeExceptionally((ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex);
+                        } else if (response.isConflict() && attempt < request.getMaxAttempts()) {
+                            long delay = updateDelay(request, attempt);
+                            if (log.isDebugEnabled()) {
+                                log.debug("Update of " + documentId + " conflicted on attempt " + attempt + ", retrying in " + delay + "ms.");
+                            }
+                            DelayUtil.delay(delay).thenRun(() -> updateEntity(request, dispatcher, attempt + 1, result));
+                        } else {
+                            recordUpdate(attempt, response.isConflict() ? attempt : attempt - 1, response.isSuccess());
+                            result.complete(response);
+                        }
+                    });
+        } catch (RuntimeException | Error e) {
+            recordUpdate(attempt, attempt - 1, false);
+            result.completeExceptionally(e);
+        }
+    }
+
+    protected WriteResponse buildUpdateReadError(GetEntityResponse<?> getResponse, String documentId) {
+        CouchHttpStatus status = getResponse.isOk() ? CouchHttpStatus.NOT_FOUND : getResponse.getHttpStatus();
+        String error = (getResponse.getErrorContent().getError() != null) ? getResponse.getErrorContent().getError() : "not_found";
+        String reason = (getResponse.getErrorReason() != null) ? getResponse.getErrorReason() : "missing";
+        String content = "{\"error\":" + CouchJsonUtil.quote(error) + ",\"reason\":" + CouchJsonUtil.quote(reason) + "}";
+        return new WriteResponse(CouchMethodType.GET, getResponse.getUri(), status, CouchMediaType.APPLICATION_JSON, documentId, null, content);
+    }
+
+    /**
+     * A random time up to the initial delay doubled for each conflict so far, capped at the max delay.
+     */
+    protected long updateDelay(UpdateEntityRequest<?> request, int attempt) {
+        long delay = request.getInitialDelay() << Math.min(attempt - 1, 30);
+        delay = Math.min(request.getMaxDelay(), (delay < 0) ? Long.MAX_VALUE : delay);
+        return ThreadLocalRandom.current().nextLong(delay + 1);
+    }
+
+    protected void recordUpdate(int attempts, int conflicts, boolean success) {
+        CouchMetrics metrics = couch.getMetrics();
+        if (metrics != null) {
+            metrics.recordUpdate(couch.getDatabaseName(), attempts, conflicts, success);
+        }
     }
 
     public WriteResponse execute(PostRequest request) {
-        WriteResponse response;
+        return join(executePost(request, syncDispatcher));
+    }
+
+    public CompletableFuture<WriteResponse> executeAsync(PostRequest request) {
+        return executePost(request, asyncDispatcher);
+    }
+
+    protected CompletableFuture<WriteResponse> executePost(PostRequest request, HttpDispatcher dispatcher) {
+        CompletableFuture<WriteResponse> future;
         if (request instanceof PostEntityRequest) {
-            response = executePostEntity((PostEntityRequest) request);
+            future = executePostEntity((PostEntityRequest) request, dispatcher);
 
         } else if (request instanceof PostDocumentRequest) {
-            response = executePostDocument((PostDocumentRequest)request);
+            future = executePostDocument((PostDocumentRequest) request, dispatcher);
 
         } else if (request instanceof PostDatabaseRequest) {
-            response = executePostDatabase((PostDatabaseRequest)request);
+            future = executePostDatabase((PostDatabaseRequest) request, dispatcher);
 
         } else {
             String className = (request == null) ? "null" : request.getClass().getName();
@@ -277,69 +662,210 @@ public class RequestExecutor {
             throw new UnsupportedOperationException(msg);
         }
 
-        // Call onError, onSuccess and onResponse
-        if (response.isError() && request.getOnError() != null) {
-            request.getOnError().handle(response);
-        } else if (request.getOnSuccess() != null) {
-            request.getOnSuccess().handle(response);
-        }
-        if (request.getOnResponse() != null) {
-            request.getOnResponse().handle(response);
+        return future
+                .thenApply(this::invalidateCache)
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
+    }
+
+    protected CompletableFuture<WriteResponse> executePostEntity(PostEntityRequest request, HttpDispatcher dispatcher) {
+        CouchEntityMeta entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+        boolean inline = canInlineAttachments(entityMeta, request.getEntity());
+        if (inline && request.getInlineAttachments() == null) {
+            request = new PostEntityRequest(this, request.getEntityType(), request.getEntity(), buildInlineAttachments(entityMeta, request.getEntity()));
         }
+        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostRequest(request);
 
-        return response;
+        Object entity = request.getEntity();
+        return dispatcher.post(httpPostRequest)
+                .thenCompose(couchHttpResponse -> {
+                    if (couchHttpResponse.isSuccess() && entityMeta.hasEmbeddedAttachments() && !inline) {
+                        return writeEntityAttachments(entityMeta, couchHttpResponse, entity, dispatcher);
+                    }
+                    return CompletableFuture.completedFuture(couchHttpResponse);
+                })
+                .thenApply(WriteResponse::new);
+    }
 
+    protected CompletableFuture<WriteResponse> executePostDocument(PostDocumentRequest request, HttpDispatcher dispatcher) {
+        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostRequest(request);
+        return dispatcher.post(httpPostRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executePostEntity(PostEntityRequest request) {
-        CouchEntityMeta entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
+    protected CompletableFuture<WriteResponse> executePostDatabase(PostDatabaseRequest request, HttpDispatcher dispatcher) {
+        // A raw database path may write any document, so the cache is cleared.
         HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostRequest(request);
+        return dispatcher.post(httpPostRequest).thenApply(WriteResponse::new).thenApply(this::clearCache);
+    }
+
+    public BulkResponse execute(BulkRequest request) {
+        return join(executeBulk(request, syncDispatcher));
+    }
+
+    public CompletableFuture<BulkResponse> executeAsync(BulkRequest request) {
+        return executeBulk(request, asyncDispatcher);
+    }
 
-        CouchHttpResponse couchHttpResponse = httpClient.post(httpPostRequest);
+    protected CompletableFuture<BulkResponse> executeBulk(BulkRequest request, HttpDispatcher dispatcher) {
+        CompletableFuture<BulkResponse> future;
+        if (request instanceof BulkEntityRequest) {
+            future = executeBulkEntity((BulkEntityRequest) request, dispatcher);
 
-        if (couchHttpResponse.isSuccess() && entityMeta.hasEmbeddedAttachments()) {
-            couchHttpResponse = writeEntityAttachments(entityMeta, couchHttpResponse, request.getEntity());
+        } else if (request instanceof BulkDocumentRequest) {
+            future = executeBulkDocument((BulkDocumentRequest) request, dispatcher);
+
+        } else {
+            String className = (request == null) ? "null" : request.getClass().getName();
+            String msg = String.format("The request %s is not supported.", className);
+            throw new UnsupportedOperationException(msg);
         }
 
-        return new WriteResponse(couchHttpResponse);
+        return future
+                .thenApply(response -> {
+                    if (entityCache != null) {
+                        response.getWriteResponses().forEach(this::invalidateCache);
+                    }
+                    return response;
+                })
+                .thenApply(response -> handleResponse(response, request.getOnError(), request.getOnSuccess(), request.getOnResponse()));
     }
 
-    protected WriteResponse executePostDocument(PostDocumentRequest request) {
-        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.post(httpPostRequest);
-        return new WriteResponse(couchHttpResponse);
+    protected CompletableFuture<BulkResponse> executeBulkEntity(BulkEntityRequest request, HttpDispatcher dispatcher) {
+        List<Object> entities = request.getEntities();
+        List<CouchEntityMeta<?>> entityMetaList = new ArrayList<>(entities.size());
+        List<PutEntityRequest> putRequests = new ArrayList<>(entities.size());
+
+        // Read the id and revision of each entity, an entity without an id is assigned one by CouchDB.
+        for (Object entity : entities) {
+            ArgUtil.assertNotNull(entity, "entity");
+            CouchEntityMeta<?> entityMeta = metaRepository.getOrCreateEntityMeta(entity.getClass());
+            entityMetaList.add(entityMeta);
+            putRequests.add(new PutEntityRequest(this,
+                    entityMeta.readDocumentId(entity),
+                    entityMeta.getEntityType(),
+                    entity,
+                    entityMeta.readDocumentRevision(entity),
+                    entityMeta.readAttachmentInfoMap(entity),
+                    canInlineAttachments(entityMeta, entity) ? buildInlineAttachments(entityMeta, entity) : null));
+        }
+
+        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostBulkRequest(putRequests);
+        return dispatcher.post(httpPostRequest)
+                .thenApply(this::buildBulkResponse)
+                .thenCompose(response -> {
+                    if (response.isError()) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    return finishBulkEntity(response, entities, entityMetaList, dispatcher);
+                });
     }
 
-    protected WriteResponse executePostDatabase(PostDatabaseRequest request) {
-        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.post(httpPostRequest);
-        return new WriteResponse(couchHttpResponse);
+    protected CompletableFuture<BulkResponse> finishBulkEntity(BulkResponse response, List<Object> entities, List<CouchEntityMeta<?>> entityMetaList, HttpDispatcher dispatcher) {
+        // Results come back in the same order as the documents, write the new id and revision back onto each entity.
+        List<WriteResponse> writeResponses = new ArrayList<>(response.getWriteResponses());
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < writeResponses.size() && i < entities.size(); i++) {
+            int index = i;
+            WriteResponse writeResponse = writeResponses.get(index);
+            if (writeResponse.isError()) {
+                continue;
+            }
+            Object entity = entities.get(index);
+            CouchEntityMeta<?> entityMeta = entityMetaList.get(index);
+
+            if (entityMeta.hasEmbeddedAttachments() && !canInlineAttachments(entityMeta, entity)) {
+                CouchHttpResponse documentResponse = CouchHttpResponse.builder(CouchMethodType.POST, writeResponse.getUri(), writeResponse.getHttpStatus())
+                        .setDocumentId(writeResponse.getDocumentId())
+                        .setEtag(writeResponse.getDocumentRevision())
+                        .build();
+                future = future
+                        .thenCompose(ignored -> writeEntityAttachments(entityMeta, documentResponse, entity, dispatcher))
+                        .thenAccept(attachmentResponse -> {
+                            WriteResponse finalResponse = new WriteResponse(CouchMethodType.POST,
+                                    writeResponse.getUri(),
+                                    writeResponse.getHttpStatus(),
+                                    writeResponse.getContentType(),
+                                    writeResponse.getDocumentId(),
+                                    attachmentResponse.getEtag(),
+                                    writeResponse.getContent());
+                            writeResponses.set(index, finalResponse);
+                            writeBackIdAndRevision(entityMeta, entity, finalResponse);
+                        });
+            } else {
+                writeBackIdAndRevision(entityMeta, entity, writeResponse);
+            }
+        }
+
+        return future.thenApply(ignored -> BulkResponse.withWriteResponses(response.getUri(), response.getHttpStatus(), response.getContentType(), writeResponses));
+    }
+
+    protected CompletableFuture<BulkResponse> executeBulkDocument(BulkDocumentRequest request, HttpDispatcher dispatcher) {
+        HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostBulkRequest(request);
+        return dispatcher.post(httpPostRequest).thenApply(this::buildBulkResponse);
+    }
+
+    protected BulkResponse buildBulkResponse(CouchHttpResponse couchHttpResponse) {
+        if (couchHttpResponse.isError()) {
+            return BulkResponse.withError(couchHttpResponse.getUri(),
+                    couchHttpResponse.getHttpStatus(),
+                    couchHttpResponse.getContentType(),
+                    readErrorContent(couchHttpResponse));
+        }
+
+        List<WriteResponse> writeResponses = couch.getJsonStrategy().readBulkWriteResponses(
+                couchHttpResponse.getUri(),
+                couchHttpResponse.getStringContent());
+        return BulkResponse.withWriteResponses(couchHttpResponse.getUri(),
+                couchHttpResponse.getHttpStatus(),
+                couchHttpResponse.getContentType(),
+                writeResponses);
+    }
+
+    protected <T> void writeBackIdAndRevision(CouchEntityMeta<T> entityMeta, Object entity, WriteResponse writeResponse) {
+        T typedEntity = entityMeta.getEntityClass().cast(entity);
+        if (entityMeta.isIdWritable() && !entityMeta.isIdSet(typedEntity) && writeResponse.getDocumentId() != null) {
+            entityMeta.writeDocumentId(typedEntity, writeResponse.getDocumentId());
+        }
+        if (entityMeta.isRevisionWritable() && writeResponse.hasDocumentRevision()) {
+            entityMeta.writeDocumentRevision(typedEntity, writeResponse.getDocumentRevision());
+        }
     }
 
     public WriteResponse execute(DeleteRequest request) {
+        return join(executeDelete(request, syncDispatcher));
+    }
+
+    public CompletableFuture<WriteResponse> executeAsync(DeleteRequest request) {
+        return executeDelete(request, asyncDispatcher);
+    }
+
+    protected CompletableFuture<WriteResponse> executeDelete(DeleteRequest request, HttpDispatcher dispatcher) {
 
         if (request instanceof DeleteEntityRequest) {
-            return executeDeleteEntity((DeleteEntityRequest) request);
+            return executeDeleteEntity((DeleteEntityRequest) request, dispatcher).thenApply(this::invalidateCache);
 
         } else if (request instanceof DeleteAttachmentRequest) {
-            return executeDeleteAttachment((DeleteAttachmentRequest)request);
+            return executeDeleteAttachment((DeleteAttachmentRequest)request, dispatcher).thenApply(this::invalidateCache);
 
         } else if (request instanceof DeleteDocumentRequest) {
             DeleteDocumentRequest deleteRequest = (DeleteDocumentRequest)request;
             if (deleteRequest.getType() == DeleteDocumentRequest.Type.DOCUMENT) {
-                return executeDeleteDocument(deleteRequest);
+                return executeDeleteDocument(deleteRequest, dispatcher).thenApply(this::invalidateCache);
 
             } else if (deleteRequest.getType() == DeleteDocumentRequest.Type.DATABASE) {
-                return executeDeleteDatabase(deleteRequest);
+                return executeDeleteDatabase(deleteRequest, dispatcher).thenApply(this::clearCache);
 
             } else if (deleteRequest.getType() == DeleteDocumentRequest.Type.ALL_DOCUMENTS) {
-                return executeDeleteAllDocuments();
+                return executeDeleteAllDocuments(deleteRequest, dispatcher).thenApply(this::clearCache);
 
             } else if (deleteRequest.getType() == DeleteDocumentRequest.Type.ALL_DESIGNS) {
-                return executeDeleteAllDesigns();
+                return executeDeleteAllDesigns(deleteRequest, dispatcher);
 
             } else if (deleteRequest.getType() == DeleteDocumentRequest.Type.ALL_NON_DESIGNS) {
-                return executeDeleteAllNonDesigns();
+                return executeDeleteAllNonDesigns(deleteRequest, dispatcher).thenApply(this::clearCache);
+
+            } else if (deleteRequest.getType() == DeleteDocumentRequest.Type.INDEX) {
+                // The index is kept in its design document but no cached entity is a design.
+                return executeDeleteDocument(deleteRequest, dispatcher);
 
             } else {
                 throw CouchException.badRequest("Unsupported DeleteRequestType " + deleteRequest.getType());
@@ -351,7 +877,7 @@ public class RequestExecutor {
         }
     }
 
-    protected WriteResponse executeDeleteEntity(DeleteEntityRequest request) {
+    protected CompletableFuture<WriteResponse> executeDeleteEntity(DeleteEntityRequest request, HttpDispatcher dispatcher) {
         CouchEntityMeta entityMeta = metaRepository.getOrCreateEntityMeta(request.getEntityClass());
 
         // Request does not define documentId or revision so look to the EntityMeta
@@ -367,101 +893,275 @@ public class RequestExecutor {
         // Use DeleteDocumentRequest to actually perform the delete.
         DeleteDocumentRequest deleteDocumentRequest = couch.delete().document(id, revision);
         HttpDeleteRequest httpDeleteRequest = httpRequestFactory.newHttpDeleteRequest(deleteDocumentRequest);
-        CouchHttpResponse couchHttpResponse = httpClient.delete(httpDeleteRequest);
-        return new WriteResponse(couchHttpResponse);
+        return dispatcher.delete(httpDeleteRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executeDeleteAttachment(DeleteAttachmentRequest request) {
+    protected CompletableFuture<WriteResponse> executeDeleteAttachment(DeleteAttachmentRequest request, HttpDispatcher dispatcher) {
         HttpDeleteRequest httpDeleteRequest = httpRequestFactory.newHttpDeleteRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.delete(httpDeleteRequest);
-        return new WriteResponse(couchHttpResponse);
+        return dispatcher.delete(httpDeleteRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executeDeleteDocument(DeleteDocumentRequest request) {
+    protected CompletableFuture<WriteResponse> executeDeleteDocument(DeleteDocumentRequest request, HttpDispatcher dispatcher) {
         HttpDeleteRequest httpDeleteRequest = httpRequestFactory.newHttpDeleteRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.delete(httpDeleteRequest);
-        return new WriteResponse(couchHttpResponse);
+        return dispatcher.delete(httpDeleteRequest).thenApply(WriteResponse::new);
     }
 
-    protected WriteResponse executeDeleteDatabase(DeleteDocumentRequest request) {
+    protected CompletableFuture<WriteResponse> executeDeleteDatabase(DeleteDocumentRequest request, HttpDispatcher dispatcher) {
         HttpDeleteRequest httpDeleteRequest = httpRequestFactory.newHttpDeleteRequest(request);
-        CouchHttpResponse couchHttpResponse = httpClient.delete(httpDeleteRequest);
-        return new WriteResponse(couchHttpResponse);
-    }
-
-    protected WriteResponse executeDeleteAllDocuments() {
-        CouchHttpResponse couchHttpResponse;
-        String path = "_all_docs";
-        GetDocumentResponse getResponse = new GetDocumentRequest(this, path, null).execute();
-        for (TextDocument document : getResponse) {
-            String id = document.getDocumentId();
-            String revision = document.getDocumentRevision();
-            WriteResponse deleteResponse = new DeleteDocumentRequest(this, DeleteDocumentRequest.Type.DOCUMENT, id, revision)
-                    .execute();
-            if (deleteResponse.isError()) {
-                throw new CouchException(deleteResponse.getHttpStatus(), "Error deleting design document " + id);
-            }
+        return dispatcher.delete(httpDeleteRequest).thenApply(WriteResponse::new);
+    }
+
+    protected CompletableFuture<WriteResponse> executeDeleteAllDocuments(DeleteDocumentRequest request, HttpDispatcher dispatcher) {
+        return new BatchedDelete(request, null, null, id -> true, dispatcher).execute();
+    }
+
+    protected CompletableFuture<WriteResponse> executeDeleteAllDesigns(DeleteDocumentRequest request, HttpDispatcher dispatcher) {
+        return new BatchedDelete(request, "_design/", "_design0", id -> id.startsWith("_design/"), dispatcher).execute();
+    }
+
+    protected CompletableFuture<WriteResponse> executeDeleteAllNonDesigns(DeleteDocumentRequest request, HttpDispatcher dispatcher) {
+        return new BatchedDelete(request, null, null, id -> id != null && !id.startsWith("_design/"), dispatcher).execute();
+    }
+
+    /**
+     * Pages through _all_docs by document id and deletes the matching documents of each page with one _bulk_docs
+     * call. Each page starts at the last id of the one before, skip=1 is not used as that id may already have been
+     * deleted, in which case the first live document would be skipped instead.
+     *
+     * Up to the request's parallelism batches are written while the next page is read, with a parallelism above one
+     * they are written on the async dispatcher even for a synchronous execute. A document that cannot be deleted is
+     * reported as a failure and the run carries on, the final response is the error of the first failure.
+     */
+    protected class BatchedDelete {
+        private final DeleteDocumentRequest request;
+        private final String startKey;
+        private final String endKey;
+        private final Predicate<String> idFilter;
+        private final HttpDispatcher readDispatcher;
+        private final HttpDispatcher writeDispatcher;
+        private final Deque<CompletableFuture<Void>> batches = new ArrayDeque<>();
+        private final List<WriteResponse> failures = new ArrayList<>();
+        private final CompletableFuture<WriteResponse> result = new CompletableFuture<>();
+        private long documentsRead;
+        private long documentsDeleted;
+        private int batchesWritten;
+
+        protected BatchedDelete(DeleteDocumentRequest request, String startKey, String endKey, Predicate<String> idFilter, HttpDispatcher dispatcher) {
+            this.request = request;
+            this.startKey = startKey;
+            this.endKey = endKey;
+            this.idFilter = idFilter;
+            this.readDispatcher = dispatcher;
+            this.writeDispatcher = (request.getParallelism() > 1) ? asyncDispatcher : dispatcher;
+        }
+
+        public CompletableFuture<WriteResponse> execute() {
+            readPages(startKey, false);
+            return result;
         }
-        couchHttpResponse = CouchHttpResponse.builder(CouchMethodType.DELETE, httpClient.uri(path), CouchHttpStatus.OK).build();
-        return new WriteResponse(couchHttpResponse);
-    }
-
-    protected WriteResponse executeDeleteAllDesigns() {
-        CouchHttpResponse couchHttpResponse;
-        String path = "/_all_docs?startkey=%22_design/%22&endkey=%22_design0%22";
-        GetDocumentResponse getResponse = new GetDocumentRequest(this, path, null).execute();
-        for (TextDocument document : getResponse) {
-            String id = document.getDocumentId();
-            if (id.startsWith("_design")) {
-                String revision = document.getDocumentRevision();
-                WriteResponse deleteResponse = new DeleteDocumentRequest(this, DeleteDocumentRequest.Type.DOCUMENT, id, revision)
-                        .execute();
-                if (deleteResponse.isError()) {
-                    throw new CouchException(deleteResponse.getHttpStatus(), "Error deleting design document " + id);
+
+        /**
+         * Reads pages one after another, looping rather than nesting while they complete synchronously.
+         */
+        protected void readPages(String pageKey, boolean afterPageKey) {
+            String key = pageKey;
+            boolean after = afterPageKey;
+            while (true) {
+                CompletableFuture<String> next = readPage(key, after);
+                if (!next.isDone()) {
+                    next.whenComplete((nextKey, ex) -> {
+                        if (ex != null) {
+                            result.completeExceptionally((ex instanceof CompletionException) ? ex.getCause() : ex);
+                        } else if (nextKey == null) {
+                            finish();
+                        } else {
+                            readPages(nextKey, true);
+                        }
+                    });
+                    return;
                 }
+                try {
+                    key = next.join();
+                } catch (CompletionException ex) {
+                    result.completeExceptionally(ex.getCause());
+                    return;
+                }
+                if (key == null) {
+                    finish();
+                    return;
+                }
+                after = true;
             }
         }
-        couchHttpResponse = CouchHttpResponse.builder(CouchMethodType.DELETE, httpClient.uri(path), CouchHttpStatus.OK).build();
-        return new WriteResponse(couchHttpResponse);
-    }
-
-    protected WriteResponse executeDeleteAllNonDesigns() {
-        CouchHttpResponse couchHttpResponse;
-        String path = "_all_docs";
-        GetDocumentResponse getResponse = new GetDocumentRequest(this, path, null).execute();
-        for (TextDocument document : getResponse) {
-            String id = document.getDocumentId();
-            if (id != null && !id.startsWith("_design")) {
-                String revision = document.getDocumentRevision();
-                WriteResponse deleteResponse = new DeleteDocumentRequest(this, DeleteDocumentRequest.Type.DOCUMENT, id, revision)
-                        .execute();
-                if (deleteResponse.isError()) {
-                    String msg = String.format("Error deleting document %s rev(%s) - %s", id, revision, deleteResponse.getErrorReason());
-                    throw new CouchException(deleteResponse.getHttpStatus(), msg);
+
+        /**
+         * @param afterPageKey - true when pageKey ended the previous page and is not part of this one
+         * @return the id to read the next page after, or null once the last page has been read.
+         */
+        protected CompletableFuture<String> readPage(String pageKey, boolean afterPageKey) {
+            // One more to allow for pageKey itself, when it is still there.
+            int limit = afterPageKey ? request.getBatchSize() + 1 : request.getBatchSize();
+            HttpGetRequest httpGetRequest = httpRequestFactory.newHttpGetAllDocsPageRequest(pageKey, endKey, limit);
+            CompletableFuture<CouchHttpResponse> read;
+            try {
+                read = readDispatcher.get(httpGetRequest);
+            } catch (RuntimeException | Error e) {
+                // The sync dispatcher throws, which inside a whenComplete of readPages would be lost.
+                read = new CompletableFuture<>();
+                read.completeExceptionally(e);
+            }
+            return read.thenCompose(httpResponse -> {
+                if (httpResponse.isError()) {
+                    String msg = String.format("Error listing documents to delete after %s - %s", pageKey, readErrorContent(httpResponse).getReason());
+                    throw new CouchException(httpResponse.getHttpStatus(), msg);
                 }
+                List<TextDocument> page = readTextDocuments(httpResponse);
+                List<TextDocument> documents = new ArrayList<>(page.size());
+                for (TextDocument document : page) {
+                    if (afterPageKey && document.getDocumentId().equals(pageKey)) {
+                        continue;
+                    }
+                    if (idFilter.test(document.getDocumentId())) {
+                        documents.add(document);
+                    }
+                }
+
+                CompletableFuture<Void> window = CompletableFuture.completedFuture(null);
+                synchronized (this) {
+                    documentsRead += documents.size();
+                    if (!documents.isEmpty()) {
+                        batches.add(writeBatch(documents));
+                    }
+                    if (batches.size() >= request.getParallelism()) {
+                        window = batches.poll();
+                    }
+                }
+
+                String nextKey = (page.size() < limit) ? null : page.get(page.size() - 1).getDocumentId();
+                return window.thenApply(ignored -> nextKey);
+            });
+        }
+
+        protected CompletableFuture<Void> writeBatch(List<TextDocument> documents) {
+            HttpPostRequest httpPostRequest = httpRequestFactory.newHttpPostBulkDeleteRequest(documents);
+            return writeDispatcher.post(httpPostRequest)
+                    .thenApply(RequestExecutor.this::buildBulkResponse)
+                    .thenAccept(bulkResponse -> {
+                        if (bulkResponse.isError()) {
+                            String msg = String.format("Error deleting %s documents starting at %s - %s", documents.size(), documents.get(0).getDocumentId(), bulkResponse.getErrorReason());
+                            throw new CouchException(bulkResponse.getHttpStatus(), msg);
+                        }
+                        synchronized (this) {
+                            for (WriteResponse writeResponse : bulkResponse.getWriteResponses()) {
+                                if (writeResponse.isError()) {
+                                    failures.add(writeResponse);
+                                } else {
+                                    documentsDeleted++;
+                                }
+                            }
+                            batchesWritten++;
+                            reportProgress(false);
+                        }
+                    });
+        }
+
+        protected void finish() {
+            List<CompletableFuture<Void>> remaining;
+            synchronized (this) {
+                remaining = new ArrayList<>(batches);
+                batches.clear();
+            }
+            CompletableFuture.allOf(remaining.toArray(new CompletableFuture<?>[remaining.size()])).whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally((ex instanceof CompletionException) ? ex.getCause() : ex);
+                    return;
+                }
+                WriteResponse response;
+                synchronized (this) {
+                    reportProgress(true);
+                    response = buildResponse();
+                }
+                result.complete(response);
+            });
+        }
+
+        protected void reportProgress(boolean complete) {
+            if (request.getOnProgress() != null) {
+                request.getOnProgress().handle(new CouchDeleteProgress(documentsRead, documentsDeleted, batchesWritten, new ArrayList<>(failures), complete));
             }
         }
-        couchHttpResponse = CouchHttpResponse.builder(CouchMethodType.DELETE, httpClient.uri(path), CouchHttpStatus.OK).build();
-        return new WriteResponse(couchHttpResponse);
+
+        protected WriteResponse buildResponse() {
+            URI uri = httpClient.uri(couch.getDatabaseName(), "_all_docs");
+            if (failures.isEmpty()) {
+                return new WriteResponse(CouchHttpResponse.builder(CouchMethodType.DELETE, uri, CouchHttpStatus.OK).build());
+            }
+            WriteResponse failure = failures.get(0);
+            String reason = String.format("%s of %s documents could not be deleted, the first was %s - %s",
+                    failures.size(), documentsRead, failure.getDocumentId(), failure.getErrorReason());
+            CouchErrorContent errorContent = new CouchErrorContent(failure.getErrorContent().getError(), reason);
+            return new WriteResponse(CouchHttpResponse.builder(CouchMethodType.DELETE, uri, failure.getHttpStatus())
+                    .setContent(CouchMediaType.APPLICATION_JSON, -1, errorContent.toJson())
+                    .build());
+        }
     }
 
-    protected CouchHttpResponse writeEntityAttachments(CouchEntityMeta<?> entityMeta, CouchHttpResponse couchHttpResponse, Object entity) {
-        // Put any attachments
+    protected List<TextDocument> readTextDocuments(CouchHttpResponse httpResponse) {
+        if (httpResponse.getContent() instanceof byte[]) {
+            return couch.getJsonStrategy().readTextDocuments((byte[]) httpResponse.getContent());
+        }
+        return couch.getJsonStrategy().readTextDocuments(httpResponse.getStringContent());
+    }
+
+    /**
+     * With INLINE_ATTACHMENTS on, embedded attachments are written with the document unless one of them is an
+     * InputStream or file, which is still streamed with its own PUT rather than buffered for base64 encoding.
+     */
+    protected boolean canInlineAttachments(CouchEntityMeta<?> entityMeta, Object entity) {
+        if (!entityMeta.hasEmbeddedAttachments() || !couch.getFeatureSet().isTrue(CouchFeature.INLINE_ATTACHMENTS)) {
+            return false;
+        }
         for (CouchEmbeddedAttachmentMeta attachmentMeta : entityMeta.getEmbeddedAttachmentMetaList()) {
-            try {
-                Object value = attachmentMeta.readValue(entity);
-                if (value != null) {
-                    couchHttpResponse = writeAttachment(attachmentMeta, couchHttpResponse.getDocumentId(), couchHttpResponse.getEtag(), value);
-                }
-            } catch (CouchException e) {
-                log.error("Exception writing entity attachment: " + e.getMessage(), e);
-                throw new CouchException(CouchHttpStatus.INTERNAL_SERVER_ERROR, "Exception saving attachment: " + e.getMessage(), e);
+            if (HttpPutRequest.isStreamContent(attachmentMeta.readValue(entity))) {
+                return false;
             }
         }
-        return couchHttpResponse;
+        return true;
+    }
+
+    protected List<CouchInlineAttachment> buildInlineAttachments(CouchEntityMeta<?> entityMeta, Object entity) {
+        List<CouchInlineAttachment> inlineAttachments = new ArrayList<>();
+        for (CouchEmbeddedAttachmentMeta attachmentMeta : entityMeta.getEmbeddedAttachmentMetaList()) {
+            Object value = attachmentMeta.readValue(entity);
+            if (value == null) {
+                continue;
+            }
+            byte[] data = (value instanceof byte[]) ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+            inlineAttachments.add(new CouchInlineAttachment(attachmentMeta.getAttachmentName(), attachmentMeta.getContentType(), data));
+        }
+        return inlineAttachments;
+    }
+
+    protected CompletableFuture<CouchHttpResponse> writeEntityAttachments(CouchEntityMeta<?> entityMeta, CouchHttpResponse couchHttpResponse, Object entity, HttpDispatcher dispatcher) {
+        // Put any attachments, each put uses the revision returned by the one before it.
+        CompletableFuture<CouchHttpResponse> future = CompletableFuture.completedFuture(couchHttpResponse);
+        for (CouchEmbeddedAttachmentMeta attachmentMeta : entityMeta.getEmbeddedAttachmentMetaList()) {
+            future = future.thenCompose(previousResponse -> {
+                try {
+                    Object value = attachmentMeta.readValue(entity);
+                    if (value == null) {
+                        return CompletableFuture.completedFuture(previousResponse);
+                    }
+                    return writeAttachment(attachmentMeta, previousResponse.getDocumentId(), previousResponse.getEtag(), value, dispatcher);
+                } catch (CouchException e) {
+                    throw attachmentException(e);
+                }
+            });
+        }
+        return future;
     }
 
-    protected CouchHttpResponse writeAttachment(CouchEmbeddedAttachmentMeta attachmentMeta, String documentId, String revision, Object content) {
+    protected CompletableFuture<CouchHttpResponse> writeAttachment(CouchEmbeddedAttachmentMeta attachmentMeta, String documentId, String revision, Object content, HttpDispatcher dispatcher) {
         PutAttachmentRequest putAttachmentRequest = new PutAttachmentRequest(
                 this,
                 documentId,
@@ -470,19 +1170,145 @@ public class RequestExecutor {
                 attachmentMeta.getContentType(),
                 content);
 
-        CouchHttpResponse couchHttpResponse = httpClient.put(httpRequestFactory.newHttpPutRequest(putAttachmentRequest));
+        return dispatcher.put(httpRequestFactory.newHttpPutRequest(putAttachmentRequest))
+                .thenApply(couchHttpResponse -> {
+                    if (couchHttpResponse.isError()) {
+                        CouchErrorContent errorContent = CouchErrorContent.parseJson(couchHttpResponse.getStringContent());
+                        String msg = String.format("Store of document successful but failed in storage of attachment with status: %s and error content: %s",
+                                couchHttpResponse.getHttpStatus().getReason(),
+                                errorContent.toString());
+                        throw attachmentException(new CouchException(couchHttpResponse.getHttpStatus(), msg));
+                    }
+                    return couchHttpResponse;
+                });
+    }
 
-        if (couchHttpResponse.isError()) {
-            CouchErrorContent errorContent = CouchErrorContent.parseJson(couchHttpResponse.getStringContent());
-            String msg = String.format("Store of document successful but failed in storage of attachment with status: %s and error content: %s",
-                    couchHttpResponse.getHttpStatus().getReason(),
-                    errorContent.toString());
-            throw new CouchException(couchHttpResponse.getHttpStatus(), msg);
+    protected CouchException attachmentException(CouchException e) {
+        log.error("Exception writing entity attachment: " + e.getMessage(), e);
+        return new CouchException(CouchHttpStatus.INTERNAL_SERVER_ERROR, "Exception saving attachment: " + e.getMessage(), e);
+    }
+
+    protected CouchErrorContent readErrorContent(CouchHttpResponse httpResponse) {
+        CouchErrorContent errorContent = CouchErrorContent.noError;
+        if (httpResponse.isError() && httpResponse.getContentType() == CouchMediaType.APPLICATION_JSON) {
+            errorContent = CouchErrorContent.parseJson(httpResponse.getStringContent());
         }
+        return errorContent;
+    }
 
-        return couchHttpResponse;
+    protected <R extends CouchResponse> R handleResponse(R response, CouchResponseHandler<R> onError, CouchResponseHandler<R> onSuccess, CouchResponseHandler<R> onResponse) {
+        // Call onError, onSuccess and onResponse
+        if (response.isError() && onError != null) {
+            onError.handle(response);
+        } else if (onSuccess != null) {
+            onSuccess.handle(response);
+        }
+        if (onResponse != null) {
+            onResponse.handle(response);
+        }
 
+        return response;
+    }
+
+    /**
+     * Waits on a future built by the sync dispatcher, rethrowing the original exception rather than
+     * the CompletionException wrapping it.
+     */
+    protected <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
     }
 
+    /**
+     * The HTTP calls made while executing a request.
+     */
+    protected interface HttpDispatcher {
+
+        CompletableFuture<CouchHttpResponse> head(HttpHeadRequest request);
+
+        CompletableFuture<CouchHttpResponse> get(HttpGetRequest request);
+
+        CompletableFuture<CouchHttpResponse> put(HttpPutRequest request);
+
+        CompletableFuture<CouchHttpResponse> post(HttpPostRequest request);
+
+        CompletableFuture<CouchHttpResponse> delete(HttpDeleteRequest request);
+
+    }
+
+    private static class SyncHttpDispatcher implements HttpDispatcher {
+        private final CouchHttpClient httpClient;
+
+        private SyncHttpDispatcher(CouchHttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> head(HttpHeadRequest request) {
+            return CompletableFuture.completedFuture(httpClient.head(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> get(HttpGetRequest request) {
+            return CompletableFuture.completedFuture(httpClient.get(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> put(HttpPutRequest request) {
+            return CompletableFuture.completedFuture(httpClient.put(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> post(HttpPostRequest request) {
+            return CompletableFuture.completedFuture(httpClient.post(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> delete(HttpDeleteRequest request) {
+            return CompletableFuture.completedFuture(httpClient.delete(request));
+        }
+    }
+
+    private static class AsyncHttpDispatcher implements HttpDispatcher {
+        private final CouchHttpClient httpClient;
+
+        private AsyncHttpDispatcher(CouchHttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> head(HttpHeadRequest request) {
+            return httpClient.headAsync(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> get(HttpGetRequest request) {
+            return httpClient.getAsync(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> put(HttpPutRequest request) {
+            return httpClient.putAsync(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> post(HttpPostRequest request) {
+            return httpClient.postAsync(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> delete(HttpDeleteRequest request) {
+            return httpClient.deleteAsync(request);
+        }
+    }
 
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.internal.util.DelayUtil;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Retries transient failures as configured by a RetrySetup, waiting between tries without holding a thread, and
+ * keeps a CouchCircuitBreaker per host. Added by CouchServer after any other interceptor so each retry only
+ * repeats the call to the client, in a cluster ClusteredCouchHttpClient adds one to each node instead.
+ */
+public class RetryingCouchHttpInterceptor implements CouchHttpInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(RetryingCouchHttpInterceptor.class);
+
+    private final RetrySetup retrySetup;
+    private final String host;
+    private final ConcurrentMap<String, CouchCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param retrySetup - the retry and circuit breaker settings
+     * @param host - the host calls are made to
+     */
+    public RetryingCouchHttpInterceptor(RetrySetup retrySetup, String host) {
+        this.retrySetup = retrySetup;
+        this.host = host;
+    }
+
+    /**
+     * @param url - the url of a server, may be null
+     * @return the host and port of the url, or "localhost" without one
+     */
+    public static String hostOf(String url) {
+        String host = null;
+        if (url != null) {
+            try {
+                host = URI.create(url).getAuthority();
+            } catch (IllegalArgumentException e) {
+                log.warn("Cannot read the host of " + url + ": " + e.getMessage());
+            }
+        }
+        return (host != null) ? host : "localhost";
+    }
+
+    public CouchCircuitBreaker getCircuitBreaker(String host) {
+        return circuitBreakers.computeIfAbsent(host, key -> new CouchCircuitBreaker(key, retrySetup.getFailureThreshold(), retrySetup.getOpenTime()));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> intercept(HttpRequest request, CouchHttpChain chain) {
+        int maxAttempts = retrySetup.isRetryable(request) ? retrySetup.getMaxAttempts() : 1;
+        CompletableFuture<CouchHttpResponse> result = new CompletableFuture<>();
+        attempt(request, chain, getCircuitBreaker(host), maxAttempts, 1, result);
+        return result;
+    }
+
+    protected void attempt(HttpRequest request,
+                           CouchHttpChain chain,
+                           CouchCircuitBreaker circuitBreaker,
+                           int maxAttempts,
+                           int attempt,
+                           CompletableFuture<CouchHttpResponse> result) {
+
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(new CouchCircuitOpenException(circuitBreaker.getHost(),
+                    "Circuit breaker for " + circuitBreaker.getHost() + " is open, " + request.getMethodType() + " " + request.getPath() + " was not sent."));
+            return;
+        }
+
+        chain.proceed(request).whenComplete((response, ex) -> {
+            Throwable failure = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+            boolean transientFailure = (failure != null) ? retrySetup.isRetryable(failure) : retrySetup.isRetryable(response.getHttpStatus());
+            if (transientFailure) {
+                circuitBreaker.recordFailure();
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+
+            if (transientFailure && attempt < maxAttempts) {
+                long delay = retrySetup.getDelay(attempt);
+                if (log.isDebugEnabled()) {
+                    String reason = (failure != null) ? failure.toString() : response.getHttpStatus().toString();
+                    log.debug("Retrying " + request.getMethodType() + " " + request.getPath() + " in " + delay + "ms after " + reason);
+                }
+                DelayUtil.delay(delay).thenRun(() -> attempt(request, chain, circuitBreaker, maxAttempts, attempt + 1, result));
+            } else if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+}
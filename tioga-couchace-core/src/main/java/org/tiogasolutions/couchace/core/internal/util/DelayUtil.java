@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits without holding a thread, used between retries.
+ */
+public final class DelayUtil {
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "couchace-delay-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // What follows a delay may call a blocking client so it is not run on the timer thread.
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "couchace-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DelayUtil() {
+    }
+
+    /**
+     * @param millis - time to wait, zero or less to not wait
+     * @return a future completed once the time has passed, stages added to it run on a pooled thread
+     */
+    public static CompletableFuture<Void> delay(long millis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (millis <= 0) {
+            executor.execute(() -> future.complete(null));
+        } else {
+            scheduler.schedule(() -> executor.execute(() -> future.complete(null)), millis, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+}
@@ -18,11 +18,15 @@ package org.tiogasolutions.couchace.core.internal.util;
 
 import org.tiogasolutions.couchace.core.api.CouchException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -105,6 +109,10 @@ public class IOUtil {
         if (url == null) {
             throw CouchException.badRequest("Null url argument given to readText");
         }
+        if (!"file".equals(url.getProtocol())) {
+            // A resource packed in a jar has no Path.
+            return readText(url, StandardCharsets.UTF_8);
+        }
         try {
             return readText(Paths.get(url.toURI()));
         } catch (Exception e) {
@@ -112,4 +120,18 @@ public class IOUtil {
         }
     }
 
+    private static String readText(URL url, Charset charset) {
+        try (InputStream inputStream = url.openStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), charset);
+        } catch (IOException e) {
+            throw CouchException.internalServerError(e);
+        }
+    }
+
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+/**
+ * Connection pool settings for a CouchHttpClient, all times are in milliseconds. A client given a
+ * ConnectionPoolSetup keeps connections open and reuses them rather than opening a socket (and doing
+ * the TLS handshake) for every request.
+ */
+public class ConnectionPoolSetup {
+
+    private int maxTotal = 20;
+    private int maxPerRoute = 20;
+    private long keepAlive = 60000;
+    private long idleTimeout = 30000;
+    private int connectTimeout = 5000;
+    private int readTimeout = 30000;
+    private int poolTimeout = 5000;
+
+    public ConnectionPoolSetup() {
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * @param maxTotal - maximum number of connections in the pool.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setMaxTotal(int maxTotal) {
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("maxTotal must be greater than zero.");
+        }
+        this.maxTotal = maxTotal;
+        return this;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    /**
+     * @param maxPerRoute - maximum number of connections to a single host.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setMaxPerRoute(int maxPerRoute) {
+        if (maxPerRoute <= 0) {
+            throw new IllegalArgumentException("maxPerRoute must be greater than zero.");
+        }
+        this.maxPerRoute = maxPerRoute;
+        return this;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @param keepAlive - maximum time a connection is kept alive for reuse, zero or less keeps it indefinitely.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout - connections idle for longer than this are evicted from the pool, zero or less disables eviction.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout - time allowed to open a connection, zero is infinite.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("connectTimeout cannot be negative.");
+        }
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout - time allowed between packets when reading a response, zero is infinite.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setReadTimeout(int readTimeout) {
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException("readTimeout cannot be negative.");
+        }
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public int getPoolTimeout() {
+        return poolTimeout;
+    }
+
+    /**
+     * @param poolTimeout - time allowed to wait for a connection from the pool when all are in use, zero is infinite.
+     * @return this ConnectionPoolSetup
+     */
+    public ConnectionPoolSetup setPoolTimeout(int poolTimeout) {
+        if (poolTimeout < 0) {
+            throw new IllegalArgumentException("poolTimeout cannot be negative.");
+        }
+        this.poolTimeout = poolTimeout;
+        return this;
+    }
+}
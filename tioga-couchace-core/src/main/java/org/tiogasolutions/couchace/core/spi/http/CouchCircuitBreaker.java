@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+/**
+ * Stops calls to a host that keeps failing. Closed while calls succeed, open (calls fail fast) once
+ * failureThreshold transient failures happen in a row, and after openTime half open, letting a single trial
+ * call through that closes the circuit on success or opens it again on failure.
+ */
+public class CouchCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String host;
+    private final int failureThreshold;
+    private final long openTime;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * @param host - the host the breaker guards.
+     * @param failureThreshold - transient failures in a row that open the circuit, zero to never open.
+     * @param openTime - milliseconds calls fail fast before a trial call is let through.
+     */
+    public CouchCircuitBreaker(String host, int failureThreshold, long openTime) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if a call may be made, a half open breaker lets only one call through until it is recorded.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        } else if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openTime) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (failureThreshold > 0 && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+}
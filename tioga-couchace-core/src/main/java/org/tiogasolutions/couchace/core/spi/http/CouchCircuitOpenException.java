@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+
+/**
+ * Thrown in place of a call that was not sent because the CouchCircuitBreaker of its host is open, so the call
+ * may be sent to another host, even a write.
+ */
+public class CouchCircuitOpenException extends CouchHttpException {
+
+    private final String host;
+
+    /**
+     * @param host - the host whose breaker is open
+     * @param message - what was not sent
+     */
+    public CouchCircuitOpenException(String host, String message) {
+        super(CouchHttpStatus.SERVICE_UNAVAILABLE, message);
+        this.host = host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+}
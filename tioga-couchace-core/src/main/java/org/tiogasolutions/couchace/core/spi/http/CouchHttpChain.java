@@ -0,0 +1,30 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The rest of an interceptor chain, proceeding hands the request to the next interceptor or the client.
+ * A failure of the client is returned as an exceptionally completed future, never thrown.
+ */
+public interface CouchHttpChain {
+
+    CompletableFuture<CouchHttpResponse> proceed(HttpRequest request);
+
+}
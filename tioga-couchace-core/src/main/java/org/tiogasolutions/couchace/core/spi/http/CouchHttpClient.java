@@ -20,6 +20,7 @@ import org.tiogasolutions.couchace.core.api.response.CouchDocument;
 import org.tiogasolutions.couchace.core.api.CouchSetup;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * User: harlan
@@ -38,12 +39,32 @@ public interface CouchHttpClient {
 
     CouchHttpResponse get(HttpGetRequest request);
 
+    /**
+     * Same as get but a successful response holds the unread body as an InputStream (see
+     * CouchHttpResponse.getInputStreamContent()), the caller is responsible for closing it.
+     */
+    CouchHttpResponse getStream(HttpGetRequest request);
+
     CouchHttpResponse put(HttpPutRequest putRequest);
 
     CouchHttpResponse post(HttpPostRequest postRequest);
 
     CouchHttpResponse delete(HttpDeleteRequest request);
 
+    /**
+     * The async variants complete with the same CouchHttpResponse the blocking call would return,
+     * or exceptionally with the exception it would throw.
+     */
+    CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest);
+
+    CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request);
+
+    CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest);
+
+    CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest);
+
+    CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request);
+
     URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse);
 
     URI uri(String... paths);
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wraps each head, get, getStream, put, post and delete made through the CouchHttpClient of a CouchServer,
+ * see CouchSetup.addInterceptor. An interceptor may decorate the request (see HttpRequest.header) before
+ * proceeding, answer without proceeding (a cache hit), proceed more than once (a retry) or change the response.
+ * The same chain serves blocking and async calls, for a blocking call the returned future is joined.
+ */
+public interface CouchHttpInterceptor {
+
+    /**
+     * @param request - the request, its method is given by getMethodType()
+     * @param chain - the next interceptor or, after the last one, the client
+     * @return the response, or a future completed exceptionally with the failure
+     */
+    CompletableFuture<CouchHttpResponse> intercept(HttpRequest request, CouchHttpChain chain);
+
+    /**
+     * @param request - the request of a blocking call
+     * @return true to make the blocking call through the client's async call and join it, so the interceptor can
+     * act while the call is out (as a hedge does), false to make it on the caller's thread
+     */
+    default boolean isAsync(HttpRequest request) {
+        return false;
+    }
+
+}
@@ -15,13 +15,17 @@
  */
 package org.tiogasolutions.couchace.core.spi.http;
 
+import org.tiogasolutions.couchace.core.api.http.CouchContentRange;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 import org.tiogasolutions.couchace.core.api.response.CouchErrorContent;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -37,6 +41,7 @@ public class CouchHttpResponse {
     private final String etag;
     private final CouchMediaType contentType;
     private final Object content;
+    private final CouchContentRange contentRange;
 
     public static CouchHttpResponseBuilder builder(CouchMethodType methodType, URI uri, CouchHttpStatus statusCode) {
         return new CouchHttpResponseBuilder(methodType, uri, statusCode);
@@ -49,6 +54,17 @@ public class CouchHttpResponse {
                              String etag,
                              CouchMediaType contentType,
                              Object content) {
+        this(methodType, uri, httpStatus, documentId, etag, contentType, content, null);
+    }
+
+    public CouchHttpResponse(CouchMethodType methodType,
+                             URI uri,
+                             CouchHttpStatus httpStatus,
+                             String documentId,
+                             String etag,
+                             CouchMediaType contentType,
+                             Object content,
+                             CouchContentRange contentRange) {
         ArgUtil.assertNotNull(methodType, "HttpMethodType");
         ArgUtil.assertNotNull(uri, "URI");
         ArgUtil.assertNotNull(httpStatus, "HttpStatusCode");
@@ -59,6 +75,7 @@ public class CouchHttpResponse {
         this.etag = etag;
         this.contentType = contentType;
         this.content = content;
+        this.contentRange = contentRange;
     }
 
     public CouchMethodType getMethodType() {
@@ -94,11 +111,11 @@ public class CouchHttpResponse {
     }
 
     public boolean isSuccess() {
-        return httpStatus == CouchHttpStatus.CREATED || httpStatus == CouchHttpStatus.OK;
+        return httpStatus == CouchHttpStatus.CREATED || httpStatus == CouchHttpStatus.OK || httpStatus == CouchHttpStatus.PARTIAL_CONTENT;
     }
 
     public boolean isError() {
-        return httpStatus != CouchHttpStatus.CREATED && httpStatus != CouchHttpStatus.OK;
+        return !isSuccess();
     }
 
     public CouchMediaType getContentType() {
@@ -121,6 +138,13 @@ public class CouchHttpResponse {
         return content;
     }
 
+    /**
+     * @return the Content-Range of a partial response, null otherwise.
+     */
+    public CouchContentRange getContentRange() {
+        return contentRange;
+    }
+
     public String getStringContent() {
         String stringContent;
         if (content == null) {
@@ -128,7 +152,7 @@ public class CouchHttpResponse {
 
         } else if (content instanceof byte[]) {
             byte[] bytes = (byte[]) content;
-            stringContent = new String(bytes);
+            stringContent = new String(bytes, StandardCharsets.UTF_8);
 
         } else if (content.getClass().isArray()) {
             Object array = (Object[])content;
@@ -140,8 +164,33 @@ public class CouchHttpResponse {
         return stringContent;
     }
 
+    /**
+     * @return text content as a String and anything else as read, clients may hold JSON as raw bytes.
+     */
+    public Object getTypedContent() {
+        if (content instanceof byte[] && contentType != null && contentType.isTextType()) {
+            return getStringContent();
+        }
+        return content;
+    }
+
+    /**
+     * @return the content as an InputStream, a streamed response returns the stream itself which the caller must close.
+     */
+    public InputStream getInputStreamContent() {
+        if (content == null) {
+            return null;
+        } else if (content instanceof InputStream) {
+            return (InputStream) content;
+        } else if (content instanceof byte[]) {
+            return new ByteArrayInputStream((byte[]) content);
+        } else {
+            return new ByteArrayInputStream(getStringContent().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     public Long getLongContent() {
-        return (content != null) ? Long.valueOf(content.toString()) : null;
+        return (content != null) ? Long.valueOf(getStringContent()) : null;
     }
 
     public CouchErrorContent getErrorContent() {
@@ -157,6 +206,8 @@ public class CouchHttpResponse {
             return true;
         } else if (content instanceof String) {
             return ((String) content).isEmpty();
+        } else if (content instanceof byte[]) {
+            return ((byte[]) content).length == 0;
         } else {
             return false;
         }
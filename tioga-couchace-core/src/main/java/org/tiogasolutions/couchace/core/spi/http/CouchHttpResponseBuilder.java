@@ -16,6 +16,7 @@
 
 package org.tiogasolutions.couchace.core.spi.http;
 
+import org.tiogasolutions.couchace.core.api.http.CouchContentRange;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
@@ -38,6 +39,7 @@ public class CouchHttpResponseBuilder {
     private CouchMediaType contentType;
     private int contentLength;
     private Object content;
+    private CouchContentRange contentRange;
 
     public CouchHttpResponseBuilder(CouchMethodType methodType, URI uri, CouchHttpStatus httpStatus) {
         ArgUtil.assertNotNull(methodType, "HttpMethodType");
@@ -49,7 +51,7 @@ public class CouchHttpResponseBuilder {
     }
 
     public CouchHttpResponse build() {
-        return new CouchHttpResponse(methodType, uri, httpStatus, documentId, etag, contentType, content);
+        return new CouchHttpResponse(methodType, uri, httpStatus, documentId, etag, contentType, content, contentRange);
     }
 
     public CouchHttpResponseBuilder setContent(CouchMediaType mediaType, int contentLength, Object content) {
@@ -101,6 +103,15 @@ public class CouchHttpResponseBuilder {
         return content;
     }
 
+    public CouchContentRange getContentRange() {
+        return contentRange;
+    }
+
+    public CouchHttpResponseBuilder setContentRange(CouchContentRange contentRange) {
+        this.contentRange = contentRange;
+        return this;
+    }
+
     public CouchMethodType getMethodType() {
         return methodType;
     }
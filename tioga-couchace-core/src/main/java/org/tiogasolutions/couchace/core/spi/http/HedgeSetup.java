@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+/**
+ * Hedging settings for reads, all times are in milliseconds. A HEAD or GET, or a POST to _all_docs, _find or a view, that
+ * has not answered after the hedge delay is sent a second time and the first answer wins. The delay is fixed, or
+ * with a percentile set it is that percentile of the recent latency of the same kind of read. The fixed delay is
+ * used until enough latencies are known.
+ *
+ * By default the delay is 50, no percentile is used and at most one read in ten is hedged. The hedge ratio is at
+ * most 1.0 so hedging never more than doubles the load.
+ */
+public class HedgeSetup {
+
+    private long delay = 50;
+    private double percentile;
+    private int windowSize = 100;
+    private double maxHedgeRatio = 0.1;
+
+    public HedgeSetup() {
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * @param delay - time to wait before hedging a read, or until enough latencies are known when a percentile is set.
+     * @return this HedgeSetup
+     */
+    public HedgeSetup setDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay cannot be negative.");
+        }
+        this.delay = delay;
+        return this;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @param percentile - percentile of recent latency to wait before hedging a read, for example 0.95, zero to always use the delay.
+     * @return this HedgeSetup
+     */
+    public HedgeSetup setPercentile(double percentile) {
+        if (percentile < 0 || percentile >= 1.0) {
+            throw new IllegalArgumentException("percentile must be at least zero and less than one.");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @param windowSize - number of recent latencies the percentile is taken from.
+     * @return this HedgeSetup
+     */
+    public HedgeSetup setWindowSize(int windowSize) {
+        if (windowSize < 10) {
+            throw new IllegalArgumentException("windowSize must be at least ten.");
+        }
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    /**
+     * @param maxHedgeRatio - most hedged reads per read, greater than zero and at most one.
+     * @return this HedgeSetup
+     */
+    public HedgeSetup setMaxHedgeRatio(double maxHedgeRatio) {
+        if (maxHedgeRatio <= 0 || maxHedgeRatio > 1.0) {
+            throw new IllegalArgumentException("maxHedgeRatio must be greater than zero and at most one.");
+        }
+        this.maxHedgeRatio = maxHedgeRatio;
+        return this;
+    }
+
+    /**
+     * @param request - the request
+     * @return true if the request only reads so may be sent twice
+     */
+    public boolean isHedgeable(HttpRequest request) {
+        return request.isReadOnly();
+    }
+}
@@ -25,34 +25,88 @@ import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
  * Time: 8:32 PM
  */
 public class HttpGetRequest extends HttpReadRequest {
+    private final String ifNoneMatch;
+    private final String range;
 
+    /**
+     * @param path -
+     * @param httpQuery -
+     * @param documentId -
+     * @param acceptType -
+     * @param ifNoneMatch - revision sent as If-None-Match, a match is answered with 304 Not Modified
+     * @param range - the Range header such as "bytes=0-99", answered with 206 Partial Content
+     */
     public HttpGetRequest(String path,
                           CouchHttpQuery httpQuery,
                           String documentId,
-                          CouchMediaType acceptType) {
+                          CouchMediaType acceptType,
+                          String ifNoneMatch,
+                          String range) {
 
         super(path, httpQuery, documentId, acceptType);
+        this.ifNoneMatch = ifNoneMatch;
+        this.range = range;
+    }
+
+    /**
+     * @param path -
+     * @param httpQuery -
+     * @param documentId -
+     * @param acceptType -
+     * @param ifNoneMatch - revision sent as If-None-Match, a match is answered with 304 Not Modified
+     */
+    public HttpGetRequest(String path,
+                          CouchHttpQuery httpQuery,
+                          String documentId,
+                          CouchMediaType acceptType,
+                          String ifNoneMatch) {
+
+        this(path, httpQuery, documentId, acceptType, ifNoneMatch, null);
+    }
+
+    public HttpGetRequest(String path,
+                          CouchHttpQuery httpQuery,
+                          String documentId,
+                          CouchMediaType acceptType) {
+
+        this(path, httpQuery, documentId, acceptType, null);
     }
 
     public HttpGetRequest(String path,
                           CouchHttpQuery httpQuery,
                           CouchMediaType acceptType) {
 
-        super(path, httpQuery, null, acceptType);
+        this(path, httpQuery, null, acceptType, null);
     }
 
     public HttpGetRequest(String path,
                           CouchHttpQuery httpQuery) {
 
-        super(path, httpQuery, null, null);
+        this(path, httpQuery, null, null, null);
     }
 
     public HttpGetRequest(String path) {
-        super(path, null, null, CouchMediaType.APPLICATION_JSON);
+        this(path, null, null, CouchMediaType.APPLICATION_JSON, null);
     }
 
     public HttpGetRequest() {
         super();
+        this.ifNoneMatch = null;
+        this.range = null;
+    }
+
+    /**
+     * @return the document revision to send as If-None-Match, null for none.
+     */
+    public String getIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    /**
+     * @return the Range header value, null for the whole content.
+     */
+    public String getRange() {
+        return range;
     }
 
     @Override
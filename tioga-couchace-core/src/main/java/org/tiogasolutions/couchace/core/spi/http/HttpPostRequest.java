@@ -16,6 +16,7 @@
 
 package org.tiogasolutions.couchace.core.spi.http;
 
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 
 /**
@@ -33,6 +34,14 @@ public class HttpPostRequest extends HttpRequest {
         this.content = content;
     }
 
+    public HttpPostRequest(String path,
+                           CouchHttpQuery httpQuery,
+                           Object content) {
+
+        super(path, httpQuery);
+        this.content = content;
+    }
+
     public Object getContent() {
         return content;
     }
@@ -20,6 +20,11 @@ import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
 /**
  * User: harlan
  * Date: 2/8/14
@@ -54,6 +59,21 @@ public class HttpPutRequest extends HttpRequest {
         return content;
     }
 
+    public boolean isStreamContent() {
+        return isStreamContent(content);
+    }
+
+    /**
+     * @param content -
+     * @return true for content sent from a stream or file rather than from memory
+     */
+    public static boolean isStreamContent(Object content) {
+        return content instanceof InputStream
+                || content instanceof Path
+                || content instanceof File
+                || content instanceof FileChannel;
+    }
+
     @Override
     public CouchMethodType getMethodType() {
         return CouchMethodType.PUT;
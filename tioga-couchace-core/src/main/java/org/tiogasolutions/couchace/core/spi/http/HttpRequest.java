@@ -20,6 +20,10 @@ import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
 import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * User: harlan
  * Date: 2/8/14
@@ -28,6 +32,7 @@ import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 public abstract class HttpRequest {
     private final String path;
     private final CouchHttpQuery httpQuery;
+    private Map<String, String> headers;
 
     public abstract CouchMethodType getMethodType();
 
@@ -49,4 +54,34 @@ public abstract class HttpRequest {
     public CouchHttpQuery getHttpQuery() {
         return httpQuery;
     }
+
+    /**
+     * @return true if the request only reads, a HEAD or GET, or a POST to _all_docs, _find or a view
+     */
+    public boolean isReadOnly() {
+        CouchMethodType methodType = getMethodType();
+        if (methodType == CouchMethodType.HEAD || methodType == CouchMethodType.GET) {
+            return true;
+        }
+        return methodType == CouchMethodType.POST && path != null && (path.endsWith("/_all_docs") || path.endsWith("/_find") || path.contains("/_view/"));
+    }
+
+    /**
+     * Adds a header sent as is with the request, such as a tracing header added by a CouchHttpInterceptor.
+     * @param name -
+     * @param value -
+     * @return this request
+     */
+    public HttpRequest header(String name, String value) {
+        ArgUtil.assertNotEmpty(name, "name");
+        if (headers == null) {
+            headers = new LinkedHashMap<>();
+        }
+        headers.put(name, value);
+        return this;
+    }
+
+    public Map<String, String> getHeaders() {
+        return (headers == null) ? Collections.<String, String>emptyMap() : Collections.unmodifiableMap(headers);
+    }
 }
@@ -17,14 +17,20 @@
 package org.tiogasolutions.couchace.core.spi.http;
 
 import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.changes.ChangesFeedType;
 import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
 import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchPageQuery;
 import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
 import org.tiogasolutions.couchace.core.internal.util.UriUtil;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 import org.tiogasolutions.couchace.core.api.request.*;
 
+import java.util.List;
+
 /**
  * User: harlan
  * Date: 2/8/14
@@ -46,16 +52,75 @@ public class HttpRequestFactory {
     }
 
     public HttpGetRequest newHttpGetRequest(ReadDocumentRequest request) {
-        PathAndQuery pathAndQuery = buildPathAndQuery(request);
+        return newHttpGetRequest(request, null);
+    }
+
+    /**
+     * @param request -
+     * @param ifNoneMatch - revision of a cached copy, CouchDB answers 304 Not Modified while it is current
+     * @return HttpGetRequest
+     */
+    public HttpGetRequest newHttpGetRequest(ReadDocumentRequest request, String ifNoneMatch) {
+        return newHttpGetRequest(request, ifNoneMatch, false);
+    }
+
+    /**
+     * @param request -
+     * @param ifNoneMatch - revision of a cached copy, CouchDB answers 304 Not Modified while it is current
+     * @param inlineAttachments - ask for attachment content inline (attachments=true) with the document(s)
+     * @return HttpGetRequest
+     */
+    public HttpGetRequest newHttpGetRequest(ReadDocumentRequest request, String ifNoneMatch, boolean inlineAttachments) {
+        PathAndQuery pathAndQuery = buildPathAndQuery(request, inlineAttachments);
 
         CouchMediaType acceptType = CouchMediaType.APPLICATION_JSON;
+        String range = null;
 
         if (request instanceof GetAttachmentRequest) {
             // REVIEW - Not sure why I'm doing this but too scared to remove it.
             acceptType = null;
+            range = ((GetAttachmentRequest) request).getRange();
         }
 
-        return new HttpGetRequest(pathAndQuery.path, pathAndQuery.httpQuery, request.getDocumentId(), acceptType);
+        return new HttpGetRequest(pathAndQuery.path, pathAndQuery.httpQuery, request.getDocumentId(), acceptType, ifNoneMatch, range);
+    }
+
+    /**
+     * @param findQuery -
+     * @return HttpPostRequest of the query to _find
+     */
+    public HttpPostRequest newHttpPostFindRequest(CouchFindQuery findQuery) {
+        String path = UriUtil.buildPath(databaseName, "_find");
+        return new HttpPostRequest(path, findQuery.toJson());
+    }
+
+    public HttpGetRequest newHttpGetIndexRequest() {
+        String path = UriUtil.buildPath(databaseName, "_index");
+        return new HttpGetRequest(path);
+    }
+
+    /**
+     * Unlike a read of the view's documents the limit is sent as is, a reduction has no next page to look for.
+     * @param viewQuery -
+     * @return HttpGetRequest of the reduced rows of the view, never with include_docs
+     */
+    public HttpGetRequest newHttpGetReduceRequest(CouchViewQuery viewQuery) {
+        String path = UriUtil.buildPath(
+                databaseName,
+                "_design",
+                viewQuery.getDesignName(),
+                "_view",
+                viewQuery.getViewName());
+
+        CouchHttpQuery.Builder queryBuilder = CouchHttpQuery.Builder();
+        queryBuilder.add("include_docs", "false");
+        addViewKeys(queryBuilder, viewQuery);
+        if (viewQuery.getLimit() > 0) {
+            queryBuilder.add("limit", String.valueOf(viewQuery.getLimit()));
+        }
+        addViewOptions(queryBuilder, viewQuery);
+
+        return new HttpGetRequest(path, queryBuilder.build(), null, CouchMediaType.APPLICATION_JSON);
     }
 
     public HttpGetRequest newHttpGetRequest(GetDatabaseRequest request) {
@@ -64,7 +129,64 @@ public class HttpRequestFactory {
         return new HttpGetRequest(path, request.getHttpQuery(), null, request.getContentType());
     }
 
+    /**
+     * @param request -
+     * @param since - the sequence to read changes after, null for the start of the database
+     * @return HttpGetRequest
+     */
+    public HttpGetRequest newHttpGetRequest(ChangesRequest<?> request, String since) {
+        String path = UriUtil.buildPath(databaseName, "_changes");
+        CouchHttpQuery.Builder queryBuilder = CouchHttpQuery.Builder();
+        queryBuilder.add("feed", request.getFeedType().getQueryValue());
+        if (since != null) {
+            queryBuilder.add("since", since);
+        }
+        if (request.isIncludeDocs()) {
+            queryBuilder.add("include_docs", "true");
+        }
+        if (request.getFilter() != null) {
+            queryBuilder.add("filter", request.getFilter());
+        }
+        if (request.getLimit() > 0) {
+            queryBuilder.add("limit", String.valueOf(request.getLimit()));
+        }
+        if (request.getFeedType() != ChangesFeedType.NORMAL) {
+            if (request.getHeartbeat() > 0) {
+                queryBuilder.add("heartbeat", String.valueOf(request.getHeartbeat()));
+            }
+            if (request.getTimeout() > 0) {
+                queryBuilder.add("timeout", String.valueOf(request.getTimeout()));
+            }
+        }
+        return new HttpGetRequest(path, queryBuilder.build(), null, CouchMediaType.APPLICATION_JSON);
+    }
+
+    public HttpPostRequest newHttpPostAllDocsRequest(ReadDocumentRequest request) {
+        return newHttpPostAllDocsRequest(request, false);
+    }
+
+    /**
+     * @param request -
+     * @param inlineAttachments - ask for attachment content inline (attachments=true) with the documents
+     * @return HttpPostRequest
+     */
+    public HttpPostRequest newHttpPostAllDocsRequest(ReadDocumentRequest request, boolean inlineAttachments) {
+        String path = UriUtil.buildPath(databaseName, "_all_docs");
+        CouchHttpQuery.Builder queryBuilder = CouchHttpQuery.Builder()
+                .add("include_docs", "true");
+        if (inlineAttachments) {
+            queryBuilder.add("attachments", "true");
+        }
+        CouchHttpQuery httpQuery = queryBuilder.build();
+        String json = jsonStrategy.createJsonForKeys(request.getDocumentIds());
+        return new HttpPostRequest(path, httpQuery, json);
+    }
+
     protected PathAndQuery buildPathAndQuery(ReadDocumentRequest request) {
+        return buildPathAndQuery(request, false);
+    }
+
+    protected PathAndQuery buildPathAndQuery(ReadDocumentRequest request, boolean inlineAttachments) {
         String path;
         CouchHttpQuery.Builder queryBuilder = CouchHttpQuery.Builder();
 
@@ -81,6 +203,9 @@ public class HttpRequestFactory {
             if (request.getDocumentRevision() != null) {
                 queryBuilder.add("rev", request.getDocumentRevision());
             }
+            if (inlineAttachments) {
+                queryBuilder.add("attachments", "true");
+            }
         } else if (request.getViewQuery() != null) {
             // View query
             CouchViewQuery viewQuery = request.getViewQuery();
@@ -92,26 +217,13 @@ public class HttpRequestFactory {
                     viewQuery.getViewName());
 
             queryBuilder.add("include_docs", String.valueOf(viewQuery.isIncludeDocs()));
-            if (viewQuery.hasKey()) {
-                queryBuilder.add("key", viewQuery.getKeyJson());
-            }
-            if (viewQuery.hasStartKey()) {
-                queryBuilder.add("startkey", viewQuery.getStartKeyJson());
-            }
-            if (viewQuery.hasEndKey()) {
-                queryBuilder.add("endkey", viewQuery.getEndKeyJson());
-            }
+            addViewKeys(queryBuilder, viewQuery);
             if (viewQuery.getLimit() > 0) {
                 queryBuilder.add("limit", String.valueOf(viewQuery.getLimit() + 1));
             }
-            if (viewQuery.getSkip() > 0) {
-                queryBuilder.add("skip", String.valueOf(viewQuery.getSkip()));
-            }
-            if (viewQuery.isDescending()) {
-                queryBuilder.add("descending", String.valueOf(viewQuery.isDescending()));
-            }
-            if (viewQuery.isGroup()) {
-                queryBuilder.add("group", String.valueOf(viewQuery.isGroup()));
+            addViewOptions(queryBuilder, viewQuery);
+            if (inlineAttachments && viewQuery.isIncludeDocs()) {
+                queryBuilder.add("attachments", "true");
             }
 
         } else if (request.getPageQuery() != null) {
@@ -120,6 +232,9 @@ public class HttpRequestFactory {
             path = UriUtil.buildPath(databaseName, pageQuery.getRequestedPage());
             queryBuilder.add("include_docs", String.valueOf(pageQuery.isIncludeDocs()));
             queryBuilder.add("limit", String.valueOf(pageQuery.getPageSize() + 1));
+            if (inlineAttachments && pageQuery.isIncludeDocs()) {
+                queryBuilder.add("attachments", "true");
+            }
 
         } else {
             // Unsupported
@@ -130,11 +245,44 @@ public class HttpRequestFactory {
 
     }
 
+    private void addViewKeys(CouchHttpQuery.Builder queryBuilder, CouchViewQuery viewQuery) {
+        if (viewQuery.hasKey()) {
+            queryBuilder.add("key", viewQuery.getKeyJson());
+        }
+        if (viewQuery.hasStartKey()) {
+            queryBuilder.add("startkey", viewQuery.getStartKeyJson());
+        }
+        if (viewQuery.hasEndKey()) {
+            queryBuilder.add("endkey", viewQuery.getEndKeyJson());
+        }
+    }
+
+    private void addViewOptions(CouchHttpQuery.Builder queryBuilder, CouchViewQuery viewQuery) {
+        if (viewQuery.getSkip() > 0) {
+            queryBuilder.add("skip", String.valueOf(viewQuery.getSkip()));
+        }
+        if (viewQuery.isDescending()) {
+            queryBuilder.add("descending", String.valueOf(viewQuery.isDescending()));
+        }
+        if (viewQuery.isGroup()) {
+            queryBuilder.add("group", String.valueOf(viewQuery.isGroup()));
+        }
+        if (viewQuery.hasGroupLevel()) {
+            queryBuilder.add("group_level", String.valueOf(viewQuery.getGroupLevel()));
+        }
+        if (viewQuery.getReduce() != null) {
+            queryBuilder.add("reduce", String.valueOf(viewQuery.getReduce()));
+        }
+    }
+
     public HttpDeleteRequest newHttpDeleteRequest(DeleteDocumentRequest request) {
         String path;
         if (request.getType() == DeleteDocumentRequest.Type.DATABASE) {
             path = UriUtil.buildPath(databaseName);
             return new HttpDeleteRequest(path);
+        } else if (request.getType() == DeleteDocumentRequest.Type.INDEX) {
+            path = UriUtil.buildPath(databaseName, "_index", request.getDocumentId(), "json", request.getIndexName());
+            return new HttpDeleteRequest(path);
         } else {
             path = UriUtil.buildPath(databaseName, request.getDocumentId());
             CouchHttpQuery.Builder builder = CouchHttpQuery.Builder();
@@ -183,6 +331,67 @@ public class HttpRequestFactory {
         return new HttpPostRequest(path, request.getContent());
     }
 
+    public HttpPostRequest newHttpPostBulkRequest(List<PutEntityRequest> requests) {
+        String path = UriUtil.buildPath(databaseName, "_bulk_docs");
+        String json = jsonStrategy.createJsonForBulk(requests);
+        return new HttpPostRequest(path, json);
+    }
+
+    public HttpPostRequest newHttpPostBulkRequest(BulkDocumentRequest request) {
+        String path = UriUtil.buildPath(databaseName, "_bulk_docs");
+        StringBuilder sb = new StringBuilder("{\"docs\":[");
+        boolean first = true;
+        for (String document : request.getDocuments()) {
+            if (!first) {
+                sb.append(",");
+            }
+            sb.append(document);
+            first = false;
+        }
+        sb.append("]}");
+        return new HttpPostRequest(path, sb.toString());
+    }
+
+    /**
+     * @param documents - the id and revision of each document to delete
+     * @return HttpPostRequest writing a _deleted stub for each document
+     */
+    public HttpPostRequest newHttpPostBulkDeleteRequest(List<? extends CouchDocument<?>> documents) {
+        String path = UriUtil.buildPath(databaseName, "_bulk_docs");
+        StringBuilder sb = new StringBuilder("{\"docs\":[");
+        boolean first = true;
+        for (CouchDocument<?> document : documents) {
+            if (!first) {
+                sb.append(",");
+            }
+            sb.append("{\"_id\":").append(CouchJsonUtil.quote(document.getDocumentId()))
+              .append(",\"_rev\":").append(CouchJsonUtil.quote(document.getDocumentRevision()))
+              .append(",\"_deleted\":true}");
+            first = false;
+        }
+        sb.append("]}");
+        return new HttpPostRequest(path, sb.toString());
+    }
+
+    /**
+     * @param startKey - the first document id to list, null for the first document
+     * @param endKey - the last document id to list, null for no limit
+     * @param limit - the number of documents to list
+     * @return HttpGetRequest listing the id and revision of one page of _all_docs
+     */
+    public HttpGetRequest newHttpGetAllDocsPageRequest(String startKey, String endKey, int limit) {
+        String path = UriUtil.buildPath(databaseName, "_all_docs");
+        CouchHttpQuery.Builder queryBuilder = CouchHttpQuery.Builder();
+        if (startKey != null) {
+            queryBuilder.add("startkey", CouchJsonUtil.quote(startKey));
+        }
+        if (endKey != null) {
+            queryBuilder.add("endkey", CouchJsonUtil.quote(endKey));
+        }
+        queryBuilder.add("limit", String.valueOf(limit));
+        return new HttpGetRequest(path, queryBuilder.build(), CouchMediaType.APPLICATION_JSON);
+    }
+
     public HttpPutRequest newHttpPutRequest(PutRequest request) {
 
         if (request instanceof PutEntityRequest) {
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.spi.http;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry and circuit breaker settings for transient failures, all times are in milliseconds. By default a call
+ * that fails with an IOException or answers 408, 502, 503 or 504 is tried up to three times, waiting a random
+ * part of a delay that doubles from 100 up to 5000 between tries. Only HEAD, GET and a PUT or DELETE with a rev
+ * are retried unless setRetryAllMethods is set, other calls are tried once.
+ *
+ * After five transient failures in a row the circuit breaker of the host opens and calls fail fast for thirty
+ * seconds, then a single call is let through to test the host.
+ */
+public class RetrySetup {
+
+    private int maxAttempts = 3;
+    private long initialDelay = 100;
+    private long maxDelay = 5000;
+    private double multiplier = 2.0;
+    private double jitter = 1.0;
+    private final Set<CouchHttpStatus> retryStatuses = EnumSet.of(
+            CouchHttpStatus.REQUEST_TIMEOUT,
+            CouchHttpStatus.BAD_GATEWAY,
+            CouchHttpStatus.SERVICE_UNAVAILABLE,
+            CouchHttpStatus.GATEWAY_TIMEOUT);
+    private final List<Class<? extends Throwable>> retryExceptions = new ArrayList<>(Collections.singletonList(IOException.class));
+    private boolean retryAllMethods;
+    private int failureThreshold = 5;
+    private long openTime = 30000;
+
+    public RetrySetup() {
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts - number of times a call is tried, one to never retry.
+     * @return this RetrySetup
+     */
+    public RetrySetup setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be greater than zero.");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * @param initialDelay - delay before the first retry.
+     * @param maxDelay - cap on the delay before any retry.
+     * @param multiplier - factor the delay grows by with each retry, at least one.
+     * @return this RetrySetup
+     */
+    public RetrySetup setBackoff(long initialDelay, long maxDelay, double multiplier) {
+        if (initialDelay < 0 || maxDelay < initialDelay) {
+            throw new IllegalArgumentException("initialDelay must be between zero and maxDelay.");
+        }
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("multiplier must be at least one.");
+        }
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * @param jitter - part of each delay that is random, from zero (fixed delays) to one (anywhere from zero to the delay).
+     * @return this RetrySetup
+     */
+    public RetrySetup setJitter(double jitter) {
+        if (jitter < 0.0 || jitter > 1.0) {
+            throw new IllegalArgumentException("jitter must be between zero and one.");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    public Set<CouchHttpStatus> getRetryStatuses() {
+        return Collections.unmodifiableSet(retryStatuses);
+    }
+
+    /**
+     * @param statuses - the response statuses that are retried, replacing the defaults.
+     * @return this RetrySetup
+     */
+    public RetrySetup setRetryStatuses(CouchHttpStatus... statuses) {
+        retryStatuses.clear();
+        Collections.addAll(retryStatuses, statuses);
+        return this;
+    }
+
+    public List<Class<? extends Throwable>> getRetryExceptions() {
+        return Collections.unmodifiableList(retryExceptions);
+    }
+
+    /**
+     * @param exceptionClass - a failure is retried when it, or any of its causes, is an instance of the class.
+     * @return this RetrySetup
+     */
+    public RetrySetup addRetryException(Class<? extends Throwable> exceptionClass) {
+        if (exceptionClass == null) {
+            throw new IllegalArgumentException("exceptionClass cannot be null.");
+        }
+        retryExceptions.add(exceptionClass);
+        return this;
+    }
+
+    public boolean isRetryAllMethods() {
+        return retryAllMethods;
+    }
+
+    /**
+     * @param retryAllMethods - true to also retry POST and PUT or DELETE without a rev, which may then be applied twice.
+     * @return this RetrySetup
+     */
+    public RetrySetup setRetryAllMethods(boolean retryAllMethods) {
+        this.retryAllMethods = retryAllMethods;
+        return this;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenTime() {
+        return openTime;
+    }
+
+    /**
+     * @param failureThreshold - transient failures in a row that open the circuit of a host, zero to never open.
+     * @param openTime - time calls to the host fail fast before a trial call is let through.
+     * @return this RetrySetup
+     */
+    public RetrySetup setCircuitBreaker(int failureThreshold, long openTime) {
+        if (failureThreshold < 0 || openTime < 0) {
+            throw new IllegalArgumentException("failureThreshold and openTime cannot be negative.");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+        return this;
+    }
+
+    /**
+     * @param request -
+     * @return true if the request can be sent again without changing the outcome.
+     */
+    public boolean isRetryable(HttpRequest request) {
+        if (request instanceof HttpPutRequest && !isReplayable(((HttpPutRequest) request).getContent())) {
+            return false;
+        }
+        if (retryAllMethods) {
+            return true;
+        }
+        CouchMethodType methodType = request.getMethodType();
+        if (methodType == CouchMethodType.HEAD || methodType == CouchMethodType.GET) {
+            return true;
+        } else if (methodType == CouchMethodType.PUT || methodType == CouchMethodType.DELETE) {
+            for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
+                if ("rev".equals(queryParam.getName()) && queryParam.getValue().length > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isRetryable(CouchHttpStatus status) {
+        return status != null && retryStatuses.contains(status);
+    }
+
+    public boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = (cause.getCause() == cause) ? null : cause.getCause()) {
+            for (Class<? extends Throwable> exceptionClass : retryExceptions) {
+                if (exceptionClass.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param retry - the retry about to be made, starting at one.
+     * @return the time to wait before the retry.
+     */
+    public long getDelay(int retry) {
+        double delay = Math.min(maxDelay, initialDelay * Math.pow(multiplier, retry - 1));
+        return (long) (delay - delay * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    private static boolean isReplayable(Object content) {
+        // A stream or channel has been read by the first try.
+        return !HttpPutRequest.isStreamContent(content) || content instanceof Path || content instanceof File;
+    }
+}
@@ -20,12 +20,24 @@ import org.tiogasolutions.couchace.core.api.CouchDatabaseInfo;
 import org.tiogasolutions.couchace.core.api.CouchSetup;
 import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
 import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
 import org.tiogasolutions.couchace.core.api.request.PostEntityRequest;
 import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
 import org.tiogasolutions.couchace.core.api.response.EntityDocument;
 import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -43,6 +55,18 @@ public interface CouchJsonStrategy {
 
     String createJsonForPost(PostEntityRequest request);
 
+    String createJsonForBulk(List<PutEntityRequest> requests);
+
+    String createJsonForKeys(Collection<String> keys);
+
+    /**
+     * Writes the document without whitespace, with the fields of every object in name order and without the top
+     * level _id and _rev, so two documents of the same content are written the same.
+     */
+    String createCanonicalJson(String json) throws CouchJsonException;
+
+    List<WriteResponse> readBulkWriteResponses(URI uri, String json) throws CouchJsonException;
+
     TextDocument readTextDocument(String json) throws CouchJsonException;
 
     List<TextDocument> readTextDocuments(String json) throws CouchJsonException;
@@ -51,4 +75,103 @@ public interface CouchJsonStrategy {
 
     <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException;
 
+    /**
+     * Reads the document from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default TextDocument readTextDocument(byte[] json) throws CouchJsonException {
+        return readTextDocument(new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the documents from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default List<TextDocument> readTextDocuments(byte[] json) throws CouchJsonException {
+        return readTextDocuments(new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the entity from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return readEntityDocument(getRequestFactory, entityMeta, new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the entities from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return readEntityDocuments(getRequestFactory, entityMeta, new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copies the entity without reading JSON text, so a cached entity is never shared between readers.
+     */
+    <T> EntityDocument<T> copyEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, EntityDocument<T> document) throws CouchJsonException;
+
+    /**
+     * Reads the docs of a _find response with its bookmark.
+     */
+    CouchFindResult<TextDocument> readFindTextDocuments(String json) throws CouchJsonException;
+
+    /**
+     * Reads the docs of a _find response as entities with its bookmark.
+     */
+    <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException;
+
+    /**
+     * Reads the docs of a _find response from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default CouchFindResult<TextDocument> readFindTextDocuments(byte[] json) throws CouchJsonException {
+        return readFindTextDocuments(new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the docs of a _find response as entities from the raw UTF-8 response body, a strategy that can parse bytes directly should override.
+     */
+    default <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        return readFindEntityDocuments(getRequestFactory, entityMeta, new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the indexes of a GET of _index.
+     */
+    List<CouchFindIndex> readFindIndexes(String json) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a view result lazily from the stream, the returned iterator closes the stream.
+     */
+    CouchDocumentIterator<TextDocument> streamTextDocuments(InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a view result lazily from the stream, the returned iterator closes the stream.
+     */
+    <T> CouchDocumentIterator<EntityDocument<T>> streamEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a _changes response (any feed type) lazily from the stream, included docs are read as
+     * TextDocument. The returned iterator closes the stream.
+     */
+    CouchChangeIterator<TextDocument> streamTextChanges(InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a _changes response (any feed type) lazily from the stream, included docs are read as
+     * entities. The returned iterator closes the stream.
+     */
+    <T> CouchChangeIterator<EntityDocument<T>> streamEntityChanges(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a reduced view as whole numbers without a tree node per row, closes the stream.
+     */
+    CouchLongReduction readLongReduction(InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a reduced view as decimal numbers without a tree node per row, closes the stream.
+     */
+    CouchDoubleReduction readDoubleReduction(InputStream inputStream) throws CouchJsonException;
+
+    /**
+     * Reads the rows of a view reduced by _stats without a tree node per row, closes the stream.
+     */
+    CouchStatsReduction readStatsReduction(InputStream inputStream) throws CouchJsonException;
+
 }
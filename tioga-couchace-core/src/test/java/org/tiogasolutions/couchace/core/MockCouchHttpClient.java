@@ -21,6 +21,7 @@ import org.tiogasolutions.couchace.core.api.response.CouchDocument;
 import org.tiogasolutions.couchace.core.spi.http.*;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by jacob on 3/26/2014.
@@ -51,6 +52,11 @@ public class MockCouchHttpClient implements CouchHttpClient {
         return null;
     }
 
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+        return null;
+    }
+
     @Override
     public CouchHttpResponse put(HttpPutRequest putRequest) {
         return null;
@@ -66,6 +72,31 @@ public class MockCouchHttpClient implements CouchHttpClient {
         return null;
     }
 
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest) {
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        return null;
+    }
+
     @Override
     public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
         return null;
@@ -73,7 +104,12 @@ public class MockCouchHttpClient implements CouchHttpClient {
 
     @Override
     public URI uri(String... paths) {
-        return null;
+        StringBuilder uri = new StringBuilder("http://localhost:5984");
+        for (String path : paths) {
+            // Paths join with a single slash, as UriBuilder.path does.
+            uri.append('/').append(path.startsWith("/") ? path.substring(1) : path);
+        }
+        return URI.create(uri.toString());
     }
 
     @Override
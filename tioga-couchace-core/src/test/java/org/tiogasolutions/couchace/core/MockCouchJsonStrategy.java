@@ -20,13 +20,24 @@ import org.tiogasolutions.couchace.core.api.CouchDatabaseInfo;
 import org.tiogasolutions.couchace.core.api.CouchSetup;
 import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
 import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
 import org.tiogasolutions.couchace.core.api.request.PostEntityRequest;
 import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
 import org.tiogasolutions.couchace.core.api.response.EntityDocument;
 import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
 import java.util.List;
 
 public class MockCouchJsonStrategy implements CouchJsonStrategy {
@@ -51,6 +62,26 @@ public class MockCouchJsonStrategy implements CouchJsonStrategy {
         return null;
     }
 
+    @Override
+    public String createJsonForBulk(List<PutEntityRequest> requests) {
+        return null;
+    }
+
+    @Override
+    public String createJsonForKeys(Collection<String> keys) {
+        return null;
+    }
+
+    @Override
+    public String createCanonicalJson(String json) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public List<WriteResponse> readBulkWriteResponses(URI uri, String json) throws CouchJsonException {
+        return null;
+    }
+
     @Override
     public TextDocument readTextDocument(String json) throws CouchJsonException {
         return null;
@@ -70,4 +101,59 @@ public class MockCouchJsonStrategy implements CouchJsonStrategy {
     public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
         return null;
     }
+
+    @Override
+    public CouchFindResult<TextDocument> readFindTextDocuments(String json) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public List<CouchFindIndex> readFindIndexes(String json) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public CouchDocumentIterator<TextDocument> streamTextDocuments(InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public <T> CouchDocumentIterator<EntityDocument<T>> streamEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public CouchChangeIterator<TextDocument> streamTextChanges(InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public <T> CouchChangeIterator<EntityDocument<T>> streamEntityChanges(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public <T> EntityDocument<T> copyEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, EntityDocument<T> document) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public CouchLongReduction readLongReduction(InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public CouchDoubleReduction readDoubleReduction(InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
+
+    @Override
+    public CouchStatsReduction readStatsReduction(InputStream inputStream) throws CouchJsonException {
+        return null;
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.changes;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class ChangesFeedTest {
+
+    private StubCouchHttpClient httpClient;
+    private StubCouchJsonStrategy jsonStrategy;
+    private CouchDatabase database;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        jsonStrategy = new StubCouchJsonStrategy();
+        database = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(jsonStrategy)).database("unit-tests");
+    }
+
+    public void slowHandlerThrottlesReading() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger maxReadAhead = new AtomicInteger();
+        SimpleCouchCheckpointStore checkpointStore = new SimpleCouchCheckpointStore();
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.NORMAL)
+                .queueCapacity(2)
+                .checkpoint(checkpointStore, "test-feed")
+                .start(change -> {
+                    Thread.sleep(20);
+                    maxReadAhead.set(Math.max(maxReadAhead.get(), jsonStrategy.read.get() - handled.size()));
+                    handled.add(change.getSeq());
+                });
+
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(feed.getError());
+        Assert.assertEquals(handled.size(), StubCouchJsonStrategy.LAST_SEQ);
+        Assert.assertEquals(feed.getLastSeq(), "10");
+        Assert.assertEquals(checkpointStore.readCheckpoint("test-feed"), "10");
+
+        // At most the queue plus the change the reader waits to put are read ahead of the handler.
+        Assert.assertTrue(maxReadAhead.get() <= 1 + 2 + 1, "Read ahead " + maxReadAhead.get());
+        Assert.assertEquals(httpClient.sinceList, Collections.singletonList(null));
+    }
+
+    public void restartResumesFromCheckpoint() throws Exception {
+        SimpleCouchCheckpointStore checkpointStore = new SimpleCouchCheckpointStore();
+        checkpointStore.writeCheckpoint("test-feed", "7");
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.NORMAL)
+                .checkpoint(checkpointStore, "test-feed")
+                .start(change -> handled.add(change.getSeq()));
+
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(httpClient.sinceList, Collections.singletonList("7"));
+        Assert.assertEquals(handled.toString(), "[8, 9, 10]");
+    }
+
+    public void longpollReconnectsFromLastSeq() throws Exception {
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.LONGPOLL)
+                .since("8")
+                .start(change -> handled.add(change.getSeq()));
+
+        // Once caught up each longpoll returns no changes, the feed keeps polling from the last_seq.
+        long end = System.currentTimeMillis() + 5000;
+        while ((httpClient.sinceList.size() < 3 || handled.size() < 2) && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        feed.close();
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(handled.toString(), "[9, 10]");
+        Assert.assertEquals(httpClient.sinceList.subList(0, 3).toString(), "[8, 10, 10]");
+    }
+
+    public void handlerErrorStopsFeed() throws Exception {
+        SimpleCouchCheckpointStore checkpointStore = new SimpleCouchCheckpointStore();
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.CONTINUOUS)
+                .checkpoint(checkpointStore, "test-feed")
+                .start(change -> {
+                    if (change.getSeq().equals("3")) {
+                        throw new IllegalStateException("boom");
+                    }
+                });
+
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertFalse(feed.isRunning());
+        Assert.assertTrue(feed.getError() instanceof IllegalStateException);
+        // Only what the handler finished is checkpointed.
+        Assert.assertEquals(checkpointStore.readCheckpoint("test-feed"), "2");
+    }
+
+    public void transientFailureIsRetried() throws Exception {
+        httpClient.failures.add(CouchHttpException.internalServerError(new SocketTimeoutException("Read timed out")));
+        httpClient.failures.add(CouchHttpException.serviceUnavailable("Maintenance"));
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.CONTINUOUS)
+                .reconnectDelay(10, 100)
+                .start(change -> handled.add(change.getSeq()));
+
+        long end = System.currentTimeMillis() + 5000;
+        while (handled.size() < StubCouchJsonStrategy.LAST_SEQ && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(feed.isRunning());
+        feed.close();
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertNull(feed.getError());
+        Assert.assertEquals(handled.size(), StubCouchJsonStrategy.LAST_SEQ);
+        Assert.assertEquals(httpClient.sinceList.subList(0, 3).toString(), "[null, null, null]");
+    }
+
+    public void otherFailureStopsFeed() throws Exception {
+        httpClient.failures.add(CouchException.notFound("Database does not exist."));
+
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.CONTINUOUS)
+                .reconnectDelay(10, 100)
+                .start(change -> {
+                });
+
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(feed.getError() instanceof CouchException);
+        Assert.assertEquals(httpClient.sinceList.size(), 1);
+    }
+
+    public void emptyResponsesWaitOutReconnectDelay() throws Exception {
+        ChangesFeed<TextDocument> feed = database.changes().document()
+                .feedType(ChangesFeedType.LONGPOLL)
+                .since("10")
+                .reconnectDelay(200, 1000)
+                .start(change -> {
+                });
+
+        long end = System.currentTimeMillis() + 5000;
+        while (httpClient.sinceList.size() < 3 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        feed.close();
+        Assert.assertTrue(feed.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(httpClient.callTimes.get(2) - httpClient.callTimes.get(0) >= 2 * 190, "Reconnected after " + httpClient.callTimes);
+    }
+
+    public void invalidReconnectDelay() {
+        try {
+            database.changes().document().reconnectDelay(1000, 10);
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * The response body is just the since value the feed was opened with, unless a failure is queued.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private final List<String> sinceList = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> callTimes = Collections.synchronizedList(new ArrayList<>());
+        private final Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public CouchHttpResponse getStream(HttpGetRequest request) {
+            String since = null;
+            for (CouchHttpQueryParam param : request.getHttpQuery()) {
+                if (param.getName().equals("since")) {
+                    since = param.getValue()[0].toString();
+                }
+            }
+            sinceList.add(since);
+            callTimes.add(System.currentTimeMillis());
+            RuntimeException failure = failures.poll();
+            if (failure != null) {
+                throw failure;
+            }
+            InputStream content = new ByteArrayInputStream(String.valueOf(since).getBytes(StandardCharsets.UTF_8));
+            return CouchHttpResponse.builder(request.getMethodType(), URI.create("http://localhost:5984" + request.getPath()), CouchHttpStatus.OK)
+                    .setContent(null, -1, content)
+                    .build();
+        }
+    }
+
+    /**
+     * Reads changes with sequence since + 1 up to LAST_SEQ, counting every change read.
+     */
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+        private static final int LAST_SEQ = 10;
+        private final AtomicInteger read = new AtomicInteger();
+
+        @Override
+        public CouchChangeIterator<TextDocument> streamTextChanges(InputStream inputStream) throws CouchJsonException {
+            String since;
+            try {
+                byte[] bytes = new byte[64];
+                since = new String(bytes, 0, Math.max(0, inputStream.read(bytes)), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new CouchJsonException(e);
+            }
+            int start = since.equals("null") ? 1 : Integer.parseInt(since) + 1;
+            return new CouchChangeIterator<TextDocument>() {
+                private int seq = start;
+
+                @Override
+                public String getLastSeq() {
+                    return (seq > LAST_SEQ) ? String.valueOf(LAST_SEQ) : null;
+                }
+
+                @Override
+                public void close() {
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return seq <= LAST_SEQ;
+                }
+
+                @Override
+                public CouchChange<TextDocument> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    read.incrementAndGet();
+                    String value = String.valueOf(seq++);
+                    return new CouchChange<>(value, "doc-" + value, Collections.singletonList("1-a"), false, null);
+                }
+            };
+        }
+    }
+}
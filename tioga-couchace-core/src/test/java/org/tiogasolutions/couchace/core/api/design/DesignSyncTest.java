@@ -0,0 +1,275 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.design;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpDeleteRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPutRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Test
+public class DesignSyncTest {
+
+    private static final String CITY_DESIGN = "{\"language\":\"javascript\",\"views\":{\"byName\":{\"map\":\"function(doc) { emit(doc.name); }\"}}}";
+
+    private StubCouchHttpClient httpClient;
+    private CouchDatabase database;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        CouchServer server = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(new StubCouchJsonStrategy()));
+        database = server.database("unit-tests");
+    }
+
+    public void unchangedDesignIsSkipped() {
+        // Same content, other whitespace.
+        httpClient.documents.put("_design/city", "{\"_id\":\"_design/city\",\"_rev\":\"3-c\",\n  \"language\": \"javascript\",\n  \"views\": {\"byName\": {\"map\": \"function(doc) { emit(doc.name); }\"}}}");
+
+        List<DesignSyncResult> results = new DesignSync(database).sync(new CouchDesign("city", CITY_DESIGN));
+
+        Assert.assertEquals(results.size(), 1);
+        Assert.assertEquals(results.get(0).getStatus(), DesignSyncResult.Status.UNCHANGED);
+        Assert.assertEquals(results.get(0).getDocumentRevision(), "3-c");
+        Assert.assertEquals(httpClient.calls, Arrays.asList("GET /unit-tests/_design/city"));
+    }
+
+    public void newDesignIsBuiltBeforeItGoesLive() {
+        httpClient.buildingPolls = 2;
+
+        DesignSyncResult result = new DesignSync(database).pollInterval(10).sync(new CouchDesign("_design/city", CITY_DESIGN)).get(0);
+
+        Assert.assertEquals(result.getStatus(), DesignSyncResult.Status.CREATED);
+        Assert.assertEquals(result.getDigest(), DesignSync.digest(CITY_DESIGN));
+        Assert.assertEquals(httpClient.calls, Arrays.asList(
+                "GET /unit-tests/_design/city",
+                "GET /unit-tests/_design/city-staging",
+                "PUT /unit-tests/_design/city-staging",
+                "GET /unit-tests/_design/city-staging/_view/byName?limit=0&stale=update_after",
+                "GET /unit-tests/_design/city-staging/_info",
+                "GET /unit-tests/_design/city-staging/_info",
+                "GET /unit-tests/_design/city-staging/_info",
+                "GET /unit-tests/_design/city-staging/_view/byName?limit=0",
+                "PUT /unit-tests/_design/city",
+                "DELETE /unit-tests/_design/city-staging?rev=1-x"));
+        Assert.assertEquals(httpClient.documents.keySet().toString(), "[_design/city]");
+    }
+
+    public void changedDesignReplacesTheLiveRevision() {
+        httpClient.documents.put("_design/city", "{\"_id\":\"_design/city\",\"_rev\":\"3-c\",\"language\":\"javascript\",\"views\":{\"byName\":{\"map\":\"function(doc) { emit(doc.city); }\"}}}");
+        httpClient.documents.put("_design/city-staging", "{\"_id\":\"_design/city-staging\",\"_rev\":\"5-e\",\"views\":{}}");
+
+        DesignSyncResult result = new DesignSync(database).pollInterval(10).sync(new CouchDesign("city", CITY_DESIGN)).get(0);
+
+        Assert.assertEquals(result.getStatus(), DesignSyncResult.Status.UPDATED);
+        Assert.assertEquals(result.getDocumentRevision(), "4-x");
+        Assert.assertTrue(httpClient.calls.contains("PUT /unit-tests/_design/city-staging?rev=5-e"));
+        Assert.assertTrue(httpClient.calls.contains("PUT /unit-tests/_design/city?rev=3-c"));
+        Assert.assertEquals(httpClient.calls.get(httpClient.calls.size() - 1), "POST /unit-tests/_view_cleanup");
+        Assert.assertEquals(httpClient.documents.get("_design/city"), CITY_DESIGN);
+    }
+
+    public void designWithoutViewsGoesLiveAtOnce() {
+        String design = "{\"validate_doc_update\":\"function(newDoc, oldDoc, userCtx) {}\"}";
+
+        DesignSyncResult result = new DesignSync(database).sync(new CouchDesign("validate", design)).get(0);
+
+        Assert.assertEquals(result.getStatus(), DesignSyncResult.Status.CREATED);
+        Assert.assertEquals(httpClient.calls, Arrays.asList("GET /unit-tests/_design/validate", "PUT /unit-tests/_design/validate"));
+    }
+
+    public void slowBuildLeavesTheLiveDesignAlone() {
+        httpClient.buildingPolls = Integer.MAX_VALUE;
+
+        try {
+            new DesignSync(database).pollInterval(10).warmUpTimeout(50).sync(new CouchDesign("city", CITY_DESIGN));
+            Assert.fail("Expected CouchException");
+        } catch (CouchException e) {
+            Assert.assertEquals(e.getHttpStatus(), CouchHttpStatus.GATEWAY_TIMEOUT);
+        }
+        Assert.assertEquals(httpClient.documents.keySet().toString(), "[_design/city-staging]");
+    }
+
+    public void designsAreReadFromADirectory() throws Exception {
+        Path dir = Files.createTempDirectory("designs");
+        Files.write(dir.resolve("city.json"), CITY_DESIGN.getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("account.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("notes.txt"), "not a design".getBytes(StandardCharsets.UTF_8));
+
+        List<CouchDesign> designs = CouchDesign.fromDirectory(dir);
+
+        Assert.assertEquals(designs.size(), 2);
+        Assert.assertEquals(designs.get(0).getName(), "account");
+        Assert.assertEquals(designs.get(1).getName(), "city");
+        Assert.assertEquals(designs.get(1).getContent(), CITY_DESIGN);
+        Assert.assertEquals(CouchDesign.fromUrl(dir.resolve("city.json").toUri().toURL()).getName(), "city");
+    }
+
+    /**
+     * Holds documents by id, each PUT bumps the revision to the next number with an "x" suffix. _info answers
+     * updater_running true for buildingPolls reads.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private static final Pattern REVISION = Pattern.compile("\"_rev\":\"(\\d+)-");
+        private final Map<String, String> documents = new TreeMap<>();
+        private final List<String> calls = new ArrayList<>();
+        private int buildingPolls;
+
+        @Override
+        public synchronized CouchHttpResponse get(HttpGetRequest request) {
+            calls.add(call(request));
+            String path = request.getPath().substring("/unit-tests/".length());
+            if (path.endsWith("/_info")) {
+                boolean building = buildingPolls-- > 0;
+                return response(CouchMethodType.GET, request, CouchHttpStatus.OK, null,
+                        "{\"name\":\"city-staging\",\"view_index\":{\"updater_running\":" + building + ",\"waiting_clients\":0}}");
+            } else if (path.contains("/_view/")) {
+                return response(CouchMethodType.GET, request, CouchHttpStatus.OK, null, "{\"total_rows\":0,\"rows\":[]}");
+            }
+            String content = documents.get(path);
+            if (content == null) {
+                return response(CouchMethodType.GET, request, CouchHttpStatus.NOT_FOUND, null, "{\"error\":\"not_found\",\"reason\":\"missing\"}");
+            }
+            return response(CouchMethodType.GET, request, CouchHttpStatus.OK, null, content);
+        }
+
+        @Override
+        public synchronized CouchHttpResponse put(HttpPutRequest request) {
+            calls.add(call(request));
+            String id = request.getPath().substring("/unit-tests/".length());
+            String current = documents.get(id);
+            int revision = 1;
+            if (current != null) {
+                Matcher matcher = REVISION.matcher(current);
+                revision = matcher.find() ? Integer.parseInt(matcher.group(1)) + 1 : 1;
+            }
+            documents.put(id, request.getContent().toString());
+            return response(CouchMethodType.PUT, request, CouchHttpStatus.CREATED, revision + "-x", "{\"ok\":true}");
+        }
+
+        @Override
+        public synchronized CouchHttpResponse delete(HttpDeleteRequest request) {
+            calls.add(call(request));
+            documents.remove(request.getPath().substring("/unit-tests/".length()));
+            return response(CouchMethodType.DELETE, request, CouchHttpStatus.OK, null, "{\"ok\":true}");
+        }
+
+        @Override
+        public synchronized CouchHttpResponse post(HttpPostRequest request) {
+            calls.add(call(request));
+            return response(CouchMethodType.POST, request, CouchHttpStatus.ACCEPTED, null, "{\"ok\":true}");
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            return CompletableFuture.supplyAsync(() -> get(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest request) {
+            return CompletableFuture.supplyAsync(() -> put(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+            return CompletableFuture.supplyAsync(() -> delete(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest request) {
+            return CompletableFuture.supplyAsync(() -> post(request));
+        }
+
+        private String call(HttpRequest request) {
+            StringBuilder sb = new StringBuilder(request.getMethodType() + " " + request.getPath());
+            char separator = '?';
+            for (CouchHttpQueryParam param : request.getHttpQuery()) {
+                sb.append(separator).append(param.getName()).append("=").append(param.getValue()[0]);
+                separator = '&';
+            }
+            return sb.toString();
+        }
+
+        private CouchHttpResponse response(CouchMethodType methodType, HttpRequest request, CouchHttpStatus status, String etag, String content) {
+            return CouchHttpResponse.builder(methodType, uri(request.getPath()), status)
+                    .setEtag(etag)
+                    .setContent(CouchMediaType.APPLICATION_JSON, -1, content)
+                    .build();
+        }
+    }
+
+    /**
+     * Canonical JSON here only drops whitespace outside of strings and a leading _id and _rev, enough for the
+     * designs above.
+     */
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+        private static final Pattern REVISION = Pattern.compile("\"_rev\":\"([^\"]*)\"");
+
+        @Override
+        public String createCanonicalJson(String json) {
+            StringBuilder sb = new StringBuilder();
+            boolean inString = false;
+            for (int i = 0; i < json.length(); i++) {
+                char c = json.charAt(i);
+                if (c == '"' && (i == 0 || json.charAt(i - 1) != '\\')) {
+                    inString = !inString;
+                }
+                if (inString || !Character.isWhitespace(c)) {
+                    sb.append(c);
+                }
+            }
+            return sb.toString().replaceAll("^\\{\"_id\":\"[^\"]*\",\"_rev\":\"[^\"]*\",", "{");
+        }
+
+        @Override
+        public TextDocument readTextDocument(String json) {
+            Matcher matcher = REVISION.matcher(json);
+            return new TextDocument(null, matcher.find() ? matcher.group(1) : null, null, json);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.http;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test
+public class CouchContentRangeTest {
+
+    public void parseRange() {
+        CouchContentRange range = CouchContentRange.parse("bytes 0-99/1000");
+        Assert.assertEquals(range.getStart(), 0);
+        Assert.assertEquals(range.getEnd(), 99);
+        Assert.assertEquals(range.getTotalLength(), 1000);
+        Assert.assertEquals(range.getLength(), 100);
+        Assert.assertFalse(range.isLast());
+        Assert.assertEquals(range.toString(), "bytes 0-99/1000");
+    }
+
+    public void parseUnknownTotal() {
+        CouchContentRange range = CouchContentRange.parse("bytes 900-999/*");
+        Assert.assertEquals(range.getStart(), 900);
+        Assert.assertEquals(range.getTotalLength(), -1);
+        Assert.assertFalse(range.isLast());
+    }
+
+    public void parseUnsatisfiable() {
+        CouchContentRange range = CouchContentRange.parse("bytes */1000");
+        Assert.assertEquals(range.getStart(), -1);
+        Assert.assertEquals(range.getTotalLength(), 1000);
+        Assert.assertEquals(range.getLength(), 0);
+    }
+
+    public void parseInvalid() {
+        Assert.assertNull(CouchContentRange.parse(null));
+        Assert.assertNull(CouchContentRange.parse("items 0-1/2"));
+        Assert.assertNull(CouchContentRange.parse("bytes a-b/c"));
+    }
+
+}
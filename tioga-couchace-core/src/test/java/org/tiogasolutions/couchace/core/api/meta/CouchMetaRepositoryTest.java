@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.meta;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class CouchMetaRepositoryTest {
+
+    public void buildsMetaOnceUnderConcurrentAccess() throws Exception {
+        CountingMetaBuilder metaBuilder = new CountingMetaBuilder();
+        CouchMetaRepository repository = new CouchMetaRepository(metaBuilder);
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return repository.getOrCreateEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class);
+                }));
+            }
+            start.countDown();
+
+            CouchEntityMeta<?> first = futures.get(0).get();
+            for (Future<CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity>> future : futures) {
+                Assert.assertSame(future.get(), first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(metaBuilder.count.get(), 1);
+    }
+
+    public void warmUpRegistersEntityClasses() {
+        CountingMetaBuilder metaBuilder = new CountingMetaBuilder();
+        CouchMetaRepository repository = new CouchMetaRepository(metaBuilder);
+        Assert.assertNull(repository.getEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class));
+
+        repository.warmUp(MethodHandleValueAccessorTest.AccessorEntity.class);
+        CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity> entityMeta = repository.getEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class);
+        Assert.assertNotNull(entityMeta);
+
+        Assert.assertSame(repository.getOrCreateEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class), entityMeta);
+        Assert.assertEquals(metaBuilder.count.get(), 1);
+
+        Assert.assertSame(repository.removeEntityMeta(entityMeta.getMetaName()), entityMeta);
+        Assert.assertNull(repository.getEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class));
+    }
+
+    private static class CountingMetaBuilder extends AnnotationCouchMetaBuilder {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public <T> CouchEntityMeta<T> buildEntityMeta(Class<T> entityClass) {
+            count.incrementAndGet();
+            return super.buildEntityMeta(entityClass);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.meta;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tiogasolutions.couchace.annotations.CouchAttachmentInfoMap;
+import org.tiogasolutions.couchace.annotations.CouchEntity;
+import org.tiogasolutions.couchace.annotations.CouchId;
+import org.tiogasolutions.couchace.annotations.CouchRevision;
+
+import java.util.HashMap;
+
+@Test
+public class MethodHandleValueAccessorTest {
+
+    public void readAndWriteThroughGettersAndSetters() throws Exception {
+        AccessorEntity entity = new AccessorEntity("1", "1-abc");
+        ValueAccessor accessor = new MethodHandleValueAccessor(AccessorEntity.class, AccessorEntity.class.getMethod("getId"));
+
+        Assert.assertEquals(accessor.getPropertyName(), "id");
+        Assert.assertTrue(accessor.isWritable());
+        Assert.assertEquals(accessor.readValue(entity), "1");
+        accessor.writeValue(entity, "2");
+        Assert.assertEquals(entity.getId(), "2");
+    }
+
+    public void writeThroughPrivateField() throws Exception {
+        AccessorEntity entity = new AccessorEntity("1", "1-abc");
+        ValueAccessor accessor = new MethodHandleValueAccessor(AccessorEntity.class, AccessorEntity.class.getMethod("getRevision"));
+
+        Assert.assertEquals(accessor.readValue(entity), "1-abc");
+        accessor.writeValue(entity, "2-def");
+        Assert.assertEquals(entity.getRevision(), "2-def");
+    }
+
+    public void readAndWriteField() throws Exception {
+        AccessorEntity entity = new AccessorEntity("1", "1-abc");
+        ValueAccessor accessor = new MethodHandleValueAccessor(AccessorEntity.class.getDeclaredField("attachments"));
+
+        Assert.assertNull(accessor.readValue(entity));
+        CouchAttachmentInfoMap attachments = new CouchAttachmentInfoMap(new HashMap<>());
+        accessor.writeValue(entity, attachments);
+        Assert.assertSame(accessor.readValue(entity), attachments);
+    }
+
+    public void readNonPublicClass() throws Exception {
+        HiddenEntity entity = new HiddenEntity();
+        entity.setName("hidden");
+        ValueAccessor accessor = new MethodHandleValueAccessor(HiddenEntity.class, HiddenEntity.class.getMethod("getName"));
+
+        Assert.assertEquals(accessor.readValue(entity), "hidden");
+        accessor.writeValue(entity, "found");
+        Assert.assertEquals(entity.getName(), "found");
+    }
+
+    public void builderUsesMethodHandles() {
+        CouchEntityMeta<AccessorEntity> meta = new AnnotationCouchMetaBuilder().buildEntityMeta(AccessorEntity.class);
+        AccessorEntity entity = new AccessorEntity("1", "1-abc");
+
+        Assert.assertEquals(meta.readDocumentId(entity), "1");
+        Assert.assertEquals(meta.readDocumentRevision(entity), "1-abc");
+        Assert.assertTrue(meta.isIdSet(entity));
+        meta.writeDocumentRevision(entity, "2-def");
+        Assert.assertEquals(entity.getRevision(), "2-def");
+    }
+
+    @CouchEntity("accessor")
+    public static class AccessorEntity {
+        private String id;
+        private String revision;
+        private CouchAttachmentInfoMap attachments;
+
+        public AccessorEntity(String id, String revision) {
+            this.id = id;
+            this.revision = revision;
+        }
+
+        @CouchId
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @CouchRevision
+        public String getRevision() {
+            return revision;
+        }
+    }
+
+    static class HiddenEntity {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.api.meta;
+
+/**
+ * Compares reading the id and revision of an entity through reflective and MethodHandle accessors.
+ * Run with a warm JVM, e.g. -Xmx256m, the first pass of each loop is only warmup.
+ */
+public class ValueAccessorBenchmarkMain {
+
+    private static final int ITERATIONS = 50000000;
+
+    public static void main(String[] args) {
+        CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity> reflective =
+                new AnnotationCouchMetaBuilder(false).buildEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class);
+        CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity> methodHandle =
+                new AnnotationCouchMetaBuilder(true).buildEntityMeta(MethodHandleValueAccessorTest.AccessorEntity.class);
+
+        for (int pass = 0; pass < 3; pass++) {
+            readIdAndRevision("Reflection", reflective);
+            readIdAndRevision("MethodHandle", methodHandle);
+        }
+    }
+
+    public static void readIdAndRevision(String name, CouchEntityMeta<MethodHandleValueAccessorTest.AccessorEntity> meta) {
+        MethodHandleValueAccessorTest.AccessorEntity entity = new MethodHandleValueAccessorTest.AccessorEntity("1", "1-abc");
+        long start = System.currentTimeMillis();
+
+        int set = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (meta.isIdSet(entity) && meta.isRevisionSet(entity)) {
+                set++;
+            }
+        }
+
+        long end = System.currentTimeMillis();
+
+        System.out.println(name + " Elapsed: " + (end - start) + "ms (" + set + ")");
+    }
+
+}
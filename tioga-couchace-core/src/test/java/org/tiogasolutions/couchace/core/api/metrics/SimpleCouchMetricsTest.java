@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.api.metrics;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpDeleteRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class SimpleCouchMetricsTest {
+
+    public void percentilesAreWithinBucketError() {
+        CouchLatencyHistogram histogram = new CouchLatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        CouchLatencySnapshot snapshot = histogram.snapshot();
+
+        Assert.assertEquals(snapshot.getCount(), 1000);
+        Assert.assertEquals(snapshot.getMax(), TimeUnit.MICROSECONDS.toNanos(1000));
+        Assert.assertEquals(snapshot.getMean(), TimeUnit.MICROSECONDS.toNanos(1001) / 2);
+        assertWithin(snapshot.getP50(), TimeUnit.MICROSECONDS.toNanos(500));
+        assertWithin(snapshot.getP90(), TimeUnit.MICROSECONDS.toNanos(900));
+        assertWithin(snapshot.getP99(), TimeUnit.MICROSECONDS.toNanos(990));
+        Assert.assertEquals(snapshot.getValueAtPercentile(100), snapshot.getMax());
+    }
+
+    public void smallValuesAreExact() {
+        CouchLatencyHistogram histogram = new CouchLatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+        Assert.assertEquals(histogram.snapshot().getValueAtPercentile(50), 3);
+        Assert.assertEquals(histogram.snapshot().getValueAtPercentile(100), 7);
+        Assert.assertEquals(new CouchLatencyHistogram().snapshot().getP99(), 0);
+    }
+
+    public void bucketsCoverEveryValue() {
+        for (int shift = 0; shift < 62; shift++) {
+            long value = (1L << shift) + (1L << shift) / 3;
+            int index = CouchLatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(index < CouchLatencyHistogram.BUCKET_COUNT);
+            Assert.assertTrue(CouchLatencyHistogram.bucketUpperBound(index) >= value, "value " + value);
+            Assert.assertTrue(index == 0 || CouchLatencyHistogram.bucketUpperBound(index - 1) < value, "value " + value);
+        }
+    }
+
+    public void callsAreRecordedByDatabaseMethodAndStatus() {
+        CouchSetup setup = new CouchSetup("http://localhost:5984/")
+                .setHttpClient(new StubCouchHttpClient())
+                .setJsonStrategy(new MockCouchJsonStrategy())
+                .metrics();
+        CouchDatabase database = new CouchServer(setup).database("unit-tests");
+        SimpleCouchMetrics metrics = (SimpleCouchMetrics) database.getMetrics();
+
+        WriteResponse response = database.delete().document("doc-1", "1-x").execute();
+        Assert.assertTrue(response.isConflict());
+        database.delete().document("doc-1", "1-x").execute();
+        database.post().document("{\"a\":\"é\"}").execute();
+
+        List<CouchRequestStats> statsList = metrics.getRequestStats();
+        Assert.assertEquals(statsList.size(), 2);
+        for (CouchRequestStats stats : statsList) {
+            Assert.assertEquals(stats.getDatabaseName(), "unit-tests");
+            if (stats.getMethodType() == CouchMethodType.DELETE) {
+                Assert.assertEquals(stats.getHttpStatus(), CouchHttpStatus.CONFLICT);
+                Assert.assertEquals(stats.getLatency().getCount(), 2);
+                Assert.assertEquals(stats.getErrorCount(), 2);
+                Assert.assertEquals(stats.getResponseBytes(), 2 * StubCouchHttpClient.CONFLICT.length());
+            } else {
+                Assert.assertEquals(stats.getHttpStatus(), CouchHttpStatus.CREATED);
+                Assert.assertEquals(stats.getRequestBytes(), 10);
+                Assert.assertEquals(stats.getErrorCount(), 0);
+            }
+        }
+        Assert.assertEquals(metrics.getErrorCount(), 2);
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getRequestStats().isEmpty());
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        Assert.assertTrue(Math.abs(actual - expected) <= expected / 8, actual + " is not within 12.5% of " + expected);
+    }
+
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private static final String CONFLICT = "{\"error\":\"conflict\",\"reason\":\"Document update conflict.\"}";
+
+        @Override
+        public CouchHttpResponse delete(HttpDeleteRequest request) {
+            return CouchHttpResponse.builder(CouchMethodType.DELETE, uri(request.getPath()), CouchHttpStatus.CONFLICT)
+                    .setContent(CouchMediaType.APPLICATION_JSON, -1, CONFLICT)
+                    .build();
+        }
+
+        @Override
+        public CouchHttpResponse post(HttpPostRequest request) {
+            return CouchHttpResponse.builder(CouchMethodType.POST, uri(request.getPath()), CouchHttpStatus.CREATED)
+                    .setDocumentId("doc-2")
+                    .setEtag("1-x")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.cluster.ClusterSetup;
+import org.tiogasolutions.couchace.core.api.cluster.CouchNode;
+import org.tiogasolutions.couchace.core.api.cluster.LatencyWeightedNodeBalancer;
+import org.tiogasolutions.couchace.core.api.cluster.LeastOutstandingNodeBalancer;
+import org.tiogasolutions.couchace.core.api.cluster.RoundRobinNodeBalancer;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpRequest;
+import org.tiogasolutions.couchace.core.spi.http.RetrySetup;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Test
+public class ClusteredCouchHttpClientTest {
+
+    public void readsAreRoundRobin() {
+        StubCouchHttpClient a = new StubCouchHttpClient();
+        StubCouchHttpClient b = new StubCouchHttpClient();
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(nodes(a, b), new RoundRobinNodeBalancer(), 0);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        }
+
+        Assert.assertEquals(a.calls, 2);
+        Assert.assertEquals(b.calls, 2);
+    }
+
+    public void readsFailOverToAnotherNode() {
+        StubCouchHttpClient a = new StubCouchHttpClient();
+        StubCouchHttpClient b = new StubCouchHttpClient();
+        a.outcomes.add(CouchHttpException.internalServerError(new SocketTimeoutException("Read timed out")));
+        a.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(nodes(a, b), new RoundRobinNodeBalancer(), 0);
+
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Assert.assertTrue(client.getAsync(new HttpGetRequest("db/doc-1")).join().isOk());
+        Assert.assertEquals(a.calls, 2);
+        Assert.assertEquals(b.calls, 2);
+
+        // Once every node is tried the last failure is answered.
+        a.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        b.outcomes.add(CouchHttpStatus.BAD_GATEWAY);
+        CouchHttpStatus status = client.get(new HttpGetRequest("db/doc-1")).getHttpStatus();
+        Assert.assertTrue(status == CouchHttpStatus.SERVICE_UNAVAILABLE || status == CouchHttpStatus.BAD_GATEWAY);
+        Assert.assertEquals(a.calls + b.calls, 6);
+    }
+
+    public void writesFailOverOnlyWhenNotConnected() {
+        StubCouchHttpClient a = new StubCouchHttpClient();
+        StubCouchHttpClient b = new StubCouchHttpClient();
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(nodes(a, b), new RoundRobinNodeBalancer(), 0);
+
+        a.outcomes.add(CouchHttpException.internalServerError(new ConnectException("Connection refused")));
+        Assert.assertTrue(client.post(new HttpPostRequest("db", "{}")).isOk());
+        Assert.assertEquals(a.calls + b.calls, 2);
+
+        // The write may have been applied, so it is not sent again.
+        a.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        b.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(client.post(new HttpPostRequest("db", "{}")).getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(a.calls + b.calls, 3);
+
+        a.outcomes.clear();
+        b.outcomes.clear();
+        a.outcomes.add(CouchHttpException.internalServerError(new SocketTimeoutException("Read timed out")));
+        b.outcomes.add(CouchHttpException.internalServerError(new SocketTimeoutException("Read timed out")));
+        try {
+            client.post(new HttpPostRequest("db", "{}"));
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Assert.assertEquals(a.calls + b.calls, 4);
+        }
+    }
+
+    public void readsAndWritesGoToTheirNodes() {
+        StubCouchHttpClient reader = new StubCouchHttpClient();
+        StubCouchHttpClient writer = new StubCouchHttpClient();
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(Arrays.asList(
+                new CouchNode("http://reader:5984", true, false, reader),
+                new CouchNode("http://writer:5984", false, true, writer)),
+                new RoundRobinNodeBalancer(), 0);
+
+        client.get(new HttpGetRequest("db/doc-1"));
+        client.get(new HttpGetRequest("db/doc-1"));
+        client.post(new HttpPostRequest("db", "{}"));
+
+        Assert.assertEquals(reader.calls, 2);
+        Assert.assertEquals(writer.calls, 1);
+
+        try {
+            new ClusteredCouchHttpClient(Arrays.asList(new CouchNode("http://reader:5984", true, false, reader)), new RoundRobinNodeBalancer(), 0);
+            Assert.fail("Expected CouchException");
+        } catch (CouchException e) {
+            Assert.assertEquals(e.getHttpStatus(), CouchHttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public void readPostsGoToReadNodesAndFailOver() {
+        StubCouchHttpClient reader1 = new StubCouchHttpClient();
+        StubCouchHttpClient reader2 = new StubCouchHttpClient();
+        StubCouchHttpClient writer = new StubCouchHttpClient();
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(Arrays.asList(
+                new CouchNode("http://reader1:5984", true, false, reader1),
+                new CouchNode("http://reader2:5984", true, false, reader2),
+                new CouchNode("http://writer:5984", false, true, writer)),
+                new RoundRobinNodeBalancer(), 0);
+
+        client.post(new HttpPostRequest("db/_find", "{}"));
+        client.post(new HttpPostRequest("db/_all_docs", "{}"));
+        client.postAsync(new HttpPostRequest("db/_design/city/_view/byName", "{}")).join();
+        Assert.assertEquals(reader1.calls + reader2.calls, 3);
+        Assert.assertEquals(writer.calls, 0);
+
+        // A read POST fails over like a GET, a write would have answered the first 503.
+        reader1.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        reader2.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(client.post(new HttpPostRequest("db/_find", "{}")).getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(reader1.calls + reader2.calls, 5);
+
+        client.post(new HttpPostRequest("db/_bulk_docs", "{}"));
+        Assert.assertEquals(writer.calls, 1);
+    }
+
+    public void urisUseANodeThatIsUp() {
+        StubCouchHttpClient a = new StubCouchHttpClient();
+        StubCouchHttpClient b = new StubCouchHttpClient();
+        a.baseUrl = "http://a:5984";
+        b.baseUrl = "http://b:5984";
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(nodes(a, b), new RoundRobinNodeBalancer(), 60000);
+        try {
+            Assert.assertEquals(client.getBaseUrl(), "http://a:5984");
+            client.getNodes().get(0).setUp(false);
+            Assert.assertEquals(client.getBaseUrl(), "http://b:5984");
+            client.getNodes().get(1).setUp(false);
+            Assert.assertEquals(client.getBaseUrl(), "http://a:5984");
+        } finally {
+            client.close();
+        }
+    }
+
+    public void leastOutstandingPrefersIdleNode() {
+        List<CouchNode> nodes = nodes(new StubCouchHttpClient(), new StubCouchHttpClient());
+        LeastOutstandingNodeBalancer balancer = new LeastOutstandingNodeBalancer();
+
+        nodes.get(0).start();
+        Assert.assertSame(balancer.select(nodes), nodes.get(1));
+        nodes.get(1).start();
+        nodes.get(1).start();
+        Assert.assertSame(balancer.select(nodes), nodes.get(0));
+
+        nodes.get(1).complete(1000);
+        nodes.get(1).complete(1000);
+        Assert.assertEquals(nodes.get(1).getOutstanding(), 0);
+        Assert.assertSame(balancer.select(nodes), nodes.get(1));
+    }
+
+    public void latencyWeightedPrefersFastNode() {
+        List<CouchNode> nodes = nodes(new StubCouchHttpClient(), new StubCouchHttpClient());
+        nodes.get(0).start();
+        nodes.get(0).complete(1_000_000);
+        nodes.get(1).start();
+        nodes.get(1).complete(99_000_000);
+        LatencyWeightedNodeBalancer balancer = new LatencyWeightedNodeBalancer();
+
+        int fast = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (balancer.select(nodes) == nodes.get(0)) {
+                fast++;
+            }
+        }
+        Assert.assertTrue(fast > 900, "fast " + fast);
+    }
+
+    public void failedNodeIsDownUntilHealthy() {
+        StubCouchHttpClient a = new StubCouchHttpClient();
+        StubCouchHttpClient b = new StubCouchHttpClient();
+        // An interval long enough that only the explicit checks below run.
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(nodes(a, b), new RoundRobinNodeBalancer(), 60000);
+        CouchNode nodeA = client.getNodes().get(0);
+
+        a.outcomes.add(CouchHttpException.internalServerError(new ConnectException("Connection refused")));
+        client.get(new HttpGetRequest("db/doc-1"));
+        Assert.assertFalse(nodeA.isUp());
+
+        for (int i = 0; i < 3; i++) {
+            client.get(new HttpGetRequest("db/doc-1"));
+        }
+        Assert.assertEquals(a.calls, 1);
+        Assert.assertEquals(b.calls, 4);
+
+        a.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        client.checkHealth();
+        Assert.assertFalse(nodeA.isUp());
+        client.checkHealth();
+        Assert.assertTrue(nodeA.isUp());
+
+        client.get(new HttpGetRequest("db/doc-1"));
+        client.get(new HttpGetRequest("db/doc-1"));
+        Assert.assertEquals(a.calls, 4);
+    }
+
+    public void clientPerNodeFromSetup() {
+        CouchSetup couchSetup = new CouchSetup("http://localhost:5984")
+                .setHttpClient(StubCouchHttpClient.class)
+                .setJsonStrategy(new MockCouchJsonStrategy())
+                .setClusterSetup(new ClusterSetup("http://node1:5984").addReadNode("http://node2:5984"));
+
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(couchSetup);
+
+        List<CouchNode> nodes = client.getNodes();
+        Assert.assertEquals(nodes.size(), 2);
+        Assert.assertEquals(((StubCouchHttpClient) nodes.get(0).getHttpClient()).baseUrl, "http://node1:5984");
+        Assert.assertEquals(((StubCouchHttpClient) nodes.get(1).getHttpClient()).baseUrl, "http://node2:5984");
+        Assert.assertTrue(nodes.get(1).isRead());
+        Assert.assertFalse(nodes.get(1).isWrite());
+        Assert.assertEquals(client.getBaseUrl(), "http://node1:5984");
+    }
+
+    public void eachNodeHasItsOwnCircuitBreaker() {
+        // No url of its own, only the nodes'.
+        CouchSetup couchSetup = new CouchSetup((String) null)
+                .setHttpClient(StubCouchHttpClient.class)
+                .setJsonStrategy(new MockCouchJsonStrategy())
+                .setRetrySetup(new RetrySetup().setMaxAttempts(1).setCircuitBreaker(1, 60000))
+                .setClusterSetup(new ClusterSetup("http://node1:5984").addNode("http://node2:5984"));
+        new CouchServer(couchSetup).close();
+
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(couchSetup);
+        StubCouchHttpClient a = (StubCouchHttpClient) ((InterceptingCouchHttpClient) client.getNodes().get(0).getHttpClient()).getHttpClient();
+        StubCouchHttpClient b = (StubCouchHttpClient) ((InterceptingCouchHttpClient) client.getNodes().get(1).getHttpClient()).getHttpClient();
+
+        // The 503 opens only node1's breaker and the read is answered by node2.
+        a.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Assert.assertEquals(a.calls, 1);
+        Assert.assertEquals(b.calls, 1);
+
+        // Calls are no longer sent to node1, not even writes as they fail over before being sent.
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Assert.assertTrue(client.post(new HttpPostRequest("db", "{}")).isOk());
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Assert.assertEquals(a.calls, 1);
+        Assert.assertEquals(b.calls, 4);
+    }
+
+    public void closeClosesTheNodeClientsItBuilt() {
+        CouchSetup couchSetup = new CouchSetup((String) null)
+                .setHttpClient(StubCouchHttpClient.class)
+                .setJsonStrategy(new MockCouchJsonStrategy())
+                .setRetrySetup(new RetrySetup())
+                .setClusterSetup(new ClusterSetup("http://node1:5984").addNode("http://node2:5984"));
+
+        ClusteredCouchHttpClient client = new ClusteredCouchHttpClient(couchSetup);
+        StubCouchHttpClient a = (StubCouchHttpClient) ((InterceptingCouchHttpClient) client.getNodes().get(0).getHttpClient()).getHttpClient();
+        StubCouchHttpClient b = (StubCouchHttpClient) ((InterceptingCouchHttpClient) client.getNodes().get(1).getHttpClient()).getHttpClient();
+        client.close();
+        Assert.assertTrue(a.closed);
+        Assert.assertTrue(b.closed);
+
+        // Clients given with the nodes belong to the caller.
+        StubCouchHttpClient c = new StubCouchHttpClient();
+        StubCouchHttpClient d = new StubCouchHttpClient();
+        new ClusteredCouchHttpClient(nodes(c, d), new RoundRobinNodeBalancer(), 0).close();
+        Assert.assertFalse(c.closed);
+        Assert.assertFalse(d.closed);
+    }
+
+    private static List<CouchNode> nodes(StubCouchHttpClient a, StubCouchHttpClient b) {
+        return Arrays.asList(
+                new CouchNode("http://a:5984", true, true, a),
+                new CouchNode("http://b:5984", true, true, b));
+    }
+
+    public static class StubCouchHttpClient extends MockCouchHttpClient implements AutoCloseable {
+        // Each call takes the next outcome, a status or a thrown exception, then answers OK.
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+        private int calls;
+        private String baseUrl;
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void init(CouchSetup couchSetup) {
+            baseUrl = couchSetup.getUrl();
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            return respond(request);
+        }
+
+        @Override
+        public CouchHttpResponse post(HttpPostRequest postRequest) {
+            return respond(postRequest);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest postRequest) {
+            return CompletableFuture.completedFuture(respond(postRequest));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+            try {
+                future.complete(respond(request));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        private synchronized CouchHttpResponse respond(HttpRequest request) {
+            calls++;
+            Object outcome = outcomes.poll();
+            if (outcome instanceof RuntimeException) {
+                throw (RuntimeException) outcome;
+            }
+            CouchHttpStatus status = (outcome != null) ? (CouchHttpStatus) outcome : CouchHttpStatus.OK;
+            return CouchHttpResponse.builder(request.getMethodType(), URI.create("http://localhost:5984/" + request.getPath()), status)
+                    .setContent(CouchMediaType.APPLICATION_JSON, 2, "{}")
+                    .build();
+        }
+    }
+}
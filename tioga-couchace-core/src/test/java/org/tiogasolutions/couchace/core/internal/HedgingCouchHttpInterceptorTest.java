@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.internal.util.DelayUtil;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HedgeSetup;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpHeadRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpRequest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+@Test
+public class HedgingCouchHttpInterceptorTest {
+
+    // Answer time of a call that never answers.
+    private static final long NEVER = -1;
+
+    private StubCouchHttpClient httpClient;
+    private HedgeSetup hedgeSetup;
+    private HedgingCouchHttpInterceptor interceptor;
+    private InterceptingCouchHttpClient client;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        hedgeSetup = new HedgeSetup().setDelay(10).setMaxHedgeRatio(1.0);
+        interceptor = new HedgingCouchHttpInterceptor(hedgeSetup);
+        client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(interceptor));
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        interceptor.close();
+    }
+
+    public void slowReadIsHedgedAndFirstAnswerWins() throws Exception {
+        httpClient.answerTimes.add(NEVER);
+        httpClient.answerTimes.add(0L);
+
+        CouchHttpResponse response = client.getAsync(new HttpGetRequest("db/doc-1")).join();
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertEquals(httpClient.calls(), 2);
+        Assert.assertEquals(interceptor.getHedgeCount(), 1);
+        // The answer may be joined before the winning call is counted and the losing call cancelled.
+        awaitHedgeWins(1);
+        Assert.assertTrue(httpClient.futures.get(0).isCancelled());
+    }
+
+    public void blockingReadIsHedged() throws Exception {
+        httpClient.answerTimes.add(2000L);
+        httpClient.answerTimes.add(0L);
+
+        // The blocking read is made through the async call and joined, so it is still out when the timer fires.
+        long start = System.nanoTime();
+        Assert.assertTrue(client.head(new HttpHeadRequest("db/doc-1", null, "doc-1")).isOk());
+
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        Assert.assertEquals(httpClient.calls(), 2);
+        awaitHedgeWins(1);
+    }
+
+    public void hedgeIsCancelledWhenReadAnswersFirst() throws Exception {
+        hedgeSetup.setDelay(10000);
+        httpClient.answerTimes.add(20L);
+
+        CompletableFuture<CouchHttpResponse> future = client.getAsync(new HttpGetRequest("db/doc-1"));
+        Assert.assertEquals(interceptor.getScheduledHedgeCount(), 1);
+        Assert.assertTrue(future.join().isOk());
+
+        for (int i = 0; i < 100 && interceptor.getScheduledHedgeCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(interceptor.getScheduledHedgeCount(), 0);
+        Assert.assertEquals(httpClient.calls(), 1);
+    }
+
+    public void closedInterceptorStillAnswers() {
+        interceptor.close();
+        httpClient.answerTimes.add(50L);
+
+        Assert.assertTrue(client.getAsync(new HttpGetRequest("db/doc-1")).join().isOk());
+        Assert.assertEquals(httpClient.calls(), 1);
+        Assert.assertEquals(interceptor.getHedgeCount(), 0);
+    }
+
+    public void fastReadIsNotHedged() throws Exception {
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Thread.sleep(50);
+
+        Assert.assertEquals(httpClient.calls(), 1);
+        Assert.assertEquals(interceptor.getReadCount(), 1);
+        Assert.assertEquals(interceptor.getHedgeCount(), 0);
+    }
+
+    public void failedReadIsNotHedged() throws Exception {
+        httpClient.failures = true;
+        try {
+            client.get(new HttpGetRequest("db/doc-1"));
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Thread.sleep(50);
+            Assert.assertEquals(httpClient.calls(), 1);
+        }
+    }
+
+    public void onlyReadsAreHedged() {
+        Assert.assertTrue(hedgeSetup.isHedgeable(new HttpGetRequest("db/doc-1")));
+        Assert.assertTrue(hedgeSetup.isHedgeable(new HttpHeadRequest("db/doc-1", null, "doc-1")));
+        Assert.assertTrue(hedgeSetup.isHedgeable(new HttpPostRequest("db/_all_docs", "{}")));
+        Assert.assertTrue(hedgeSetup.isHedgeable(new HttpPostRequest("db/_design/city/_view/byName", "{}")));
+        Assert.assertFalse(hedgeSetup.isHedgeable(new HttpPostRequest("db", "{}")));
+        Assert.assertFalse(hedgeSetup.isHedgeable(new HttpPostRequest("db/_bulk_docs", "{}")));
+
+        httpClient.answerTimes.add(100L);
+        Assert.assertTrue(client.post(new HttpPostRequest("db", "{}")).isOk());
+        Assert.assertEquals(httpClient.calls(), 1);
+        Assert.assertEquals(interceptor.getReadCount(), 0);
+    }
+
+    public void hedgesAreCappedByBudget() {
+        hedgeSetup.setMaxHedgeRatio(0.5);
+        List<CompletableFuture<CouchHttpResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            httpClient.answerTimes.add(200L);
+        }
+        for (int i = 0; i < 10; i++) {
+            futures.add(client.getAsync(new HttpGetRequest("db/doc-" + i)));
+        }
+        for (CompletableFuture<CouchHttpResponse> future : futures) {
+            Assert.assertTrue(future.join().isOk());
+        }
+
+        Assert.assertTrue(interceptor.getHedgeCount() > 0);
+        Assert.assertTrue(interceptor.getHedgeCount() <= 5, "hedges " + interceptor.getHedgeCount());
+        Assert.assertEquals(httpClient.calls(), 10 + interceptor.getHedgeCount());
+    }
+
+    public void delayIsPercentileOfRecentLatency() {
+        hedgeSetup.setPercentile(0.9).setWindowSize(100);
+        HttpGetRequest document = new HttpGetRequest("db/doc-1");
+        HttpGetRequest view = new HttpGetRequest("db/_design/city/_view/byName");
+
+        HedgingCouchHttpInterceptor.LatencyWindow latencyWindow = interceptor.getLatencyWindow(document);
+        for (int i = 1; i <= 9; i++) {
+            latencyWindow.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assert.assertEquals(interceptor.getDelay(document), 10);
+
+        // The 90th percentile of 1 to 96 milliseconds, it is worked out again every eight reads.
+        for (int i = 10; i <= 96; i++) {
+            latencyWindow.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assert.assertEquals(interceptor.getDelay(document), 87);
+        // Views keep their own latencies.
+        Assert.assertEquals(interceptor.getDelay(view), 10);
+    }
+
+    private void awaitHedgeWins(long hedgeWins) throws InterruptedException {
+        for (int i = 0; i < 100 && interceptor.getHedgeWinCount() < hedgeWins; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(interceptor.getHedgeWinCount(), hedgeWins);
+    }
+
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        // Each call takes the next answer time in milliseconds, then answers at once.
+        private final List<Long> answerTimes = Collections.synchronizedList(new ArrayList<>());
+        private final List<CompletableFuture<CouchHttpResponse>> futures = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean failures;
+
+        private int calls() {
+            return futures.size();
+        }
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            return join(respond(request));
+        }
+
+        @Override
+        public CouchHttpResponse head(HttpHeadRequest headRequest) {
+            return join(respond(headRequest));
+        }
+
+        @Override
+        public CouchHttpResponse post(HttpPostRequest postRequest) {
+            return join(respond(postRequest));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            return respond(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+            return respond(headRequest);
+        }
+
+        private CompletableFuture<CouchHttpResponse> respond(HttpRequest request) {
+            CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+            long answerTime;
+            synchronized (this) {
+                futures.add(future);
+                answerTime = answerTimes.isEmpty() ? 0 : answerTimes.remove(0);
+            }
+            if (failures) {
+                future.completeExceptionally(CouchHttpException.internalServerError("Bad request"));
+            } else if (answerTime != NEVER) {
+                CouchHttpResponse response = CouchHttpResponse.builder(request.getMethodType(), URI.create("http://localhost:5984/" + request.getPath()), CouchHttpStatus.OK)
+                        .setContent(CouchMediaType.APPLICATION_JSON, 2, "{}")
+                        .build();
+                DelayUtil.delay(answerTime).thenRun(() -> future.complete(response));
+            }
+            return future;
+        }
+
+        private static CouchHttpResponse join(CompletableFuture<CouchHttpResponse> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        }
+    }
+}
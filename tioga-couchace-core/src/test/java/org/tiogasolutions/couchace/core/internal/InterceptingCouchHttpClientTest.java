@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpInterceptor;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPutRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Test
+public class InterceptingCouchHttpClientTest {
+
+    private StubCouchHttpClient httpClient;
+    private List<String> calls;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        calls = new ArrayList<>();
+    }
+
+    public void interceptorsRunInOrder() {
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Arrays.asList(
+                recording("one"),
+                recording("two")));
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("doc-1"));
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertEquals(calls, Arrays.asList("one", "two", "get doc-1"));
+    }
+
+    public void interceptorCanAddHeaders() {
+        CouchHttpInterceptor tracing = (request, chain) -> chain.proceed(request.header("X-Trace-Id", "abc"));
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(tracing));
+
+        client.put(new HttpPutRequest("doc-1", null, "doc-1", CouchMediaType.APPLICATION_JSON, "{}"));
+
+        Assert.assertEquals(httpClient.lastRequest.getHeaders().get("X-Trace-Id"), "abc");
+    }
+
+    public void interceptorCanShortCircuit() {
+        CouchHttpResponse cached = CouchHttpResponse.builder(CouchMethodType.GET, URI.create("http://localhost:5984/cached"), CouchHttpStatus.OK)
+                .setContent(CouchMediaType.APPLICATION_JSON, 2, "{}")
+                .build();
+        CouchHttpInterceptor cache = (request, chain) -> CompletableFuture.completedFuture(cached);
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Arrays.asList(cache, recording("never")));
+
+        Assert.assertSame(client.get(new HttpGetRequest("doc-1")), cached);
+        Assert.assertSame(client.getAsync(new HttpGetRequest("doc-1")).join(), cached);
+        Assert.assertTrue(calls.isEmpty());
+    }
+
+    public void interceptorCanRetry() {
+        httpClient.failures = 2;
+        CouchHttpInterceptor retry = (request, chain) -> chain.proceed(request)
+                .exceptionally(e -> null)
+                .thenCompose(response -> (response != null) ? CompletableFuture.completedFuture(response) : chain.proceed(request))
+                .exceptionally(e -> null)
+                .thenCompose(response -> (response != null) ? CompletableFuture.completedFuture(response) : chain.proceed(request));
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(retry));
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("doc-1"));
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertEquals(calls, Arrays.asList("get doc-1", "get doc-1", "get doc-1"));
+    }
+
+    public void clientFailureIsThrownUnwrapped() {
+        httpClient.failures = 1;
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(recording("one")));
+
+        try {
+            client.get(new HttpGetRequest("doc-1"));
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Assert.assertEquals(e.getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    public void asyncCallsGoThroughTheChain() {
+        InterceptingCouchHttpClient client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(recording("one")));
+
+        CouchHttpResponse response = client.getAsync(new HttpGetRequest("doc-1")).join();
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertEquals(calls, Arrays.asList("one", "get async doc-1"));
+    }
+
+    public void setupCopiesInterceptors() {
+        CouchHttpInterceptor one = recording("one");
+        CouchSetup setup = new CouchSetup("http://localhost:5984/").setHttpClient(httpClient)
+                .setJsonStrategy(new MockCouchJsonStrategy())
+                .addInterceptor(one);
+
+        Assert.assertEquals(new CouchSetup(setup).getInterceptors(), Collections.singletonList(one));
+        Assert.assertTrue(new CouchSetup("http://localhost:5984/").getInterceptors().isEmpty());
+    }
+
+    private CouchHttpInterceptor recording(String name) {
+        return (request, chain) -> {
+            calls.add(name);
+            return chain.proceed(request);
+        };
+    }
+
+    public class StubCouchHttpClient extends MockCouchHttpClient {
+        private int failures;
+        private HttpRequest lastRequest;
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            calls.add("get " + request.getPath());
+            return respond(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            calls.add("get async " + request.getPath());
+            return CompletableFuture.completedFuture(respond(request));
+        }
+
+        @Override
+        public CouchHttpResponse put(HttpPutRequest putRequest) {
+            return respond(putRequest);
+        }
+
+        private CouchHttpResponse respond(HttpRequest request) {
+            lastRequest = request;
+            if (failures > 0) {
+                failures--;
+                throw new CouchHttpException(CouchHttpStatus.SERVICE_UNAVAILABLE, "unavailable");
+            }
+            return CouchHttpResponse.builder(request.getMethodType(), URI.create("http://localhost:5984/" + request.getPath()), CouchHttpStatus.OK)
+                    .setContent(CouchMediaType.APPLICATION_JSON, 2, "{}")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.response.HeadResponse;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Test
+public class RequestExecutorAsyncTest {
+
+    private final StubCouchHttpClient httpClient = new StubCouchHttpClient();
+    private final CouchDatabase database = new CouchServer(new CouchSetup("http://localhost:5984/")
+            .setHttpClient(httpClient)
+            .setJsonStrategy(new MockCouchJsonStrategy())).database("unit-tests");
+
+    @AfterClass
+    public void afterClass() {
+        httpClient.executor.shutdown();
+    }
+
+    public void headAsyncFiresHandlers() throws Exception {
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+
+        HeadResponse response = database.head().id("exists")
+                .onSuccess(r -> fired.add("success"))
+                .onError(r -> fired.add("error"))
+                .onResponse(r -> fired.add("response"))
+                .executeAsync()
+                .get();
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.OK);
+        Assert.assertEquals(fired, Arrays.asList("success", "response"));
+
+        fired.clear();
+        response = database.head().id("missing")
+                .onSuccess(r -> fired.add("success"))
+                .onError(r -> fired.add("error"))
+                .onResponse(r -> fired.add("response"))
+                .executeAsync()
+                .get();
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.NOT_FOUND);
+        Assert.assertEquals(fired, Arrays.asList("error", "response"));
+    }
+
+    public void executeAndExecuteAsyncAgree() throws Exception {
+        WriteResponse syncResponse = database.put().document("doc-1", "{}").execute();
+        WriteResponse asyncResponse = database.put().document("doc-1", "{}").executeAsync().get();
+
+        Assert.assertEquals(asyncResponse.getHttpStatus(), syncResponse.getHttpStatus());
+        Assert.assertEquals(asyncResponse.getDocumentId(), syncResponse.getDocumentId());
+        Assert.assertEquals(asyncResponse.getDocumentRevision(), syncResponse.getDocumentRevision());
+    }
+
+    public void clientExceptionPropagates() throws Exception {
+        try {
+            database.delete().document("boom", "1-a").execute();
+            Assert.fail("Expected " + CouchException.class.getName());
+        } catch (CouchException e) {
+            Assert.assertEquals(e.getMessage(), "boom");
+        }
+
+        CompletableFuture<WriteResponse> future = database.delete().document("boom", "1-a").executeAsync();
+        try {
+            future.get();
+            Assert.fail("Expected " + ExecutionException.class.getName());
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof CouchException);
+            Assert.assertEquals(e.getCause().getMessage(), "boom");
+        }
+    }
+
+    /**
+     * Returns canned responses, the async variants complete on another thread.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        @Override
+        public CouchHttpResponse head(HttpHeadRequest headRequest) {
+            CouchHttpStatus status = "exists".equals(headRequest.getDocumentId()) ? CouchHttpStatus.OK : CouchHttpStatus.NOT_FOUND;
+            return CouchHttpResponse.builder(headRequest.getMethodType(), uri(headRequest.getPath()), status)
+                    .setDocumentId(headRequest.getDocumentId())
+                    .build();
+        }
+
+        @Override
+        public CouchHttpResponse put(HttpPutRequest putRequest) {
+            return CouchHttpResponse.builder(putRequest.getMethodType(), uri(putRequest.getPath()), CouchHttpStatus.CREATED)
+                    .setDocumentId(putRequest.getDocumentId())
+                    .setEtag("1-a")
+                    .build();
+        }
+
+        @Override
+        public CouchHttpResponse delete(HttpDeleteRequest request) {
+            throw CouchException.internalServerError("boom");
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest headRequest) {
+            return CompletableFuture.supplyAsync(() -> head(headRequest), executor);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+            return CompletableFuture.supplyAsync(() -> put(putRequest), executor);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+            return CompletableFuture.supplyAsync(() -> delete(request), executor);
+        }
+    }
+}
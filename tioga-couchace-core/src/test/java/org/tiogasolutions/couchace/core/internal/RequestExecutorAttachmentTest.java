@@ -0,0 +1,256 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.annotations.CouchEmbeddedAttachment;
+import org.tiogasolutions.couchace.annotations.CouchEntity;
+import org.tiogasolutions.couchace.annotations.CouchId;
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchContentRange;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.request.CouchFeature;
+import org.tiogasolutions.couchace.core.api.request.CouchFeatureSet;
+import org.tiogasolutions.couchace.core.api.request.CouchInlineAttachment;
+import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.GetAttachmentResponse;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPutRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Test
+public class RequestExecutorAttachmentTest {
+
+    private StubCouchHttpClient httpClient;
+    private StubCouchJsonStrategy jsonStrategy;
+    private CouchServer server;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        jsonStrategy = new StubCouchJsonStrategy();
+        server = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(jsonStrategy));
+    }
+
+    public void attachmentsArePutSeparately() {
+        CouchDatabase database = server.database("unit-tests");
+        WriteResponse response = database.put().entity(new NotesEntity("doc-1", "some notes", new byte[]{1, 2, 3})).execute();
+
+        // The document and then one put per attachment, each on the revision before it.
+        Assert.assertEquals(response.getDocumentRevision(), "3-x");
+        Assert.assertEquals(httpClient.putPaths.size(), 3);
+        Assert.assertNull(jsonStrategy.inlineAttachments);
+    }
+
+    public void attachmentsAreWrittenInline() {
+        CouchDatabase database = server.database("unit-tests", CouchFeatureSet.builder().add(CouchFeature.INLINE_ATTACHMENTS, true).build());
+        WriteResponse response = database.put().entity(new NotesEntity("doc-1", "some notes", new byte[]{1, 2, 3})).execute();
+
+        // One put, one revision.
+        Assert.assertEquals(response.getDocumentRevision(), "1-x");
+        Assert.assertEquals(httpClient.putPaths.size(), 1);
+        Assert.assertEquals(jsonStrategy.inlineAttachments.size(), 2);
+        // Embedded attachments are found by reflection, so in no particular order.
+        CouchInlineAttachment notes = inlineAttachment("notes");
+        Assert.assertEquals(notes.getContentType().getMediaString(), "text/plain");
+        Assert.assertEquals(new String(notes.getData(), StandardCharsets.UTF_8), "some notes");
+        Assert.assertEquals(inlineAttachment("image").getData(), new byte[]{1, 2, 3});
+    }
+
+    public void streamedAttachmentIsNotInlined() {
+        CouchDatabase database = server.database("unit-tests", CouchFeatureSet.builder().add(CouchFeature.INLINE_ATTACHMENTS, true).build());
+        database.put().entity(new NotesEntity("doc-1", "some notes", new ByteArrayInputStream(new byte[]{1, 2, 3}))).execute();
+
+        Assert.assertEquals(httpClient.putPaths.size(), 3);
+        Assert.assertNull(jsonStrategy.inlineAttachments);
+    }
+
+    public void attachmentIsCopiedToOutputStream() {
+        CouchDatabase database = server.database("unit-tests");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GetAttachmentResponse response = database.get().attachment("doc-1", "notes").executeTo(out);
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertNull(response.getContent());
+        Assert.assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), "attachment of doc-1");
+        Assert.assertTrue(httpClient.streamClosed);
+    }
+
+    public void attachmentIsWrittenToFile() throws Exception {
+        CouchDatabase database = server.database("unit-tests");
+        Path file = Files.createTempFile("couchace", ".txt");
+        try {
+            Files.write(file, "a longer file that gets replaced".getBytes(StandardCharsets.UTF_8));
+            GetAttachmentResponse response = database.get().attachment("doc-1", "notes").executeTo(file);
+
+            Assert.assertTrue(response.isOk());
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "attachment of doc-1");
+            Assert.assertTrue(httpClient.streamClosed);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void attachmentRangeResumesFile() throws Exception {
+        CouchDatabase database = server.database("unit-tests");
+        Path file = Files.createTempFile("couchace", ".txt");
+        try {
+            Files.write(file, "attachment".getBytes(StandardCharsets.UTF_8));
+            GetAttachmentResponse response = database.get().attachment("doc-1", "notes").rangeFrom(10).executeTo(file);
+
+            Assert.assertEquals(httpClient.requestRange, "bytes=10-");
+            Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.PARTIAL_CONTENT);
+            Assert.assertTrue(response.isPartial());
+            Assert.assertEquals(response.getContentRange().getStart(), 10);
+            Assert.assertTrue(response.getContentRange().isLast());
+            Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "attachment of doc-1");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void missingAttachmentWritesNothing() {
+        CouchDatabase database = server.database("unit-tests");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GetAttachmentResponse response = database.get().attachment("missing", "notes").executeTo(out);
+
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.NOT_FOUND);
+        Assert.assertEquals(response.getErrorReason(), "missing");
+        Assert.assertEquals(out.size(), 0);
+    }
+
+    private CouchInlineAttachment inlineAttachment(String attachmentName) {
+        for (CouchInlineAttachment inlineAttachment : jsonStrategy.inlineAttachments) {
+            if (inlineAttachment.getAttachmentName().equals(attachmentName)) {
+                return inlineAttachment;
+            }
+        }
+        throw new AssertionError("No inline attachment " + attachmentName);
+    }
+
+    @CouchEntity("Notes")
+    public static class NotesEntity {
+        private final String id;
+        private final String notes;
+        private final Object image;
+
+        public NotesEntity(String id, String notes, Object image) {
+            this.id = id;
+            this.notes = notes;
+            this.image = image;
+        }
+
+        @CouchId
+        public String getId() {
+            return id;
+        }
+
+        @CouchEmbeddedAttachment(contentType = "text/plain")
+        public String getNotes() {
+            return notes;
+        }
+
+        @CouchEmbeddedAttachment(contentType = "image/png")
+        public Object getImage() {
+            return image;
+        }
+    }
+
+    /**
+     * Every put creates the next revision.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private final List<String> putPaths = new ArrayList<>();
+        private boolean streamClosed;
+        private String requestRange;
+
+        @Override
+        public CouchHttpResponse put(HttpPutRequest putRequest) {
+            putPaths.add(putRequest.getPath());
+            return CouchHttpResponse.builder(putRequest.getMethodType(), uri(putRequest.getPath()), CouchHttpStatus.CREATED)
+                    .setDocumentId(putRequest.getDocumentId())
+                    .setEtag(putPaths.size() + "-x")
+                    .build();
+        }
+
+        /**
+         * Streams "attachment of {id}", or the open ended range asked for, or answers 404 for the document "missing".
+         */
+        @Override
+        public CouchHttpResponse getStream(HttpGetRequest request) {
+            requestRange = request.getRange();
+            String documentId = request.getDocumentId();
+            if ("missing".equals(documentId)) {
+                return CouchHttpResponse.builder(request.getMethodType(), uri(request.getPath()), CouchHttpStatus.NOT_FOUND)
+                        .setContent(CouchMediaType.APPLICATION_JSON, 0, "{\"error\":\"not_found\",\"reason\":\"missing\"}")
+                        .build();
+            }
+            byte[] bytes = ("attachment of " + documentId).getBytes(StandardCharsets.UTF_8);
+            int start = 0;
+            CouchHttpStatus status = CouchHttpStatus.OK;
+            CouchContentRange contentRange = null;
+            if (requestRange != null) {
+                start = Integer.parseInt(requestRange.substring("bytes=".length(), requestRange.indexOf('-')));
+                status = CouchHttpStatus.PARTIAL_CONTENT;
+                contentRange = new CouchContentRange(start, bytes.length - 1, bytes.length);
+            }
+            InputStream in = new ByteArrayInputStream(bytes, start, bytes.length - start) {
+                @Override
+                public void close() throws IOException {
+                    streamClosed = true;
+                    super.close();
+                }
+            };
+            return CouchHttpResponse.builder(request.getMethodType(), uri(request.getPath()), status)
+                    .setDocumentId(documentId)
+                    .setContentRange(contentRange)
+                    .setContent(CouchMediaType.TEXT_PLAIN, -1, in)
+                    .build();
+        }
+    }
+
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+        private List<CouchInlineAttachment> inlineAttachments;
+
+        @Override
+        public String createJsonForPut(PutEntityRequest request) {
+            inlineAttachments = request.getInlineAttachments();
+            return "{}";
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.annotations.CouchEntity;
+import org.tiogasolutions.couchace.annotations.CouchId;
+import org.tiogasolutions.couchace.annotations.CouchRevision;
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.cache.SimpleCouchEntityCache;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+import org.tiogasolutions.couchace.core.api.response.GetEntityResponse;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Test
+public class RequestExecutorCacheTest {
+
+    private StubCouchHttpClient httpClient;
+    private StubCouchJsonStrategy jsonStrategy;
+    private SimpleCouchEntityCache entityCache;
+    private CouchDatabase database;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        jsonStrategy = new StubCouchJsonStrategy();
+        entityCache = new SimpleCouchEntityCache(10, 60000);
+        database = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(jsonStrategy)
+                .setEntityCache(entityCache)).database("unit-tests");
+    }
+
+    public void notModifiedReusesCachedEntity() {
+        GetEntityResponse<CachedEntity> response = database.get().entity(CachedEntity.class, "doc-1").execute();
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.OK);
+        CachedEntity first = response.getFirstEntity();
+
+        response = database.get().entity(CachedEntity.class, "doc-1").execute();
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.OK);
+        Assert.assertEquals(response.getFirstEntity().getRevision(), "1-a");
+        // Each reader gets its own copy of the cached entity.
+        Assert.assertNotSame(response.getFirstEntity(), first);
+        Assert.assertNotSame(response.getFirstEntity(), entityCache.get("unit-tests", "doc-1", CachedEntity.class).getEntity());
+
+        // The second read was revalidated with the cached revision and not parsed again.
+        Assert.assertEquals(httpClient.ifNoneMatchList.size(), 2);
+        Assert.assertNull(httpClient.ifNoneMatchList.get(0));
+        Assert.assertEquals(httpClient.ifNoneMatchList.get(1), "1-a");
+        Assert.assertEquals(jsonStrategy.parseCount, 1);
+        Assert.assertEquals(jsonStrategy.copyCount, 1);
+    }
+
+    public void changedDocumentReplacesCachedEntity() {
+        database.get().entity(CachedEntity.class, "doc-1").execute();
+        httpClient.revision = "2-b";
+
+        GetEntityResponse<CachedEntity> response = database.get().entity(CachedEntity.class, "doc-1").execute();
+        Assert.assertEquals(response.getFirstEntity().getRevision(), "2-b");
+        Assert.assertEquals(jsonStrategy.parseCount, 2);
+        Assert.assertEquals(entityCache.get("unit-tests", "doc-1", CachedEntity.class).getDocumentRevision(), "2-b");
+    }
+
+    public void writesInvalidateCachedEntity() {
+        database.get().entity(CachedEntity.class, "doc-1").execute();
+        Assert.assertNotNull(entityCache.get("unit-tests", "doc-1", CachedEntity.class));
+
+        database.put().document("doc-1", "{}", "1-a").execute();
+        Assert.assertNull(entityCache.get("unit-tests", "doc-1", CachedEntity.class));
+
+        database.get().entity(CachedEntity.class, "doc-1").execute();
+        database.delete().document("doc-1", "1-a").execute();
+        Assert.assertNull(entityCache.get("unit-tests", "doc-1", CachedEntity.class));
+    }
+
+    public void cacheEvictsBySizeAndTime() throws Exception {
+        SimpleCouchEntityCache cache = new SimpleCouchEntityCache(2, 60000);
+        cache.put("db", document("a"));
+        cache.put("db", document("b"));
+        cache.get("db", "a", CachedEntity.class);
+        cache.put("db", document("c"));
+
+        // b was the least recently used.
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNotNull(cache.get("db", "a", CachedEntity.class));
+        Assert.assertNull(cache.get("db", "b", CachedEntity.class));
+        Assert.assertNotNull(cache.get("db", "c", CachedEntity.class));
+        Assert.assertNull(cache.get("db", "c", String.class));
+
+        cache = new SimpleCouchEntityCache(2, 1);
+        cache.put("db", document("a"));
+        Thread.sleep(5);
+        Assert.assertNull(cache.get("db", "a", CachedEntity.class));
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    private static EntityDocument<CachedEntity> document(String id) {
+        return new EntityDocument<>(id, "1-a", null, "Cached", new CachedEntity(id, "1-a"));
+    }
+
+    @CouchEntity("Cached")
+    public static class CachedEntity {
+        private final String id;
+        private final String revision;
+
+        public CachedEntity(String id, String revision) {
+            this.id = id;
+            this.revision = revision;
+        }
+
+        @CouchId
+        public String getId() {
+            return id;
+        }
+
+        @CouchRevision
+        public String getRevision() {
+            return revision;
+        }
+    }
+
+    /**
+     * Answers 304 when If-None-Match carries the current revision.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private final List<String> ifNoneMatchList = new ArrayList<>();
+        private String revision = "1-a";
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest getRequest) {
+            ifNoneMatchList.add(getRequest.getIfNoneMatch());
+            if (revision.equals(getRequest.getIfNoneMatch())) {
+                return CouchHttpResponse.builder(getRequest.getMethodType(), uri(getRequest.getPath()), CouchHttpStatus.NOT_MODIFIED)
+                        .setEtag(revision)
+                        .build();
+            }
+            return CouchHttpResponse.builder(getRequest.getMethodType(), uri(getRequest.getPath()), CouchHttpStatus.OK)
+                    .setDocumentId(getRequest.getDocumentId())
+                    .setEtag(revision)
+                    .setContent(null, 0, revision)
+                    .build();
+        }
+
+        @Override
+        public CouchHttpResponse put(HttpPutRequest putRequest) {
+            return CouchHttpResponse.builder(putRequest.getMethodType(), uri(putRequest.getPath()), CouchHttpStatus.CREATED)
+                    .setDocumentId(putRequest.getDocumentId())
+                    .setEtag("2-b")
+                    .build();
+        }
+
+        @Override
+        public CouchHttpResponse delete(HttpDeleteRequest deleteRequest) {
+            return CouchHttpResponse.builder(deleteRequest.getMethodType(), uri(deleteRequest.getPath()), CouchHttpStatus.OK)
+                    .setDocumentId(deleteRequest.getDocumentId())
+                    .build();
+        }
+    }
+
+    /**
+     * The stub content is just the revision, each read builds a new entity.
+     */
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+        private int parseCount;
+        private int copyCount;
+
+        @Override
+        public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+            parseCount++;
+            T entity = entityMeta.getEntityClass().cast(new CachedEntity("doc-1", json));
+            return new EntityDocument<>("doc-1", json, null, "Cached", entity);
+        }
+
+        @Override
+        public <T> EntityDocument<T> copyEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, EntityDocument<T> document) throws CouchJsonException {
+            copyCount++;
+            T entity = entityMeta.getEntityClass().cast(new CachedEntity(document.getDocumentId(), document.getDocumentRevision()));
+            return new EntityDocument<>(document.getDocumentId(), document.getDocumentRevision(), null, "Cached", entity);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.response.CouchDeleteProgress;
+import org.tiogasolutions.couchace.core.api.response.CouchErrorContent;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Test
+public class RequestExecutorDeleteTest {
+
+    private StubCouchHttpClient httpClient;
+    private CouchDatabase database;
+    private List<CouchDeleteProgress> progressList;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        CouchServer server = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(new StubCouchJsonStrategy()));
+        database = server.database("unit-tests");
+        progressList = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            httpClient.documents.put(String.format("doc-%02d", i), "1-x");
+        }
+        httpClient.documents.put("_design/one", "1-x");
+        httpClient.documents.put("_design/two", "1-x");
+    }
+
+    public void allDocumentsAreDeletedInBatches() {
+        WriteResponse response = database.delete().allDocuments()
+                .batchSize(10)
+                .onProgress(progressList::add)
+                .execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertTrue(httpClient.documents.isEmpty());
+        Assert.assertEquals(httpClient.bulkPosts, 3);
+
+        Assert.assertEquals(progressList.size(), 4);
+        CouchDeleteProgress progress = progressList.get(3);
+        Assert.assertTrue(progress.isComplete());
+        Assert.assertEquals(progress.getDocumentsRead(), 25);
+        Assert.assertEquals(progress.getDocumentsDeleted(), 25);
+        Assert.assertEquals(progress.getBatchesWritten(), 3);
+        Assert.assertFalse(progress.hasFailures());
+    }
+
+    public void designsAreKept() {
+        WriteResponse response = database.delete().allNonDesigns().batchSize(10).execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.documents.keySet().toString(), "[_design/one, _design/two]");
+    }
+
+    public void onlyDesignsAreDeleted() {
+        WriteResponse response = database.delete().allDesigns().execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.documents.size(), 23);
+        Assert.assertFalse(httpClient.documents.containsKey("_design/one"));
+        Assert.assertEquals(httpClient.bulkPosts, 1);
+    }
+
+    public void conflictsDoNotStopTheRun() {
+        httpClient.conflicts.add("doc-03");
+        httpClient.conflicts.add("doc-15");
+
+        WriteResponse response = database.delete().allDocuments()
+                .batchSize(5)
+                .onProgress(progressList::add)
+                .execute();
+
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.CONFLICT);
+        Assert.assertTrue(response.getErrorReason().startsWith("2 of 25 documents could not be deleted"));
+        Assert.assertEquals(httpClient.documents.keySet().toString(), "[doc-03, doc-15]");
+
+        CouchDeleteProgress progress = progressList.get(progressList.size() - 1);
+        Assert.assertTrue(progress.isComplete());
+        Assert.assertEquals(progress.getDocumentsDeleted(), 23);
+        Assert.assertEquals(progress.getFailures().size(), 2);
+        Assert.assertEquals(progress.getFailures().get(0).getDocumentId(), "doc-03");
+    }
+
+    public void batchesAreWrittenInParallel() throws Exception {
+        WriteResponse response = database.delete().allDocuments()
+                .batchSize(4)
+                .parallelism(3)
+                .onProgress(progressList::add)
+                .executeAsync()
+                .get();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertTrue(httpClient.documents.isEmpty());
+        // A page holds one more document when the last of the page before was already deleted.
+        CouchDeleteProgress progress = progressList.get(progressList.size() - 1);
+        Assert.assertTrue(progress.isComplete());
+        Assert.assertEquals(progress.getDocumentsDeleted(), 25);
+        Assert.assertEquals(progress.getBatchesWritten(), httpClient.bulkPosts);
+    }
+
+    @Test(timeOut = 5000)
+    public void failedReadEndsParallelRun() {
+        for (int i = 23; i < 40; i++) {
+            httpClient.documents.put(String.format("doc-%02d", i), "1-x");
+        }
+        httpClient.failingGet = 4;
+
+        try {
+            database.delete().allDocuments().batchSize(4).parallelism(2).execute();
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Assert.assertTrue(e.getCause() instanceof ConnectException);
+        }
+    }
+
+    /**
+     * Holds the documents in id order, lists them as "id rev" lines and answers _bulk_docs with "id ok" or
+     * "id conflict" lines, deleting those not in conflicts. The get numbered failingGet cannot connect.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private static final Pattern STUB = Pattern.compile("\\{\"_id\":\"([^\"]*)\",\"_rev\":\"([^\"]*)\",\"_deleted\":true}");
+        private final TreeMap<String, String> documents = new TreeMap<>();
+        private final Set<String> conflicts = new HashSet<>();
+        private int bulkPosts;
+        private int gets;
+        private int failingGet;
+
+        @Override
+        public synchronized CouchHttpResponse get(HttpGetRequest request) {
+            if (++gets == failingGet) {
+                throw CouchHttpException.internalServerError(new ConnectException("Connection refused"));
+            }
+            String startKey = null;
+            String endKey = null;
+            int limit = Integer.MAX_VALUE;
+            for (CouchHttpQueryParam param : request.getHttpQuery()) {
+                String value = param.getValue()[0].toString();
+                if (param.getName().equals("startkey")) {
+                    startKey = value.substring(1, value.length() - 1);
+                } else if (param.getName().equals("endkey")) {
+                    endKey = value.substring(1, value.length() - 1);
+                } else if (param.getName().equals("limit")) {
+                    limit = Integer.parseInt(value);
+                }
+            }
+
+            StringBuilder sb = new StringBuilder();
+            int count = 0;
+            for (Map.Entry<String, String> entry : documents.entrySet()) {
+                String id = entry.getKey();
+                if ((startKey != null && id.compareTo(startKey) < 0) || (endKey != null && id.compareTo(endKey) > 0)) {
+                    continue;
+                }
+                if (count++ == limit) {
+                    break;
+                }
+                sb.append(id).append(" ").append(entry.getValue()).append("\n");
+            }
+            return CouchHttpResponse.builder(CouchMethodType.GET, uri(request.getPath()), CouchHttpStatus.OK)
+                    .setContent(CouchMediaType.TEXT_PLAIN, -1, sb.toString())
+                    .build();
+        }
+
+        @Override
+        public synchronized CouchHttpResponse post(HttpPostRequest request) {
+            bulkPosts++;
+            StringBuilder sb = new StringBuilder();
+            Matcher matcher = STUB.matcher(request.getContent().toString());
+            while (matcher.find()) {
+                String id = matcher.group(1);
+                if (conflicts.contains(id)) {
+                    sb.append(id).append(" conflict\n");
+                } else {
+                    documents.remove(id);
+                    sb.append(id).append(" ok\n");
+                }
+            }
+            return CouchHttpResponse.builder(CouchMethodType.POST, uri(request.getPath()), CouchHttpStatus.CREATED)
+                    .setContent(CouchMediaType.TEXT_PLAIN, -1, sb.toString())
+                    .build();
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            return CompletableFuture.supplyAsync(() -> get(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest request) {
+            return CompletableFuture.supplyAsync(() -> post(request));
+        }
+    }
+
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+
+        @Override
+        public List<TextDocument> readTextDocuments(String text) {
+            List<TextDocument> documents = new ArrayList<>();
+            for (String line : text.split("\n")) {
+                if (!line.isEmpty()) {
+                    String[] values = line.split(" ");
+                    documents.add(new TextDocument(values[0], values[1], null, null));
+                }
+            }
+            return documents;
+        }
+
+        @Override
+        public List<WriteResponse> readBulkWriteResponses(URI uri, String text) {
+            List<WriteResponse> responses = new ArrayList<>();
+            for (String line : text.split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] values = line.split(" ");
+                if (values[1].equals("ok")) {
+                    responses.add(new WriteResponse(CouchMethodType.POST, uri, CouchHttpStatus.CREATED, CouchMediaType.APPLICATION_JSON, values[0], "2-x", null));
+                } else {
+                    String content = new CouchErrorContent("conflict", "Document update conflict.").toJson();
+                    responses.add(new WriteResponse(CouchMethodType.POST, uri, CouchHttpStatus.CONFLICT, CouchMediaType.APPLICATION_JSON, values[0], null, content));
+                }
+            }
+            return responses;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
+import org.tiogasolutions.couchace.core.api.query.CouchFindQuery;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+import org.tiogasolutions.couchace.core.api.response.GetDocumentResponse;
+import org.tiogasolutions.couchace.core.api.response.GetIndexResponse;
+import org.tiogasolutions.couchace.core.api.response.GetStreamResponse;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpDeleteRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Test
+public class RequestExecutorFindTest {
+
+    private StubCouchHttpClient httpClient;
+    private CouchDatabase database;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        CouchServer server = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(new StubCouchJsonStrategy()));
+        database = server.database("unit-tests");
+        for (int i = 0; i < 23; i++) {
+            httpClient.documents.add(String.format("doc-%02d", i));
+        }
+    }
+
+    public void findPostsTheQuery() {
+        CouchFindQuery query = CouchFindQuery.builder()
+                .where("type", "city")
+                .where("population", "$gt", 1000)
+                .sort("name")
+                .limit(10)
+                .useIndex("cities", "by-name")
+                .build();
+        GetDocumentResponse response = database.get().document(query).execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(response.getDocumentList().size(), 10);
+        Assert.assertEquals(response.getBookmark(), "doc-09");
+        Assert.assertEquals(httpClient.posts.size(), 1);
+        Assert.assertEquals(httpClient.posts.get(0).getPath(), "/unit-tests/_find");
+        Assert.assertEquals(httpClient.posts.get(0).getContent(),
+                "{\"selector\":{\"type\":\"city\",\"population\":{\"$gt\":1000}}," +
+                "\"sort\":[{\"name\":\"asc\"}],\"limit\":10,\"use_index\":[\"cities\",\"by-name\"]}");
+    }
+
+    public void streamFollowsTheBookmarks() {
+        CouchFindQuery query = CouchFindQuery.builder().where("type", "city").limit(10).build();
+        List<String> ids = new ArrayList<>();
+        try (GetStreamResponse<TextDocument> response = database.get().document(query).executeStream()) {
+            Assert.assertTrue(response.isSuccess());
+            // Only the first page is read before iterating.
+            Assert.assertEquals(httpClient.posts.size(), 1);
+            for (TextDocument document : response) {
+                ids.add(document.getDocumentId());
+            }
+        }
+
+        Assert.assertEquals(ids.size(), 23);
+        Assert.assertEquals(ids.get(22), "doc-22");
+        Assert.assertEquals(httpClient.posts.size(), 3);
+        Assert.assertTrue(httpClient.posts.get(2).getContent().toString().endsWith(",\"bookmark\":\"doc-19\"}"));
+    }
+
+    public void streamReadsOneMorePageWhenTheLastIsFull() {
+        httpClient.documents.subList(20, 23).clear();
+        CouchFindQuery query = CouchFindQuery.builder().where("type", "city").limit(10).build();
+        int count = 0;
+        try (GetStreamResponse<TextDocument> response = database.get().document(query).executeStream()) {
+            for (TextDocument ignored : response) {
+                count++;
+            }
+        }
+
+        Assert.assertEquals(count, 20);
+        // CouchDB cannot tell the second page was the last, the empty third one ends the stream.
+        Assert.assertEquals(httpClient.posts.size(), 3);
+    }
+
+    public void indexIsCreated() {
+        CouchFindIndex index = CouchFindIndex.builder("type", "name").designName("cities").name("by-name").build();
+        WriteResponse response = database.post().index(index).execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.posts.get(0).getPath(), "/unit-tests/_index");
+        Assert.assertEquals(httpClient.posts.get(0).getContent(),
+                "{\"index\":{\"fields\":[\"type\",\"name\"]},\"type\":\"json\",\"ddoc\":\"cities\",\"name\":\"by-name\"}");
+    }
+
+    public void indexesAreListed() {
+        GetIndexResponse response = database.get().indexes().execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(response.getIndexList().size(), 2);
+        Assert.assertNull(response.getIndexList().get(0).getDesignName());
+        CouchFindIndex index = response.getIndex("cities", "by-name");
+        Assert.assertNotNull(index);
+        Assert.assertEquals(index.getFields(), Arrays.asList("type", "name"));
+        Assert.assertNull(response.getIndex("cities", "by-population"));
+    }
+
+    public void indexIsDeleted() {
+        WriteResponse response = database.delete().index("cities", "by-name").execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.deletes, Arrays.asList("/unit-tests/_index/_design/cities/json/by-name"));
+    }
+
+    /**
+     * Answers _find with the page after the bookmark as a bookmark line followed by an id line per document, the
+     * bookmark being the last id of the page.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private static final Pattern LIMIT = Pattern.compile("\"limit\":(\\d+)");
+        private static final Pattern BOOKMARK = Pattern.compile("\"bookmark\":\"([^\"]*)\"");
+        private final List<String> documents = new ArrayList<>();
+        private final List<HttpPostRequest> posts = new ArrayList<>();
+        private final List<String> deletes = new ArrayList<>();
+
+        @Override
+        public CouchHttpResponse post(HttpPostRequest request) {
+            posts.add(request);
+            String content = request.getContent().toString();
+            if (!request.getPath().endsWith("/_find")) {
+                return response(CouchMethodType.POST, request.getPath(), "{\"result\":\"created\"}");
+            }
+
+            Matcher limitMatcher = LIMIT.matcher(content);
+            int limit = limitMatcher.find() ? Integer.parseInt(limitMatcher.group(1)) : 25;
+            Matcher bookmarkMatcher = BOOKMARK.matcher(content);
+            int start = bookmarkMatcher.find() ? documents.indexOf(bookmarkMatcher.group(1)) + 1 : 0;
+            List<String> page = documents.subList(start, Math.min(start + limit, documents.size()));
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(page.isEmpty() ? "nil" : page.get(page.size() - 1)).append("\n");
+            for (String id : page) {
+                sb.append(id).append("\n");
+            }
+            return response(CouchMethodType.POST, request.getPath(), sb.toString());
+        }
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            return response(CouchMethodType.GET, request.getPath(), "- _all_docs _id\n_design/cities by-name type,name\n");
+        }
+
+        @Override
+        public CouchHttpResponse delete(HttpDeleteRequest request) {
+            deletes.add(request.getPath());
+            return response(CouchMethodType.DELETE, request.getPath(), "{\"ok\":true}");
+        }
+
+        private CouchHttpResponse response(CouchMethodType methodType, String path, String content) {
+            return CouchHttpResponse.builder(methodType, uri(path), CouchHttpStatus.OK)
+                    .setContent(CouchMediaType.TEXT_PLAIN, -1, content)
+                    .build();
+        }
+    }
+
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+
+        @Override
+        public CouchFindResult<TextDocument> readFindTextDocuments(String text) {
+            String[] lines = text.split("\n");
+            List<TextDocument> documents = new ArrayList<>();
+            for (int i = 1; i < lines.length; i++) {
+                documents.add(new TextDocument(lines[i], "1-x", null, null));
+            }
+            return new CouchFindResult<>(documents, lines[0].equals("nil") ? null : lines[0], null);
+        }
+
+        @Override
+        public List<CouchFindIndex> readFindIndexes(String text) {
+            List<CouchFindIndex> indexes = new ArrayList<>();
+            for (String line : text.split("\n")) {
+                String[] values = line.split(" ");
+                String designName = values[0].equals("-") ? null : values[0];
+                indexes.add(new CouchFindIndex(designName, values[1], "json", Arrays.asList(values[2].split(","))));
+            }
+            return indexes;
+        }
+    }
+}
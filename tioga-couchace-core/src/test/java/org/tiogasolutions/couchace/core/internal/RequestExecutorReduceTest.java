@@ -0,0 +1,190 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+import org.tiogasolutions.couchace.core.api.query.CouchViewQuery;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.GetReduceResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Test
+public class RequestExecutorReduceTest {
+
+    private StubCouchHttpClient httpClient;
+    private CouchDatabase database;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        CouchServer server = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(new StubCouchJsonStrategy()));
+        database = server.database("unit-tests");
+    }
+
+    public void reduceIsStreamedWithoutDocs() {
+        httpClient.content = "[2014,1] 12\n[2014,2] 30\n";
+        CouchViewQuery viewQuery = CouchViewQuery.builder("sales", "byDate").groupLevel(2).limit(5).build();
+        GetReduceResponse<CouchLongReduction> response = database.get().reduceLongs(viewQuery).execute();
+
+        Assert.assertTrue(response.isSuccess());
+        CouchLongReduction reduction = response.getReduction();
+        Assert.assertEquals(reduction.size(), 2);
+        Assert.assertEquals(reduction.getValue(new CouchJsonKey(2014, 2), -1), 30);
+        Assert.assertEquals(reduction.getValue(new CouchJsonKey(2014, 3), -1), -1);
+        Assert.assertEquals(reduction.getTotal(), 42);
+
+        Assert.assertEquals(httpClient.streamed.size(), 1);
+        HttpGetRequest request = httpClient.streamed.get(0);
+        Assert.assertEquals(request.getPath(), "/unit-tests/_design/sales/_view/byDate");
+        Map<String, String> params = params(request);
+        // The view query includes docs by default, a reduce never does and the limit is not bumped for paging.
+        Assert.assertEquals(params.get("include_docs"), "false");
+        Assert.assertEquals(params.get("limit"), "5");
+        Assert.assertEquals(params.get("group_level"), "2");
+        Assert.assertFalse(params.containsKey("reduce"));
+    }
+
+    public void reduceAsyncReadsTheResponse() {
+        httpClient.content = "\"north\" 1.5\n\"south\" 2.25\n";
+        CouchViewQuery viewQuery = CouchViewQuery.builder("sales", "byRegion").group(true).build();
+        CouchDoubleReduction reduction = database.get().reduceDoubles(viewQuery).executeAsync().join().getReduction();
+
+        Assert.assertEquals(reduction.getValues(), new double[]{1.5, 2.25});
+        Assert.assertEquals(reduction.getKey(1), new CouchJsonKey("south"));
+        Assert.assertTrue(httpClient.streamed.isEmpty());
+        Assert.assertEquals(params(httpClient.gets.get(0)).get("group"), "true");
+    }
+
+    public void reduceErrorCallsOnError() {
+        httpClient.status = CouchHttpStatus.NOT_FOUND;
+        httpClient.content = "{\"error\":\"not_found\",\"reason\":\"missing_named_view\"}";
+        AtomicReference<GetReduceResponse<CouchLongReduction>> error = new AtomicReference<>();
+        CouchViewQuery viewQuery = CouchViewQuery.builder("sales", "missing").build();
+        GetReduceResponse<CouchLongReduction> response = database.get().reduceLongs(viewQuery).onError(error::set).execute();
+
+        Assert.assertTrue(response.isError());
+        Assert.assertNull(response.getReduction());
+        Assert.assertSame(error.get(), response);
+    }
+
+    public void viewQuerySendsReduceToggle() {
+        httpClient.content = "";
+        CouchViewQuery viewQuery = CouchViewQuery.builder("sales", "byDate").reduce(false).build();
+        database.get().document(viewQuery).execute();
+
+        Map<String, String> params = params(httpClient.gets.get(0));
+        Assert.assertEquals(params.get("include_docs"), "true");
+        Assert.assertEquals(params.get("reduce"), "false");
+        Assert.assertFalse(params.containsKey("group_level"));
+    }
+
+    private static Map<String, String> params(HttpGetRequest request) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (CouchHttpQueryParam param : request.getHttpQuery()) {
+            params.put(param.getName(), String.valueOf(param.getValue()[0]));
+        }
+        return params;
+    }
+
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private final List<HttpGetRequest> gets = new ArrayList<>();
+        private final List<HttpGetRequest> streamed = new ArrayList<>();
+        private CouchHttpStatus status = CouchHttpStatus.OK;
+        private String content;
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            gets.add(request);
+            return response(request);
+        }
+
+        @Override
+        public CouchHttpResponse getStream(HttpGetRequest request) {
+            streamed.add(request);
+            return response(request);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            return CompletableFuture.supplyAsync(() -> get(request));
+        }
+
+        private CouchHttpResponse response(HttpGetRequest request) {
+            return CouchHttpResponse.builder(CouchMethodType.GET, uri(request.getPath()), status)
+                    .setContent(CouchMediaType.TEXT_PLAIN, -1, content)
+                    .build();
+        }
+    }
+
+    /**
+     * Reads a reduction written as a key and value per line.
+     */
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+
+        @Override
+        public CouchLongReduction readLongReduction(InputStream inputStream) {
+            CouchLongReduction.Builder builder = CouchLongReduction.builder();
+            for (String[] row : rows(inputStream)) {
+                builder.add(CouchJsonKey.fromJson(row[0]), Long.parseLong(row[1]));
+            }
+            return builder.build();
+        }
+
+        @Override
+        public CouchDoubleReduction readDoubleReduction(InputStream inputStream) {
+            CouchDoubleReduction.Builder builder = CouchDoubleReduction.builder();
+            for (String[] row : rows(inputStream)) {
+                builder.add(CouchJsonKey.fromJson(row[0]), Double.parseDouble(row[1]));
+            }
+            return builder.build();
+        }
+
+        private static List<String[]> rows(InputStream inputStream) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            return reader.lines().map(line -> line.split(" ")).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.annotations.CouchEntity;
+import org.tiogasolutions.couchace.annotations.CouchId;
+import org.tiogasolutions.couchace.annotations.CouchRevision;
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.MockCouchJsonStrategy;
+import org.tiogasolutions.couchace.core.api.CouchDatabase;
+import org.tiogasolutions.couchace.core.api.CouchServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQueryParam;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.metrics.CouchUpdateStats;
+import org.tiogasolutions.couchace.core.api.metrics.SimpleCouchMetrics;
+import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
+import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPutRequest;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test
+public class RequestExecutorUpdateTest {
+
+    private StubCouchHttpClient httpClient;
+    private SimpleCouchMetrics metrics;
+    private CouchDatabase database;
+    private AtomicInteger mutations;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        metrics = new SimpleCouchMetrics();
+        database = new CouchServer(new CouchSetup("http://localhost:5984/")
+                .setHttpClient(httpClient)
+                .setJsonStrategy(new StubCouchJsonStrategy())
+                .setMetrics(metrics)).database("unit-tests");
+        mutations = new AtomicInteger();
+    }
+
+    public void updateAppliesMutator() {
+        WriteResponse response = database.update(CounterEntity.class, "counter", this::increment).execute();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(response.getDocumentRevision(), "2");
+        Assert.assertEquals(httpClient.count, 1);
+        Assert.assertEquals(mutations.get(), 1);
+        assertStats(1, 1, 0, 0);
+    }
+
+    public void conflictReadsLatestRevisionAndRetries() {
+        httpClient.otherWriters = 2;
+
+        WriteResponse response = database.update(CounterEntity.class, "counter", this::increment)
+                .backoff(0, 1)
+                .execute();
+
+        // Each conflict was another writer adding one, the update is applied on top of both.
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.count, 3);
+        Assert.assertEquals(mutations.get(), 3);
+        assertStats(1, 3, 2, 0);
+        Assert.assertEquals(metrics.getUpdateStats().get(0).getConflictRate(), 2.0 / 3.0, 0.0001);
+    }
+
+    public void conflictIsReturnedAfterMaxAttempts() {
+        httpClient.otherWriters = 10;
+        AtomicInteger errors = new AtomicInteger();
+
+        WriteResponse response = database.update(CounterEntity.class, "counter", this::increment)
+                .maxAttempts(3)
+                .backoff(0, 1)
+                .onError(r -> errors.incrementAndGet())
+                .execute();
+
+        Assert.assertTrue(response.isConflict());
+        Assert.assertEquals(errors.get(), 1);
+        Assert.assertEquals(mutations.get(), 3);
+        assertStats(1, 3, 3, 1);
+    }
+
+    public void missingDocumentIsNotFound() {
+        WriteResponse response = database.update(CounterEntity.class, "missing", this::increment).execute();
+
+        Assert.assertTrue(response.isNotFound());
+        Assert.assertEquals(response.getErrorContent().getError(), "not_found");
+        Assert.assertEquals(mutations.get(), 0);
+        assertStats(1, 1, 0, 1);
+    }
+
+    public void updateAsync() {
+        httpClient.otherWriters = 1;
+
+        WriteResponse response = database.update(CounterEntity.class, "counter", this::increment)
+                .backoff(0, 1)
+                .executeAsync()
+                .join();
+
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(httpClient.count, 2);
+    }
+
+    public void failedReadOfRetryEndsUpdate() {
+        httpClient.otherWriters = 1;
+        httpClient.failingGet = 2;
+
+        try {
+            database.update(CounterEntity.class, "counter", this::increment).backoff(0, 1).execute();
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Assert.assertTrue(e.getCause() instanceof ConnectException);
+        }
+        Assert.assertEquals(mutations.get(), 1);
+        assertStats(1, 2, 1, 1);
+    }
+
+    public void failedReadIsFailedFuture() {
+        httpClient.failingGet = 1;
+
+        CompletableFuture<WriteResponse> future = database.update(CounterEntity.class, "counter", this::increment).executeAsync();
+
+        Assert.assertTrue(future.isCompletedExceptionally());
+        try {
+            future.join();
+            Assert.fail("Expected CompletionException");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof CouchHttpException);
+        }
+        Assert.assertEquals(mutations.get(), 0);
+    }
+
+    private CounterEntity increment(CounterEntity entity) {
+        mutations.incrementAndGet();
+        return new CounterEntity(entity.getId(), entity.getRevision(), entity.getCount() + 1);
+    }
+
+    private void assertStats(long updates, long attempts, long conflicts, long failures) {
+        Assert.assertEquals(metrics.getUpdateStats().size(), 1);
+        CouchUpdateStats stats = metrics.getUpdateStats().get(0);
+        Assert.assertEquals(stats.getDatabaseName(), "unit-tests");
+        Assert.assertEquals(stats.getUpdates(), updates);
+        Assert.assertEquals(stats.getAttempts(), attempts);
+        Assert.assertEquals(stats.getConflicts(), conflicts);
+        Assert.assertEquals(stats.getFailures(), failures);
+    }
+
+    @CouchEntity("Counter")
+    public static class CounterEntity {
+        private final String id;
+        private final String revision;
+        private final int count;
+
+        public CounterEntity(String id, String revision, int count) {
+            this.id = id;
+            this.revision = revision;
+            this.count = count;
+        }
+
+        @CouchId
+        public String getId() {
+            return id;
+        }
+
+        @CouchRevision
+        public String getRevision() {
+            return revision;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Holds one counter document, the content is "revision:count" and revisions are plain numbers. While
+     * otherWriters is above zero each put loses to another writer adding one to the count. The get numbered
+     * failingGet cannot connect.
+     */
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        private int revision = 1;
+        private int count;
+        private int otherWriters;
+        private int gets;
+        private int failingGet;
+
+        @Override
+        public synchronized CouchHttpResponse get(HttpGetRequest getRequest) {
+            if (++gets == failingGet) {
+                throw CouchHttpException.internalServerError(new ConnectException("Connection refused"));
+            }
+            if (!getRequest.getPath().endsWith("/counter")) {
+                return CouchHttpResponse.builder(getRequest.getMethodType(), uri(getRequest.getPath()), CouchHttpStatus.NOT_FOUND)
+                        .setContent(CouchMediaType.APPLICATION_JSON, 0, "{\"error\":\"not_found\",\"reason\":\"missing\"}")
+                        .build();
+            }
+            return CouchHttpResponse.builder(getRequest.getMethodType(), uri(getRequest.getPath()), CouchHttpStatus.OK)
+                    .setDocumentId("counter")
+                    .setEtag(String.valueOf(revision))
+                    .setContent(null, 0, revision + ":" + count)
+                    .build();
+        }
+
+        @Override
+        public synchronized CouchHttpResponse put(HttpPutRequest putRequest) {
+            if (otherWriters > 0) {
+                otherWriters--;
+                revision++;
+                count++;
+            }
+            String rev = null;
+            for (CouchHttpQueryParam queryParam : putRequest.getHttpQuery()) {
+                if ("rev".equals(queryParam.getName())) {
+                    rev = queryParam.getValue()[0].toString();
+                }
+            }
+            if (!String.valueOf(revision).equals(rev)) {
+                return CouchHttpResponse.builder(putRequest.getMethodType(), uri(putRequest.getPath()), CouchHttpStatus.CONFLICT)
+                        .setContent(CouchMediaType.APPLICATION_JSON, 0, "{\"error\":\"conflict\",\"reason\":\"Document update conflict.\"}")
+                        .build();
+            }
+            revision++;
+            count = Integer.parseInt(putRequest.getContent().toString());
+            return CouchHttpResponse.builder(putRequest.getMethodType(), uri(putRequest.getPath()), CouchHttpStatus.CREATED)
+                    .setDocumentId(putRequest.getDocumentId())
+                    .setEtag(String.valueOf(revision))
+                    .build();
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            return CompletableFuture.completedFuture(get(request));
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest putRequest) {
+            return CompletableFuture.completedFuture(put(putRequest));
+        }
+    }
+
+    public static class StubCouchJsonStrategy extends MockCouchJsonStrategy {
+
+        @Override
+        public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+            String[] parts = json.split(":");
+            T entity = entityMeta.getEntityClass().cast(new CounterEntity("counter", parts[0], Integer.parseInt(parts[1])));
+            return new EntityDocument<>("counter", parts[0], null, "Counter", entity);
+        }
+
+        @Override
+        public String createJsonForPut(PutEntityRequest request) {
+            return String.valueOf(((CounterEntity) request.getEntity()).getCount());
+        }
+    }
+}
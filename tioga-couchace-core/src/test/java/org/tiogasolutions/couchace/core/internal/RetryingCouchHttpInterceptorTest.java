@@ -0,0 +1,197 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.core.internal;
+
+import org.tiogasolutions.couchace.core.MockCouchHttpClient;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpException;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.spi.http.CouchCircuitBreaker;
+import org.tiogasolutions.couchace.core.spi.http.CouchHttpResponse;
+import org.tiogasolutions.couchace.core.spi.http.HttpGetRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPostRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpPutRequest;
+import org.tiogasolutions.couchace.core.spi.http.HttpRequest;
+import org.tiogasolutions.couchace.core.spi.http.RetrySetup;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+
+@Test
+public class RetryingCouchHttpInterceptorTest {
+
+    private static final CouchHttpQuery REV = CouchHttpQuery.Builder().add("rev", "1-abc").build();
+
+    private StubCouchHttpClient httpClient;
+    private RetrySetup retrySetup;
+    private RetryingCouchHttpInterceptor interceptor;
+    private InterceptingCouchHttpClient client;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        httpClient = new StubCouchHttpClient();
+        retrySetup = new RetrySetup().setBackoff(0, 0, 1.0);
+        interceptor = new RetryingCouchHttpInterceptor(retrySetup, "localhost:5984");
+        client = new InterceptingCouchHttpClient(httpClient, Collections.singletonList(interceptor));
+    }
+
+    public void ioFailureIsRetried() {
+        httpClient.outcomes.add(CouchHttpException.internalServerError(new ConnectException("Connection refused")));
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("db/doc-1"));
+
+        Assert.assertTrue(response.isOk());
+        Assert.assertEquals(httpClient.calls, 2);
+    }
+
+    public void unavailableIsRetriedUpToMaxAttempts() {
+        httpClient.outcomes.addAll(Arrays.asList(CouchHttpStatus.SERVICE_UNAVAILABLE, CouchHttpStatus.BAD_GATEWAY, CouchHttpStatus.SERVICE_UNAVAILABLE));
+
+        CouchHttpResponse response = client.getAsync(new HttpGetRequest("db/doc-1")).join();
+
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(httpClient.calls, 3);
+    }
+
+    public void otherFailuresAreNotRetried() {
+        httpClient.outcomes.add(CouchHttpStatus.NOT_FOUND);
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isNotFound());
+        Assert.assertEquals(httpClient.calls, 1);
+
+        httpClient.outcomes.add(new IllegalStateException("bug"));
+        try {
+            client.get(new HttpGetRequest("db/doc-1"));
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(httpClient.calls, 2);
+        }
+    }
+
+    public void onlyIdempotentMethodsAreRetried() {
+        Assert.assertTrue(retrySetup.isRetryable(new HttpGetRequest("db/doc-1")));
+        Assert.assertTrue(retrySetup.isRetryable(new HttpPutRequest("db/doc-1", REV, "doc-1", CouchMediaType.APPLICATION_JSON, "{}")));
+        Assert.assertFalse(retrySetup.isRetryable(new HttpPutRequest("db/doc-1", null, "doc-1", CouchMediaType.APPLICATION_JSON, "{}")));
+        Assert.assertFalse(retrySetup.isRetryable(new HttpPutRequest("db/doc-1/a", REV, "doc-1", CouchMediaType.TEXT_PLAIN, new ByteArrayInputStream(new byte[1]))));
+        Assert.assertFalse(retrySetup.isRetryable(new HttpPostRequest("db", "{}")));
+
+        httpClient.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(client.post(new HttpPostRequest("db", "{}")).getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(httpClient.calls, 1);
+
+        retrySetup.setRetryAllMethods(true);
+        httpClient.outcomes.add(CouchHttpStatus.SERVICE_UNAVAILABLE);
+        Assert.assertTrue(client.post(new HttpPostRequest("db", "{}")).isOk());
+        Assert.assertEquals(httpClient.calls, 3);
+    }
+
+    public void circuitBreakerOpensAndRecovers() throws Exception {
+        retrySetup.setMaxAttempts(1).setCircuitBreaker(2, 50);
+        httpClient.outcomes.addAll(Arrays.asList(CouchHttpStatus.SERVICE_UNAVAILABLE, CouchHttpStatus.SERVICE_UNAVAILABLE));
+        client.get(new HttpGetRequest("db/doc-1"));
+        client.get(new HttpGetRequest("db/doc-1"));
+        CouchCircuitBreaker circuitBreaker = interceptor.getCircuitBreaker("localhost:5984");
+        Assert.assertEquals(circuitBreaker.getState(), CouchCircuitBreaker.State.OPEN);
+
+        try {
+            client.get(new HttpGetRequest("db/doc-1"));
+            Assert.fail("Expected CouchHttpException");
+        } catch (CouchHttpException e) {
+            Assert.assertEquals(e.getHttpStatus(), CouchHttpStatus.SERVICE_UNAVAILABLE);
+            Assert.assertEquals(httpClient.calls, 2);
+        }
+
+        Thread.sleep(60);
+        Assert.assertTrue(client.get(new HttpGetRequest("db/doc-1")).isOk());
+        Assert.assertEquals(circuitBreaker.getState(), CouchCircuitBreaker.State.CLOSED);
+        Assert.assertEquals(httpClient.calls, 3);
+    }
+
+    public void halfOpenFailureReopens() {
+        CouchCircuitBreaker circuitBreaker = new CouchCircuitBreaker("localhost:5984", 1, 0);
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getState(), CouchCircuitBreaker.State.OPEN);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertEquals(circuitBreaker.getState(), CouchCircuitBreaker.State.HALF_OPEN);
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        Assert.assertEquals(circuitBreaker.getState(), CouchCircuitBreaker.State.OPEN);
+    }
+
+    public void delayIsCappedAndJittered() {
+        RetrySetup setup = new RetrySetup().setBackoff(100, 300, 2.0).setJitter(0.0);
+        Assert.assertEquals(setup.getDelay(1), 100);
+        Assert.assertEquals(setup.getDelay(2), 200);
+        Assert.assertEquals(setup.getDelay(3), 300);
+        Assert.assertEquals(setup.getDelay(10), 300);
+
+        setup.setJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            long delay = setup.getDelay(2);
+            Assert.assertTrue(delay >= 100 && delay <= 200, "delay " + delay);
+        }
+    }
+
+    public static class StubCouchHttpClient extends MockCouchHttpClient {
+        // Each call takes the next outcome, a status or a thrown exception, then answers OK.
+        private final Deque<Object> outcomes = new ArrayDeque<>();
+        private int calls;
+
+        @Override
+        public CouchHttpResponse get(HttpGetRequest request) {
+            return respond(request);
+        }
+
+        @Override
+        public CouchHttpResponse post(HttpPostRequest postRequest) {
+            return respond(postRequest);
+        }
+
+        @Override
+        public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+            CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+            try {
+                future.complete(respond(request));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        private synchronized CouchHttpResponse respond(HttpRequest request) {
+            calls++;
+            Object outcome = outcomes.poll();
+            if (outcome instanceof RuntimeException) {
+                throw (RuntimeException) outcome;
+            }
+            CouchHttpStatus status = (outcome != null) ? (CouchHttpStatus) outcome : CouchHttpStatus.OK;
+            return CouchHttpResponse.builder(request.getMethodType(), URI.create("http://localhost:5984/" + request.getPath()), status)
+                    .setContent(CouchMediaType.APPLICATION_JSON, 2, "{}")
+                    .build();
+        }
+    }
+}
@@ -16,24 +16,42 @@
 
 package org.tiogasolutions.couchace.jackson;
 
+import org.tiogasolutions.couchace.annotations.CouchAttachmentInfo;
 import org.tiogasolutions.couchace.annotations.CouchAttachmentInfoMap;
 import org.tiogasolutions.couchace.core.api.CouchDatabaseInfo;
 import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.http.CouchMethodType;
 import org.tiogasolutions.couchace.core.api.injectable.CouchInjectables;
 import org.tiogasolutions.couchace.core.api.injectable.MissingInjectableResponse;
 import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
 import org.tiogasolutions.couchace.core.api.meta.CouchEmbeddedAttachmentMeta;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
 import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+import org.tiogasolutions.couchace.core.api.request.CouchInlineAttachment;
 import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
 import org.tiogasolutions.couchace.core.api.request.PostEntityRequest;
 import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchErrorContent;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
 import org.tiogasolutions.couchace.core.api.response.EntityDocument;
 import org.tiogasolutions.couchace.core.api.response.GetAttachmentResponse;
 import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.CouchJsonUtil;
 import org.tiogasolutions.couchace.core.spi.json.CouchJsonStrategy;
 import org.tiogasolutions.couchace.jackson.internal.CustomJacksonInjectableValues;
+import org.tiogasolutions.couchace.jackson.internal.JacksonChangeIterator;
+import org.tiogasolutions.couchace.jackson.internal.JacksonDocumentIterator;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -41,15 +59,30 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * User: harlan
@@ -128,177 +161,846 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
                 request.getDocumentRevision(),
                 request.getEntityType(),
                 request.getEntity(),
-                request.getAttachmentInfoMap());
+                request.getAttachmentInfoMap(),
+                request.getInlineAttachments());
     }
 
     @Override
     public String createJsonForPost(PostEntityRequest request) {
-        return createJsonForWrite(null, null, request.getEntityType(), request.getEntity(), null);
+        return createJsonForWrite(null, null, request.getEntityType(), request.getEntity(), null, request.getInlineAttachments());
     }
 
     @Override
     public TextDocument readTextDocument(String json) throws CouchJsonException {
-        JsonFactory jsonFactory = objectMapper.getFactory();
         try {
-            try (JsonParser parser = jsonFactory.createParser(json)) {
-                if (parser.nextToken() != JsonToken.START_OBJECT) {
-                    throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            return readTextDocument(objectMapper.getFactory().createParser(json), json);
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    @Override
+    public TextDocument readTextDocument(byte[] json) throws CouchJsonException {
+        try {
+            // The document content is the JSON itself, so this is the one read that still decodes the whole body.
+            return readTextDocument(objectMapper.getFactory().createParser(json), new String(json, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    protected TextDocument readTextDocument(JsonParser jsonParser, String json) throws IOException {
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+
+            String documentId = null;
+            String revision = null;
+            while (parser.nextToken() != JsonToken.END_OBJECT) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("_id".equals(name)) {
+                    documentId = parser.getText();
+                } else if ("_rev".equals(name)) {
+                    revision = parser.getText();
                 }
 
-                String documentId = null;
-                String revision = null;
-                while (parser.nextToken() != JsonToken.END_OBJECT) {
-                    String name = parser.getCurrentName();
+                if (documentId != null && revision != null) {
+                    // We have what we needed, stop parsing.
+                    break;
+                }
+            }
+
+            return new TextDocument(documentId, revision, null, json);
+        }
+    }
+
+    @Override
+    public List<TextDocument> readTextDocuments(String json) throws CouchJsonException {
+        return readTextDocumentsUsingTree(json);
+    }
+
+    @Override
+    public List<TextDocument> readTextDocuments(byte[] json) throws CouchJsonException {
+        try {
+            return readTextDocumentsUsingTree(objectMapper.getFactory().createParser(json));
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    protected List<TextDocument> readTextDocumentsUsingTree(String json) throws CouchJsonException {
+        try {
+            return readTextDocumentsUsingTree(objectMapper.getFactory().createParser(json));
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    protected List<TextDocument> readTextDocumentsUsingTree(JsonParser jsonParser) throws IOException {
+        List<TextDocument> documentList;
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            documentList = new ArrayList<>();
+            while (parser.nextToken() != null) {
+                String name = parser.getCurrentName();
+                if ("rows".equals(name)) {
                     parser.nextToken();
-                    if ("_id".equals(name)) {
-                        documentId = parser.getText();
-                    } else if ("_rev".equals(name)) {
-                        revision = parser.getText();
+
+                    ArrayNode rowsNode = objectMapper.readTree(parser);
+
+                    for (int i = 0; i < rowsNode.size(); i++) {
+                        documentList.add(readTextRow(rowsNode.get(i)));
                     }
+                }
+            }
+        }
+        return documentList;
+    }
 
-                    if (documentId != null && revision != null) {
-                        // We have what we needed, stop parsing.
-                        break;
+    @Override
+    public CouchFindResult<TextDocument> readFindTextDocuments(String json) throws CouchJsonException {
+        try {
+            return readFindTextDocuments(objectMapper.getFactory().createParser(json));
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    @Override
+    public CouchFindResult<TextDocument> readFindTextDocuments(byte[] json) throws CouchJsonException {
+        try {
+            return readFindTextDocuments(objectMapper.getFactory().createParser(json));
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    protected CouchFindResult<TextDocument> readFindTextDocuments(JsonParser jsonParser) throws IOException {
+        JsonNode rootNode;
+        try (JsonParser parser = jsonParser) {
+            rootNode = objectMapper.readTree(parser);
+            if (rootNode == null || !rootNode.isObject()) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+        }
+
+        List<TextDocument> documentList = new ArrayList<>();
+        JsonNode docsNode = rootNode.get("docs");
+        if (docsNode != null && docsNode.isArray()) {
+            for (JsonNode docNode : docsNode) {
+                JsonNode idNode = docNode.get("_id");
+                JsonNode revNode = docNode.get("_rev");
+                documentList.add(new TextDocument(
+                        (idNode != null) ? idNode.asText() : null,
+                        (revNode != null) ? revNode.asText() : null,
+                        null,
+                        docNode.toString()));
+            }
+        }
+        return new CouchFindResult<>(documentList, textValue(rootNode, "bookmark"), textValue(rootNode, "warning"));
+    }
+
+    private static String textValue(JsonNode node, String name) {
+        JsonNode valueNode = node.get(name);
+        return (valueNode != null && !valueNode.isNull()) ? valueNode.asText() : null;
+    }
+
+    @Override
+    public List<CouchFindIndex> readFindIndexes(String json) throws CouchJsonException {
+        JsonNode rootNode;
+        try {
+            rootNode = objectMapper.readTree(json);
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+
+        List<CouchFindIndex> indexList = new ArrayList<>();
+        JsonNode indexesNode = (rootNode != null) ? rootNode.get("indexes") : null;
+        if (indexesNode == null || !indexesNode.isArray()) {
+            return indexList;
+        }
+        for (JsonNode indexNode : indexesNode) {
+            // Each field of the definition is an object of one field, {"name":"asc"}
+            List<String> fields = new ArrayList<>();
+            JsonNode defNode = indexNode.get("def");
+            JsonNode fieldsNode = (defNode != null) ? defNode.get("fields") : null;
+            if (fieldsNode != null) {
+                for (JsonNode fieldNode : fieldsNode) {
+                    Iterator<String> names = fieldNode.fieldNames();
+                    if (names.hasNext()) {
+                        fields.add(names.next());
                     }
                 }
+            }
+            JsonNode partialFilterNode = (defNode != null) ? defNode.get("partial_filter_selector") : null;
+            String partialFilterJson = (partialFilterNode != null && partialFilterNode.size() > 0) ? partialFilterNode.toString() : null;
+            indexList.add(new CouchFindIndex(
+                    textValue(indexNode, "ddoc"),
+                    textValue(indexNode, "name"),
+                    textValue(indexNode, "type"),
+                    fields,
+                    partialFilterJson));
+        }
+        return indexList;
+    }
 
-                return new TextDocument(documentId, revision, null, json);
+    @Override
+    public CouchDocumentIterator<TextDocument> streamTextDocuments(InputStream inputStream) throws CouchJsonException {
+        ArgUtil.assertNotNull(inputStream, "inputStream");
+        return streamRows(inputStream, parser -> readTextRow(objectMapper.readTree(parser)));
+    }
+
+    protected TextDocument readTextRow(JsonNode documentNode) {
+        // Id
+        JsonNode idNode = documentNode.get("id");
+        String id = (idNode != null) ? idNode.asText() : null;
+
+        // Key
+        JsonNode keyNode = documentNode.get("key");
+        CouchJsonKey jsonKey = (keyNode != null) ? new CouchJsonKey(keyNode.asText()) : new CouchJsonKey();
+
+        // Content may come from value or doc
+        JsonNode contentNode = documentNode.get("doc");
+        if (contentNode == null) {
+            contentNode = documentNode.get("value");
+        }
+
+        // TODO - review this
+        // If we have a content node then get string content and revision
+        String content = null;
+        String revision = null;
+        if (contentNode != null) {
+            // Use toString() on the node to the the actual JSON document (this came from the Jackson developer)
+            content = contentNode.toString();
+
+            // Get the revision from within the content (may not always be there).
+            JsonNode revNode = contentNode.get("_rev");
+            if (revNode == null) {
+                revNode = contentNode.get("rev");
             }
+            revision = (revNode != null) ? revNode.asText() : null;
+        }
+
+        // Create the document
+        return new TextDocument(
+                id,
+                revision,
+                jsonKey,
+                content
+        );
+    }
+
+    @Override
+    public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        try {
+            return readEntityDocument(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json), json);
         } catch (IOException e) {
             throw new CouchJsonException(e);
         }
     }
 
     @Override
-    public List<TextDocument> readTextDocuments(String json) throws CouchJsonException {
-        return readTextDocumentsUsingTree(json);
+    public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        if (entityMeta.getEntityClass() == String.class) {
+            // A String entity is the JSON itself.
+            return readEntityDocument(getRequestFactory, entityMeta, new String(json, StandardCharsets.UTF_8));
+        }
+        try {
+            return readEntityDocument(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json), null);
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
     }
 
-    protected List<TextDocument> readTextDocumentsUsingTree(String json) throws CouchJsonException {
-        JsonFactory jsonFactory = objectMapper.getFactory();
+    protected <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, JsonParser jsonParser, String json) throws IOException {
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+
+            return finalizeEntityDoc(getRequestFactory, entityMeta, parser, null, json, null, true);
+        }
+    }
+
+    @Override
+    public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
         try {
-            List<TextDocument> documentList;
-            try (JsonParser parser = jsonFactory.createParser(json)) {
-                if (parser.nextToken() != JsonToken.START_OBJECT) {
-                    throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            Map<String, CompletableFuture<GetAttachmentResponse>> prefetched = isPrefetchingAttachments(getRequestFactory, entityMeta)
+                    ? prefetchAttachments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json))
+                    : null;
+            return readEntityDocuments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json), json, prefetched);
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    @Override
+    public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        if (entityMeta.getEntityClass() == String.class) {
+            // A String entity is the JSON itself.
+            return readEntityDocuments(getRequestFactory, entityMeta, new String(json, StandardCharsets.UTF_8));
+        }
+        try {
+            Map<String, CompletableFuture<GetAttachmentResponse>> prefetched = isPrefetchingAttachments(getRequestFactory, entityMeta)
+                    ? prefetchAttachments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json))
+                    : null;
+            return readEntityDocuments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json), null, prefetched);
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    /**
+     * Writes the entity to a token buffer and reads it back, the embedded attachments are carried over rather than
+     * fetched again. A String entity is immutable and returned as is.
+     */
+    @Override
+    public <T> EntityDocument<T> copyEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, EntityDocument<T> document) throws CouchJsonException {
+        T entity = document.getEntity();
+        if (entity == null || entity instanceof String) {
+            return document;
+        }
+        Map<String, Object> knownAttachments = new HashMap<>();
+        for (CouchEmbeddedAttachmentMeta attachmentDef : entityMeta.getEmbeddedAttachmentMetaList()) {
+            knownAttachments.put(attachmentDef.getAttachmentName(), attachmentDef.readValue(entity));
+        }
+        try {
+            TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+            objectMapper.writeValue(buffer, entity);
+            try (JsonParser parser = buffer.asParser(objectMapper)) {
+                parser.nextToken();
+                T copy = readEntity(getRequestFactory,
+                        entityMeta,
+                        parser,
+                        document.getDocumentId(),
+                        document.getDocumentRevision(),
+                        entityMeta.readAttachmentInfoMap(entity),
+                        knownAttachments,
+                        null);
+                return new EntityDocument<>(document.getDocumentId(), document.getDocumentRevision(), document.getKey(), document.getEntityType(), copy);
+            }
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    protected <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, JsonParser jsonParser, String json) throws IOException {
+        return readEntityDocuments(getRequestFactory, entityMeta, jsonParser, json, null);
+    }
+
+    /**
+     * @param prefetched - attachment fetches already under way, keyed by attachmentKey, may be null.
+     */
+    protected <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory,
+                                                              CouchEntityMeta<T> entityMeta,
+                                                              JsonParser jsonParser,
+                                                              String json,
+                                                              Map<String, CompletableFuture<GetAttachmentResponse>> prefetched) throws IOException {
+        List<EntityDocument<T>> entityDocumentList;
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            entityDocumentList = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("rows".equals(name) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        entityDocumentList.add(readEntityRow(getRequestFactory, entityMeta, parser, json, prefetched));
+                    }
+                } else {
+                    parser.skipChildren();
                 }
-                documentList = new ArrayList<>();
-                while (parser.nextToken() != null) {
-                    String name = parser.getCurrentName();
-                    if ("rows".equals(name)) {
-                        parser.nextToken();
+            }
+        }
+        return entityDocumentList;
+    }
 
-                        ArrayNode rowsNode = objectMapper.readTree(parser);
-
-                        for (int i = 0; i < rowsNode.size(); i++) {
-                            JsonNode documentNode = rowsNode.get(i);
-
-                            // Id
-                            JsonNode idNode = documentNode.get("id");
-                            String id = (idNode != null) ? idNode.asText() : null;
-
-                            // Key
-                            JsonNode keyNode = documentNode.get("key");
-                            CouchJsonKey jsonKey = (keyNode != null) ? new CouchJsonKey(keyNode.asText()) : new CouchJsonKey();
-
-                            // Content may come from value or doc
-                            JsonNode contentNode = documentNode.get("doc");
-                            if (contentNode == null) {
-                                contentNode = documentNode.get("value");
-                            }
-
-                            // TODO - review this
-                            // If we have a content node then get string content and revision
-                            String content = null;
-                            String revision = null;
-                            if (contentNode != null) {
-                                // Use toString() on the node to the the actual JSON document (this came from the Jackson developer)
-                                content = contentNode.toString();
-
-                                // Get the revision from within the content (may not always be there).
-                                JsonNode revNode = contentNode.get("_rev");
-                                if (revNode == null) {
-                                    revNode = contentNode.get("rev");
-                                }
-                                revision = (revNode != null) ? revNode.asText() : null;
-                            }
-
-                            // Create the document
-                            documentList.add(new TextDocument(
-                                    id,
-                                    revision,
-                                    jsonKey,
-                                    content
-                            ));
+    protected boolean isPrefetchingAttachments(GetRequestFactory getRequestFactory, CouchEntityMeta<?> entityMeta) {
+        return entityMeta.hasEmbeddedAttachments() && getRequestFactory != null && entityMeta.getEntityClass() != String.class;
+    }
+
+    /**
+     * A first pass over the rows, skipping the entities, that starts fetching the embedded attachments of the whole
+     * page at once rather than one GET at a time as each row is read. Inline attachments are not fetched, nor those
+     * a whole document (a "doc" row) does not list, only a view value without _attachments may have any.
+     * @return the fetches under way keyed by attachmentKey
+     */
+    protected Map<String, CompletableFuture<GetAttachmentResponse>> prefetchAttachments(GetRequestFactory getRequestFactory, CouchEntityMeta<?> entityMeta, JsonParser jsonParser) throws IOException {
+        Map<String, CompletableFuture<GetAttachmentResponse>> prefetched = new HashMap<>();
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("rows".equals(name) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        prefetchRowAttachments(getRequestFactory, entityMeta, parser, prefetched);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return prefetched;
+    }
+
+    protected void prefetchRowAttachments(GetRequestFactory getRequestFactory,
+                                          CouchEntityMeta<?> entityMeta,
+                                          JsonParser parser,
+                                          Map<String, CompletableFuture<GetAttachmentResponse>> prefetched) throws IOException {
+        AttachmentRefs valueRefs = null;
+        AttachmentRefs docRefs = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("value".equals(name) && token == JsonToken.START_OBJECT) {
+                valueRefs = readAttachmentRefs(parser, false);
+            } else if ("doc".equals(name) && token == JsonToken.START_OBJECT) {
+                docRefs = readAttachmentRefs(parser, true);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        AttachmentRefs refs = (docRefs != null) ? docRefs : valueRefs;
+        if (refs == null || refs.id == null || refs.rev == null || !refs.entity) {
+            return;
+        }
+        for (CouchEmbeddedAttachmentMeta attachmentDef : entityMeta.getEmbeddedAttachmentMetaList()) {
+            String name = attachmentDef.getAttachmentName();
+            boolean fetch = (refs.attachments != null) ? Boolean.FALSE.equals(refs.attachments.get(name)) : !refs.wholeDocument;
+            if (fetch) {
+                prefetched.put(attachmentKey(refs.id, name), getRequestFactory.attachment(refs.id, refs.rev, name).executeAsync());
+            }
+        }
+    }
+
+    /**
+     * Reads the id, revision and attachment names of a document, the parser is on its START_OBJECT and is left on
+     * its END_OBJECT.
+     */
+    protected AttachmentRefs readAttachmentRefs(JsonParser parser, boolean wholeDocument) throws IOException {
+        AttachmentRefs refs = new AttachmentRefs(wholeDocument);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_id".equals(name)) {
+                refs.id = parser.getText();
+            } else if ("_rev".equals(name)) {
+                refs.rev = parser.getText();
+            } else if ("entity".equals(name)) {
+                refs.entity = true;
+                parser.skipChildren();
+            } else if ("_attachments".equals(name) && token == JsonToken.START_OBJECT) {
+                refs.attachments = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String attachmentName = parser.getCurrentName();
+                    boolean inline = false;
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            inline |= "data".equals(parser.getCurrentName());
+                            parser.nextToken();
+                            parser.skipChildren();
                         }
+                    } else {
+                        parser.skipChildren();
                     }
+                    refs.attachments.put(attachmentName, inline);
                 }
+            } else {
+                parser.skipChildren();
             }
-            return documentList;
+        }
+        return refs;
+    }
+
+    /**
+     * What prefetchAttachments needs of a document, attachments maps each listed attachment to whether it is
+     * inline and is null when the document has no _attachments.
+     */
+    protected static class AttachmentRefs {
+        private final boolean wholeDocument;
+        private String id;
+        private String rev;
+        private boolean entity;
+        private Map<String, Boolean> attachments;
+
+        protected AttachmentRefs(boolean wholeDocument) {
+            this.wholeDocument = wholeDocument;
+        }
+    }
+
+    @Override
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+        try {
+            return readFindEntityDocuments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json));
         } catch (IOException ex) {
             throw new CouchJsonException(ex);
         }
     }
 
     @Override
-    public <T> EntityDocument<T> readEntityDocument(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
+    public <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, byte[] json) throws CouchJsonException {
+        try {
+            return readFindEntityDocuments(getRequestFactory, entityMeta, objectMapper.getFactory().createParser(json));
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    protected <T> CouchFindResult<EntityDocument<T>> readFindEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, JsonParser jsonParser) throws IOException {
+        List<EntityDocument<T>> entityDocumentList = new ArrayList<>();
+        String bookmark = null;
+        String warning = null;
+        try (JsonParser parser = jsonParser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("docs".equals(name) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        entityDocumentList.add(readFindEntityDoc(getRequestFactory, entityMeta, parser));
+                    }
+                } else if ("bookmark".equals(name)) {
+                    bookmark = parser.getValueAsString();
+                } else if ("warning".equals(name)) {
+                    warning = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new CouchFindResult<>(entityDocumentList, bookmark, warning);
+    }
+
+    private <T> EntityDocument<T> readFindEntityDoc(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, JsonParser parser) throws IOException {
+        if (entityMeta.getEntityClass() != String.class) {
+            return finalizeEntityDoc(getRequestFactory, entityMeta, parser, null, null);
+        }
+        // A String entity is the JSON of its own document rather than the whole response.
+        JsonNode docNode = objectMapper.readTree(parser);
+        try (JsonParser docParser = docNode.traverse(objectMapper)) {
+            docParser.nextToken();
+            return finalizeEntityDoc(getRequestFactory, entityMeta, docParser, null, docNode.toString());
+        }
+    }
+
+    @Override
+    public <T> CouchDocumentIterator<EntityDocument<T>> streamEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        ArgUtil.assertNotNull(inputStream, "inputStream");
+        if (entityMeta.getEntityClass() == String.class) {
+            // A String entity is the whole response JSON, which is exactly what streaming avoids.
+            throw CouchJsonException.internalServerError("Streaming is not supported for String entities, use streamTextDocuments.");
+        }
+        return streamRows(inputStream, parser -> readEntityRow(getRequestFactory, entityMeta, parser, null));
+    }
+
+    @Override
+    public CouchChangeIterator<TextDocument> streamTextChanges(InputStream inputStream) throws CouchJsonException {
+        ArgUtil.assertNotNull(inputStream, "inputStream");
+        return streamChanges(inputStream, parser -> {
+            JsonNode documentNode = objectMapper.readTree(parser);
+            JsonNode idNode = documentNode.get("_id");
+            JsonNode revNode = documentNode.get("_rev");
+            return new TextDocument(
+                    (idNode != null) ? idNode.asText() : null,
+                    (revNode != null) ? revNode.asText() : null,
+                    null,
+                    documentNode.toString());
+        });
+    }
+
+    @Override
+    public <T> CouchChangeIterator<EntityDocument<T>> streamEntityChanges(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, InputStream inputStream) throws CouchJsonException {
+        ArgUtil.assertNotNull(inputStream, "inputStream");
+        if (entityMeta.getEntityClass() == String.class) {
+            throw CouchJsonException.internalServerError("Streaming is not supported for String entities, use streamTextChanges.");
+        }
+        return streamChanges(inputStream, parser -> finalizeEntityDoc(getRequestFactory, entityMeta, parser, null, null, null, true));
+    }
+
+    protected <D extends CouchDocument<?>> CouchChangeIterator<D> streamChanges(InputStream inputStream, JacksonDocumentIterator.RowReader<D> docReader) throws CouchJsonException {
+        try {
+            return new JacksonChangeIterator<>(objectMapper.getFactory().createParser(inputStream), docReader);
+        } catch (IOException ex) {
+            closeQuietly(null, inputStream);
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    /**
+     * Positions a parser over the stream on the "rows" array, the rows are then read one at a time as they are iterated.
+     */
+    protected <D> CouchDocumentIterator<D> streamRows(InputStream inputStream, JacksonDocumentIterator.RowReader<D> rowReader) throws CouchJsonException {
         JsonFactory jsonFactory = objectMapper.getFactory();
+        JsonParser parser = null;
         try {
-            try (JsonParser parser = jsonFactory.createParser(json)) {
-                if (parser.nextToken() != JsonToken.START_OBJECT) {
-                    throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            parser = jsonFactory.createParser(inputStream);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("rows".equals(name) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    return new JacksonDocumentIterator<>(parser, rowReader);
                 }
+                parser.skipChildren();
+            }
+
+            // No rows in the response.
+            parser.close();
+            return CouchDocumentIterator.empty();
+
+        } catch (IOException ex) {
+            closeQuietly(parser, inputStream);
+            throw new CouchJsonException(ex);
+        }
+    }
 
-                return finalizeEntityDoc(getRequestFactory, entityMeta, parser, null, json);
+    private void closeQuietly(JsonParser parser, InputStream inputStream) {
+        try {
+            if (parser != null) {
+                parser.close();
+            } else {
+                inputStream.close();
             }
         } catch (IOException e) {
-            throw new CouchJsonException(e);
+            log.warn("Error closing response stream: " + e.getMessage());
         }
     }
 
     @Override
-    public <T> List<EntityDocument<T>> readEntityDocuments(GetRequestFactory getRequestFactory, CouchEntityMeta<T> entityMeta, String json) throws CouchJsonException {
-        JsonFactory jsonFactory = objectMapper.getFactory();
-        try {
-            List<EntityDocument<T>> entityDocumentList;
-            try (JsonParser parser = jsonFactory.createParser(json)) {
-                if (parser.nextToken() != JsonToken.START_OBJECT) {
-                    throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+    public CouchLongReduction readLongReduction(InputStream inputStream) throws CouchJsonException {
+        CouchLongReduction.Builder builder = CouchLongReduction.builder();
+        readReductionRows(inputStream, new ReductionRowReader() {
+            private long value;
+
+            @Override
+            public void readValue(JsonParser parser) throws IOException {
+                value = readNumber(parser).getLongValue();
+            }
+
+            @Override
+            public void endRow(CouchJsonKey key) {
+                builder.add(key, value);
+                value = 0;
+            }
+        });
+        return builder.build();
+    }
+
+    @Override
+    public CouchDoubleReduction readDoubleReduction(InputStream inputStream) throws CouchJsonException {
+        CouchDoubleReduction.Builder builder = CouchDoubleReduction.builder();
+        readReductionRows(inputStream, new ReductionRowReader() {
+            private double value;
+
+            @Override
+            public void readValue(JsonParser parser) throws IOException {
+                value = readNumber(parser).getDoubleValue();
+            }
+
+            @Override
+            public void endRow(CouchJsonKey key) {
+                builder.add(key, value);
+                value = 0;
+            }
+        });
+        return builder.build();
+    }
+
+    @Override
+    public CouchStatsReduction readStatsReduction(InputStream inputStream) throws CouchJsonException {
+        CouchStatsReduction.Builder builder = CouchStatsReduction.builder();
+        readReductionRows(inputStream, new ReductionRowReader() {
+            private double sum;
+            private long count;
+            private double min;
+            private double max;
+            private double sumsqr;
+
+            @Override
+            public void readValue(JsonParser parser) throws IOException {
+                if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a _stats object as the reduced value: " + parser.getCurrentToken());
                 }
-                entityDocumentList = new ArrayList<>();
-                while (parser.nextToken() != null) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
                     String name = parser.getCurrentName();
                     parser.nextToken();
-                    if ("rows".equals(name)) {
-                        CouchJsonKey key = null;
-                        while (parser.hasCurrentToken()) {
-                            name = parser.getCurrentName();
-                            if ("key".equals(name)) {
-                                JsonToken token = parser.getCurrentToken();
-                                if (token.isNumeric()) {
-                                    key = new CouchJsonKey(parser.getNumberValue());
-                                } else {
-                                    key = new CouchJsonKey(parser.getText());
-                                }
-                            } else if ("value".equals(name)) {
-                                // At this point we pass processing to the finalize methods - in many cases they will be parsing "doc" node
-                                parser.nextToken();
-
-                                // Parsing an entity
-                                EntityDocument<T> entityDocument = finalizeEntityDoc(getRequestFactory, entityMeta, parser, key, json);
-                                entityDocumentList.add(entityDocument);
-
-                                // Since we have parsed the value now is the time to clear out the key.
-                                key = null;
-                            }
-                            parser.nextToken();
+                    switch (name) {
+                        case "sum": sum = readNumber(parser).getDoubleValue(); break;
+                        case "count": count = readNumber(parser).getLongValue(); break;
+                        case "min": min = readNumber(parser).getDoubleValue(); break;
+                        case "max": max = readNumber(parser).getDoubleValue(); break;
+                        case "sumsqr": sumsqr = readNumber(parser).getDoubleValue(); break;
+                        default: parser.skipChildren();
+                    }
+                }
+            }
+
+            @Override
+            public void endRow(CouchJsonKey key) {
+                builder.add(key, sum, count, min, max, sumsqr);
+                sum = min = max = sumsqr = 0;
+                count = 0;
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Reads the rows of a reduced view with the parser alone, the key of each row is its JSON text and the value is
+     * left to the row reader so no tree node or String is made for it.
+     */
+    protected void readReductionRows(InputStream inputStream, ReductionRowReader rowReader) throws CouchJsonException {
+        ArgUtil.assertNotNull(inputStream, "inputStream");
+        JsonParser parser = null;
+        try {
+            parser = objectMapper.getFactory().createParser(inputStream);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected response JSON to start with an Object: " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (!"rows".equals(name) || parser.getCurrentToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    CouchJsonKey key = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("key".equals(field)) {
+                            key = readReductionKey(parser);
+                        } else if ("value".equals(field)) {
+                            rowReader.readValue(parser);
+                        } else {
+                            parser.skipChildren();
                         }
                     }
+                    rowReader.endRow(key);
                 }
             }
-            return entityDocumentList;
         } catch (IOException ex) {
             throw new CouchJsonException(ex);
+        } finally {
+            closeQuietly(parser, inputStream);
+        }
+    }
+
+    private CouchJsonKey readReductionKey(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return CouchJsonKey.fromJson(CouchJsonUtil.quote(parser.getText()));
+            case START_ARRAY:
+            case START_OBJECT:
+                StringWriter writer = new StringWriter();
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                return CouchJsonKey.fromJson(writer.toString());
+            default:
+                return CouchJsonKey.fromJson(parser.getText());
+        }
+    }
+
+    private static JsonParser readNumber(JsonParser parser) throws IOException {
+        if (!parser.getCurrentToken().isNumeric()) {
+            throw new IOException("Expected a number as the reduced value, is the view reduced by _count, _sum or _stats? " + parser.getCurrentToken());
+        }
+        return parser;
+    }
+
+    /**
+     * Reads the value of each reduced row into primitives, endRow is called once the key and value of a row are read.
+     */
+    protected interface ReductionRowReader {
+
+        void readValue(JsonParser parser) throws IOException;
+
+        void endRow(CouchJsonKey key);
+    }
+
+    /**
+     * Reads a single row of a view or _all_docs result, the parser is positioned on the START_OBJECT of the row
+     * and is left on its END_OBJECT. The entity is taken from "doc" when included, otherwise from "value".
+     */
+    protected <T> EntityDocument<T> readEntityRow(GetRequestFactory getRequestFactory,
+                                                  CouchEntityMeta<T> entityMeta,
+                                                  JsonParser parser,
+                                                  String json) throws IOException {
+        return readEntityRow(getRequestFactory, entityMeta, parser, json, null);
+    }
+
+    /**
+     * @param prefetched - attachment fetches already under way, keyed by attachmentKey, may be null.
+     */
+    protected <T> EntityDocument<T> readEntityRow(GetRequestFactory getRequestFactory,
+                                                  CouchEntityMeta<T> entityMeta,
+                                                  JsonParser parser,
+                                                  String json,
+                                                  Map<String, CompletableFuture<GetAttachmentResponse>> prefetched) throws IOException {
+        String id = null;
+        CouchJsonKey key = null;
+        String keyText = null;
+        String error = null;
+        boolean nullDoc = false;
+        EntityDocument<T> valueDocument = null;
+        EntityDocument<T> docDocument = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("id".equals(name)) {
+                id = parser.getText();
+            } else if ("key".equals(name)) {
+                if (token.isNumeric()) {
+                    key = new CouchJsonKey(parser.getNumberValue());
+                } else {
+                    keyText = parser.getText();
+                    key = new CouchJsonKey(keyText);
+                }
+                parser.skipChildren();
+            } else if ("error".equals(name)) {
+                error = parser.getText();
+            } else if ("value".equals(name) && token == JsonToken.START_OBJECT) {
+                valueDocument = finalizeEntityDoc(getRequestFactory, entityMeta, parser, key, json, prefetched, false);
+            } else if ("doc".equals(name) && token == JsonToken.START_OBJECT) {
+                docDocument = finalizeEntityDoc(getRequestFactory, entityMeta, parser, key, json, prefetched, true);
+            } else if ("doc".equals(name) && token == JsonToken.VALUE_NULL) {
+                nullDoc = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (docDocument != null) {
+            return docDocument;
+        } else if (error != null) {
+            // _all_docs with keys reports an unknown id as {"key":"x","error":"not_found"}
+            return EntityDocument.notFound((id != null) ? id : keyText, key);
+        } else if (nullDoc) {
+            // _all_docs with keys reports a deleted id with a null doc.
+            String revision = (valueDocument != null) ? valueDocument.getDocumentRevision() : null;
+            return EntityDocument.deleted(id, revision, key);
+        } else if (valueDocument != null) {
+            return valueDocument;
+        } else {
+            return new EntityDocument<>(id, null, key, null, null);
         }
     }
 
@@ -307,11 +1009,28 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
                                                       JsonParser parser,
                                                       CouchJsonKey key,
                                                       String json) throws IOException {
+        return finalizeEntityDoc(getRequestFactory, entityMeta, parser, key, json, null, false);
+    }
+
+    /**
+     * @param prefetched - attachment fetches already under way, keyed by attachmentKey, may be null.
+     * @param wholeDocument - true when the object is the whole document, so one without _attachments has none,
+     *                      false for a view value that may leave them out.
+     */
+    protected <T> EntityDocument<T> finalizeEntityDoc(GetRequestFactory getRequestFactory,
+                                                      CouchEntityMeta<T> entityMeta,
+                                                      JsonParser parser,
+                                                      CouchJsonKey key,
+                                                      String json,
+                                                      Map<String, CompletableFuture<GetAttachmentResponse>> prefetched,
+                                                      boolean wholeDocument) throws IOException {
         Class<T> entityClass = entityMeta.getEntityClass();
         String id = null;
         String rev = null;
         String entityType = null;
         CouchAttachmentInfoMap attachmentInfoMap = null;
+        Map<String, Object> inlineAttachments = new HashMap<>();
+        TokenBuffer entityBuffer = null;
         T entity = null;
         while (parser.nextToken() != JsonToken.END_OBJECT && parser.getCurrentToken() != null) {
             String name = parser.getCurrentName();
@@ -320,8 +1039,11 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
                 id = parser.getText();
             } else if ("_rev".equals(name)) {
                 rev = parser.getText();
+            } else if ("rev".equals(name) && rev == null && id == null) {
+                // The value of an _all_docs row is {"rev":"..."}
+                rev = parser.getText();
             } else if ("_attachments".equals(name)) {
-                attachmentInfoMap = parser.readValueAs(CouchAttachmentInfoMap.class);
+                attachmentInfoMap = readAttachmentInfoMap(parser, inlineAttachments);
             } else if ("entityType".equals(name)) {
                 entityType = parser.getText();
             } else if ("entity".equals(name) && entityClass != String.class) {
@@ -333,12 +1055,27 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
                     throw CouchJsonException.internalServerError("Error finalizing Entity from JSON, found entity but _rev was never found.");
                 }
 
-                // Create couchInjectables, which may include attachments.
-                CustomJacksonInjectableValues inject = buildInjectableValues(getRequestFactory, entityMeta, id, rev);
+                if (entityMeta.hasEmbeddedAttachments() && attachmentInfoMap == null) {
+                    // CouchDB writes _attachments after the document body, hold on to the entity until we
+                    // know which attachments came inline.
+                    entityBuffer = new TokenBuffer(parser);
+                    entityBuffer.copyCurrentStructure(parser);
+                } else {
+                    entity = readEntity(getRequestFactory, entityMeta, parser, id, rev, attachmentInfoMap, inlineAttachments, prefetched);
+                }
 
-                // Instantiate the entity using mapper and injectable values
-                entity = objectMapper.reader(entityClass).with(inject).readValue(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
 
+        if (entityBuffer != null) {
+            CouchAttachmentInfoMap knownInfoMap = (attachmentInfoMap == null && wholeDocument)
+                    ? new CouchAttachmentInfoMap(Collections.<String, CouchAttachmentInfo>emptyMap())
+                    : attachmentInfoMap;
+            try (JsonParser bufferParser = entityBuffer.asParser(objectMapper)) {
+                bufferParser.nextToken();
+                entity = readEntity(getRequestFactory, entityMeta, bufferParser, id, rev, knownInfoMap, inlineAttachments, prefetched);
             }
         }
 
@@ -369,32 +1106,151 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
         return new EntityDocument<>(id, rev, key, entityType, entity);
     }
 
-    protected String createJsonForWrite(String documentId, String revision, String entityType, Object entity, CouchAttachmentInfoMap attachmentInfoMap) {
-        ArgUtil.assertNotEmpty(entityType, "entityType");
-        ArgUtil.assertNotNull(entity, "entity");
+    @Override
+    public String createJsonForBulk(List<PutEntityRequest> requests) {
+        ArgUtil.assertNotNull(requests, "requests");
 
-        // TODO - is StringWriter the best choice here
         JsonFactory jsonFactory = objectMapper.getFactory();
         try {
             StringWriter writer = new StringWriter();
             try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
                 generator.writeStartObject();
-                if (documentId != null) {
-                    generator.writeStringField("_id", documentId);
+                generator.writeArrayFieldStart("docs");
+                for (PutEntityRequest request : requests) {
+                    writeEntityDocument(generator,
+                            request.getDocumentId(),
+                            request.getDocumentRevision(),
+                            request.getEntityType(),
+                            request.getEntity(),
+                            request.getAttachmentInfoMap(),
+                            request.getInlineAttachments());
                 }
-                if (revision != null) {
-                    generator.writeStringField("_rev", revision);
-                }
-                generator.writeStringField("entityType", entityType);
-                generator.writeObjectField("entity", entity);
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.flush();
+                String json = writer.toString();
 
-                // Attachment meta map.
-                if (attachmentInfoMap != null) {
-                    generator.writeObjectField("_attachments", attachmentInfoMap);
+                if (log.isDebugEnabled()) {
+                    log.debug("Bulk JSON: " + json);
                 }
 
+                return json;
+            }
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    @Override
+    public String createJsonForKeys(Collection<String> keys) {
+        ArgUtil.assertNotNull(keys, "keys");
+
+        JsonFactory jsonFactory = objectMapper.getFactory();
+        try {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("keys");
+                for (String key : keys) {
+                    generator.writeString(key);
+                }
+                generator.writeEndArray();
                 generator.writeEndObject();
                 generator.flush();
+                return writer.toString();
+            }
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    @Override
+    public String createCanonicalJson(String json) throws CouchJsonException {
+        ArgUtil.assertNotNull(json, "json");
+        try {
+            Map<?, ?> document = objectMapper.readValue(json, Map.class);
+            document.remove("_id");
+            document.remove("_rev");
+            return objectMapper.writer()
+                    .without(SerializationFeature.INDENT_OUTPUT)
+                    .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsString(document);
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    @Override
+    public List<WriteResponse> readBulkWriteResponses(URI uri, String json) throws CouchJsonException {
+        JsonFactory jsonFactory = objectMapper.getFactory();
+        try {
+            List<WriteResponse> writeResponseList = new ArrayList<>();
+            try (JsonParser parser = jsonFactory.createParser(json)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected bulk response JSON to start with an Array: " + parser.getCurrentToken());
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String id = null;
+                    String rev = null;
+                    String error = null;
+                    String reason = null;
+                    while (parser.nextToken() != JsonToken.END_OBJECT) {
+                        String name = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("id".equals(name)) {
+                            id = parser.getText();
+                        } else if ("rev".equals(name)) {
+                            rev = parser.getText();
+                        } else if ("error".equals(name)) {
+                            error = parser.getText();
+                        } else if ("reason".equals(name)) {
+                            reason = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+
+                    if (error == null) {
+                        writeResponseList.add(new WriteResponse(CouchMethodType.POST, uri, CouchHttpStatus.CREATED, CouchMediaType.APPLICATION_JSON, id, rev, null));
+                    } else {
+                        String content = new CouchErrorContent(error, reason).toJson();
+                        writeResponseList.add(new WriteResponse(CouchMethodType.POST, uri, bulkErrorStatus(error), CouchMediaType.APPLICATION_JSON, id, rev, content));
+                    }
+                }
+            }
+            return writeResponseList;
+        } catch (IOException e) {
+            throw new CouchJsonException(e);
+        }
+    }
+
+    protected CouchHttpStatus bulkErrorStatus(String error) {
+        switch (error) {
+            case "conflict":
+                return CouchHttpStatus.CONFLICT;
+            case "forbidden":
+                return CouchHttpStatus.FORBIDDEN;
+            case "unauthorized":
+                return CouchHttpStatus.UNAUTHORIZED;
+            case "not_found":
+                return CouchHttpStatus.NOT_FOUND;
+            default:
+                return CouchHttpStatus.BAD_REQUEST;
+        }
+    }
+
+    protected String createJsonForWrite(String documentId, String revision, String entityType, Object entity, CouchAttachmentInfoMap attachmentInfoMap) {
+        return createJsonForWrite(documentId, revision, entityType, entity, attachmentInfoMap, null);
+    }
+
+    protected String createJsonForWrite(String documentId, String revision, String entityType, Object entity, CouchAttachmentInfoMap attachmentInfoMap, List<CouchInlineAttachment> inlineAttachments) {
+        // TODO - is StringWriter the best choice here
+        JsonFactory jsonFactory = objectMapper.getFactory();
+        try {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                writeEntityDocument(generator, documentId, revision, entityType, entity, attachmentInfoMap, inlineAttachments);
+                generator.flush();
                 String json = writer.toString();
 
                 if (log.isDebugEnabled()) {
@@ -408,7 +1264,147 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
         }
     }
 
+    protected void writeEntityDocument(JsonGenerator generator, String documentId, String revision, String entityType, Object entity, CouchAttachmentInfoMap attachmentInfoMap) throws IOException {
+        writeEntityDocument(generator, documentId, revision, entityType, entity, attachmentInfoMap, null);
+    }
+
+    /**
+     * @param inlineAttachments - attachments written base64 encoded in _attachments, they replace any stub of the same name
+     */
+    protected void writeEntityDocument(JsonGenerator generator, String documentId, String revision, String entityType, Object entity, CouchAttachmentInfoMap attachmentInfoMap, List<CouchInlineAttachment> inlineAttachments) throws IOException {
+        ArgUtil.assertNotEmpty(entityType, "entityType");
+        ArgUtil.assertNotNull(entity, "entity");
+
+        generator.writeStartObject();
+        if (documentId != null) {
+            generator.writeStringField("_id", documentId);
+        }
+        if (revision != null) {
+            generator.writeStringField("_rev", revision);
+        }
+        generator.writeStringField("entityType", entityType);
+        generator.writeObjectField("entity", entity);
+
+        // Attachment meta map.
+        if (inlineAttachments != null && !inlineAttachments.isEmpty()) {
+            writeInlineAttachments(generator, attachmentInfoMap, inlineAttachments);
+        } else if (attachmentInfoMap != null) {
+            generator.writeObjectField("_attachments", attachmentInfoMap);
+        }
+
+        generator.writeEndObject();
+    }
+
+    protected void writeInlineAttachments(JsonGenerator generator, CouchAttachmentInfoMap attachmentInfoMap, List<CouchInlineAttachment> inlineAttachments) throws IOException {
+        Set<String> inlineNames = new HashSet<>();
+        for (CouchInlineAttachment inlineAttachment : inlineAttachments) {
+            inlineNames.add(inlineAttachment.getAttachmentName());
+        }
+
+        generator.writeObjectFieldStart("_attachments");
+        // Stubs keep the attachments we are not replacing.
+        if (attachmentInfoMap != null) {
+            for (Map.Entry<String, CouchAttachmentInfo> entry : attachmentInfoMap.entrySet()) {
+                if (!inlineNames.contains(entry.getKey())) {
+                    generator.writeObjectField(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (CouchInlineAttachment inlineAttachment : inlineAttachments) {
+            generator.writeObjectFieldStart(inlineAttachment.getAttachmentName());
+            generator.writeStringField("content_type", inlineAttachment.getContentType().getMediaString());
+            generator.writeBinaryField("data", inlineAttachment.getData());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Instantiates the entity using the mapper and injectable values, the parser is on the entity START_OBJECT.
+     */
+    protected <T> T readEntity(GetRequestFactory getRequestFactory,
+                               CouchEntityMeta<T> entityMeta,
+                               JsonParser parser,
+                               String id,
+                               String rev,
+                               CouchAttachmentInfoMap attachmentInfoMap,
+                               Map<String, Object> inlineAttachments,
+                               Map<String, CompletableFuture<GetAttachmentResponse>> prefetched) throws IOException {
+        Map<String, Object> knownAttachments = inlineAttachments;
+        if (prefetched != null && entityMeta.hasEmbeddedAttachments()) {
+            knownAttachments = new HashMap<>(inlineAttachments);
+            for (CouchEmbeddedAttachmentMeta attachmentDef : entityMeta.getEmbeddedAttachmentMetaList()) {
+                CompletableFuture<GetAttachmentResponse> future = prefetched.get(attachmentKey(id, attachmentDef.getAttachmentName()));
+                if (future != null) {
+                    knownAttachments.put(attachmentDef.getAttachmentName(), join(future).getContent());
+                }
+            }
+        }
+
+        // Create couchInjectables, which may include attachments.
+        CustomJacksonInjectableValues inject = buildInjectableValues(getRequestFactory, entityMeta, id, rev, knownAttachments, attachmentInfoMap);
+
+        return objectMapper.reader(entityMeta.getEntityClass()).with(inject).readValue(parser);
+    }
+
+    /**
+     * Reads _attachments, the content of attachments read with attachments=true is decoded into inlineAttachments
+     * (a String for text types, otherwise a byte[]).
+     */
+    protected CouchAttachmentInfoMap readAttachmentInfoMap(JsonParser parser, Map<String, Object> inlineAttachments) throws IOException {
+        JsonNode attachmentsNode = objectMapper.readTree(parser);
+        Map<String, CouchAttachmentInfo> attachmentMap = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = attachmentsNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode attachmentNode = field.getValue();
+            String contentType = attachmentNode.path("content_type").asText(null);
+            JsonNode dataNode = attachmentNode.get("data");
+            long length = attachmentNode.path("length").asLong(0);
+            if (dataNode != null) {
+                byte[] data = dataNode.binaryValue();
+                length = data.length;
+                inlineAttachments.put(field.getKey(), isTextContentType(contentType) ? new String(data, StandardCharsets.UTF_8) : data);
+            }
+            attachmentMap.put(field.getKey(), new CouchAttachmentInfo(
+                    contentType,
+                    attachmentNode.path("revpos").asInt(),
+                    attachmentNode.path("digest").asText(null),
+                    length,
+                    attachmentNode.path("stub").asBoolean(dataNode == null)));
+        }
+        return new CouchAttachmentInfoMap(attachmentMap);
+    }
+
+    private static boolean isTextContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return CouchMediaType.fromString(contentType.split(";")[0].trim()).isTextType();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    protected static String attachmentKey(String documentId, String attachmentName) {
+        return documentId + "/" + attachmentName;
+    }
+
     protected CustomJacksonInjectableValues buildInjectableValues(GetRequestFactory getRequestFactory, CouchEntityMeta<?> entityMeta, String documentId, String revision) {
+        return buildInjectableValues(getRequestFactory, entityMeta, documentId, revision, Collections.<String, Object>emptyMap(), null);
+    }
+
+    /**
+     * @param knownAttachments - attachment content already at hand (inline or prefetched) by attachment name.
+     * @param attachmentInfoMap - the document's _attachments, attachments it does not list are not fetched, null when unknown.
+     */
+    protected CustomJacksonInjectableValues buildInjectableValues(GetRequestFactory getRequestFactory,
+                                                                  CouchEntityMeta<?> entityMeta,
+                                                                  String documentId,
+                                                                  String revision,
+                                                                  Map<String, Object> knownAttachments,
+                                                                  CouchAttachmentInfoMap attachmentInfoMap) {
         CustomJacksonInjectableValues inject = new CustomJacksonInjectableValues(missingInjectableResponse, couchInjectables);
 
         // Add id if it's defined
@@ -421,13 +1417,44 @@ public class JacksonCouchJsonStrategy implements CouchJsonStrategy {
             inject.addValue(entityMeta.getRevisionName(), revision);
         }
 
-        // Add any attachments
+        // Add any attachments, those we still have to fetch are fetched concurrently.
         if (entityMeta.hasEmbeddedAttachments()) {
+            List<String> fetchNames = new ArrayList<>();
             for (CouchEmbeddedAttachmentMeta attachmentDef : entityMeta.getEmbeddedAttachmentMetaList()) {
-                GetAttachmentResponse response = getRequestFactory.attachment(documentId, revision, attachmentDef.getAttachmentName()).execute();
-                inject.addValue(attachmentDef.getAttachmentName(), response.getContent());
+                String name = attachmentDef.getAttachmentName();
+                if (knownAttachments.containsKey(name)) {
+                    inject.addValue(name, knownAttachments.get(name));
+                } else if (attachmentInfoMap != null && !attachmentInfoMap.containsAttachment(name)) {
+                    inject.addValue(name, null);
+                } else {
+                    fetchNames.add(name);
+                }
+            }
+
+            if (fetchNames.size() == 1) {
+                GetAttachmentResponse response = getRequestFactory.attachment(documentId, revision, fetchNames.get(0)).execute();
+                inject.addValue(fetchNames.get(0), response.getContent());
+            } else if (!fetchNames.isEmpty()) {
+                Map<String, CompletableFuture<GetAttachmentResponse>> futures = new LinkedHashMap<>();
+                for (String name : fetchNames) {
+                    futures.put(name, getRequestFactory.attachment(documentId, revision, name).executeAsync());
+                }
+                for (Map.Entry<String, CompletableFuture<GetAttachmentResponse>> entry : futures.entrySet()) {
+                    inject.addValue(entry.getKey(), join(entry.getValue()).getContent());
+                }
             }
         }
         return inject;
     }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jackson.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of a _changes response one at a time. Handles both the normal/longpoll response, a single
+ * object with a "results" array, and the continuous feed, one object per line with heartbeat newlines in
+ * between and a final {"last_seq":...} line. The parser (and so the underlying stream) is closed at the end.
+ */
+public final class JacksonChangeIterator<D extends CouchDocument<?>> implements CouchChangeIterator<D> {
+
+    private final JsonParser parser;
+    private final JacksonDocumentIterator.RowReader<D> docReader;
+    private CouchChange<D> nextChange;
+    private String lastSeq;
+    private boolean inResults;
+    private boolean closed;
+
+    /**
+     * @param parser - parser over the response, not yet advanced.
+     * @param docReader - reads an included doc, the parser is on its START_OBJECT.
+     */
+    public JacksonChangeIterator(JsonParser parser, JacksonDocumentIterator.RowReader<D> docReader) {
+        this.parser = parser;
+        this.docReader = docReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextChange != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            nextChange = readNextChange();
+        } catch (IOException ex) {
+            close();
+            throw new CouchJsonException(ex);
+        }
+        if (nextChange == null) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public CouchChange<D> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CouchChange<D> change = nextChange;
+        nextChange = null;
+        return change;
+    }
+
+    @Override
+    public String getLastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+
+    private CouchChange<D> readNextChange() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (inResults) {
+                if (token == JsonToken.START_OBJECT) {
+                    return readChange(parser.nextToken());
+                }
+                // END_ARRAY, the remaining fields (last_seq, pending) follow.
+                inResults = false;
+
+            } else if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+                if (token == JsonToken.FIELD_NAME && "results".equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    inResults = true;
+                    continue;
+                }
+                CouchChange<D> change = readChange(token);
+                if (change != null) {
+                    return change;
+                }
+
+            } else if (token == JsonToken.FIELD_NAME) {
+                // A field of the normal/longpoll response after the results array.
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if ("last_seq".equals(name)) {
+                    lastSeq = readSeq();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the fields of a row up to its END_OBJECT, the parser is on the first token inside the object.
+     * @return the change, or null when the object was only the last_seq of a continuous feed.
+     */
+    private CouchChange<D> readChange(JsonToken token) throws IOException {
+        String seq = null;
+        String id = null;
+        List<String> revisions = new ArrayList<>();
+        boolean deleted = false;
+        D document = null;
+        while (token == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            token = parser.nextToken();
+            if ("seq".equals(name)) {
+                seq = readSeq();
+            } else if ("id".equals(name)) {
+                id = parser.getText();
+            } else if ("changes".equals(name) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String changeName = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("rev".equals(changeName)) {
+                            revisions.add(parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } else if ("deleted".equals(name)) {
+                deleted = token == JsonToken.VALUE_TRUE;
+            } else if ("doc".equals(name) && token == JsonToken.START_OBJECT) {
+                document = docReader.readRow(parser);
+            } else if ("last_seq".equals(name)) {
+                lastSeq = readSeq();
+            } else {
+                parser.skipChildren();
+            }
+            token = parser.nextToken();
+        }
+
+        if (id == null && seq == null) {
+            return null;
+        }
+        return new CouchChange<>(seq, id, revisions, deleted, document);
+    }
+
+    /**
+     * Sequences are numbers in CouchDB 1.x and opaque strings (or arrays in BigCouch) after that.
+     */
+    private String readSeq() throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+            return parser.readValueAsTree().toString();
+        }
+        return parser.getText();
+    }
+}
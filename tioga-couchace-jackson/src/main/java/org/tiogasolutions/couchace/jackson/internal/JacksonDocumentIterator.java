@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jackson.internal;
+
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows array of a view result one row at a time, the parser must be positioned on the
+ * START_ARRAY of "rows". The parser (and so the underlying stream) is closed after the last row.
+ */
+public final class JacksonDocumentIterator<D> implements CouchDocumentIterator<D> {
+
+    public interface RowReader<D> {
+        /**
+         * Reads the row the parser is positioned on (START_OBJECT), leaving the parser on its END_OBJECT.
+         */
+        D readRow(JsonParser parser) throws IOException;
+    }
+
+    private final JsonParser parser;
+    private final RowReader<D> rowReader;
+    private D nextDocument;
+    private boolean closed;
+
+    public JacksonDocumentIterator(JsonParser parser, RowReader<D> rowReader) {
+        this.parser = parser;
+        this.rowReader = rowReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextDocument != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                nextDocument = rowReader.readRow(parser);
+                return true;
+            }
+        } catch (IOException ex) {
+            close();
+            throw new CouchJsonException(ex);
+        }
+        // End of rows, nothing more of interest follows.
+        close();
+        return false;
+    }
+
+    @Override
+    public D next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        D document = nextDocument;
+        nextDocument = null;
+        return document;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException ex) {
+            throw new CouchJsonException(ex);
+        }
+    }
+}
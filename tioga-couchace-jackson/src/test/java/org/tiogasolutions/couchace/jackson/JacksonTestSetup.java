@@ -32,6 +32,7 @@ public class JacksonTestSetup {
     public static String databaseInfoJson = readJson("database-info.json");
     public static String locationEntityDocJson = readJson("location-entity-doc.json");
     public static String viewResultsWithDocsJson = readJson("location-entity-view-with-docs.json");
+    public static String allDocsWithKeysJson = readJson("location-entity-all-docs-keys.json");
     public static String petDocJson = readJson("pet-doc.json");
     public static String petViewWithDocs = readJson("pet-view-with-docs.json");
     public static String viewWithBigDocs = readJson("view-with-big-docs.json");
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jackson.changes;
+
+import org.testng.annotations.Test;
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
+import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test
+public class ReadChangesTest {
+
+    private final JacksonCouchJsonStrategy strategy = JacksonTestSetup.strategy;
+
+    public void continuousFeedTest() {
+        String json = "{\"seq\":\"1-g1A\",\"id\":\"doc-1\",\"changes\":[{\"rev\":\"1-a\"}]}\n" +
+                "\n" +
+                "\n" +
+                "{\"seq\":\"2-g1B\",\"id\":\"doc-2\",\"changes\":[{\"rev\":\"3-c\"},{\"rev\":\"2-b\"}],\"deleted\":true}\n" +
+                "{\"last_seq\":\"2-g1B\",\"pending\":0}\n";
+        final AtomicBoolean closed = new AtomicBoolean();
+        InputStream inputStream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        CouchChangeIterator<TextDocument> iterator = strategy.streamTextChanges(inputStream);
+        assertTrue(iterator.hasNext());
+        CouchChange<TextDocument> change = iterator.next();
+        assertEquals(change.getSeq(), "1-g1A");
+        assertEquals(change.getDocumentId(), "doc-1");
+        assertEquals(change.getDocumentRevision(), "1-a");
+        assertFalse(change.isDeleted());
+        assertNull(change.getDocument());
+        assertNull(iterator.getLastSeq());
+
+        change = iterator.next();
+        assertEquals(change.getSeq(), "2-g1B");
+        assertEquals(change.getRevisions(), Arrays.asList("3-c", "2-b"));
+        assertTrue(change.isDeleted());
+
+        assertFalse(closed.get());
+        assertFalse(iterator.hasNext());
+        assertEquals(iterator.getLastSeq(), "2-g1B");
+        assertTrue(closed.get());
+    }
+
+    public void normalFeedWithDocsTest() {
+        String json = "{\"results\":[\n" +
+                "{\"seq\":5,\"id\":\"doc-1\",\"changes\":[{\"rev\":\"2-b\"}],\"doc\":{\"_id\":\"doc-1\",\"_rev\":\"2-b\",\"name\":\"one\"}},\n" +
+                "{\"seq\":7,\"id\":\"doc-2\",\"changes\":[{\"rev\":\"1-a\"}],\"doc\":{\"_id\":\"doc-2\",\"_rev\":\"1-a\",\"name\":\"two\"}}\n" +
+                "],\n" +
+                "\"last_seq\":7,\"pending\":0}";
+
+        CouchChangeIterator<TextDocument> iterator = strategy.streamTextChanges(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        CouchChange<TextDocument> change = iterator.next();
+        assertEquals(change.getSeq(), "5");
+        assertEquals(change.getDocument().getDocumentId(), "doc-1");
+        assertEquals(change.getDocument().getDocumentRevision(), "2-b");
+        assertEquals(change.getDocument().getContent(), "{\"_id\":\"doc-1\",\"_rev\":\"2-b\",\"name\":\"one\"}");
+
+        change = iterator.next();
+        assertEquals(change.getSeq(), "7");
+        assertEquals(change.getDocument().getDocumentId(), "doc-2");
+
+        assertFalse(iterator.hasNext());
+        assertEquals(iterator.getLastSeq(), "7");
+    }
+
+    public void emptyLongpollTest() {
+        String json = "{\"results\":[],\"last_seq\":\"9-x\",\"pending\":0}";
+        CouchChangeIterator<TextDocument> iterator = strategy.streamTextChanges(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(iterator.hasNext());
+        assertEquals(iterator.getLastSeq(), "9-x");
+    }
+
+}
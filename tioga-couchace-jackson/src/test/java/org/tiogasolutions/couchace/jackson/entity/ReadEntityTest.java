@@ -25,6 +25,9 @@ import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
 import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
 import org.tiogasolutions.couchace.core.api.request.GetAttachmentRequest;
 import org.tiogasolutions.couchace.core.api.request.GetRequestFactory;
+import org.tiogasolutions.couchace.core.api.response.CouchChange;
+import org.tiogasolutions.couchace.core.api.response.CouchChangeIterator;
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
 import org.tiogasolutions.couchace.core.api.response.EntityDocument;
 import org.tiogasolutions.couchace.core.api.response.GetAttachmentResponse;
 import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
@@ -32,11 +35,23 @@ import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test
 public class ReadEntityTest {
@@ -57,6 +72,9 @@ public class ReadEntityTest {
             @Override public GetAttachmentResponse execute() {
               return response;
             }
+            @Override public CompletableFuture<GetAttachmentResponse> executeAsync() {
+              return CompletableFuture.completedFuture(response);
+            }
           };
         }
       };
@@ -122,4 +140,208 @@ public class ReadEntityTest {
         assertEquals(location.getDirection(), "SOUTH");
     }
 
+    public void allDocsWithKeysTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        List<EntityDocument<LocationEntity>> entityDocuments = strategy.readEntityDocuments(getRequestFactory, entityMeta, JacksonTestSetup.allDocsWithKeysJson);
+        assertEquals(entityDocuments.size(), 4);
+
+        // Rows are in the order of the requested keys.
+        EntityDocument<LocationEntity> entityDoc = entityDocuments.get(0);
+        assertEquals(entityDoc.getDocumentId(), "3344");
+        assertEquals(entityDoc.getDocumentRevision(), "1-be5026e8a8aec25fb4eb67f8047460b3");
+        assertEquals(entityDoc.getEntity().getCity(), "Austin");
+        assertFalse(entityDoc.isNotFound());
+        assertFalse(entityDoc.isDeleted());
+
+        entityDoc = entityDocuments.get(1);
+        assertEquals(entityDoc.getDocumentId(), "9999");
+        assertTrue(entityDoc.isNotFound());
+        assertNull(entityDoc.getEntity());
+
+        entityDoc = entityDocuments.get(2);
+        assertEquals(entityDoc.getDocumentId(), "5566");
+        assertEquals(entityDoc.getDocumentRevision(), "2-9a0bd5e0c1b30dd1c7e5c0a5e9e2e6b1");
+        assertTrue(entityDoc.isDeleted());
+        assertNull(entityDoc.getEntity());
+
+        entityDoc = entityDocuments.get(3);
+        assertEquals(entityDoc.getDocumentId(), "1122");
+        assertEquals(entityDoc.getEntity().getCity(), "Toronto");
+        assertEquals(entityDoc.getEntity().getDirection(), "NORTH");
+    }
+
+    public void streamViewResultsWithDocsTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        List<EntityDocument<LocationEntity>> entityDocuments = strategy.readEntityDocuments(getRequestFactory, entityMeta, JacksonTestSetup.viewResultsWithDocsJson);
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        InputStream inputStream = new ByteArrayInputStream(JacksonTestSetup.viewResultsWithDocsJson.getBytes(StandardCharsets.UTF_8)) {
+            @Override public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        // Streamed rows match those read from the String, the stream is closed after the last row.
+        CouchDocumentIterator<EntityDocument<LocationEntity>> iterator = strategy.streamEntityDocuments(getRequestFactory, entityMeta, inputStream);
+        for (EntityDocument<LocationEntity> expected : entityDocuments) {
+            assertFalse(closed.get());
+            assertTrue(iterator.hasNext());
+            EntityDocument<LocationEntity> entityDoc = iterator.next();
+            assertEquals(entityDoc.getDocumentId(), expected.getDocumentId());
+            assertEquals(entityDoc.getDocumentRevision(), expected.getDocumentRevision());
+            assertEquals(entityDoc.getEntity().getCity(), expected.getEntity().getCity());
+        }
+        assertFalse(iterator.hasNext());
+        assertTrue(closed.get());
+    }
+
+    public void streamChangesWithDocsTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        String json = "{\"seq\":\"1-a\",\"id\":\"1122\",\"changes\":[{\"rev\":\"1-03ba856139647f1ed4694ceb1fe21751\"}],\"doc\":" + JacksonTestSetup.locationEntityDocJson + "}\n" +
+                "\n" +
+                "{\"seq\":\"2-b\",\"id\":\"1122\",\"changes\":[{\"rev\":\"2-c4\"}],\"deleted\":true,\"doc\":{\"_id\":\"1122\",\"_rev\":\"2-c4\",\"_deleted\":true}}\n";
+        InputStream inputStream = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+
+        CouchChangeIterator<EntityDocument<LocationEntity>> iterator = strategy.streamEntityChanges(getRequestFactory, entityMeta, inputStream);
+        CouchChange<EntityDocument<LocationEntity>> change = iterator.next();
+        assertEquals(change.getSeq(), "1-a");
+        assertFalse(change.isDeleted());
+        assertEquals(change.getDocument().getDocumentRevision(), "1-03ba856139647f1ed4694ceb1fe21751");
+        assertEquals(change.getDocument().getEntity().getCity(), "Toronto");
+
+        change = iterator.next();
+        assertTrue(change.isDeleted());
+        assertEquals(change.getDocument().getDocumentId(), "1122");
+        assertNull(change.getDocument().getEntity());
+        assertFalse(iterator.hasNext());
+    }
+
+    public void inlineAttachmentTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        GetRequestFactory failingRequestFactory = new GetRequestFactory(null) {
+            @Override public GetAttachmentRequest attachment(String documentId, String documentRevision, String attachmentName) {
+                throw new AssertionError("Inline attachment should not be fetched: " + attachmentName);
+            }
+        };
+
+        // As read with attachments=true, CouchDB writes _attachments after the entity.
+        String data = Base64.getEncoder().encodeToString("Inline notes".getBytes(StandardCharsets.UTF_8));
+        String json = "{\"_id\":\"1122\",\"_rev\":\"2-a1\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"}," +
+                "\"_attachments\":{\"notes\":{\"content_type\":\"text/plain\",\"revpos\":2,\"digest\":\"md5-x\",\"data\":\"" + data + "\"}}}";
+
+        EntityDocument<LocationEntity> entityDoc = strategy.readEntityDocument(failingRequestFactory, entityMeta, json);
+        assertEquals(entityDoc.getDocumentRevision(), "2-a1");
+        assertEquals(entityDoc.getEntity().getCity(), "Toronto");
+        assertEquals(entityDoc.getEntity().getNotes(), "Inline notes");
+
+        // A document without the attachment is not fetched either.
+        json = "{\"_id\":\"1122\",\"_rev\":\"2-a1\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"},\"_attachments\":{}}";
+        entityDoc = strategy.readEntityDocument(failingRequestFactory, entityMeta, json);
+        assertNull(entityDoc.getEntity().getNotes());
+
+        // Nor is one of a document read with attachments=true that has no attachments at all.
+        json = "{\"_id\":\"1122\",\"_rev\":\"2-a1\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"}}";
+        entityDoc = strategy.readEntityDocument(failingRequestFactory, entityMeta, json);
+        assertEquals(entityDoc.getEntity().getCity(), "Toronto");
+        assertNull(entityDoc.getEntity().getNotes());
+    }
+
+    public void copyEntityDocumentTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        GetRequestFactory failingRequestFactory = new GetRequestFactory(null) {
+            @Override public GetAttachmentRequest attachment(String documentId, String documentRevision, String attachmentName) {
+                throw new AssertionError("A copied attachment should not be fetched: " + attachmentName);
+            }
+        };
+        String data = Base64.getEncoder().encodeToString("Inline notes".getBytes(StandardCharsets.UTF_8));
+        String json = "{\"_id\":\"1122\",\"_rev\":\"2-a1\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"}," +
+                "\"_attachments\":{\"notes\":{\"content_type\":\"text/plain\",\"revpos\":2,\"digest\":\"md5-x\",\"data\":\"" + data + "\"}}}";
+        EntityDocument<LocationEntity> entityDoc = strategy.readEntityDocument(failingRequestFactory, entityMeta, json);
+
+        EntityDocument<LocationEntity> copy = strategy.copyEntityDocument(failingRequestFactory, entityMeta, entityDoc);
+        assertNotSame(copy.getEntity(), entityDoc.getEntity());
+        assertEquals(copy.getDocumentRevision(), "2-a1");
+        assertEquals(copy.getEntityType(), "Location");
+        assertEquals(copy.getEntity().getId(), "1122");
+        assertEquals(copy.getEntity().getRevision(), "2-a1");
+        assertEquals(copy.getEntity().getCity(), "Toronto");
+        assertEquals(copy.getEntity().getNotes(), "Inline notes");
+
+        // Changing the copy leaves the original as read.
+        copy.getEntity().setCity("Oakhurst");
+        assertEquals(entityDoc.getEntity().getCity(), "Toronto");
+    }
+
+    public void prefetchAttachmentsTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+        final AtomicInteger asyncCount = new AtomicInteger();
+        GetRequestFactory countingRequestFactory = new GetRequestFactory(null) {
+            @Override public GetAttachmentRequest attachment(String documentId, String documentRevision, String attachmentName) {
+                return new GetAttachmentRequest(null, documentId, documentRevision, attachmentName) {
+                    @Override public GetAttachmentResponse execute() {
+                        throw new AssertionError("Attachments of a page should be fetched concurrently.");
+                    }
+                    @Override public CompletableFuture<GetAttachmentResponse> executeAsync() {
+                        asyncCount.incrementAndGet();
+                        return CompletableFuture.completedFuture(new GetAttachmentResponse(URI.create("http://whatever.com"),
+                                CouchHttpStatus.OK, documentId, documentRevision, CouchMediaType.TEXT_PLAIN, "notes of " + documentId, null));
+                    }
+                };
+            }
+        };
+
+        // Every row of the page has its attachment started before the first entity is read. A whole document
+        // without _attachments has none, a view value may have left them out.
+        String json = "{\"total_rows\":3,\"offset\":0,\"rows\":[" +
+                "{\"id\":\"1122\",\"key\":\"Toronto\",\"value\":null,\"doc\":{\"_id\":\"1122\",\"_rev\":\"2-a1\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"},\"_attachments\":{\"notes\":{\"content_type\":\"text/plain\",\"stub\":true}}}}," +
+                "{\"id\":\"3344\",\"key\":\"Austin\",\"value\":null,\"doc\":{\"_id\":\"3344\",\"_rev\":\"1-b2\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"SOUTH\",\"city\":\"Austin\"}}}," +
+                "{\"id\":\"5566\",\"key\":\"Boston\",\"value\":{\"_id\":\"5566\",\"_rev\":\"1-c3\",\"entityType\":\"Location\"," +
+                "\"entity\":{\"direction\":\"EAST\",\"city\":\"Boston\"}}}]}";
+        List<EntityDocument<LocationEntity>> entityDocuments = strategy.readEntityDocuments(countingRequestFactory, entityMeta, json);
+        assertEquals(entityDocuments.size(), 3);
+        assertEquals(asyncCount.get(), 2);
+        assertEquals(entityDocuments.get(0).getEntity().getNotes(), "notes of 1122");
+        assertNull(entityDocuments.get(1).getEntity().getNotes());
+        assertEquals(entityDocuments.get(2).getEntity().getNotes(), "notes of 5566");
+
+        // The same from the raw bytes.
+        asyncCount.set(0);
+        entityDocuments = strategy.readEntityDocuments(countingRequestFactory, entityMeta, json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(entityDocuments.size(), 3);
+        assertEquals(asyncCount.get(), 2);
+        assertEquals(entityDocuments.get(2).getEntity().getCity(), "Boston");
+    }
+
+    public void readFromBytesTest() {
+        CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+
+        // Reading the raw UTF-8 body gives the same documents as reading the String.
+        EntityDocument<LocationEntity> entityDoc = strategy.readEntityDocument(getRequestFactory, entityMeta, JacksonTestSetup.locationEntityDocJson.getBytes(StandardCharsets.UTF_8));
+        assertEquals(entityDoc.getDocumentId(), "1122");
+        assertEquals(entityDoc.getDocumentRevision(), "1-03ba856139647f1ed4694ceb1fe21751");
+        assertEquals(entityDoc.getEntity().getCity(), "Toronto");
+
+        List<EntityDocument<LocationEntity>> expectedDocuments = strategy.readEntityDocuments(getRequestFactory, entityMeta, JacksonTestSetup.viewResultsWithDocsJson);
+        List<EntityDocument<LocationEntity>> entityDocuments = strategy.readEntityDocuments(getRequestFactory, entityMeta, JacksonTestSetup.viewResultsWithDocsJson.getBytes(StandardCharsets.UTF_8));
+        assertEquals(entityDocuments.size(), expectedDocuments.size());
+        for (int i = 0; i < entityDocuments.size(); i++) {
+            assertEquals(entityDocuments.get(i).getDocumentId(), expectedDocuments.get(i).getDocumentId());
+            assertEquals(entityDocuments.get(i).getDocumentRevision(), expectedDocuments.get(i).getDocumentRevision());
+            assertEquals(entityDocuments.get(i).getEntity().getCity(), expectedDocuments.get(i).getEntity().getCity());
+        }
+    }
+
+    public void readStringEntityFromBytesTest() {
+        CouchEntityMeta<String> entityMeta = new CouchEntityMeta<>("String", String.class, null, null, null, null, null, null);
+        EntityDocument<String> entityDoc = strategy.readEntityDocument(getRequestFactory, entityMeta, JacksonTestSetup.locationEntityDocJson.getBytes(StandardCharsets.UTF_8));
+        assertEquals(entityDoc.getEntity(), JacksonTestSetup.locationEntityDocJson);
+    }
+
 }
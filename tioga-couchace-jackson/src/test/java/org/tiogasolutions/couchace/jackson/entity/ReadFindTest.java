@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.jackson.entity;
+
+import org.tiogasolutions.couchace.core.api.meta.CouchEntityMeta;
+import org.tiogasolutions.couchace.core.api.meta.CouchMetaRepository;
+import org.tiogasolutions.couchace.core.api.query.CouchFindIndex;
+import org.tiogasolutions.couchace.core.api.response.CouchFindResult;
+import org.tiogasolutions.couchace.core.api.response.EntityDocument;
+import org.tiogasolutions.couchace.core.api.response.TextDocument;
+import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
+import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+@Test
+public class ReadFindTest {
+
+  private static final String FIND_JSON = "{\"docs\":[" +
+      "{\"_id\":\"1122\",\"_rev\":\"1-a\",\"entityType\":\"Location\",\"entity\":{\"direction\":\"NORTH\",\"city\":\"Toronto\"}," +
+      "\"_attachments\":{\"notes\":{\"content_type\":\"text/plain\",\"data\":\"aGVsbG8=\"}}}," +
+      "{\"_id\":\"1123\",\"_rev\":\"2-b\",\"entityType\":\"Location\",\"entity\":{\"direction\":\"SOUTH\",\"city\":\"Oakhurst\"}," +
+      "\"_attachments\":{\"notes\":{\"content_type\":\"text/plain\",\"data\":\"aGVsbG8=\"}}}" +
+      "],\"bookmark\":\"g1AAAABweJzLY\",\"warning\":\"No matching index found, create an index to optimize query time.\"}";
+
+  private final JacksonCouchJsonStrategy strategy = JacksonTestSetup.strategy;
+  private final CouchMetaRepository couchMetaRepository = new CouchMetaRepository();
+
+  public void readFindEntityDocuments() {
+    CouchEntityMeta<LocationEntity> entityMeta = couchMetaRepository.getOrCreateEntityMeta(LocationEntity.class);
+    CouchFindResult<EntityDocument<LocationEntity>> result = strategy.readFindEntityDocuments(null, entityMeta, FIND_JSON);
+
+    Assert.assertEquals(result.getBookmark(), "g1AAAABweJzLY");
+    Assert.assertTrue(result.getWarning().startsWith("No matching index"));
+    Assert.assertEquals(result.getDocuments().size(), 2);
+    EntityDocument<LocationEntity> document = result.getDocuments().get(1);
+    Assert.assertEquals(document.getDocumentId(), "1123");
+    Assert.assertEquals(document.getDocumentRevision(), "2-b");
+    Assert.assertEquals(document.getEntity().getCity(), "Oakhurst");
+    Assert.assertEquals(document.getEntity().getNotes(), "hello");
+
+    // The byte overload reads the same.
+    result = strategy.readFindEntityDocuments(null, entityMeta, FIND_JSON.getBytes(StandardCharsets.UTF_8));
+    Assert.assertEquals(result.getDocuments().get(0).getEntity().getCity(), "Toronto");
+  }
+
+  public void readFindStringEntities() {
+    CouchEntityMeta<String> entityMeta = new CouchEntityMeta<>("String", String.class, null, null, null, null, null, null);
+    CouchFindResult<EntityDocument<String>> result = strategy.readFindEntityDocuments(null, entityMeta, FIND_JSON);
+
+    // Each String entity is its own document rather than the whole response.
+    String entity = result.getDocuments().get(0).getEntity();
+    Assert.assertTrue(entity.startsWith("{\"_id\":\"1122\""));
+    Assert.assertFalse(entity.contains("1123"));
+  }
+
+  public void readFindTextDocuments() {
+    CouchFindResult<TextDocument> result = strategy.readFindTextDocuments(FIND_JSON);
+
+    Assert.assertEquals(result.getBookmark(), "g1AAAABweJzLY");
+    Assert.assertEquals(result.getDocuments().size(), 2);
+    TextDocument document = result.getDocuments().get(0);
+    Assert.assertEquals(document.getDocumentId(), "1122");
+    Assert.assertEquals(document.getDocumentRevision(), "1-a");
+    Assert.assertTrue(document.getContent().contains("\"city\":\"Toronto\""));
+  }
+
+  public void readFindIndexes() {
+    String json = "{\"total_rows\":2,\"indexes\":[" +
+        "{\"ddoc\":null,\"name\":\"_all_docs\",\"type\":\"special\",\"def\":{\"fields\":[{\"_id\":\"asc\"}]}}," +
+        "{\"ddoc\":\"_design/cities\",\"name\":\"by-name\",\"type\":\"json\",\"def\":{\"fields\":[{\"type\":\"asc\"},{\"name\":\"asc\"}]," +
+        "\"partial_filter_selector\":{\"population\":{\"$gt\":1000}}}}]}";
+    List<CouchFindIndex> indexes = strategy.readFindIndexes(json);
+
+    Assert.assertEquals(indexes.size(), 2);
+    Assert.assertNull(indexes.get(0).getDesignName());
+    Assert.assertEquals(indexes.get(0).getType(), "special");
+    CouchFindIndex index = indexes.get(1);
+    Assert.assertEquals(index.getDesignName(), "_design/cities");
+    Assert.assertEquals(index.getName(), "by-name");
+    Assert.assertEquals(index.getFields(), Arrays.asList("type", "name"));
+    Assert.assertEquals(index.getPartialFilterJson(), "{\"population\":{\"$gt\":1000}}");
+  }
+
+}
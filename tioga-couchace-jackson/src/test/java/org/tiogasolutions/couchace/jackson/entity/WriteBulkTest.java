@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jackson.entity;
+
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
+import org.tiogasolutions.couchace.core.api.response.WriteResponse;
+import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
+import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+@Test
+public class WriteBulkTest {
+
+  private final JacksonCouchJsonStrategy strategy = JacksonTestSetup.strategy;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final CityEntity city = new CityEntity("4234", "1-jflk3j4odj92p3oem1239jke0329kk345", "Oakhurst", 2829, "1) This is a city\n2)It's really cool");
+  private final LocationEntity location = new LocationEntity("1122", "1-03ba856139647f1ed4694ceb1fe21751", "North", "Toronto", "1) I don't know where this is\n2) No one really even cares.");
+
+  public void createJsonForBulk() throws Exception {
+    List<PutEntityRequest> requests = Arrays.asList(
+        new PutEntityRequest(null, location.getId(), "location", location, location.getRevision()),
+        new PutEntityRequest(null, city.getId(), "city", city, city.getRevision()));
+    String json = strategy.createJsonForBulk(requests);
+
+    // Each document in the bulk body is the same as the one written by a single put.
+    JsonNode docs = objectMapper.readTree(json).get("docs");
+    Assert.assertEquals(docs.size(), 2);
+    Assert.assertEquals(docs.get(0), objectMapper.readTree(WriteEntityTest.LOCATION_JSON_PUT));
+    Assert.assertEquals(docs.get(1), objectMapper.readTree(WriteEntityTest.CITY_JSON_PUT));
+  }
+
+  public void readBulkWriteResponses() {
+    URI uri = URI.create("http://localhost:5984/test/_bulk_docs");
+    String json = "[" +
+        "{\"ok\":true,\"id\":\"1122\",\"rev\":\"2-a0b1c2\"}," +
+        "{\"id\":\"4234\",\"error\":\"conflict\",\"reason\":\"Document update conflict.\"}," +
+        "{\"id\":\"9999\",\"error\":\"forbidden\",\"reason\":\"Not allowed\"}" +
+        "]";
+
+    List<WriteResponse> responses = strategy.readBulkWriteResponses(uri, json);
+    Assert.assertEquals(responses.size(), 3);
+
+    WriteResponse response = responses.get(0);
+    Assert.assertTrue(response.isSuccess());
+    Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.CREATED);
+    Assert.assertEquals(response.getDocumentId(), "1122");
+    Assert.assertEquals(response.getDocumentRevision(), "2-a0b1c2");
+    Assert.assertEquals(response.getUri(), uri);
+
+    response = responses.get(1);
+    Assert.assertTrue(response.isError());
+    Assert.assertTrue(response.isConflict());
+    Assert.assertEquals(response.getDocumentId(), "4234");
+    Assert.assertNull(response.getDocumentRevision());
+    Assert.assertEquals(response.getErrorContent().getError(), "conflict");
+    Assert.assertEquals(response.getErrorReason(), "Document update conflict.");
+
+    response = responses.get(2);
+    Assert.assertTrue(response.isError());
+    Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.FORBIDDEN);
+    Assert.assertEquals(response.getErrorReason(), "Not allowed");
+  }
+
+}
@@ -16,13 +16,25 @@
 
 package org.tiogasolutions.couchace.jackson.entity;
 
+import org.tiogasolutions.couchace.annotations.CouchAttachmentInfo;
+import org.tiogasolutions.couchace.annotations.CouchAttachmentInfoMap;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.api.request.CouchInlineAttachment;
 import org.tiogasolutions.couchace.core.api.request.PostEntityRequest;
 import org.tiogasolutions.couchace.core.api.request.PutEntityRequest;
 import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
 import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Test
 public class WriteEntityTest {
 
@@ -67,6 +79,26 @@ public class WriteEntityTest {
         removeLineSeparators(CITY_JSON_PUT));
   }
 
+  public void createLocationForPutWithInlineAttachments() throws Exception {
+    Map<String, CouchAttachmentInfo> stubs = new HashMap<>();
+    stubs.put("notes", new CouchAttachmentInfo("text/plain", 1, "md5-old", 12, true));
+    stubs.put("photo", new CouchAttachmentInfo("image/png", 1, "md5-photo", 3, true));
+    List<CouchInlineAttachment> inlineAttachments = Collections.singletonList(
+        new CouchInlineAttachment("notes", CouchMediaType.TEXT_PLAIN, location.getNotes().getBytes(StandardCharsets.UTF_8)));
+
+    PutEntityRequest request = new PutEntityRequest(null, location.getId(), "location", location, location.getRevision(),
+        new CouchAttachmentInfoMap(stubs), inlineAttachments);
+    JsonNode attachments = new ObjectMapper().readTree(strategy.createJsonForPut(request)).get("_attachments");
+
+    // The replaced attachment is written inline, the other is kept as a stub.
+    Assert.assertEquals(attachments.size(), 2);
+    Assert.assertEquals(attachments.get("notes").get("content_type").asText(), "text/plain");
+    Assert.assertEquals(new String(attachments.get("notes").get("data").binaryValue(), StandardCharsets.UTF_8), location.getNotes());
+    Assert.assertNull(attachments.get("notes").get("stub"));
+    Assert.assertTrue(attachments.get("photo").get("stub").asBoolean());
+    Assert.assertEquals(attachments.get("photo").get("digest").asText(), "md5-photo");
+  }
+
   public static String removeLineSeparators(String str) {
   return str.replaceAll("(\\r)?\\n", "");
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.tiogasolutions.couchace.jackson.reduce;
+
+import org.tiogasolutions.couchace.core.api.json.CouchJsonException;
+import org.tiogasolutions.couchace.core.api.query.CouchJsonKey;
+import org.tiogasolutions.couchace.core.api.response.CouchDoubleReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchLongReduction;
+import org.tiogasolutions.couchace.core.api.response.CouchStatsReduction;
+import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
+import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.*;
+
+@Test
+public class ReadReductionTest {
+
+    private JacksonCouchJsonStrategy strategy = JacksonTestSetup.strategy;
+
+    public void groupedCountTest() {
+        String json = "{\"rows\":[\n" +
+                "{\"key\":[\"north\",2014],\"value\":12},\n" +
+                "{\"key\":[\"north\", 2015],\"value\":7},\n" +
+                "{\"key\":\"south\",\"value\":3},\n" +
+                "{\"key\":{\"region\":\"east\"},\"value\":1},\n" +
+                "{\"key\":42,\"value\":5}\n" +
+                "]}";
+        CouchLongReduction reduction = strategy.readLongReduction(stream(json));
+
+        assertEquals(reduction.size(), 5);
+        assertEquals(reduction.getValues(), new long[]{12, 7, 3, 1, 5});
+        // Keys are compact JSON so they match the keys of a query.
+        assertEquals(reduction.getKey(1), new CouchJsonKey("north", 2015));
+        assertEquals(reduction.getValue(new CouchJsonKey("north", 2014), 0), 12);
+        assertEquals(reduction.getValue(new CouchJsonKey("south"), 0), 3);
+        assertEquals(reduction.getValue(new CouchJsonKey(42), 0), 5);
+        assertEquals(reduction.getKey(3).getJsonValue(), "{\"region\":\"east\"}");
+        assertEquals(reduction.indexOf(new CouchJsonKey("west")), -1);
+        assertEquals(reduction.toMap().get(new CouchJsonKey("north", 2015)), Long.valueOf(7));
+    }
+
+    public void ungroupedSumTest() {
+        CouchDoubleReduction reduction = strategy.readDoubleReduction(stream("{\"rows\":[{\"key\":null,\"value\":1042.75}]}"));
+        assertEquals(reduction.size(), 1);
+        assertNull(reduction.getKey(0));
+        assertEquals(reduction.getValue(), 1042.75);
+
+        reduction = strategy.readDoubleReduction(stream("{\"rows\":[]}"));
+        assertTrue(reduction.isEmpty());
+        assertEquals(reduction.getValue(), 0.0);
+    }
+
+    public void statsTest() {
+        String json = "{\"rows\":[" +
+                "{\"key\":\"north\",\"value\":{\"sum\":30,\"count\":4,\"min\":2,\"max\":14.5,\"sumsqr\":290.25}}," +
+                "{\"value\":{\"sumsqr\":1,\"max\":1,\"min\":1,\"count\":1,\"sum\":1},\"key\":\"south\"}" +
+                "]}";
+        CouchStatsReduction reduction = strategy.readStatsReduction(stream(json));
+
+        assertEquals(reduction.size(), 2);
+        assertEquals(reduction.getSum(0), 30.0);
+        assertEquals(reduction.getCount(0), 4);
+        assertEquals(reduction.getMin(0), 2.0);
+        assertEquals(reduction.getMax(0), 14.5);
+        assertEquals(reduction.getSumsqr(0), 290.25);
+        assertEquals(reduction.getMean(0), 7.5);
+        // The value may come before the key.
+        assertEquals(reduction.getKey(1), new CouchJsonKey("south"));
+        assertEquals(reduction.getCounts(), new long[]{4, 1});
+    }
+
+    @Test(expectedExceptions = CouchJsonException.class)
+    public void mapRowsAreRejectedTest() {
+        String json = "{\"total_rows\":1,\"offset\":0,\"rows\":[{\"id\":\"1\",\"key\":\"north\",\"value\":{\"name\":\"Oakhurst\"}}]}";
+        strategy.readLongReduction(stream(json));
+    }
+
+    public void largeGroupedReductionTest() {
+        int rowCount = 100_000;
+        StringBuilder sb = new StringBuilder("{\"rows\":[");
+        for (int i = 0; i < rowCount; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"key\":[\"day\",").append(i).append("],\"value\":").append(i % 10).append("}");
+        }
+        sb.append("]}");
+        CouchLongReduction reduction = strategy.readLongReduction(stream(sb.toString()));
+
+        assertEquals(reduction.size(), rowCount);
+        assertEquals(reduction.getTotal(), (rowCount / 10) * 45L);
+        assertEquals(reduction.getValue(new CouchJsonKey("day", 99_999), -1), 9);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
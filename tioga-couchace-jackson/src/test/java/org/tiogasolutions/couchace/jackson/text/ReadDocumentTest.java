@@ -16,11 +16,15 @@
 
 package org.tiogasolutions.couchace.jackson.text;
 
+import org.tiogasolutions.couchace.core.api.response.CouchDocumentIterator;
 import org.tiogasolutions.couchace.core.api.response.TextDocument;
 import org.tiogasolutions.couchace.jackson.JacksonCouchJsonStrategy;
 import org.tiogasolutions.couchace.jackson.JacksonTestSetup;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.testng.Assert.*;
@@ -65,4 +69,43 @@ public class ReadDocumentTest {
         assertTrue(content.contains("\"name\":\"Rocky\","), content);
     }
 
+    public void petViewWithDocsStreamTest() {
+        List<TextDocument> couchDocuments = strategy.readTextDocuments(JacksonTestSetup.petViewWithDocs);
+
+        InputStream inputStream = new ByteArrayInputStream(JacksonTestSetup.petViewWithDocs.getBytes(StandardCharsets.UTF_8));
+        try (CouchDocumentIterator<TextDocument> iterator = strategy.streamTextDocuments(inputStream)) {
+            for (TextDocument expected : couchDocuments) {
+                assertTrue(iterator.hasNext());
+                TextDocument couchDocument = iterator.next();
+                assertEquals(couchDocument.getDocumentId(), expected.getDocumentId());
+                assertEquals(couchDocument.getDocumentRevision(), expected.getDocumentRevision());
+                assertEquals(couchDocument.getContent(), expected.getContent());
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    public void petDocumentsFromBytesTest() {
+        TextDocument couchDocument = strategy.readTextDocument(JacksonTestSetup.petDocJson.getBytes(StandardCharsets.UTF_8));
+        assertEquals(couchDocument.getDocumentId(), "7889");
+        assertEquals(couchDocument.getDocumentRevision(), "1-8765");
+        assertEquals(couchDocument.getContent(), JacksonTestSetup.petDocJson);
+
+        List<TextDocument> expectedDocuments = strategy.readTextDocuments(JacksonTestSetup.petViewWithDocs);
+        List<TextDocument> couchDocuments = strategy.readTextDocuments(JacksonTestSetup.petViewWithDocs.getBytes(StandardCharsets.UTF_8));
+        assertEquals(couchDocuments.size(), expectedDocuments.size());
+        for (int i = 0; i < couchDocuments.size(); i++) {
+            assertEquals(couchDocuments.get(i).getDocumentId(), expectedDocuments.get(i).getDocumentId());
+            assertEquals(couchDocuments.get(i).getContent(), expectedDocuments.get(i).getContent());
+        }
+    }
+
+    public void canonicalJsonTest() {
+        String live = "{\"_id\":\"_design/pet\",\"_rev\":\"2-ab\",\n  \"views\": {\"byType\": {\"map\": \"function(doc) { emit(doc.type); }\"}},\n  \"language\": \"javascript\"}";
+        String local = "{\"language\":\"javascript\",\"views\":{\"byType\":{\"map\":\"function(doc) { emit(doc.type); }\"}}}";
+
+        // Same content in another field order and layout, with and without _id and _rev.
+        assertEquals(strategy.createCanonicalJson(live), local);
+        assertEquals(strategy.createCanonicalJson(local), local);
+    }
 }
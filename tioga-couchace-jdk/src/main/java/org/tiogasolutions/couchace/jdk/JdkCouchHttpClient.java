@@ -0,0 +1,568 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jdk;
+
+import org.tiogasolutions.couchace.core.api.CouchException;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.*;
+import org.tiogasolutions.couchace.core.api.response.CouchDocument;
+import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
+import org.tiogasolutions.couchace.core.internal.util.UriUtil;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * CouchHttpClient built only on the JDK's HttpURLConnection, no JAX-RS client, WebTarget or UriBuilder.
+ * The JDK keeps idle connections alive and reuses them per host (sized by the http.maxConnections
+ * system property); every response body is read fully and closed so its connection goes back to that cache.
+ */
+public class JdkCouchHttpClient implements CouchHttpClient {
+    private static final Logger log = LoggerFactory.getLogger(JdkCouchHttpClient.class);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private String baseUrl;
+    private String authorization;
+    private SSLSocketFactory sslSocketFactory;
+    private int connectTimeout;
+    private int readTimeout;
+    private volatile ExecutorService asyncExecutor;
+
+    public JdkCouchHttpClient() {
+    }
+
+    @Override
+    public void init(CouchSetup couchSetup) {
+        try {
+            // Strip any trailing slash, paths are always appended starting with one.
+            String url = couchSetup.getUrl();
+            this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+
+            if (couchSetup.getUserName() != null) {
+                String credentials = couchSetup.getUserName() + ":" + couchSetup.getPassword();
+                this.authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+            }
+            if (couchSetup.getSslSetup() != null) {
+                this.sslSocketFactory = couchSetup.getSslSetup().getSSLSocketFactory();
+            }
+            if (couchSetup.getConnectionPoolSetup() != null) {
+                this.connectTimeout = couchSetup.getConnectionPoolSetup().getConnectTimeout();
+                this.readTimeout = couchSetup.getConnectionPoolSetup().getReadTimeout();
+            }
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse createDatabase(String databaseName) {
+        try {
+            String url = buildUrl(databaseName, CouchHttpQuery.EMPTY);
+            HttpURLConnection connection = openConnection(CouchMethodType.PUT, url, CouchMediaType.APPLICATION_JSON);
+            writeContent(connection, CouchMediaType.WILDCARD, "");
+            return readResponse(connection, CouchMethodType.PUT, URI.create(url), null, false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse deleteDatabase(String databaseName) {
+        try {
+            String url = buildUrl(databaseName, CouchHttpQuery.EMPTY);
+            HttpURLConnection connection = openConnection(CouchMethodType.DELETE, url, null);
+            return readResponse(connection, CouchMethodType.DELETE, URI.create(url), null, false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse head(HttpHeadRequest request) {
+        try {
+            String url = buildUrl(request.getPath(), request.getHttpQuery());
+            if (log.isDebugEnabled()) {
+                log.debug("Head url: " + url);
+            }
+            HttpURLConnection connection = openConnection(CouchMethodType.HEAD, url, null);
+            addHeaders(connection, request);
+            return readResponse(connection, CouchMethodType.HEAD, URI.create(url), request.getDocumentId(), false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse get(HttpGetRequest request) {
+        return get(request, false);
+    }
+
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+        return get(request, true);
+    }
+
+    protected CouchHttpResponse get(HttpGetRequest request, boolean stream) {
+        try {
+            String url = buildUrl(request.getPath(), request.getHttpQuery());
+            if (log.isDebugEnabled()) {
+                log.debug("Get url: " + url);
+            }
+            HttpURLConnection connection = openConnection(CouchMethodType.GET, url, request.getAcceptType());
+            addHeaders(connection, request);
+            if (request.getIfNoneMatch() != null) {
+                connection.setRequestProperty("If-None-Match", "\"" + request.getIfNoneMatch() + "\"");
+            }
+            if (request.getRange() != null) {
+                connection.setRequestProperty("Range", request.getRange());
+            }
+            return readResponse(connection, CouchMethodType.GET, URI.create(url), request.getDocumentId(), stream);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse put(HttpPutRequest request) {
+        try {
+            String url = buildUrl(request.getPath(), request.getHttpQuery());
+            if (log.isDebugEnabled()) {
+                log.debug("Put url: " + url);
+            }
+            HttpURLConnection connection = openConnection(CouchMethodType.PUT, url, CouchMediaType.APPLICATION_JSON);
+            addHeaders(connection, request);
+            writeContent(connection, request.getContentType(), request.getContent());
+            return readResponse(connection, CouchMethodType.PUT, URI.create(url), request.getDocumentId(), false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse post(HttpPostRequest request) {
+        try {
+            String url = buildUrl(request.getPath(), request.getHttpQuery());
+            if (log.isDebugEnabled()) {
+                log.debug("POST url: " + url);
+            }
+            HttpURLConnection connection = openConnection(CouchMethodType.POST, url, CouchMediaType.APPLICATION_JSON);
+            addHeaders(connection, request);
+            writeContent(connection, CouchMediaType.APPLICATION_JSON, request.getContent());
+
+            // The id of a posted document is the last element of the Location header.
+            String location = connection.getHeaderField("Location");
+            String documentId = (location != null) ? UriUtil.lastPathElement(URI.create(location)) : null;
+            return readResponse(connection, CouchMethodType.POST, URI.create(url), documentId, false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CouchHttpResponse delete(HttpDeleteRequest request) {
+        try {
+            // To avoid deleting database with this call we ensure path is not empty.
+            if (ArgUtil.isEmpty(request.getPath())) {
+                throw CouchException.badRequest("Attempting to delete with empty path, which would delete the database so we will fail. If you really want to delete the database use the explicit deleteDatabase method.");
+            }
+
+            String url = buildUrl(request.getPath(), request.getHttpQuery());
+            if (log.isDebugEnabled()) {
+                log.debug("DELETE url: " + url);
+            }
+            HttpURLConnection connection = openConnection(CouchMethodType.DELETE, url, null);
+            addHeaders(connection, request);
+            return readResponse(connection, CouchMethodType.DELETE, URI.create(url), request.getDocumentId(), false);
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest request) {
+        return supplyAsync(() -> head(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        return supplyAsync(() -> get(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest request) {
+        return supplyAsync(() -> put(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest request) {
+        return supplyAsync(() -> post(request));
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        return supplyAsync(() -> delete(request));
+    }
+
+    @Override
+    public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
+        try {
+            // Get uriPath starting from _design
+            String uriPath = currentPageUri.getRawPath();
+            int designIndex = uriPath.indexOf("_design");
+            if (designIndex > 0) {
+                uriPath = uriPath.substring(designIndex);
+            }
+
+            StringBuilder sb = new StringBuilder(uriPath);
+            appendQueryParam(sb, "startkey", document.getKey().getJsonValue());
+            appendQueryParam(sb, "startkey_docid", document.getDocumentId());
+            appendQueryParam(sb, "skip", 1);
+            appendQueryParam(sb, "descending", reverse);
+
+            // Add any key end key.
+            String endKey = findQueryParam(currentPageUri, "endkey");
+            if (endKey != null) {
+                appendQueryParam(sb, "endkey", endKey);
+            }
+            String key = findQueryParam(currentPageUri, "key");
+            if (key != null) {
+                appendQueryParam(sb, "key", key);
+            }
+
+            return URI.create(sb.toString());
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+    }
+
+    @Override
+    public URI uri(String... paths) {
+        StringBuilder sb = new StringBuilder(baseUrl);
+        if (paths != null) {
+            for (String path : paths) {
+                if (path.startsWith("/")) {
+                    path = path.substring(1);
+                }
+                sb.append('/');
+                appendEncoded(sb, path, true);
+            }
+        }
+        return URI.create(sb.toString());
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Build the absolute url for the path, which is always relative to baseUrl and may already
+     * carry an (encoded) query string, followed by the encoded query parameters.
+     *
+     * @param path -
+     * @param httpQuery -
+     * @return String
+     */
+    protected String buildUrl(String path, CouchHttpQuery httpQuery) {
+        StringBuilder sb = new StringBuilder(baseUrl.length() + 64);
+        sb.append(baseUrl);
+        if (path != null && !path.isEmpty()) {
+            if (path.charAt(0) != '/') {
+                sb.append('/');
+            }
+            appendEncoded(sb, path, true);
+        }
+        for (CouchHttpQueryParam queryParam : httpQuery) {
+            for (Object value : queryParam.getValue()) {
+                appendQueryParam(sb, queryParam.getName(), value);
+            }
+        }
+        return sb.toString();
+    }
+
+    protected HttpURLConnection openConnection(CouchMethodType methodType, String url, CouchMediaType acceptType) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (sslSocketFactory != null && connection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+        }
+        connection.setRequestMethod(methodType.name());
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.setInstanceFollowRedirects(false);
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        if (acceptType != null) {
+            connection.setRequestProperty("Accept", acceptType.getMediaString());
+        }
+        return connection;
+    }
+
+    protected void addHeaders(HttpURLConnection connection, HttpRequest request) {
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+    }
+
+    protected void writeContent(HttpURLConnection connection, CouchMediaType contentType, Object content) throws IOException {
+        if (content instanceof File) {
+            content = ((File) content).toPath();
+        }
+        if (content instanceof Path || content instanceof FileChannel) {
+            writeFileContent(connection, contentType, content);
+            return;
+        }
+
+        byte[] bytes = null;
+        InputStream inputStream = null;
+        if (content == null) {
+            bytes = new byte[0];
+        } else if (content instanceof byte[]) {
+            bytes = (byte[]) content;
+        } else if (content instanceof InputStream) {
+            inputStream = (InputStream) content;
+        } else {
+            bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", contentType.getMediaString());
+        if (bytes != null) {
+            connection.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+        } else {
+            connection.setChunkedStreamingMode(0);
+            try (OutputStream out = connection.getOutputStream(); InputStream in = inputStream) {
+                copy(in, out);
+            }
+        }
+    }
+
+    /**
+     * A file's size is known so it is sent with a fixed length, straight from the FileChannel to the
+     * connection without reading it into the heap. A Path is opened and closed here, a FileChannel is
+     * sent from its position and left open.
+     */
+    protected void writeFileContent(HttpURLConnection connection, CouchMediaType contentType, Object content) throws IOException {
+        FileChannel channel = (content instanceof Path) ? FileChannel.open((Path) content, StandardOpenOption.READ) : (FileChannel) content;
+        try {
+            long position = channel.position();
+            long count = channel.size() - position;
+
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType.getMediaString());
+            connection.setFixedLengthStreamingMode(count);
+            try (OutputStream out = connection.getOutputStream()) {
+                WritableByteChannel target = Channels.newChannel(out);
+                while (count > 0) {
+                    long transferred = channel.transferTo(position, count, target);
+                    if (transferred <= 0) {
+                        throw new IOException("File ended before its size was sent, " + count + " bytes short.");
+                    }
+                    position += transferred;
+                    count -= transferred;
+                }
+            }
+        } finally {
+            if (content instanceof Path) {
+                channel.close();
+            }
+        }
+    }
+
+    protected CouchHttpResponse readResponse(HttpURLConnection connection, CouchMethodType methodType, URI uri, String documentId, boolean stream) throws IOException {
+        CouchHttpStatus statusCode = CouchHttpStatus.findByCode(connection.getResponseCode());
+        CouchMediaType mediaType = readMediaType(connection.getContentType());
+        String eTag = readETag(connection.getHeaderField("ETag"));
+        int contentLength = connection.getContentLength();
+
+        CouchHttpResponseBuilder builder = CouchHttpResponse.builder(methodType, uri, statusCode)
+            .setDocumentId(documentId)
+            .setEtag(eTag)
+            .setContentRange(CouchContentRange.parse(connection.getHeaderField("Content-Range")));
+
+        InputStream in = (statusCode.getCode() >= 400) ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null) {
+            // No body (HEAD, 304, etc)
+            return builder.setContent(mediaType, contentLength, null).build();
+        }
+
+        if (stream && (statusCode == CouchHttpStatus.OK || statusCode == CouchHttpStatus.PARTIAL_CONTENT)) {
+            // Leave the body unread, the caller closes it.
+            return builder.setContent(mediaType, contentLength, in).build();
+        }
+
+        byte[] bytes;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? contentLength : 1024);
+            copy(in, out);
+            bytes = out.toByteArray();
+        } finally {
+            in.close();
+        }
+
+        if (mediaType.equals(CouchMediaType.APPLICATION_JSON)) {
+            // JSON stays as raw bytes for the json strategy to parse.
+            if (eTag == null) {
+                // Like the Jersey client, look for the revision when no ETag is given (Cloudant).
+                builder.setEtag(parseRevision(new String(bytes, StandardCharsets.UTF_8)));
+            }
+            return builder.setContent(mediaType, contentLength, bytes).build();
+        } else if (mediaType.isTextType()) {
+            return builder.setContent(mediaType, contentLength, new String(bytes, StandardCharsets.UTF_8)).build();
+        } else {
+            return builder.setContent(mediaType, contentLength, bytes).build();
+        }
+    }
+
+    protected CouchMediaType readMediaType(String contentType) {
+        if (contentType == null) {
+            return CouchMediaType.APPLICATION_JSON;
+        }
+        // Drop any parameters such as charset.
+        int index = contentType.indexOf(';');
+        String mediaString = (index >= 0) ? contentType.substring(0, index) : contentType;
+        return CouchMediaType.fromString(mediaString.trim());
+    }
+
+    protected String readETag(String eTag) {
+        if (eTag != null && eTag.length() > 1 && eTag.charAt(0) == '"') {
+            // Remove enclosing quotes
+            eTag = eTag.substring(1, eTag.length() - 1);
+        }
+        return eTag;
+    }
+
+    protected String parseRevision(String json) {
+        int posA = json.indexOf("\"rev\"");
+        if (posA < 0) return null;
+
+        posA = json.indexOf(":", posA + 5);
+        if (posA < 0) return null;
+
+        posA = json.indexOf("\"", posA + 1);
+        if (posA < 0) return null;
+
+        int posB = json.indexOf("\"", posA + 1);
+        if (posB < 0) return null;
+
+        return json.substring(posA + 1, posB);
+    }
+
+    protected CompletableFuture<CouchHttpResponse> supplyAsync(Supplier<CouchHttpResponse> supplier) {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "couchace-jdk-async");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+
+    private static void appendQueryParam(StringBuilder sb, String name, Object value) {
+        sb.append(sb.indexOf("?") < 0 ? '?' : '&');
+        appendEncoded(sb, name, false);
+        sb.append('=');
+        appendEncoded(sb, String.valueOf(value), false);
+    }
+
+    private static String findQueryParam(URI uri, String name) throws UnsupportedEncodingException {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            String pairName = (index >= 0) ? pair.substring(0, index) : pair;
+            if (pairName.equals(name)) {
+                return (index >= 0) ? URLDecoder.decode(pair.substring(index + 1), "UTF-8") : "";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Percent encode value, UTF-8. A path keeps its separators, query string and existing escapes,
+     * a query value has everything but the unreserved characters encoded.
+     */
+    private static void appendEncoded(StringBuilder sb, String value, boolean path) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~'
+                || (path && "/?&=%:@!$'()*+,;".indexOf(c) >= 0)) {
+                sb.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(sb, c);
+            } else {
+                int end = (Character.isHighSurrogate(c) && i + 1 < value.length()) ? i + 2 : i + 1;
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(sb, b & 0xFF);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder sb, int b) {
+        sb.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
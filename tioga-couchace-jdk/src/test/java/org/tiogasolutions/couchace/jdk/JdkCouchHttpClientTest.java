@@ -0,0 +1,310 @@
+/*
+ * Copyright 2012 Harlan Noonkester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tiogasolutions.couchace.jdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.tiogasolutions.couchace.core.api.CouchSetup;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpQuery;
+import org.tiogasolutions.couchace.core.api.http.CouchHttpStatus;
+import org.tiogasolutions.couchace.core.api.http.CouchMediaType;
+import org.tiogasolutions.couchace.core.spi.http.*;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Runs the client against the JDK's own http server, which records the last request and answers
+ * with whatever the test asks for.
+ */
+@Test
+public class JdkCouchHttpClientTest {
+
+    private HttpServer server;
+    private JdkCouchHttpClient client;
+
+    private String requestMethod;
+    private URI requestUri;
+    private String requestBody;
+    private String requestContentType;
+    private String requestAuthorization;
+    private String requestContentLength;
+    private String requestRange;
+    private String requestTraceId;
+
+    private int responseStatus;
+    private String responseContentType;
+    private String responseETag;
+    private String responseLocation;
+    private String responseBody;
+    private String responseContentRange;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        client = new JdkCouchHttpClient();
+        client.init(new CouchSetup("http://localhost:" + server.getAddress().getPort() + "/")
+            .setUserName("admin")
+            .setPassword("secret"));
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    public void getWithQueryTest() {
+        respond(200, "application/json; charset=utf-8", "\"1-abc\"", null, "{\"_id\":\"a b\",\"_rev\":\"1-abc\"}");
+
+        CouchHttpQuery query = CouchHttpQuery.Builder()
+            .add("key", "[\"a b\",\"ü\"]")
+            .add("include_docs", true)
+            .build();
+        CouchHttpResponse response = client.get(new HttpGetRequest("/db/_design/pets/_view/byName", query, CouchMediaType.APPLICATION_JSON));
+
+        Assert.assertEquals(requestMethod, "GET");
+        Assert.assertEquals(requestUri.getRawPath(), "/db/_design/pets/_view/byName");
+        Assert.assertEquals(requestUri.getRawQuery(), "key=%5B%22a%20b%22%2C%22%C3%BC%22%5D&include_docs=true");
+        Assert.assertEquals(requestUri.getQuery(), "key=[\"a b\",\"ü\"]&include_docs=true");
+        Assert.assertEquals(requestAuthorization, "Basic YWRtaW46c2VjcmV0");
+
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.OK);
+        Assert.assertEquals(response.getContentType(), CouchMediaType.APPLICATION_JSON);
+        Assert.assertEquals(response.getEtag(), "1-abc");
+        Assert.assertEquals(response.getStringContent(), responseBody);
+    }
+
+    public void getRevisionWithoutETagTest() {
+        respond(200, "application/json", null, null, "{\"ok\":true,\"id\":\"123\",\"rev\":\"2-def\"}");
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("/db/123"));
+        Assert.assertEquals(response.getEtag(), "2-def");
+    }
+
+    public void getNotFoundTest() {
+        respond(404, "application/json", null, null, "{\"error\":\"not_found\",\"reason\":\"missing\"}");
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("/db/missing"));
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.NOT_FOUND);
+        Assert.assertEquals(response.getStringContent(), responseBody);
+    }
+
+    public void getStreamTest() throws IOException {
+        respond(200, "application/json", null, null, "{\"rows\":[]}");
+
+        CouchHttpResponse response = client.getStream(new HttpGetRequest("/db/_all_docs"));
+        try (InputStream in = response.getInputStreamContent()) {
+            Assert.assertEquals(readFully(in), responseBody);
+        }
+    }
+
+    public void getRangeTest() throws IOException {
+        respond(206, "image/png", null, null, "NG");
+        responseContentRange = "bytes 1-2/3";
+
+        HttpGetRequest request = new HttpGetRequest("/db/123/image.png", null, "123", CouchMediaType.IMAGE_PNG, null, "bytes=1-2");
+        CouchHttpResponse response = client.getStream(request);
+        Assert.assertEquals(requestRange, "bytes=1-2");
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.PARTIAL_CONTENT);
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(response.getContentRange().getStart(), 1);
+        Assert.assertEquals(response.getContentRange().getEnd(), 2);
+        Assert.assertEquals(response.getContentRange().getTotalLength(), 3);
+        try (InputStream in = response.getInputStreamContent()) {
+            Assert.assertEquals(readFully(in), "NG");
+        }
+    }
+
+    public void requestHeaderTest() {
+        respond(200, "application/json", null, null, "{}");
+
+        client.get((HttpGetRequest) new HttpGetRequest("/db/123").header("X-Trace-Id", "abc"));
+        Assert.assertEquals(requestTraceId, "abc");
+
+        client.head(new HttpHeadRequest("/db/123", null, "123"));
+        Assert.assertNull(requestTraceId);
+    }
+
+    public void getBinaryTest() {
+        respond(200, "image/png", null, null, "PNG");
+
+        CouchHttpResponse response = client.get(new HttpGetRequest("/db/123/image.png", null, CouchMediaType.IMAGE_PNG));
+        Assert.assertEquals(response.getContentType(), CouchMediaType.IMAGE_PNG);
+        Assert.assertEquals((byte[]) response.getContent(), "PNG".getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void headTest() {
+        respond(200, "application/json", "\"3-ghi\"", null, null);
+
+        CouchHttpResponse response = client.head(new HttpHeadRequest("/db/123", null, "123"));
+        Assert.assertEquals(requestMethod, "HEAD");
+        Assert.assertEquals(response.getDocumentId(), "123");
+        Assert.assertEquals(response.getEtag(), "3-ghi");
+    }
+
+    public void putTest() {
+        respond(201, "application/json", "\"1-abc\"", null, "{\"ok\":true,\"id\":\"123\",\"rev\":\"1-abc\"}");
+
+        CouchHttpQuery query = CouchHttpQuery.Builder().add("rev", "1-xyz").build();
+        CouchHttpResponse response = client.put(new HttpPutRequest("/db/123", query, "123", CouchMediaType.APPLICATION_JSON, "{\"name\":\"Fido\"}"));
+
+        Assert.assertEquals(requestMethod, "PUT");
+        Assert.assertEquals(requestUri.getRawQuery(), "rev=1-xyz");
+        Assert.assertEquals(requestContentType, "application/json");
+        Assert.assertEquals(requestBody, "{\"name\":\"Fido\"}");
+        Assert.assertEquals(response.getHttpStatus(), CouchHttpStatus.CREATED);
+        Assert.assertEquals(response.getDocumentId(), "123");
+    }
+
+    public void putPathTest() throws IOException {
+        respond(201, "application/json", "\"2-abc\"", null, "{\"ok\":true,\"id\":\"123\",\"rev\":\"2-abc\"}");
+        Path file = Files.createTempFile("couchace", ".txt");
+        try {
+            Files.write(file, "file content".getBytes(StandardCharsets.UTF_8));
+            client.put(new HttpPutRequest("/db/123/notes.txt", null, "123", CouchMediaType.TEXT_PLAIN, file));
+
+            // A file is sent with its size as the Content-Length.
+            Assert.assertEquals(requestContentType, "text/plain");
+            Assert.assertEquals(requestContentLength, "12");
+            Assert.assertEquals(requestBody, "file content");
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.position(5);
+                client.put(new HttpPutRequest("/db/123/notes.txt", null, "123", CouchMediaType.TEXT_PLAIN, channel));
+                Assert.assertEquals(requestContentLength, "7");
+                Assert.assertEquals(requestBody, "content");
+                Assert.assertTrue(channel.isOpen());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void putInputStreamTest() {
+        respond(201, "application/json", "\"2-abc\"", null, "{\"ok\":true,\"id\":\"123\",\"rev\":\"2-abc\"}");
+
+        // A stream of unknown length is chunked.
+        InputStream in = new ByteArrayInputStream("streamed".getBytes(StandardCharsets.UTF_8));
+        client.put(new HttpPutRequest("/db/123/notes.txt", null, "123", CouchMediaType.TEXT_PLAIN, in));
+        Assert.assertNull(requestContentLength);
+        Assert.assertEquals(requestBody, "streamed");
+    }
+
+    public void postTest() {
+        respond(201, "application/json", "\"1-abc\"", "http://localhost/db/generated", "{\"ok\":true,\"id\":\"generated\",\"rev\":\"1-abc\"}");
+
+        CouchHttpResponse response = client.post(new HttpPostRequest("/db", "{\"name\":\"Rex\"}"));
+
+        Assert.assertEquals(requestMethod, "POST");
+        Assert.assertEquals(requestContentType, "application/json");
+        Assert.assertEquals(requestBody, "{\"name\":\"Rex\"}");
+        Assert.assertEquals(response.getDocumentId(), "generated");
+    }
+
+    public void pathWithQueryTest() {
+        respond(200, "application/json", null, null, "{\"rows\":[]}");
+
+        CouchHttpQuery query = CouchHttpQuery.Builder().add("include_docs", true).build();
+        client.get(new HttpGetRequest("/db/_all_docs?startkey=%22_design/%22&endkey=%22_design0%22", query));
+
+        Assert.assertEquals(requestUri.getRawQuery(), "startkey=%22_design/%22&endkey=%22_design0%22&include_docs=true");
+    }
+
+    public void getAsyncTest() throws Exception {
+        respond(200, "application/json", null, null, "{\"db_name\":\"db\"}");
+
+        CouchHttpResponse response = client.getAsync(new HttpGetRequest("/db")).get();
+        Assert.assertEquals(response.getStringContent(), responseBody);
+    }
+
+    public void uriTest() {
+        URI uri = client.uri("db", "_design/pets");
+        Assert.assertEquals(uri.toString(), client.getBaseUrl() + "/db/_design/pets");
+    }
+
+    private synchronized void respond(int status, String contentType, String eTag, String location, String body) {
+        this.responseStatus = status;
+        this.responseContentType = contentType;
+        this.responseETag = eTag;
+        this.responseLocation = location;
+        this.responseBody = body;
+        this.responseContentRange = null;
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        requestMethod = exchange.getRequestMethod();
+        requestUri = exchange.getRequestURI();
+        requestContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        requestAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+        requestContentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        requestRange = exchange.getRequestHeaders().getFirst("Range");
+        requestTraceId = exchange.getRequestHeaders().getFirst("X-Trace-Id");
+        try (InputStream in = exchange.getRequestBody()) {
+            requestBody = readFully(in);
+        }
+
+        if (responseContentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", responseContentType);
+        }
+        if (responseETag != null) {
+            exchange.getResponseHeaders().set("ETag", responseETag);
+        }
+        if (responseLocation != null) {
+            exchange.getResponseHeaders().set("Location", responseLocation);
+        }
+        if (responseContentRange != null) {
+            exchange.getResponseHeaders().set("Content-Range", responseContentRange);
+        }
+        if (responseBody == null || "HEAD".equals(requestMethod)) {
+            exchange.sendResponseHeaders(responseStatus, -1);
+        } else {
+            byte[] bytes = responseBody.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseStatus, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
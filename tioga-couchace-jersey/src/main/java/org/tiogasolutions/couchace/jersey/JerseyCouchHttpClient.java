@@ -22,6 +22,19 @@ import org.tiogasolutions.couchace.core.api.http.*;
 import org.tiogasolutions.couchace.core.api.response.CouchDocument;
 import org.tiogasolutions.couchace.core.internal.util.ArgUtil;
 import org.tiogasolutions.couchace.core.internal.util.UriUtil;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.glassfish.jersey.uri.UriComponent;
 import org.slf4j.Logger;
@@ -31,28 +44,45 @@ import org.tiogasolutions.couchace.core.spi.http.*;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.*;
+import java.io.FilterInputStream;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * User: harlan
  * Date: 2/3/14
  * Time: 10:31 PM
  */
-public class JerseyCouchHttpClient implements CouchHttpClient {
+public class JerseyCouchHttpClient implements CouchHttpClient, AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(JerseyCouchHttpClient.class);
     private Client client;
     private String baseUrl;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private ScheduledExecutorService idleConnectionEvictor;
 
     public JerseyCouchHttpClient() {
     }
 
     @Override
     public void init(CouchSetup couchSetup) {
+        // Init again replaces the client, so release the one before.
+        close();
         try {
             // Build the client
             ClientBuilder clientBuilder = ClientBuilder.newBuilder();
@@ -60,6 +90,10 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
                 // Using SSL set assign context.
                 clientBuilder.sslContext(couchSetup.getSslSetup().getSSLContext());
             }
+            if (couchSetup.getConnectionPoolSetup() != null) {
+                // Pooled connections, reused between requests.
+                clientBuilder.withConfig(newPooledClientConfig(couchSetup));
+            }
             client = clientBuilder.build();
 
             // If we have authentication set the auth filter.
@@ -75,6 +109,85 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
         }
     }
 
+    /**
+     * Config for the Apache connector backed by a pooled connection manager. The connection manager
+     * builds its own sockets so the SSLContext is given to it directly.
+     *
+     * @param couchSetup -
+     * @return ClientConfig
+     */
+    protected ClientConfig newPooledClientConfig(CouchSetup couchSetup) {
+        ConnectionPoolSetup poolSetup = couchSetup.getConnectionPoolSetup();
+
+        SSLConnectionSocketFactory sslSocketFactory = (couchSetup.getSslSetup() != null)
+            ? new SSLConnectionSocketFactory(couchSetup.getSslSetup().getSSLContext())
+            : SSLConnectionSocketFactory.getSocketFactory();
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build();
+
+        long timeToLive = (poolSetup.getKeepAlive() > 0) ? poolSetup.getKeepAlive() : -1;
+        connectionManager = new PoolingHttpClientConnectionManager(
+            socketFactoryRegistry, null, null, null, timeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(poolSetup.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(poolSetup.getMaxPerRoute());
+        if (poolSetup.getIdleTimeout() > 0) {
+            // Check a connection that sat idle before handing it out, then evict idle ones in the background.
+            connectionManager.setValidateAfterInactivity((int) Math.min(poolSetup.getIdleTimeout(), Integer.MAX_VALUE));
+            startIdleConnectionEvictor(connectionManager, poolSetup.getIdleTimeout());
+        }
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(poolSetup.getConnectTimeout())
+            .setSocketTimeout(poolSetup.getReadTimeout())
+            .setConnectionRequestTimeout(poolSetup.getPoolTimeout())
+            .build();
+
+        return new ClientConfig()
+            .connectorProvider(new ApacheConnectorProvider())
+            .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+            .property(ApacheClientProperties.REQUEST_CONFIG, requestConfig)
+            .property(ClientProperties.CONNECT_TIMEOUT, poolSetup.getConnectTimeout())
+            .property(ClientProperties.READ_TIMEOUT, poolSetup.getReadTimeout())
+            // Send a Content-Length rather than chunking request bodies, as the default connector does.
+            .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED);
+    }
+
+    protected void startIdleConnectionEvictor(final HttpClientConnectionManager connectionManager, final long idleTimeout) {
+        if (idleConnectionEvictor == null) {
+            idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "couchace-idle-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long period = Math.max(idleTimeout / 2, 1000);
+        idleConnectionEvictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the idle connection evictor and closes the client along with its pooled connections.
+     */
+    @Override
+    public void close() {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdownNow();
+            idleConnectionEvictor = null;
+        }
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+            connectionManager = null;
+        }
+    }
+
     @Override
     public CouchHttpResponse createDatabase(String databaseName) {
         try {
@@ -129,7 +242,7 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
     public CouchHttpResponse head(HttpHeadRequest request) {
         try {
             WebTarget webTarget = newWebTarget(request);
-            Response headResponse = webTarget.request().head();
+            Response headResponse = withHeaders(webTarget.request(), request).head();
 
             URI uri = webTarget.getUri();
             if (log.isDebugEnabled()) {
@@ -149,7 +262,7 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
         try {
             WebTarget webTarget = newWebTarget(request);
             MediaType acceptType = (request.getAcceptType() != null) ? MediaType.valueOf(request.getAcceptType().getMediaString()) : null;
-            Response getResponse = webTarget.request(acceptType).get();
+            Response getResponse = newGetInvocation(webTarget, acceptType, request).get();
 
             URI uri = webTarget.getUri();
             if (log.isDebugEnabled()) {
@@ -163,25 +276,79 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
 
     }
 
+    protected Invocation.Builder withHeaders(Invocation.Builder builder, HttpRequest request) {
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        return builder;
+    }
+
+    protected Invocation.Builder newGetInvocation(WebTarget webTarget, MediaType acceptType, HttpGetRequest request) {
+        Invocation.Builder builder = withHeaders(webTarget.request(acceptType), request);
+        if (request.getIfNoneMatch() != null) {
+            builder.header("If-None-Match", "\"" + request.getIfNoneMatch() + "\"");
+        }
+        if (request.getRange() != null) {
+            builder.header("Range", request.getRange());
+        }
+        return builder;
+    }
+
+    @Override
+    public CouchHttpResponse getStream(HttpGetRequest request) {
+
+        try {
+            WebTarget webTarget = newWebTarget(request);
+            MediaType acceptType = (request.getAcceptType() != null) ? MediaType.valueOf(request.getAcceptType().getMediaString()) : null;
+            Response getResponse = newGetInvocation(webTarget, acceptType, request).get();
+
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Get stream url: " + uri.toString());
+            }
+
+            CouchHttpStatus statusCode = CouchHttpStatus.findByCode(getResponse.getStatus());
+            if (statusCode != CouchHttpStatus.OK && statusCode != CouchHttpStatus.PARTIAL_CONTENT) {
+                // Error content is small, read it as usual.
+                return buildCouchResponse(request, uri, getResponse, request.getDocumentId());
+            }
+
+            // Leave the body unread, the connection is released when the stream is closed.
+            CouchMediaType mediaType = (getResponse.getMediaType() != null)
+                ? CouchMediaType.fromString(getResponse.getMediaType().toString())
+                : CouchMediaType.APPLICATION_JSON;
+            return CouchHttpResponse.builder(request.getMethodType(), uri, statusCode)
+                .setDocumentId(request.getDocumentId())
+                .setEtag(getETag(getResponse, null))
+                .setContentRange(CouchContentRange.parse(getResponse.getHeaderString("Content-Range")))
+                .setContent(mediaType, getResponse.getLength(), getResponse.readEntity(InputStream.class))
+                .build();
+        } catch (Throwable ex) {
+            throw CouchHttpException.internalServerError(ex);
+        }
+
+    }
+
     @Override
     public CouchHttpResponse put(HttpPutRequest request) {
         try {
             MediaType contentType = MediaType.valueOf(request.getContentType().getMediaString());
-
-            // Jersey does not allow entity value to be null.
-            Object content = request.getContent() != null ? request.getContent() : "";
-            Entity entity = Entity.entity(content, contentType);
+            Entity entity = newPutEntity(request, contentType);
             WebTarget webTarget = newWebTarget(request.getPath());
             for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
                 webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
             }
+            if (request.isStreamContent()) {
+                // Stream it, rather than the pooled config's buffering of the whole body for a Content-Length.
+                webTarget.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
+            }
 
             URI uri = webTarget.getUri();
             if (log.isDebugEnabled()) {
                 log.debug("Put url: " + uri.toString());
             }
 
-            Response putResponse = webTarget.request(MediaType.APPLICATION_JSON_TYPE)
+            Response putResponse = withHeaders(webTarget.request(MediaType.APPLICATION_JSON_TYPE), request)
                 .header("Content-Type", contentType)
                 .put(entity);
 
@@ -191,6 +358,28 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
         }
     }
 
+    /**
+     * A Path is sent as a File and a FileChannel as a stream over it, both without reading them into the heap.
+     * The FileChannel is left open.
+     */
+    protected Entity newPutEntity(HttpPutRequest request, MediaType contentType) {
+        Object content = request.getContent();
+        if (content == null) {
+            // Jersey does not allow entity value to be null.
+            content = "";
+        } else if (content instanceof Path) {
+            content = ((Path) content).toFile();
+        } else if (content instanceof FileChannel) {
+            content = new FilterInputStream(Channels.newInputStream((FileChannel) content)) {
+                @Override
+                public void close() {
+                    // Jersey closes the stream it writes, the channel belongs to the caller.
+                }
+            };
+        }
+        return Entity.entity(content, contentType);
+    }
+
     @Override
     public CouchHttpResponse post(HttpPostRequest request) {
 
@@ -202,8 +391,7 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
                 webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
             }
 
-            Response postResponse = webTarget
-              .request(MediaType.APPLICATION_JSON_TYPE)
+            Response postResponse = withHeaders(webTarget.request(MediaType.APPLICATION_JSON_TYPE), request)
               .post(entity);
 
             URI uri = webTarget.getUri();
@@ -233,7 +421,7 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
             for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
                 webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
             }
-            Response deleteResponse = webTarget.request().delete();
+            Response deleteResponse = withHeaders(webTarget.request(), request).delete();
 
             URI uri = webTarget.getUri();
             if (log.isDebugEnabled()) {
@@ -247,6 +435,125 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
         }
     }
 
+    @Override
+    public CompletableFuture<CouchHttpResponse> headAsync(HttpHeadRequest request) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        try {
+            WebTarget webTarget = newWebTarget(request);
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Async head url: " + uri.toString());
+            }
+
+            // AsyncInvoker has no head(callback) so use the generic method.
+            withHeaders(webTarget.request(), request).async()
+                .method("HEAD", new CouchResponseCallback(future, request, uri, response -> request.getDocumentId()));
+        } catch (Throwable ex) {
+            future.completeExceptionally(CouchHttpException.internalServerError(ex));
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> getAsync(HttpGetRequest request) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        try {
+            WebTarget webTarget = newWebTarget(request);
+            MediaType acceptType = (request.getAcceptType() != null) ? MediaType.valueOf(request.getAcceptType().getMediaString()) : null;
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Async get url: " + uri.toString());
+            }
+
+            newGetInvocation(webTarget, acceptType, request).async()
+                .get(new CouchResponseCallback(future, request, uri, response -> request.getDocumentId()));
+        } catch (Throwable ex) {
+            future.completeExceptionally(CouchHttpException.internalServerError(ex));
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> putAsync(HttpPutRequest request) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        try {
+            MediaType contentType = MediaType.valueOf(request.getContentType().getMediaString());
+            Entity entity = newPutEntity(request, contentType);
+            WebTarget webTarget = newWebTarget(request.getPath());
+            for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
+                webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
+            }
+            if (request.isStreamContent()) {
+                // Stream it, rather than the pooled config's buffering of the whole body for a Content-Length.
+                webTarget.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
+            }
+
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Async put url: " + uri.toString());
+            }
+
+            withHeaders(webTarget.request(MediaType.APPLICATION_JSON_TYPE), request)
+                .header("Content-Type", contentType)
+                .async()
+                .put(entity, new CouchResponseCallback(future, request, uri, response -> request.getDocumentId()));
+        } catch (Throwable ex) {
+            future.completeExceptionally(CouchHttpException.internalServerError(ex));
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> postAsync(HttpPostRequest request) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        try {
+            Entity entity = Entity.json(request.getContent());
+            WebTarget webTarget = newWebTarget(request.getPath());
+            for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
+                webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
+            }
+
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Async POST url: " + uri.toString());
+            }
+
+            withHeaders(webTarget.request(MediaType.APPLICATION_JSON_TYPE), request)
+                .async()
+                .post(entity, new CouchResponseCallback(future, request, uri, response -> UriUtil.lastPathElement(response.getLocation())));
+        } catch (Throwable ex) {
+            future.completeExceptionally(CouchHttpException.internalServerError(ex));
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<CouchHttpResponse> deleteAsync(HttpDeleteRequest request) {
+        CompletableFuture<CouchHttpResponse> future = new CompletableFuture<>();
+        try {
+            // To avoid deleting database with this call we ensure path is not empty.
+            if (ArgUtil.isEmpty(request.getPath())) {
+                throw CouchException.badRequest("Attempting to delete with empty path, which would delete the database so we will fail. If you really want to delete the database use the explicit deleteDatabase method.");
+            }
+
+            WebTarget webTarget = newWebTarget(request.getPath());
+            for (CouchHttpQueryParam queryParam : request.getHttpQuery()) {
+                webTarget = webTarget.queryParam(queryParam.getName(), queryParam.getValue());
+            }
+
+            URI uri = webTarget.getUri();
+            if (log.isDebugEnabled()) {
+                log.debug("Async DELETE url: " + uri.toString());
+            }
+
+            withHeaders(webTarget.request(), request).async()
+                .delete(new CouchResponseCallback(future, request, uri, response -> request.getDocumentId()));
+        } catch (Throwable ex) {
+            future.completeExceptionally(CouchHttpException.internalServerError(ex));
+        }
+        return future;
+    }
+
     @Override
     public URI pageUri(URI currentPageUri, CouchDocument document, boolean reverse) {
 
@@ -352,6 +659,15 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
       return json.substring(posA+1, posB);
     }
 
+    protected String getJsonETag(Response response, byte[] json) {
+      // Only decode the body when there is no ETag header to use.
+      String eTag = getETag(response, null);
+      if (eTag == null && json != null) {
+        eTag = parseRevision(new String(json, StandardCharsets.UTF_8));
+      }
+      return eTag;
+    }
+
     protected String getETag(Response response, String json) {
 
       String eTag = null;
@@ -371,7 +687,7 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
           eTag = eTag.substring(1, eTag.length() - 1);
       }
 
-      if (eTag == null && response.getMediaType().equals(MediaType.APPLICATION_JSON_TYPE)) {
+      if (eTag == null && MediaType.APPLICATION_JSON_TYPE.equals(response.getMediaType())) {
         // HACK, HACK, HACK...
         eTag = parseRevision(json);
       }
@@ -382,12 +698,25 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
     protected CouchHttpResponse buildCouchResponse(HttpRequest request, URI uri, Response response, String documentId) {
         CouchHttpStatus statusCode = CouchHttpStatus.findByCode(response.getStatus());
 
-        CouchMediaType mediaType = CouchMediaType.fromString(response.getMediaType().toString());
+        CouchMediaType mediaType = (response.getMediaType() != null)
+            ? CouchMediaType.fromString(response.getMediaType().toString())
+            : CouchMediaType.APPLICATION_JSON;
 
         String eTag;
         Object content;
 
-        if (mediaType.isTextType()) {
+        if (statusCode == CouchHttpStatus.NOT_MODIFIED) {
+            // Revalidated with If-None-Match, there is no body.
+            eTag = getETag(response, null);
+            content = null;
+
+        } else if (mediaType.equals(CouchMediaType.APPLICATION_JSON)) {
+            // Keep JSON as raw bytes, the json strategy parses them without decoding to a String first.
+            byte[] bytes = response.readEntity(byte[].class);
+            eTag = getJsonETag(response, bytes);
+            content = bytes;
+
+        } else if (mediaType.isTextType()) {
             String text = response.readEntity(String.class);
             eTag = getETag(response, text);
             content = text;
@@ -402,7 +731,39 @@ public class JerseyCouchHttpClient implements CouchHttpClient {
         return CouchHttpResponse.builder(request.getMethodType(), uri, statusCode)
             .setDocumentId(documentId)
             .setEtag(eTag)
+            .setContentRange(CouchContentRange.parse(response.getHeaderString("Content-Range")))
             .setContent(mediaType, contentLength, content)
             .build();
     }
+
+    /**
+     * Completes the future with the CouchHttpResponse built from Jersey's response, this runs on Jersey's async executor.
+     */
+    protected class CouchResponseCallback implements InvocationCallback<Response> {
+        private final CompletableFuture<CouchHttpResponse> future;
+        private final HttpRequest request;
+        private final URI uri;
+        private final Function<Response, String> documentIdReader;
+
+        public CouchResponseCallback(CompletableFuture<CouchHttpResponse> future, HttpRequest request, URI uri, Function<Response, String> documentIdReader) {
+            this.future = future;
+            this.request = request;
+            this.uri = uri;
+            this.documentIdReader = documentIdReader;
+        }
+
+        @Override
+        public void completed(Response response) {
+            try {
+                future.complete(buildCouchResponse(request, uri, response, documentIdReader.apply(response)));
+            } catch (Throwable ex) {
+                future.completeExceptionally(CouchHttpException.internalServerError(ex));
+            }
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            future.completeExceptionally(CouchHttpException.internalServerError(throwable));
+        }
+    }
 }